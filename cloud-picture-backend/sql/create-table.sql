@@ -131,3 +131,117 @@ CREATE TABLE IF NOT EXISTS picture_like (
 ) COMMENT='图片点赞表' COLLATE = utf8mb4_unicode_ci;
 
 
+-- 游标分页索引：公共图库按 spaceId、reviewStatus 过滤后，可直接沿 createTime、id 顺序扫描
+CREATE INDEX idx_spaceId_reviewStatus_createTime ON picture (spaceId, reviewStatus, createTime, id);
+
+-- 图片全文检索倒排索引（名称、简介按单字和双字切分）
+CREATE TABLE IF NOT EXISTS picture_search_token (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键',
+    pictureId BIGINT NOT NULL COMMENT '图片ID',
+    spaceId BIGINT NULL COMMENT '空间ID（为空表示公共图库）',
+    field VARCHAR(32) NOT NULL COMMENT '字段：name / introduction',
+    token VARCHAR(8) NOT NULL COMMENT '词（单字或双字）',
+    weight INT DEFAULT 1 NOT NULL COMMENT '权重（出现次数 * 字段权重）',
+    INDEX idx_token_spaceId (token, spaceId, field, pictureId),
+    INDEX idx_pictureId_field (pictureId, field)
+) COMMENT='图片全文检索倒排索引' COLLATE = utf8mb4_unicode_ci;
+
+-- 图片标签字典
+CREATE TABLE IF NOT EXISTS picture_tag (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键',
+    tagName VARCHAR(64) NOT NULL COMMENT '标签名称',
+    createTime DATETIME DEFAULT CURRENT_TIMESTAMP NOT NULL COMMENT '创建时间',
+    UNIQUE KEY uk_tagName (tagName)
+) COMMENT='图片标签字典' COLLATE = utf8mb4_unicode_ci;
+
+-- 图片标签关联（按空间和标签加载为图片 id 位图）
+CREATE TABLE IF NOT EXISTS picture_tag_relation (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键',
+    tagId BIGINT NOT NULL COMMENT '标签ID',
+    pictureId BIGINT NOT NULL COMMENT '图片ID',
+    spaceId BIGINT NULL COMMENT '空间ID（为空表示公共图库）',
+    INDEX idx_spaceId_tagId (spaceId, tagId, pictureId),
+    INDEX idx_tagId (tagId, pictureId),
+    INDEX idx_pictureId (pictureId)
+) COMMENT='图片标签关联' COLLATE = utf8mb4_unicode_ci;
+
+
+-- 图片浏览次数（由计数缓冲批量落库，独立访客数保存在 Redis HyperLogLog 中）
+ALTER TABLE picture
+    ADD COLUMN viewCount INT DEFAULT 0 NOT NULL COMMENT '浏览次数' AFTER likeCount;
+
+-- 空间额度的分片计数行：上传、删除图片时随机累加到其中一行，避免并发写入都争抢 space 表中的同一行；
+-- 读取时与 space.totalSize / totalCount 相加，定时任务再把累计值合并回 space 表
+CREATE TABLE IF NOT EXISTS space_usage_slot (
+    spaceId BIGINT NOT NULL COMMENT '空间ID',
+    slot INT NOT NULL COMMENT '分片序号',
+    totalSize BIGINT DEFAULT 0 NOT NULL COMMENT '尚未合并的图片总大小增量',
+    totalCount BIGINT DEFAULT 0 NOT NULL COMMENT '尚未合并的图片数量增量',
+    PRIMARY KEY (spaceId, slot)
+) COMMENT='空间额度分片计数' COLLATE = utf8mb4_unicode_ci;
+
+-- 同一用户每种类型只能有一个未删除的空间：逻辑删除的行 activeSpaceType 为 NULL，不参与唯一约束，删除后可以重新创建
+-- 加唯一约束前先清理已存在的重复空间：每个用户每种类型保留最早创建（id 最小）的空间，其余逻辑删除（数据仍在表中，可以人工恢复或迁移）
+UPDATE space s
+    JOIN (SELECT userId, spaceType, MIN(id) AS keepId
+          FROM space
+          WHERE isDelete = 0
+          GROUP BY userId, spaceType
+          HAVING COUNT(*) > 1) d ON s.userId = d.userId AND s.spaceType = d.spaceType
+SET s.isDelete = 1
+WHERE s.isDelete = 0 AND s.id <> d.keepId;
+
+ALTER TABLE space
+    ADD COLUMN activeSpaceType INT AS (IF(isDelete = 0, spaceType, NULL)) VIRTUAL COMMENT '未删除空间的类型（用于唯一约束）',
+    ADD UNIQUE KEY uk_userId_activeSpaceType (userId, activeSpaceType);
+
+-- 空间状态：删除空间改为后台分批级联删除，删除期间空间处于“删除中”状态
+ALTER TABLE space
+    ADD COLUMN status INT DEFAULT 0 NOT NULL COMMENT '空间状态：0-正常 1-删除中' AFTER spaceType;
+
+-- 空间级联删除任务（记录进度和断点，进程崩溃后从断点继续）
+CREATE TABLE IF NOT EXISTS space_delete_task (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键',
+    spaceId BIGINT NOT NULL COMMENT '空间ID',
+    userId BIGINT NOT NULL COMMENT '发起删除的用户ID',
+    status INT DEFAULT 0 NOT NULL COMMENT '任务状态：0-进行中 1-已完成',
+    totalCount BIGINT DEFAULT 0 NOT NULL COMMENT '待删除的图片总数（发起时统计）',
+    deletedCount BIGINT DEFAULT 0 NOT NULL COMMENT '已删除的图片数',
+    lastPictureId BIGINT DEFAULT 0 NOT NULL COMMENT '断点：已删除的最大图片ID',
+    errorMessage VARCHAR(512) NULL COMMENT '最近一次失败的原因',
+    createTime DATETIME DEFAULT CURRENT_TIMESTAMP NOT NULL COMMENT '创建时间',
+    updateTime DATETIME DEFAULT CURRENT_TIMESTAMP NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_spaceId (spaceId),
+    INDEX idx_status_updateTime (status, updateTime)
+) COMMENT='空间级联删除任务' COLLATE = utf8mb4_unicode_ci;
+
+-- 批量删除空间图片时按 url 判断文件是否仍被其他图片引用（url IN (...) AND id NOT IN (...)），url 较长，使用前缀索引
+CREATE INDEX idx_url ON picture (url(191));
+
+-- 图片文件的内容哈希索引：相同内容的图片共用对象存储中的同一份文件（原图处理后的压缩图和缩略图），
+-- refCount 为引用该文件的图片记录数，减到 0 时才删除文件
+CREATE TABLE IF NOT EXISTS picture_file (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键',
+    sha256 CHAR(64) NOT NULL COMMENT '原始文件内容的 SHA-256',
+    url VARCHAR(512) NOT NULL COMMENT '图片 url',
+    thumbnailUrl VARCHAR(512) NULL COMMENT '缩略图 url',
+    picSize BIGINT NULL COMMENT '图片体积',
+    picWidth INT NULL COMMENT '图片宽度',
+    picHeight INT NULL COMMENT '图片高度',
+    picScale DOUBLE NULL COMMENT '图片宽高比例',
+    picFormat VARCHAR(32) NULL COMMENT '图片格式',
+    picColor VARCHAR(16) NULL COMMENT '图片主色调',
+    refCount BIGINT DEFAULT 1 NOT NULL COMMENT '引用该文件的图片数',
+    createTime DATETIME DEFAULT CURRENT_TIMESTAMP NOT NULL COMMENT '创建时间',
+    updateTime DATETIME DEFAULT CURRENT_TIMESTAMP NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_sha256 (sha256),
+    UNIQUE KEY uk_url (url)
+) COMMENT='图片文件内容哈希索引' COLLATE = utf8mb4_unicode_ci;
+
+-- 图片计数器已落库的批次：与计数更新在同一个事务中写入，落库后清理 Redis 快照失败时，
+-- 下次按批次号判断是否已经落库，避免同一批增量被重复累加
+CREATE TABLE IF NOT EXISTS picture_counter_flush (
+    batchId VARCHAR(64) NOT NULL PRIMARY KEY COMMENT '批次号',
+    createTime DATETIME DEFAULT CURRENT_TIMESTAMP NOT NULL COMMENT '创建时间',
+    INDEX idx_createTime (createTime)
+) COMMENT='图片计数器已落库批次' COLLATE = utf8mb4_unicode_ci;
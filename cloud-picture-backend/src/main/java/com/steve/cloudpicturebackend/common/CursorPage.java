@@ -0,0 +1,45 @@
+package com.steve.cloudpicturebackend.common;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 通用的游标分页结果（不统计总数）
+ *
+ * @param <T>
+ */
+@Data
+public class CursorPage<T> implements Serializable {
+
+    /**
+     * 当前页数据
+     */
+    private List<T> records = new ArrayList<>();
+
+    /**
+     * 页面大小
+     */
+    private long size;
+
+    /**
+     * 下一页游标，为空表示没有更多数据
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有下一页
+     */
+    private boolean hasMore;
+
+    private static final long serialVersionUID = 1L;
+
+    public CursorPage() {
+    }
+
+    public CursorPage(long size) {
+        this.size = size;
+    }
+}
@@ -0,0 +1,34 @@
+package com.steve.cloudpicturebackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 本地文件系统存储配置（storage.type=local 时使用）
+ */
+@Configuration
+@ConfigurationProperties(prefix = "storage.local")
+@Data
+public class LocalStorageConfig {
+
+    /**
+     * 存储根目录
+     */
+    private String root = "storage";
+
+    /**
+     * 访问对象的地址前缀（指向 /file/local 接口，或指向直接读取存储目录的 nginx）
+     */
+    private String host = "http://localhost:8123/api/file/local";
+
+    /**
+     * 预签名 url 的签名密钥（多实例部署时必须一致）
+     */
+    private String secret;
+
+    /**
+     * 是否公共读（与存储桶的公共读权限对应），关闭后只能通过预签名 url 访问
+     */
+    private boolean publicRead = true;
+}
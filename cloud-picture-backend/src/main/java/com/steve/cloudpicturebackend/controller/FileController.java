@@ -1,23 +1,29 @@
 package com.steve.cloudpicturebackend.controller;
 
-import com.qcloud.cos.model.COSObject;
-import com.qcloud.cos.model.COSObjectInputStream;
-import com.qcloud.cos.utils.IOUtils;
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.core.util.URLUtil;
 import com.steve.cloudpicturebackend.annotation.AuthCheck;
 import com.steve.cloudpicturebackend.common.BaseResponse;
 import com.steve.cloudpicturebackend.common.ResultUtils;
 import com.steve.cloudpicturebackend.constant.UserConstant;
 import com.steve.cloudpicturebackend.exception.BusinessException;
 import com.steve.cloudpicturebackend.exception.ErrorCode;
-import com.steve.cloudpicturebackend.manager.CosManager;
+import com.steve.cloudpicturebackend.exception.ThrowUtils;
+import com.steve.cloudpicturebackend.manager.storage.LocalStorageClient;
+import com.steve.cloudpicturebackend.manager.storage.StorageClient;
+import com.steve.cloudpicturebackend.manager.storage.StorageObject;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 
 /**
  * 文件上传接口
@@ -30,7 +36,12 @@ import java.io.IOException;
 public class FileController {
 
     @Resource
-    private CosManager cosManager;
+    private StorageClient storageClient;
+
+    /**
+     * 本地存储的访问地址前缀（相对于 context-path）
+     */
+    private static final String LOCAL_FILE_PATH_PREFIX = "/file/local/";
 
     /**
      * 测试文件上传
@@ -49,7 +60,7 @@ public class FileController {
             // 上传文件
             file = File.createTempFile(filePath, null);
             multipartFile.transferTo(file);
-            cosManager.putObject(filePath, file);
+            storageClient.putObject(filePath, file);
             // 返回可访问的地址
             return ResultUtils.success(filePath);
         } catch (Exception e) {
@@ -75,26 +86,50 @@ public class FileController {
     @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
     @GetMapping("/test/download/")
     public void testDownloadFile(String filePath, HttpServletResponse response) throws IOException {
-        COSObjectInputStream cosObjectInput = null;
         try {
-            COSObject cosObject = cosManager.getObject(filePath);
-            cosObjectInput = cosObject.getObjectContent();
-            byte[] bytes = IOUtils.toByteArray(cosObjectInput);
             // 设置响应头
             response.setContentType("application/octet-stream;charset=UTF-8");
             response.setHeader("Content-Disposition", "attachment; filename=" + filePath);
-            // 写入响应
-            response.getOutputStream().write(bytes);
+            // 直接写入响应，不在内存中缓存整个文件
+            storageClient.transferTo(filePath, Channels.newChannel(response.getOutputStream()));
             response.getOutputStream().flush();
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("file download error, filePath:{}", filePath, e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件下载失败");
-        } finally {
-            if (cosObjectInput != null) {
-                cosObjectInput.close();
-            }
         }
     }
 
+    /**
+     * 读取本地存储的文件（仅 storage.type=local 时可用）
+     * <p>
+     * 未开启公共读时需要携带 generatePresignedUrl 生成的 expires 和 signature 参数。
+     * 文件只打开一次，响应头和内容来自同一个打开的文件，内容按 8KB 分块复制到响应，大流量时建议由 nginx 直接托管存储目录
+     *
+     * @param expires   过期时间戳
+     * @param signature 签名
+     * @param request   请求对象
+     * @param response  响应对象
+     */
+    @GetMapping("/local/**")
+    public void getLocalFile(@RequestParam(required = false) Long expires,
+                             @RequestParam(required = false) String signature,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ThrowUtils.throwIf(!(storageClient instanceof LocalStorageClient), ErrorCode.NOT_FOUND_ERROR);
+        LocalStorageClient localStorageClient = (LocalStorageClient) storageClient;
+        String path = StrUtil.removePrefix(request.getRequestURI(), request.getContextPath());
+        String key = URLUtil.decode(StrUtil.removePrefix(path, LOCAL_FILE_PATH_PREFIX), StandardCharsets.UTF_8);
+        ThrowUtils.throwIf(StrUtil.isBlank(key), ErrorCode.PARAMS_ERROR);
+        if (!localStorageClient.isPublicRead()) {
+            boolean valid = expires != null && localStorageClient.verifySignature(key, expires, signature);
+            ThrowUtils.throwIf(!valid, ErrorCode.NO_AUTH_ERROR, "访问地址无效或已过期");
+        }
+        try (StorageObject storageObject = localStorageClient.getObject(key)) {
+            response.setContentType(storageObject.getContentType());
+            response.setContentLengthLong(storageObject.getContentLength());
+            IoUtil.copy(storageObject.getInputStream(), response.getOutputStream());
+        }
+    }
 
 }
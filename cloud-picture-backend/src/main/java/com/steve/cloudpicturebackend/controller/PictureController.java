@@ -1,11 +1,7 @@
 package com.steve.cloudpicturebackend.controller;
 
-import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import com.steve.cloudpicturebackend.annotation.AuthCheck;
 import com.steve.cloudpicturebackend.api.aliyunai.expand.ExpandAliYunAiApi;
 import com.steve.cloudpicturebackend.api.aliyunai.expand.model.CreateOutPaintingTaskResponse;
@@ -14,6 +10,7 @@ import com.steve.cloudpicturebackend.api.aliyunai.txt2img.TxtToImgAliYunAiApi;
 import com.steve.cloudpicturebackend.api.imagesearch.ImageSearchApiFacade;
 import com.steve.cloudpicturebackend.api.imagesearch.model.ImageSearchResult;
 import com.steve.cloudpicturebackend.common.BaseResponse;
+import com.steve.cloudpicturebackend.common.CursorPage;
 import com.steve.cloudpicturebackend.common.DeleteRequest;
 import com.steve.cloudpicturebackend.common.ResultUtils;
 import com.steve.cloudpicturebackend.constant.UserConstant;
@@ -24,11 +21,16 @@ import com.steve.cloudpicturebackend.manager.auth.SpaceUserAuthManager;
 import com.steve.cloudpicturebackend.manager.auth.StpKit;
 import com.steve.cloudpicturebackend.manager.auth.annotation.SaSpaceCheckPermission;
 import com.steve.cloudpicturebackend.manager.auth.model.SpaceUserPermissionConstant;
+import com.steve.cloudpicturebackend.manager.feed.PublicPictureFeedManager;
+import com.steve.cloudpicturebackend.manager.search.PictureSearchManager;
+import com.steve.cloudpicturebackend.manager.tag.PictureTagIndexManager;
 import com.steve.cloudpicturebackend.model.dto.picture.*;
 import com.steve.cloudpicturebackend.model.entity.Picture;
 import com.steve.cloudpicturebackend.model.entity.Space;
 import com.steve.cloudpicturebackend.model.entity.User;
 import com.steve.cloudpicturebackend.model.enums.PictureReviewStatusEnum;
+import com.steve.cloudpicturebackend.model.vo.PictureCardVO;
+import com.steve.cloudpicturebackend.model.vo.PictureMultipartUploadVO;
 import com.steve.cloudpicturebackend.model.vo.PictureTagCategory;
 import com.steve.cloudpicturebackend.model.vo.PictureVO;
 import com.steve.cloudpicturebackend.service.PictureService;
@@ -36,9 +38,6 @@ import com.steve.cloudpicturebackend.service.SpaceService;
 import com.steve.cloudpicturebackend.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
-import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.context.ApplicationContext;
@@ -46,15 +45,14 @@ import org.springframework.context.ApplicationContext;
 import com.steve.cloudpicturebackend.api.aliyunai.txt2img.model.CreateTextToImageTaskResponse;
 import com.steve.cloudpicturebackend.api.aliyunai.txt2img.model.GetTextToImageTaskResponse;
 import com.steve.cloudpicturebackend.api.aliyunai.txt2img.model.SaveGeneratedImageRequest;
+import com.steve.cloudpicturebackend.utils.PictureTagsJsonUtils;
 
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
-import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 图片上传接口
@@ -72,9 +70,6 @@ public class PictureController {
     @Resource
     private UserService userService;
 
-    @Resource
-    private StringRedisTemplate stringRedisTemplate;
-
     @Resource
     private SpaceService spaceService;
 
@@ -87,13 +82,14 @@ public class PictureController {
     @Resource
     private ApplicationContext applicationContext;
 
-    // 本地缓存
-    private final Cache<String, String> LOCAL_CACHE =
-            Caffeine.newBuilder().initialCapacity(1024)
-                    .maximumSize(10000L)
-                    // 缓存 5 分钟移除
-                    .expireAfterWrite(Duration.ofMinutes(5))
-                    .build();
+    @Resource
+    private PublicPictureFeedManager publicPictureFeedManager;
+
+    @Resource
+    private PictureSearchManager pictureSearchManager;
+
+    @Resource
+    private PictureTagIndexManager pictureTagIndexManager;
 
 
     /**
@@ -124,6 +120,78 @@ public class PictureController {
         return ResultUtils.success(pictureVO);
     }
 
+    /**
+     * 按内容哈希秒传图片（可重新上传），返回 null 表示服务端没有该文件，需要正常上传
+     */
+    @PostMapping("/upload/hash")
+    @SaSpaceCheckPermission(value = SpaceUserPermissionConstant.PICTURE_UPLOAD)
+    public BaseResponse<PictureVO> uploadPictureByHash(
+            @RequestBody PictureUploadByHashRequest uploadByHashRequest,
+            HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        PictureVO pictureVO = pictureService.uploadPictureByHash(uploadByHashRequest, loginUser);
+        return ResultUtils.success(pictureVO);
+    }
+
+    /**
+     * 初始化分块上传（大图，可断点续传）
+     */
+    @PostMapping("/upload/multipart/init")
+    @SaSpaceCheckPermission(value = SpaceUserPermissionConstant.PICTURE_UPLOAD)
+    public BaseResponse<PictureMultipartUploadVO> initMultipartUpload(
+            @RequestBody PictureMultipartUploadInitRequest initRequest,
+            HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureService.initMultipartUpload(initRequest, loginUser));
+    }
+
+    /**
+     * 上传分块
+     */
+    @PostMapping("/upload/multipart/part")
+    public BaseResponse<PictureMultipartUploadVO> uploadMultipartPart(
+            @RequestPart("file") MultipartFile multipartFile,
+            @RequestParam("uploadId") String uploadId,
+            @RequestParam("partNumber") int partNumber,
+            HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureService.uploadMultipartPart(uploadId, partNumber, multipartFile, loginUser));
+    }
+
+    /**
+     * 获取分块上传会话（断线后查询已上传的分块）
+     */
+    @GetMapping("/upload/multipart/get")
+    public BaseResponse<PictureMultipartUploadVO> getMultipartUpload(String uploadId, HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureService.getMultipartUpload(uploadId, loginUser));
+    }
+
+    /**
+     * 完成分块上传
+     */
+    @PostMapping("/upload/multipart/complete")
+    public BaseResponse<PictureVO> completeMultipartUpload(
+            @RequestBody PictureMultipartUploadRequest pictureMultipartUploadRequest,
+            HttpServletRequest request) {
+        ThrowUtils.throwIf(pictureMultipartUploadRequest == null, ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureService.completeMultipartUpload(pictureMultipartUploadRequest.getUploadId(), loginUser));
+    }
+
+    /**
+     * 取消分块上传
+     */
+    @PostMapping("/upload/multipart/abort")
+    public BaseResponse<Boolean> abortMultipartUpload(
+            @RequestBody PictureMultipartUploadRequest pictureMultipartUploadRequest,
+            HttpServletRequest request) {
+        ThrowUtils.throwIf(pictureMultipartUploadRequest == null, ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        pictureService.abortMultipartUpload(pictureMultipartUploadRequest.getUploadId(), loginUser);
+        return ResultUtils.success(true);
+    }
+
     /**
      * 上传头像
      */
@@ -167,7 +235,7 @@ public class PictureController {
         Picture picture = new Picture();
         BeanUtils.copyProperties(pictureUpdateRequest, picture);
         // 注意将 list 转为 string
-        picture.setTags(JSONUtil.toJsonStr(pictureUpdateRequest.getTags()));
+        picture.setTags(PictureTagsJsonUtils.toJson(pictureUpdateRequest.getTags()));
         // 数据校验
         pictureService.validPicture(picture);
         // 判断是否存在
@@ -180,6 +248,7 @@ public class PictureController {
         // 操作数据库
         boolean result = pictureService.updateById(picture);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        pictureService.invalidatePictureFeedCache(oldPicture);
         return ResultUtils.success(true);
     }
 
@@ -221,6 +290,8 @@ public class PictureController {
         // 获取权限列表
         User loginUser = userService.getLoginUser(request);
         List<String> permissionList = spaceUserAuthManager.getPermissionList(space, loginUser);
+        // 记录浏览（异步落库，不在读路径上写数据库）
+        pictureService.recordPictureView(picture, request);
         PictureVO pictureVO = pictureService.getPictureVO(picture, request);
         pictureVO.setPermissionList(permissionList);
         // 获取封装类
@@ -252,6 +323,94 @@ public class PictureController {
         // 限制爬虫
         ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
         // 空间权限校验
+        checkListPictureAuth(pictureQueryRequest);
+        // 公共图库走多级缓存
+        if (pictureQueryRequest.getSpaceId() == null) {
+            return ResultUtils.success(pictureService.listPictureVOByPageWithCache(pictureQueryRequest, request));
+        }
+        // 查询数据库
+        Page<Picture> picturePage = pictureService.page(new Page<>(current, size),
+                pictureService.getQueryWrapper(pictureQueryRequest));
+
+        // 获取封装类
+        return ResultUtils.success(pictureService.getPictureVOPage(picturePage, request));
+    }
+
+    /**
+     * 分页获取图片列表（卡片封装类，只包含列表网格需要的字段）
+     */
+    @PostMapping("/list/page/card")
+    public BaseResponse<Page<PictureCardVO>> listPictureCardVOByPage(@RequestBody PictureQueryRequest pictureQueryRequest,
+                                                                     HttpServletRequest request) {
+        long size = pictureQueryRequest.getPageSize();
+        // 限制爬虫
+        ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
+        // 空间权限校验
+        checkListPictureAuth(pictureQueryRequest);
+        return ResultUtils.success(pictureService.listPictureCardVOByPage(pictureQueryRequest, request));
+    }
+
+    /**
+     * 获取公共图库的热门图片（按时间衰减的点赞、下载、分享、浏览热度排序）
+     */
+    @GetMapping("/list/trending")
+    public BaseResponse<List<PictureVO>> listTrendingPictureVO(@RequestParam(defaultValue = "20") int size,
+                                                               HttpServletRequest request) {
+        // 限制爬虫
+        ThrowUtils.throwIf(size <= 0 || size > 50, ErrorCode.PARAMS_ERROR);
+        return ResultUtils.success(pictureService.listTrendingPictureVO(size, request));
+    }
+
+    /**
+     * 按点赞时间倒序获取我点赞过的图片（游标分页）
+     */
+    @PostMapping("/list/liked")
+    public BaseResponse<CursorPage<PictureVO>> listLikedPictureVO(@RequestBody PictureQueryRequest pictureQueryRequest,
+                                                                  HttpServletRequest request) {
+        ThrowUtils.throwIf(pictureQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        long size = pictureQueryRequest.getPageSize();
+        // 限制爬虫
+        ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureService.listLikedPictureVOByCursor(pictureQueryRequest, loginUser, request));
+    }
+
+    /**
+     * 游标分页获取图片列表（仅管理员可用，不统计总数）
+     */
+    @PostMapping("/list/cursor")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<CursorPage<Picture>> listPictureByCursor(@RequestBody PictureQueryRequest pictureQueryRequest) {
+        ThrowUtils.throwIf(pictureQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        // 查询数据库
+        CursorPage<Picture> picturePage = pictureService.listPictureByCursor(pictureQueryRequest);
+        return ResultUtils.success(picturePage);
+    }
+
+    /**
+     * 游标分页获取图片列表（封装类，适用于无限滚动）
+     */
+    @PostMapping("/list/cursor/vo")
+    public BaseResponse<CursorPage<PictureVO>> listPictureVOByCursor(@RequestBody PictureQueryRequest pictureQueryRequest,
+                                                                     HttpServletRequest request) {
+        ThrowUtils.throwIf(pictureQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        long size = pictureQueryRequest.getPageSize();
+        // 限制爬虫
+        ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
+        // 空间权限校验
+        checkListPictureAuth(pictureQueryRequest);
+        // 查询数据库
+        CursorPage<Picture> picturePage = pictureService.listPictureByCursor(pictureQueryRequest);
+        // 获取封装类
+        return ResultUtils.success(pictureService.getPictureVOCursorPage(picturePage, request));
+    }
+
+    /**
+     * 列表查询的空间权限校验，未指定空间时限定为公共图库中审核通过的图片
+     *
+     * @param pictureQueryRequest 图片查询请求
+     */
+    private void checkListPictureAuth(PictureQueryRequest pictureQueryRequest) {
         Long spaceId = pictureQueryRequest.getSpaceId();
         if (spaceId == null) {
             // 公开图库
@@ -261,21 +420,7 @@ public class PictureController {
         } else {
             boolean hasPermission = StpKit.SPACE.hasPermission(SpaceUserPermissionConstant.PICTURE_VIEW);
             ThrowUtils.throwIf(!hasPermission, ErrorCode.NO_AUTH_ERROR, "没有权限");
-            // 已经改用Sa-Token鉴权
-//            // 私有空间
-//            User loginUser = userService.getLoginUser(request);
-//            Space space = spaceService.getById(spaceId);
-//            ThrowUtils.throwIf(space == null, ErrorCode.NOT_FOUND_ERROR, "空间不存在");
-//            if ((!loginUser.getId().equals(space.getUserId()))) {
-//                throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "没有空间权限");
-//            }
         }
-        // 查询数据库
-        Page<Picture> picturePage = pictureService.page(new Page<>(current, size),
-                pictureService.getQueryWrapper(pictureQueryRequest));
-
-        // 获取封装类
-        return ResultUtils.success(pictureService.getPictureVOPage(picturePage, request));
     }
 
     /**
@@ -289,44 +434,41 @@ public class PictureController {
         long size = pictureQueryRequest.getPageSize();
         // 限制爬虫
         ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
-        // 普通用户只能看到审核通过的图片
+        // 只允许查询公共图库中审核通过的图片
+        pictureQueryRequest.setSpaceId(null);
         pictureQueryRequest.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+        pictureQueryRequest.setNullSpaceId(true);
+        // 查询多级缓存，缓存中没有再查数据库
+        return ResultUtils.success(pictureService.listPictureVOByPageWithCache(pictureQueryRequest, request));
+    }
 
-        // 查询缓存，缓存中没有再查数据库
-        // 构建缓存的Key
-        String queryCondition = JSONUtil.toJsonStr(pictureQueryRequest);
-        String hashKey = DigestUtils.md5DigestAsHex(queryCondition.getBytes());
-        String cacheKey = String.format("cloud_picture:listPictureVOByPage:%s", hashKey);
-        // 1. 从本地缓存中查询
-        String cachedValue = LOCAL_CACHE.getIfPresent(cacheKey);
-        if (cachedValue != null) {
-            // 如果缓存命中，则直接返回
-            Page<PictureVO> cachedPage = JSONUtil.toBean(cachedValue, Page.class);
-            return ResultUtils.success(cachedPage);
-        }
-        // 2. 本地缓存未命中，操作redis, 查询缓存
-        ValueOperations<String, String> opsForValue = stringRedisTemplate.opsForValue();
-        cachedValue = opsForValue.get(cacheKey);
-        if (cachedValue != null) {
-            // 如果缓存命中，更新本地缓存，返回结果
-            LOCAL_CACHE.put(cacheKey, cachedValue);
-            Page<PictureVO> cachedPage = JSONUtil.toBean(cachedValue, Page.class);
-            return ResultUtils.success(cachedPage);
-        }
-        // 3. 均未命中，查询数据库
-        Page<Picture> picturePage = pictureService.page(new Page<>(current, size),
-                pictureService.getQueryWrapper(pictureQueryRequest));
-        Page<PictureVO> pictureVOPage = pictureService.getPictureVOPage(picturePage, request);
-        // 4. 将查询结果存入缓存
-        // 存入Redis缓存
-        String cacheValue = JSONUtil.toJsonStr(pictureVOPage);
-        // 设置过期时间 5-10 min （防止缓存雪崩）
-        int expireTime = 300 + RandomUtil.randomInt(0, 300);
-        opsForValue.set(cacheKey, cacheValue, expireTime, TimeUnit.SECONDS);
-        // 写入本地缓存
-        LOCAL_CACHE.put(cacheKey, cacheValue);
-        // 获取封装类
-        return ResultUtils.success(pictureService.getPictureVOPage(picturePage, request));
+    /**
+     * 从数据库重建首页图片索引（仅管理员可用）
+     */
+    @PostMapping("/feed/rebuild")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<Long> rebuildPublicPictureFeed() {
+        long total = publicPictureFeedManager.rebuild();
+        pictureService.invalidateAllPictureFeedCache();
+        return ResultUtils.success(total);
+    }
+
+    /**
+     * 从图片表重建全文检索索引（仅管理员可用）
+     */
+    @PostMapping("/search/rebuild")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<Long> rebuildPictureSearchIndex() {
+        return ResultUtils.success(pictureSearchManager.rebuild());
+    }
+
+    /**
+     * 从图片表重建标签索引（仅管理员可用）
+     */
+    @PostMapping("/tag/rebuild")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<Long> rebuildPictureTagIndex() {
+        return ResultUtils.success(pictureTagIndexManager.rebuild());
     }
 
     /**
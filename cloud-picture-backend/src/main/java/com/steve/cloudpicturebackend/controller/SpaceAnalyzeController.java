@@ -121,6 +121,23 @@ public class SpaceAnalyzeController {
         return ResultUtils.success(spaceUserAnalyzeResponseList);
     }
 
+    /**
+     * 获取空间图片浏览分析
+     *
+     * @param spaceViewAnalyzeRequest 空间浏览分析请求参数
+     * @param request                 http请求
+     * @return 空间图片浏览分析响应
+     */
+    @PostMapping("/view")
+    public BaseResponse<SpaceViewAnalyzeResponse> getSpaceViewAnalyze(
+            @RequestBody SpaceViewAnalyzeRequest spaceViewAnalyzeRequest,
+            HttpServletRequest request) {
+        ThrowUtils.throwIf(spaceViewAnalyzeRequest == null, ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        SpaceViewAnalyzeResponse spaceViewAnalyzeResponse = spaceAnalyzeService.getSpaceViewAnalyze(spaceViewAnalyzeRequest, loginUser);
+        return ResultUtils.success(spaceViewAnalyzeResponse);
+    }
+
     /**
      * 获取空间使用排行分析
      * @param spaceRankAnalyzeRequest 空间使用排行请求参数
@@ -15,6 +15,7 @@ import com.steve.cloudpicturebackend.model.entity.Space;
 import com.steve.cloudpicturebackend.model.entity.User;
 import com.steve.cloudpicturebackend.model.enums.SpaceLevelEnum;
 import com.steve.cloudpicturebackend.model.vo.SpaceVO;
+import com.steve.cloudpicturebackend.model.vo.space.SpaceDeleteProgressVO;
 import com.steve.cloudpicturebackend.service.SpaceService;
 import com.steve.cloudpicturebackend.service.UserService;
 import lombok.extern.slf4j.Slf4j;
@@ -75,18 +76,24 @@ public class SpaceController {
             throw new BusinessException(ErrorCode.PARAMS_ERROR);
         }
         User loginUser = userService.getLoginUser(request);
-        long id = deleteRequest.getId();
-        // 判断是否存在
-        Space oldSpace = spaceService.getById(id);
-        ThrowUtils.throwIf(oldSpace == null, ErrorCode.NOT_FOUND_ERROR);
-        // 仅本人或管理员可删除
-        spaceService.checkSpaceAuth(loginUser, oldSpace);
-        // 操作数据库
-        boolean result = spaceService.removeById(id);
-        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        // 标记为删除中后立即返回，图片和成员在后台分批删除
+        spaceService.deleteSpace(deleteRequest.getId(), loginUser);
         return ResultUtils.success(true);
     }
 
+    /**
+     * 获取空间的删除进度
+     *
+     * @param spaceId 空间 id
+     * @param request http请求
+     */
+    @GetMapping("/delete/progress")
+    public BaseResponse<SpaceDeleteProgressVO> getSpaceDeleteProgress(long spaceId, HttpServletRequest request) {
+        ThrowUtils.throwIf(spaceId <= 0, ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(spaceService.getSpaceDeleteProgress(spaceId, loginUser));
+    }
+
     /**
      * 更新空间（仅管理员可用）
      *
@@ -213,7 +220,7 @@ public class SpaceController {
         User loginUser = userService.getLoginUser(request);
         // 判断是否存在
         long id = spaceEditRequest.getId();
-        Space oldSpace = spaceService.getById(id);
+        Space oldSpace = spaceService.getByIdFromDb(id);
         ThrowUtils.throwIf(oldSpace == null, ErrorCode.NOT_FOUND_ERROR);
         // 仅本人或管理员可编辑
         spaceService.checkSpaceAuth(loginUser, oldSpace);
@@ -2,20 +2,32 @@ package com.steve.cloudpicturebackend.manager;
 
 import cn.hutool.core.io.FileUtil;
 import com.qcloud.cos.COSClient;
-import com.qcloud.cos.model.COSObject;
-import com.qcloud.cos.model.GetObjectRequest;
+import com.qcloud.cos.model.CompleteMultipartUploadRequest;
+import com.qcloud.cos.model.CompleteMultipartUploadResult;
+import com.qcloud.cos.model.ObjectMetadata;
+import com.qcloud.cos.model.PartETag;
 import com.qcloud.cos.model.PutObjectRequest;
 import com.qcloud.cos.model.PutObjectResult;
 import com.qcloud.cos.model.ciModel.persistence.PicOperations;
 import com.steve.cloudpicturebackend.config.CosClientConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Resource;
 import java.io.File;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
 
+/**
+ * 对象存储数据万象的图片处理（上传时附带处理规则）
+ * <p>
+ * 只在使用腾讯云对象存储时可用，通用的读写操作见 {@link com.steve.cloudpicturebackend.manager.storage.StorageClient}
+ */
 @Component
+@ConditionalOnProperty(name = "storage.type", havingValue = "cos", matchIfMissing = true)
 public class CosManager {
 
     @Resource
@@ -24,40 +36,61 @@ public class CosManager {
     @Resource
     private COSClient cosClient;
 
-//    @Resource
-//    private TransferManager transferManager;
-
     /**
-     * 上传对象
+     * 上传对象（附带图片信息）
      *
      * @param key  唯一键
      * @param file 文件
      */
-    public PutObjectResult putObject(String key, File file) {
+    public PutObjectResult putPictureObject(String key, File file) {
         PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key,
                 file);
+        putObjectRequest.setPicOperations(buildPicOperations(key, file.length()));
         return cosClient.putObject(putObjectRequest);
     }
 
     /**
-     * 下载对象
+     * 流式上传对象（附带图片信息），不经过本地临时文件
      *
-     * @param key 唯一键
+     * @param key           唯一键
+     * @param inputStream   输入流（由调用方关闭）
+     * @param contentLength 内容长度，必须准确
      */
-    public COSObject getObject(String key) {
-        GetObjectRequest getObjectRequest = new GetObjectRequest(cosClientConfig.getBucket(), key);
-        return cosClient.getObject(getObjectRequest);
+    public PutObjectResult putPictureObject(String key, InputStream inputStream, long contentLength) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentLength(contentLength);
+        PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key,
+                inputStream, objectMetadata);
+        putObjectRequest.setPicOperations(buildPicOperations(key, contentLength));
+        return cosClient.putObject(putObjectRequest);
     }
 
     /**
-     * 上传对象（附带图片信息）
+     * 完成分块上传（附带图片信息，处理规则与普通上传一致）
+     *
+     * @param key       唯一键
+     * @param uploadId  分块上传 id
+     * @param partETags 分块编号 => ETag（全部分块）
+     * @param size      文件大小
+     */
+    public CompleteMultipartUploadResult completePictureMultipartUpload(String key, String uploadId,
+                                                                        SortedMap<Integer, String> partETags, long size) {
+        List<PartETag> partETagList = partETags.entrySet().stream()
+                .map(entry -> new PartETag(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+        CompleteMultipartUploadRequest completeMultipartUploadRequest =
+                new CompleteMultipartUploadRequest(cosClientConfig.getBucket(), key, uploadId, partETagList);
+        completeMultipartUploadRequest.setPicOperations(buildPicOperations(key, size));
+        return cosClient.completeMultipartUpload(completeMultipartUploadRequest);
+    }
+
+    /**
+     * 构造图片处理参数
      *
      * @param key  唯一键
-     * @param file 文件
+     * @param size 文件大小
      */
-    public PutObjectResult putPictureObject(String key, File file) {
-        PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key,
-                file);
+    private PicOperations buildPicOperations(String key, long size) {
         // 对图片进行处理（获取基本信息也被视作为一种处理）
         PicOperations picOperations = new PicOperations();
         // 1 表示返回原图信息
@@ -71,7 +104,7 @@ public class CosManager {
         compressRule.setFileId(webpKey);
         rules.add(compressRule);
         // 2 缩略图处理， 仅对size>20kb的图片生成缩略图
-        if (file.length() > 2 * 1024) {
+        if (size > 2 * 1024) {
             PicOperations.Rule thumbnailRule = new PicOperations.Rule();
             thumbnailRule.setBucket(cosClientConfig.getBucket());
             String thumbnailKey = FileUtil.mainName(key) + "_thumbnail." + FileUtil.getSuffix(key);
@@ -82,14 +115,6 @@ public class CosManager {
         }
         // 构造处理参数
         picOperations.setRules(rules);
-        putObjectRequest.setPicOperations(picOperations);
-        return cosClient.putObject(putObjectRequest);
-    }
-
-    /**
-     * 删除对象
-     */
-    public void deleteObject(String key) {
-        cosClient.deleteObject(cosClientConfig.getBucket(), key);
+        return picOperations;
     }
 }
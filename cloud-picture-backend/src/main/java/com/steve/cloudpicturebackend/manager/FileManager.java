@@ -13,6 +13,7 @@ import com.steve.cloudpicturebackend.exception.ErrorCode;
 import com.steve.cloudpicturebackend.exception.ThrowUtils;
 import com.steve.cloudpicturebackend.model.dto.file.UploadPictureResult;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -35,6 +36,7 @@ public class FileManager {
     private CosClientConfig cosClientConfig;
 
     @Resource
+    @Lazy
     private CosManager cosManager;
 
     /**
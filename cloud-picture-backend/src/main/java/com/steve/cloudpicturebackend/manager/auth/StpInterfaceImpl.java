@@ -133,8 +133,8 @@ public class StpInterfaceImpl implements StpInterface {
                 }
             }
         }
-        // 获取 Space 对象
-        Space space = spaceService.getById(spaceId);
+        // 获取 Space 对象（权限校验直接查库，不走实体缓存）
+        Space space = spaceService.getByIdFromDb(spaceId);
         if (space == null) {
             throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "未找到空间信息");
         }
@@ -0,0 +1,183 @@
+package com.steve.cloudpicturebackend.manager.cache;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.json.JSONUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 实体读穿透缓存（本地 Caffeine + 可选的 Redis）
+ * <p>
+ * 1. 同一个 id 并发未命中时只有一个线程回源（single-flight）<br>
+ * 2. 不存在的 id 也会被短暂缓存（空值缓存），防止大量随机 id 穿透到数据库<br>
+ * 3. 实体更新或删除后需要调用 {@link #evict(String, Long)}，在事务中会在提交后再清理一次<br>
+ * 4. 清理时通过 Redis 发布订阅通知其他实例清理本地缓存<br>
+ * 5. 每次返回的都是副本，调用方可以放心修改<br>
+ * 6. 状态、权限等关键字段（如空间状态、图片所有者）的校验不要依赖本缓存，应直接查库
+ */
+@Slf4j
+@Component
+public class EntityCacheManager {
+
+    /**
+     * 缓存 key 前缀
+     */
+    private static final String CACHE_KEY_PREFIX = "cloud_picture:entity:";
+
+    /**
+     * 空值在 Redis 中的占位符
+     */
+    private static final String NULL_VALUE = "";
+
+    /**
+     * 空值在 Redis 中的过期时间（秒）
+     */
+    private static final int NULL_VALUE_EXPIRE_SECONDS = 60;
+
+    /**
+     * 本地缓存失效广播频道
+     */
+    private static final String INVALIDATE_CHANNEL = "cloud_picture:entity:invalidate";
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /**
+     * 是否启用 Redis 二级缓存
+     */
+    @Value("${entityCache.redisEnabled:true}")
+    private boolean redisEnabled;
+
+    /**
+     * 本地缓存，过期时间较短，用于限制多实例之间的数据不一致时间
+     */
+    private final Cache<String, Optional<Object>> localCache = Caffeine.newBuilder()
+            .maximumSize(100000L)
+            .expireAfterWrite(Duration.ofSeconds(30))
+            .build();
+
+    /**
+     * 订阅失效广播，收到后清理本实例的本地缓存
+     */
+    @PostConstruct
+    public void subscribeInvalidation() {
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            String cacheKey = new String(message.getBody(), StandardCharsets.UTF_8);
+            localCache.invalidate(cacheKey);
+        }, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 根据 id 读取实体，未命中时调用 loader 回源
+     *
+     * @param namespace 命名空间（通常为表名）
+     * @param id        实体 id
+     * @param type      实体类型
+     * @param loader    回源方法
+     * @return 实体，不存在时返回 null
+     */
+    public <T> T get(String namespace, Long id, Class<T> type, Function<Long, T> loader) {
+        if (id == null) {
+            return null;
+        }
+        String cacheKey = buildCacheKey(namespace, id);
+        Optional<Object> cachedValue = localCache.get(cacheKey, key -> {
+            // 1. 本地缓存未命中，查询 Redis
+            if (redisEnabled) {
+                try {
+                    String redisValue = stringRedisTemplate.opsForValue().get(key);
+                    if (redisValue != null) {
+                        return NULL_VALUE.equals(redisValue)
+                                ? Optional.empty()
+                                : Optional.of(JSONUtil.toBean(redisValue, type));
+                    }
+                } catch (Exception e) {
+                    log.error("read entity cache error, key = {}", key, e);
+                }
+            }
+            // 2. 均未命中，回源
+            T entity = loader.apply(id);
+            if (redisEnabled) {
+                try {
+                    if (entity == null) {
+                        stringRedisTemplate.opsForValue().set(key, NULL_VALUE, NULL_VALUE_EXPIRE_SECONDS, TimeUnit.SECONDS);
+                    } else {
+                        // 设置过期时间 5-10 min （防止缓存雪崩）
+                        int expireTime = 300 + RandomUtil.randomInt(0, 300);
+                        stringRedisTemplate.opsForValue().set(key, JSONUtil.toJsonStr(entity), expireTime, TimeUnit.SECONDS);
+                    }
+                } catch (Exception e) {
+                    log.error("write entity cache error, key = {}", key, e);
+                }
+            }
+            return Optional.ofNullable(entity);
+        });
+        // 返回副本，避免调用方修改实体后污染本地缓存
+        return cachedValue.map(entity -> BeanUtil.toBean(entity, type)).orElse(null);
+    }
+
+    /**
+     * 清理实体缓存
+     * <p>
+     * 立即清理一次；如果当前处于事务中，提交后再清理一次，避免并发读请求在提交前把旧数据写回缓存
+     *
+     * @param namespace 命名空间
+     * @param id        实体 id
+     */
+    public void evict(String namespace, Long id) {
+        if (id == null) {
+            return;
+        }
+        String cacheKey = buildCacheKey(namespace, id);
+        doEvict(cacheKey);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    doEvict(cacheKey);
+                }
+            });
+        }
+    }
+
+    private void doEvict(String cacheKey) {
+        localCache.invalidate(cacheKey);
+        if (redisEnabled) {
+            try {
+                stringRedisTemplate.delete(cacheKey);
+            } catch (Exception e) {
+                log.error("evict entity cache error, key = {}", cacheKey, e);
+            }
+        }
+        // 通知其他实例清理本地缓存（本实例也会收到，重复清理无副作用）
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, cacheKey);
+        } catch (Exception e) {
+            log.error("publish entity cache invalidation error, key = {}", cacheKey, e);
+        }
+    }
+
+    private static String buildCacheKey(String namespace, Long id) {
+        return CACHE_KEY_PREFIX + namespace + ":" + id;
+    }
+}
@@ -0,0 +1,181 @@
+package com.steve.cloudpicturebackend.manager.cache;
+
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.Resource;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 多级缓存（本地 Caffeine + Redis）
+ * <p>
+ * 1. 缓存 key = 命名空间 + 版本号 + 规范化查询条件的摘要，写操作只需递增版本号即可让旧缓存整体失效<br>
+ * 2. 本地缓存按字节数淘汰，避免大分页结果撑爆堆内存<br>
+ * 3. 同一个 key 并发未命中时只有一个线程回源，其余线程等待结果（single-flight）
+ */
+@Slf4j
+@Component
+public class MultiLevelCacheManager {
+
+    /**
+     * 缓存 key 前缀
+     */
+    private static final String CACHE_KEY_PREFIX = "cloud_picture:cache:";
+
+    /**
+     * 版本号 key 前缀
+     */
+    private static final String VERSION_KEY_PREFIX = "cloud_picture:cache_version:";
+
+    /**
+     * 本地缓存最大占用（字节）
+     */
+    private static final long LOCAL_CACHE_MAX_BYTES = 64L * 1024 * 1024;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 本地缓存，按字符串占用的字节数（UTF-16，每个字符 2 字节）计算权重
+     */
+    private final Cache<String, String> localCache = Caffeine.newBuilder()
+            .maximumWeight(LOCAL_CACHE_MAX_BYTES)
+            .weigher((String key, String value) -> (key.length() + value.length()) * 2)
+            // 缓存 5 分钟移除
+            .expireAfterWrite(Duration.ofMinutes(5))
+            .build();
+
+    /**
+     * 本地缓存的版本号，短时间内复用，避免每次读取都访问 Redis
+     */
+    private final Cache<String, Long> localVersionCache = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofSeconds(1))
+            .build();
+
+    /**
+     * 读取缓存，未命中时调用 loader 回源并写入两级缓存
+     *
+     * @param namespace 命名空间，同一命名空间共享一个版本号
+     * @param condition 查询条件，会被规范化后参与 key 的计算
+     * @param type      结果类型（支持泛型，如 new TypeReference<Page<PictureVO>>() {}）
+     * @param loader    回源方法
+     * @return 结果
+     */
+    public <T> T get(String namespace, Map<String, Object> condition, Type type, Supplier<T> loader) {
+        String cacheKey = buildCacheKey(namespace, condition);
+        String cachedValue = localCache.get(cacheKey, key -> {
+            // 1. 本地缓存未命中，查询 Redis
+            String redisValue = null;
+            try {
+                redisValue = stringRedisTemplate.opsForValue().get(key);
+            } catch (Exception e) {
+                log.error("read redis cache error, key = {}", key, e);
+            }
+            if (redisValue != null) {
+                return redisValue;
+            }
+            // 2. 均未命中，回源
+            T result = loader.get();
+            if (result == null) {
+                return null;
+            }
+            String value = JSONUtil.toJsonStr(result);
+            // 设置过期时间 5-10 min （防止缓存雪崩）
+            int expireTime = 300 + RandomUtil.randomInt(0, 300);
+            try {
+                stringRedisTemplate.opsForValue().set(key, value, expireTime, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.error("write redis cache error, key = {}", key, e);
+            }
+            return value;
+        });
+        if (cachedValue == null) {
+            return null;
+        }
+        return JSONUtil.toBean(cachedValue, type, true);
+    }
+
+    /**
+     * 递增命名空间的版本号，使该命名空间下的缓存全部失效
+     *
+     * @param namespace 命名空间
+     */
+    public void bumpVersion(String namespace) {
+        try {
+            stringRedisTemplate.opsForValue().increment(VERSION_KEY_PREFIX + namespace);
+        } catch (Exception e) {
+            log.error("bump cache version error, namespace = {}", namespace, e);
+        }
+        localVersionCache.invalidate(namespace);
+    }
+
+    /**
+     * 构建缓存 key
+     */
+    private String buildCacheKey(String namespace, Map<String, Object> condition) {
+        String normalizedCondition = JSONUtil.toJsonStr(normalize(condition));
+        String hashKey = DigestUtils.md5DigestAsHex(normalizedCondition.getBytes(StandardCharsets.UTF_8));
+        return String.format("%s%s:%d:%s", CACHE_KEY_PREFIX, namespace, getVersion(namespace), hashKey);
+    }
+
+    /**
+     * 获取命名空间当前的版本号（其他基于版本号失效的本地缓存也可以复用）
+     *
+     * @param namespace 命名空间
+     * @return 版本号
+     */
+    public long getVersion(String namespace) {
+        Long version = localVersionCache.get(namespace, ns -> {
+            try {
+                String value = stringRedisTemplate.opsForValue().get(VERSION_KEY_PREFIX + ns);
+                return value == null ? 0L : Long.parseLong(value);
+            } catch (Exception e) {
+                log.error("read cache version error, namespace = {}", ns, e);
+                return 0L;
+            }
+        });
+        return version == null ? 0L : version;
+    }
+
+    /**
+     * 规范化查询条件：按字段名排序，去掉空值和空白字符串，集合去重并排序，使语义相同的查询得到相同的 key
+     * <p>
+     * 这里不修改字符串的内容（如去除首尾空白），否则 key 相同的两个条件可能查出不同的结果，
+     * 需要由调用方在查询前规范化请求本身
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Map<String, Object> normalize(Map<String, Object> condition) {
+        Map<String, Object> normalized = new TreeMap<>();
+        if (condition == null) {
+            return normalized;
+        }
+        condition.forEach((field, value) -> {
+            if (value instanceof CharSequence) {
+                value = StrUtil.isBlank((CharSequence) value) ? null : value.toString();
+            } else if (value instanceof Collection) {
+                Collection<?> collection = (Collection<?>) value;
+                if (collection.isEmpty()) {
+                    value = null;
+                } else if (collection.stream().allMatch(item -> item instanceof Comparable)) {
+                    value = new ArrayList<>(new TreeSet(collection));
+                }
+            }
+            if (value != null) {
+                normalized.put(field, value);
+            }
+        });
+        return normalized;
+    }
+}
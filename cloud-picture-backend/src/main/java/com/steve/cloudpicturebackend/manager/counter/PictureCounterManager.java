@@ -0,0 +1,677 @@
+package com.steve.cloudpicturebackend.manager.counter;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.util.IdUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.steve.cloudpicturebackend.manager.cache.EntityCacheManager;
+import com.steve.cloudpicturebackend.manager.lock.DistributedLock;
+import com.steve.cloudpicturebackend.manager.lock.DistributedLockManager;
+import com.steve.cloudpicturebackend.mapper.PictureCounterFlushMapper;
+import com.steve.cloudpicturebackend.mapper.PictureMapper;
+import com.steve.cloudpicturebackend.model.entity.Picture;
+import com.steve.cloudpicturebackend.model.entity.PictureCounterFlush;
+import com.steve.cloudpicturebackend.model.enums.PictureCounterTypeEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 图片计数器（下载、分享、点赞）的写缓冲
+ * <p>
+ * 计数先累加到本地分段缓冲中，每秒合并推送到 Redis Hash（各节点共享的待落库增量），
+ * 再由任意一个节点定期把增量批量写回 MySQL。热门图片的大量计数因此合并为少量的多行批量更新，
+ * 不会在 picture 表的同一行上排队等锁。读取计数时需要加上尚未落库的增量
+ * <p>
+ * 落库时先把待落库增量原子地改名为带批次号的快照，批次号与计数更新在同一个事务中写入数据库，
+ * 落库后清理快照失败或进程崩溃时，下次按批次号判断是否已经落库，同一批增量不会被重复累加
+ * <p>
+ * 已落库的计数在 Redis 中按图片缓存一份（基数），{@link #getCounts(Collection)} 返回基数加上尚未落库的增量，
+ * 缓存的列表页面不再保存计数，也不必每次回表查询。落库时基数与快照在同一个脚本中转移，读到的总数不会重复或倒退
+ */
+@Slf4j
+@Component
+public class PictureCounterManager {
+
+    /**
+     * 待落库增量的 key 前缀（Hash：图片 id => 增量）
+     */
+    private static final String PENDING_KEY_PREFIX = "cloud_picture:counter:pending:";
+
+    /**
+     * 正在落库的增量快照的 key 前缀（Hash：图片 id => 增量）
+     */
+    private static final String FLUSHING_KEY_PREFIX = "cloud_picture:counter:flushing:";
+
+    /**
+     * 正在落库的快照对应批次号的 key 前缀
+     */
+    private static final String FLUSHING_BATCH_KEY_PREFIX = "cloud_picture:counter:flushing_batch:";
+
+    /**
+     * 已落库计数的缓存 key 前缀（Hash：计数列名 => 已落库的值）
+     */
+    private static final String BASE_KEY_PREFIX = "cloud_picture:counter:base:";
+
+    /**
+     * 基数缓存的版本号，落库开始和结束时递增。回源写入基数前校验版本号未变化，
+     * 避免把落库前读到的旧值写回缓存
+     */
+    private static final String BASE_EPOCH_KEY = "cloud_picture:counter:base_epoch";
+
+    /**
+     * 正在更新数据库的标记，存在时不写入基数（此时数据库中的值是否已包含快照无法确定）
+     */
+    private static final String BASE_APPLYING_KEY = "cloud_picture:counter:base_applying";
+
+    /**
+     * 正在更新数据库标记的过期时间（秒），落库的节点崩溃时自动解除
+     */
+    private static final int BASE_APPLYING_EXPIRE_SECONDS = 600;
+
+    /**
+     * 基数缓存的过期时间（秒）
+     */
+    private static final int BASE_EXPIRE_SECONDS = 3600;
+
+    /**
+     * 计数列名（与基数缓存的 Hash 字段一致）
+     */
+    private static final String[] COUNTER_COLUMNS = Arrays.stream(PictureCounterTypeEnum.values())
+            .map(PictureCounterTypeEnum::getValue)
+            .toArray(String[]::new);
+
+    /**
+     * 落库批次记录的保留天数（只用于判断未清理的快照是否已经落库，过期后删除）
+     */
+    private static final int FLUSH_RECORD_RETAIN_DAYS = 1;
+
+    /**
+     * 落库任务的分布式锁，同一时间只允许一个节点落库（持有期间自动续期，落库耗时再长也不会被其他节点重复执行）
+     */
+    private static final String FLUSH_LOCK_NAME = "picture:counter:flush";
+
+    /**
+     * 每条批量更新语句包含的图片数量
+     */
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    /**
+     * 本地缓冲的分段数量（2 的幂）
+     */
+    private static final int STRIPE_COUNT = 16;
+
+    /**
+     * 与 PictureServiceImpl 中的图片实体缓存命名空间一致，落库后需要清理
+     */
+    private static final String PICTURE_ENTITY_CACHE_NAMESPACE = "picture";
+
+    /**
+     * 生成落库快照：已有未完成的快照时返回其批次号（上次落库中断，继续处理），
+     * 否则把待落库增量改名为快照并记录新的批次号；没有待落库增量时返回空
+     * <p>
+     * KEYS[1] 待落库增量，KEYS[2] 快照，KEYS[3] 快照批次号；ARGV[1] 新批次号
+     */
+    private static final DefaultRedisScript<String> SNAPSHOT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[2]) == 1 then " +
+                    "local batchId = redis.call('GET', KEYS[3]) " +
+                    "if batchId then return batchId end " +
+                    "redis.call('SET', KEYS[3], ARGV[1]) " +
+                    "return ARGV[1] " +
+                    "end " +
+                    "if redis.call('EXISTS', KEYS[1]) == 0 then return false end " +
+                    "redis.call('RENAME', KEYS[1], KEYS[2]) " +
+                    "redis.call('SET', KEYS[3], ARGV[1]) " +
+                    "return ARGV[1]",
+            String.class);
+
+    /**
+     * 写入基数缓存：版本号未变化且没有正在更新数据库时才写入
+     * <p>
+     * KEYS[1] 版本号，KEYS[2] 正在更新标记，KEYS[3..] 基数 key；
+     * ARGV[1] 读取数据库前的版本号，ARGV[2] 过期时间，ARGV[3] 每个 key 的字段数，之后依次为各 key 的字段和值
+     */
+    private static final DefaultRedisScript<Long> LOAD_BASE_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[1]) or '0') ~= ARGV[1] or redis.call('EXISTS', KEYS[2]) == 1 then return 0 end " +
+                    "local fieldCount = tonumber(ARGV[3]) " +
+                    "local index = 4 " +
+                    "for i = 3, #KEYS do " +
+                    "for j = 1, fieldCount do " +
+                    "redis.call('HSET', KEYS[i], ARGV[index], ARGV[index + 1]) " +
+                    "index = index + 2 " +
+                    "end " +
+                    "redis.call('EXPIRE', KEYS[i], ARGV[2]) " +
+                    "end " +
+                    "return 1",
+            Long.class);
+
+    /**
+     * 快照已写入数据库后，把一部分增量从快照转移到基数：基数存在时累加（不低于 0），已落库过的快照直接删除基数；
+     * 同时从快照中删除这些字段，读取方看到的基数与快照之和保持不变
+     * <p>
+     * KEYS[1] 快照，KEYS[2..] 基数 key；ARGV[1] 是否累加（1 累加，0 删除基数），ARGV[2] 计数列名，
+     * 之后依次为图片 id 和增量（与 KEYS[2..] 一一对应）
+     */
+    private static final DefaultRedisScript<Long> APPLY_BASE_SCRIPT = new DefaultRedisScript<>(
+            "for i = 2, #KEYS do " +
+                    "local index = 3 + (i - 2) * 2 " +
+                    "if ARGV[1] == '1' then " +
+                    "if redis.call('EXISTS', KEYS[i]) == 1 then " +
+                    "local value = redis.call('HINCRBY', KEYS[i], ARGV[2], ARGV[index + 1]) " +
+                    "if value < 0 then redis.call('HSET', KEYS[i], ARGV[2], 0) end " +
+                    "end " +
+                    "else " +
+                    "redis.call('DEL', KEYS[i]) " +
+                    "end " +
+                    "redis.call('HDEL', KEYS[1], ARGV[index]) " +
+                    "end " +
+                    "return 1",
+            Long.class);
+
+    /**
+     * 删除基数缓存并递增版本号（数据库不经过快照直接更新后使用）
+     * <p>
+     * KEYS[1] 版本号，KEYS[2..] 基数 key
+     */
+    private static final DefaultRedisScript<Long> EVICT_BASE_SCRIPT = new DefaultRedisScript<>(
+            "for i = 2, #KEYS do redis.call('DEL', KEYS[i]) end " +
+                    "return redis.call('INCR', KEYS[1])",
+            Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    @Resource
+    private PictureCounterFlushMapper pictureCounterFlushMapper;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    @Resource
+    private EntityCacheManager entityCacheManager;
+
+    @Resource
+    private DistributedLockManager distributedLockManager;
+
+    /**
+     * 各类型计数器的本地缓冲
+     */
+    private final Map<PictureCounterTypeEnum, StripedCounter> localCounterMap = new EnumMap<>(PictureCounterTypeEnum.class);
+
+    public PictureCounterManager() {
+        for (PictureCounterTypeEnum counterType : PictureCounterTypeEnum.values()) {
+            localCounterMap.put(counterType, new StripedCounter());
+        }
+    }
+
+    /**
+     * 累加计数（写入本地缓冲，异步落库）
+     *
+     * @param pictureId   图片 id
+     * @param counterType 计数器类型
+     * @param delta       增量，可以为负数
+     */
+    public void increment(Long pictureId, PictureCounterTypeEnum counterType, long delta) {
+        if (pictureId == null || delta == 0) {
+            return;
+        }
+        localCounterMap.get(counterType).add(pictureId, delta);
+    }
+
+    /**
+     * 批量获取尚未落库的增量（本地缓冲 + Redis 中的待落库增量和正在落库的快照）
+     *
+     * @param pictureIds 图片 id
+     * @return 计数器类型 => (图片 id => 增量)，没有增量的图片不包含在结果中
+     */
+    public Map<PictureCounterTypeEnum, Map<Long, Long>> getPendingDeltas(Collection<Long> pictureIds) {
+        Map<PictureCounterTypeEnum, Map<Long, Long>> result = new EnumMap<>(PictureCounterTypeEnum.class);
+        if (CollUtil.isEmpty(pictureIds)) {
+            return result;
+        }
+        List<Long> pictureIdList = new ArrayList<>(new LinkedHashSet<>(pictureIds));
+        List<String> hashKeyList = pictureIdList.stream().map(String::valueOf).collect(Collectors.toList());
+        List<Object> redisResultList;
+        try {
+            // 一次往返读取所有类型（每个类型依次为待落库增量、快照）
+            redisResultList = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringRedisConnection = (StringRedisConnection) connection;
+                String[] fields = hashKeyList.toArray(new String[0]);
+                for (PictureCounterTypeEnum counterType : PictureCounterTypeEnum.values()) {
+                    stringRedisConnection.hMGet(getPendingKey(counterType), fields);
+                    stringRedisConnection.hMGet(getFlushingKey(counterType), fields);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("read pending picture counters error", e);
+            redisResultList = Collections.emptyList();
+        }
+        PictureCounterTypeEnum[] counterTypes = PictureCounterTypeEnum.values();
+        for (int i = 0; i < counterTypes.length; i++) {
+            PictureCounterTypeEnum counterType = counterTypes[i];
+            List<?> pendingValueList = 2 * i < redisResultList.size() ? (List<?>) redisResultList.get(2 * i) : null;
+            List<?> flushingValueList = 2 * i + 1 < redisResultList.size() ? (List<?>) redisResultList.get(2 * i + 1) : null;
+            Map<Long, Long> deltaMap = new HashMap<>();
+            for (int j = 0; j < pictureIdList.size(); j++) {
+                Long pictureId = pictureIdList.get(j);
+                long delta = localCounterMap.get(counterType).get(pictureId);
+                if (pendingValueList != null && pendingValueList.get(j) != null) {
+                    delta += Convert.toLong(pendingValueList.get(j), 0L);
+                }
+                if (flushingValueList != null && flushingValueList.get(j) != null) {
+                    delta += Convert.toLong(flushingValueList.get(j), 0L);
+                }
+                if (delta != 0) {
+                    deltaMap.put(pictureId, delta);
+                }
+            }
+            result.put(counterType, deltaMap);
+        }
+        return result;
+    }
+
+    /**
+     * 批量获取图片的最新计数（Redis 中的已落库基数 + 尚未落库的增量），基数未命中时批量查询数据库并写回缓存
+     *
+     * @param pictureIds 图片 id
+     * @return 计数器类型 => (图片 id => 计数)，不包含不存在的图片
+     */
+    public Map<PictureCounterTypeEnum, Map<Long, Long>> getCounts(Collection<Long> pictureIds) {
+        Map<PictureCounterTypeEnum, Map<Long, Long>> result = new EnumMap<>(PictureCounterTypeEnum.class);
+        for (PictureCounterTypeEnum counterType : PictureCounterTypeEnum.values()) {
+            result.put(counterType, new HashMap<>());
+        }
+        if (CollUtil.isEmpty(pictureIds)) {
+            return result;
+        }
+        List<Long> pictureIdList = new ArrayList<>(new LinkedHashSet<>(pictureIds));
+        Map<Long, List<?>> baseMap = new HashMap<>();
+        // 版本号必须在查询数据库之前读取
+        String epoch = null;
+        try {
+            List<Object> redisResultList = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringRedisConnection = (StringRedisConnection) connection;
+                stringRedisConnection.get(BASE_EPOCH_KEY);
+                for (Long pictureId : pictureIdList) {
+                    stringRedisConnection.hMGet(getBaseKey(pictureId), COUNTER_COLUMNS);
+                }
+                return null;
+            });
+            epoch = redisResultList.get(0) == null ? "0" : String.valueOf(redisResultList.get(0));
+            for (int i = 0; i < pictureIdList.size(); i++) {
+                List<?> valueList = (List<?>) redisResultList.get(i + 1);
+                if (valueList != null && valueList.stream().allMatch(Objects::nonNull)) {
+                    baseMap.put(pictureIdList.get(i), valueList);
+                }
+            }
+        } catch (Exception e) {
+            log.error("read picture counter base error", e);
+        }
+        List<Long> missIdList = pictureIdList.stream()
+                .filter(pictureId -> !baseMap.containsKey(pictureId))
+                .collect(Collectors.toList());
+        if (!missIdList.isEmpty()) {
+            List<Picture> pictureList = pictureMapper.selectList(new LambdaQueryWrapper<Picture>()
+                    .select(Picture::getId, Picture::getDownloadCount, Picture::getShareCount,
+                            Picture::getLikeCount, Picture::getViewCount)
+                    .in(Picture::getId, missIdList));
+            for (Picture picture : pictureList) {
+                baseMap.put(picture.getId(), Arrays.stream(PictureCounterTypeEnum.values())
+                        .map(counterType -> getCount(picture, counterType))
+                        .collect(Collectors.toList()));
+            }
+            if (epoch != null) {
+                loadBase(epoch, pictureList);
+            }
+        }
+        Map<PictureCounterTypeEnum, Map<Long, Long>> pendingDeltaMap = getPendingDeltas(baseMap.keySet());
+        PictureCounterTypeEnum[] counterTypes = PictureCounterTypeEnum.values();
+        baseMap.forEach((pictureId, valueList) -> {
+            for (int i = 0; i < counterTypes.length; i++) {
+                long count = Convert.toLong(valueList.get(i), 0L)
+                        + pendingDeltaMap.get(counterTypes[i]).getOrDefault(pictureId, 0L);
+                result.get(counterTypes[i]).put(pictureId, Math.max(0, count));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 把本地缓冲中的增量推送到 Redis
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void pushToRedis() {
+        for (PictureCounterTypeEnum counterType : PictureCounterTypeEnum.values()) {
+            StripedCounter localCounter = localCounterMap.get(counterType);
+            Map<Long, Long> deltaMap = localCounter.drain();
+            if (deltaMap.isEmpty()) {
+                continue;
+            }
+            String pendingKey = getPendingKey(counterType);
+            try {
+                stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    StringRedisConnection stringRedisConnection = (StringRedisConnection) connection;
+                    deltaMap.forEach((pictureId, delta) ->
+                            stringRedisConnection.hIncrBy(pendingKey, String.valueOf(pictureId), delta));
+                    return null;
+                });
+            } catch (Exception e) {
+                // 推送失败时放回本地缓冲，下次重试
+                log.error("push picture counters to redis error, counterType = {}", counterType.getValue(), e);
+                deltaMap.forEach(localCounter::add);
+            }
+        }
+    }
+
+    /**
+     * 把 Redis 中的增量批量写回 MySQL
+     */
+    @Scheduled(initialDelay = 5000, fixedDelay = 5000)
+    public void flushToDatabase() {
+        DistributedLock lock;
+        try {
+            lock = distributedLockManager.tryLock(FLUSH_LOCK_NAME, 0, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.error("acquire picture counter flush lock error", e);
+            return;
+        }
+        if (lock == null) {
+            return;
+        }
+        try {
+            for (PictureCounterTypeEnum counterType : PictureCounterTypeEnum.values()) {
+                if (!flushCounterType(counterType, lock)) {
+                    break;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 停机前把本地缓冲推送到 Redis 并尝试落库；Redis 不可用时推送失败的增量仍留在本地缓冲中，
+     * 直接写入数据库，保证计数不丢失
+     */
+    @PreDestroy
+    public void destroy() {
+        pushToRedis();
+        flushToDatabase();
+        flushLocalToDatabase();
+    }
+
+    /**
+     * 把本地缓冲中的增量直接写入数据库（只在停机时使用，这部分增量没有进入 Redis，不会被其他节点重复落库）
+     */
+    private void flushLocalToDatabase() {
+        for (PictureCounterTypeEnum counterType : PictureCounterTypeEnum.values()) {
+            Map<Long, Long> deltaMap = localCounterMap.get(counterType).drain();
+            if (deltaMap.isEmpty()) {
+                continue;
+            }
+            for (List<Long> batchIdList : CollUtil.split(new ArrayList<>(deltaMap.keySet()), FLUSH_BATCH_SIZE)) {
+                try {
+                    updateCounterBatch(counterType, batchIdList, deltaMap);
+                    batchIdList.forEach(pictureId -> entityCacheManager.evict(PICTURE_ENTITY_CACHE_NAMESPACE, pictureId));
+                    evictBase(batchIdList);
+                } catch (Exception e) {
+                    // 数据库也不可用，只能记录日志以便人工补偿
+                    Map<Long, Long> lostDeltaMap = new LinkedHashMap<>();
+                    batchIdList.forEach(pictureId -> lostDeltaMap.put(pictureId, deltaMap.get(pictureId)));
+                    log.error("flush local picture counters on shutdown error, counterType = {}, deltas = {}",
+                            counterType.getValue(), lostDeltaMap, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 清理过期的落库批次记录
+     */
+    @Scheduled(cron = "0 30 * * * ?")
+    public void cleanFlushRecords() {
+        try {
+            pictureCounterFlushMapper.delete(new LambdaQueryWrapper<PictureCounterFlush>()
+                    .lt(PictureCounterFlush::getCreateTime, DateUtil.offsetDay(new Date(), -FLUSH_RECORD_RETAIN_DAYS)));
+        } catch (Exception e) {
+            log.error("clean picture counter flush records error", e);
+        }
+    }
+
+    /**
+     * 落库单个类型的增量
+     * <p>
+     * 1. 把待落库增量原子地改名为快照并生成批次号（上次中断留下的快照沿用原批次号）<br>
+     * 2. 在同一个事务中写入批次号并批量更新 MySQL，批次号已存在说明该快照已经落库，跳过更新<br>
+     * 3. 提交后删除快照；删除失败时快照保留，下次按第 2 步的批次号判断，不会重复累加
+     *
+     * @return 是否仍持有落库锁（已经失去锁时停止落库，避免与其他节点并发处理同一个快照）
+     */
+    private boolean flushCounterType(PictureCounterTypeEnum counterType, DistributedLock lock) {
+        String flushingKey = getFlushingKey(counterType);
+        String flushingBatchKey = getFlushingBatchKey(counterType);
+        String batchId = stringRedisTemplate.execute(SNAPSHOT_SCRIPT,
+                Arrays.asList(getPendingKey(counterType), flushingKey, flushingBatchKey), IdUtil.fastSimpleUUID());
+        if (batchId == null) {
+            return true;
+        }
+        Map<Object, Object> snapshotMap = stringRedisTemplate.opsForHash().entries(flushingKey);
+        Map<Long, Long> deltaMap = new TreeMap<>();
+        snapshotMap.forEach((pictureId, delta) -> {
+            long value = Convert.toLong(delta, 0L);
+            if (value != 0) {
+                deltaMap.put(Convert.toLong(pictureId), value);
+            }
+        });
+        if (!lock.isHeld()) {
+            log.warn("picture counter flush lock lost, stop flushing, counterType = {}", counterType.getValue());
+            return false;
+        }
+        List<Long> pictureIdList = new ArrayList<>(deltaMap.keySet());
+        // 更新数据库期间禁止写入基数，并让更新前开始的回源失效
+        stringRedisTemplate.opsForValue().set(BASE_APPLYING_KEY, batchId, BASE_APPLYING_EXPIRE_SECONDS, TimeUnit.SECONDS);
+        stringRedisTemplate.opsForValue().increment(BASE_EPOCH_KEY);
+        Boolean applied;
+        try {
+            applied = transactionTemplate.execute(status -> {
+                if (pictureCounterFlushMapper.insertIgnore(batchId) == 0) {
+                    return false;
+                }
+                for (List<Long> batchIdList : CollUtil.split(pictureIdList, FLUSH_BATCH_SIZE)) {
+                    updateCounterBatch(counterType, batchIdList, deltaMap);
+                }
+                return true;
+            });
+        } catch (Exception e) {
+            // 快照保留在 Redis 中，下次用同一个批次号重试
+            log.error("flush picture counters error, counterType = {}, batchId = {}", counterType.getValue(), batchId, e);
+            stringRedisTemplate.delete(BASE_APPLYING_KEY);
+            stringRedisTemplate.opsForValue().increment(BASE_EPOCH_KEY);
+            return true;
+        }
+        // 已落库过的快照（上次中断）无法确定基数是否已包含增量，直接删除基数，下次读取时回源
+        boolean increase = Boolean.TRUE.equals(applied);
+        if (!increase) {
+            log.info("picture counter batch already flushed, counterType = {}, batchId = {}",
+                    counterType.getValue(), batchId);
+        }
+        for (List<Long> batchIdList : CollUtil.split(pictureIdList, FLUSH_BATCH_SIZE)) {
+            List<String> keys = new ArrayList<>(batchIdList.size() + 1);
+            List<String> args = new ArrayList<>(batchIdList.size() * 2 + 2);
+            keys.add(flushingKey);
+            args.add(increase ? "1" : "0");
+            args.add(counterType.getValue());
+            for (Long pictureId : batchIdList) {
+                keys.add(getBaseKey(pictureId));
+                args.add(String.valueOf(pictureId));
+                args.add(String.valueOf(deltaMap.get(pictureId)));
+            }
+            stringRedisTemplate.execute(APPLY_BASE_SCRIPT, keys, args.toArray());
+        }
+        stringRedisTemplate.delete(Arrays.asList(flushingKey, flushingBatchKey, BASE_APPLYING_KEY));
+        stringRedisTemplate.opsForValue().increment(BASE_EPOCH_KEY);
+        pictureIdList.forEach(pictureId -> entityCacheManager.evict(PICTURE_ENTITY_CACHE_NAMESPACE, pictureId));
+        return true;
+    }
+
+    /**
+     * 把从数据库读到的计数写入基数缓存
+     *
+     * @param epoch       查询数据库之前读到的版本号
+     * @param pictureList 只包含 id 和计数字段的图片
+     */
+    private void loadBase(String epoch, List<Picture> pictureList) {
+        if (pictureList.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(pictureList.size() + 2);
+        List<String> args = new ArrayList<>(pictureList.size() * COUNTER_COLUMNS.length * 2 + 3);
+        keys.add(BASE_EPOCH_KEY);
+        keys.add(BASE_APPLYING_KEY);
+        args.add(epoch);
+        args.add(String.valueOf(BASE_EXPIRE_SECONDS));
+        args.add(String.valueOf(COUNTER_COLUMNS.length));
+        for (Picture picture : pictureList) {
+            keys.add(getBaseKey(picture.getId()));
+            for (PictureCounterTypeEnum counterType : PictureCounterTypeEnum.values()) {
+                args.add(counterType.getValue());
+                args.add(String.valueOf(getCount(picture, counterType)));
+            }
+        }
+        try {
+            stringRedisTemplate.execute(LOAD_BASE_SCRIPT, keys, args.toArray());
+        } catch (Exception e) {
+            log.error("write picture counter base error", e);
+        }
+    }
+
+    /**
+     * 删除基数缓存（数据库中的计数不经过快照直接更新后调用）
+     */
+    private void evictBase(List<Long> pictureIdList) {
+        List<String> keys = new ArrayList<>(pictureIdList.size() + 1);
+        keys.add(BASE_EPOCH_KEY);
+        pictureIdList.forEach(pictureId -> keys.add(getBaseKey(pictureId)));
+        try {
+            stringRedisTemplate.execute(EVICT_BASE_SCRIPT, keys);
+        } catch (Exception e) {
+            log.error("evict picture counter base error", e);
+        }
+    }
+
+    /**
+     * 一条语句更新多张图片：SET column = GREATEST(IFNULL(column, 0) + CASE id WHEN ... END, 0)
+     */
+    private void updateCounterBatch(PictureCounterTypeEnum counterType, List<Long> pictureIdList, Map<Long, Long> deltaMap) {
+        String column = counterType.getValue();
+        // id 与增量均为数字，可以直接拼接
+        StringBuilder caseSql = new StringBuilder("CASE id");
+        for (Long pictureId : pictureIdList) {
+            caseSql.append(" WHEN ").append(pictureId).append(" THEN ").append(deltaMap.get(pictureId));
+        }
+        caseSql.append(" ELSE 0 END");
+        pictureMapper.update(null, new LambdaUpdateWrapper<Picture>()
+                .setSql(column + " = GREATEST(IFNULL(" + column + ", 0) + " + caseSql + ", 0)")
+                .in(Picture::getId, pictureIdList));
+    }
+
+    private static String getPendingKey(PictureCounterTypeEnum counterType) {
+        return PENDING_KEY_PREFIX + counterType.getValue();
+    }
+
+    /**
+     * 读取图片实体中对应类型的计数
+     */
+    private static long getCount(Picture picture, PictureCounterTypeEnum counterType) {
+        Integer count;
+        switch (counterType) {
+            case DOWNLOAD:
+                count = picture.getDownloadCount();
+                break;
+            case SHARE:
+                count = picture.getShareCount();
+                break;
+            case LIKE:
+                count = picture.getLikeCount();
+                break;
+            default:
+                count = picture.getViewCount();
+                break;
+        }
+        return count == null ? 0 : count;
+    }
+
+    private static String getBaseKey(Long pictureId) {
+        return BASE_KEY_PREFIX + pictureId;
+    }
+
+    private static String getFlushingKey(PictureCounterTypeEnum counterType) {
+        return FLUSHING_KEY_PREFIX + counterType.getValue();
+    }
+
+    private static String getFlushingBatchKey(PictureCounterTypeEnum counterType) {
+        return FLUSHING_BATCH_KEY_PREFIX + counterType.getValue();
+    }
+
+    /**
+     * 分段计数缓冲：不同线程写入不同分段，热门图片的并发累加不会集中在同一把锁上
+     */
+    private static class StripedCounter {
+
+        private final List<ConcurrentHashMap<Long, Long>> stripeList = new ArrayList<>(STRIPE_COUNT);
+
+        StripedCounter() {
+            for (int i = 0; i < STRIPE_COUNT; i++) {
+                stripeList.add(new ConcurrentHashMap<>());
+            }
+        }
+
+        void add(Long pictureId, long delta) {
+            int index = (int) (Thread.currentThread().getId() & (STRIPE_COUNT - 1));
+            stripeList.get(index).merge(pictureId, delta, Long::sum);
+        }
+
+        long get(Long pictureId) {
+            long sum = 0;
+            for (ConcurrentHashMap<Long, Long> stripe : stripeList) {
+                sum += stripe.getOrDefault(pictureId, 0L);
+            }
+            return sum;
+        }
+
+        /**
+         * 取出并清空所有增量（逐个 key 原子移除，并发写入的增量不会丢失）
+         */
+        Map<Long, Long> drain() {
+            Map<Long, Long> result = new HashMap<>();
+            for (ConcurrentHashMap<Long, Long> stripe : stripeList) {
+                for (Long pictureId : stripe.keySet()) {
+                    Long delta = stripe.remove(pictureId);
+                    if (delta != null && delta != 0) {
+                        result.merge(pictureId, delta, Long::sum);
+                    }
+                }
+            }
+            result.values().removeIf(delta -> delta == 0);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.steve.cloudpicturebackend.manager.event;
+
+import com.steve.cloudpicturebackend.model.enums.PictureEventTypeEnum;
+import lombok.Data;
+
+/**
+ * 图片领域事件
+ * <p>
+ * 环形队列中的槽位会被复用，消费者如果需要在回调之外持有事件，必须使用 {@link #copy()} 得到的副本
+ */
+@Data
+public class PictureEvent {
+
+    /**
+     * 事件类型
+     */
+    private PictureEventTypeEnum type;
+
+    /**
+     * 图片 id
+     */
+    private Long pictureId;
+
+    /**
+     * 图片所属空间 id（事件发生后的值，公共图库为空）
+     */
+    private Long spaceId;
+
+    /**
+     * 图片审核状态（事件发生后的值）
+     */
+    private Integer reviewStatus;
+
+    /**
+     * 触发事件的用户 id，未登录时为空
+     */
+    private Long userId;
+
+    /**
+     * 次数，取消点赞为 -1
+     */
+    private int delta;
+
+    /**
+     * 访客标识（仅浏览事件）
+     */
+    private String visitorKey;
+
+    /**
+     * 事件发生时间（毫秒时间戳）
+     */
+    private long timestamp;
+
+    /**
+     * 复制事件
+     */
+    public PictureEvent copy() {
+        PictureEvent pictureEvent = new PictureEvent();
+        pictureEvent.setType(type);
+        pictureEvent.setPictureId(pictureId);
+        pictureEvent.setSpaceId(spaceId);
+        pictureEvent.setReviewStatus(reviewStatus);
+        pictureEvent.setUserId(userId);
+        pictureEvent.setDelta(delta);
+        pictureEvent.setVisitorKey(visitorKey);
+        pictureEvent.setTimestamp(timestamp);
+        return pictureEvent;
+    }
+}
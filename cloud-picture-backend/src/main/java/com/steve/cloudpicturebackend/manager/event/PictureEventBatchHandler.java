@@ -0,0 +1,44 @@
+package com.steve.cloudpicturebackend.manager.event;
+
+import com.lmax.disruptor.EventHandler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把 disruptor 逐条回调的事件攒成批次交给消费者
+ * <p>
+ * 以 disruptor 的 endOfBatch 作为批次边界：消费者跟上生产速度时每批只有一条，不增加延迟；出现积压时一次处理多条
+ */
+@Slf4j
+public class PictureEventBatchHandler implements EventHandler<PictureEvent> {
+
+    private final PictureEventConsumer pictureEventConsumer;
+
+    private final int maxBatchSize;
+
+    private final List<PictureEvent> buffer;
+
+    public PictureEventBatchHandler(PictureEventConsumer pictureEventConsumer, int maxBatchSize) {
+        this.pictureEventConsumer = pictureEventConsumer;
+        this.maxBatchSize = maxBatchSize;
+        this.buffer = new ArrayList<>(maxBatchSize);
+    }
+
+    @Override
+    public void onEvent(PictureEvent pictureEvent, long sequence, boolean endOfBatch) {
+        buffer.add(pictureEvent.copy());
+        if (endOfBatch || buffer.size() >= maxBatchSize) {
+            List<PictureEvent> eventList = new ArrayList<>(buffer);
+            buffer.clear();
+            try {
+                pictureEventConsumer.onEvents(eventList);
+            } catch (Exception e) {
+                // 消费失败只记录日志，不阻塞后续事件
+                log.error("consume picture events error, consumer = {}, size = {}",
+                        pictureEventConsumer.getClass().getSimpleName(), eventList.size(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.steve.cloudpicturebackend.manager.event;
+
+import java.util.List;
+
+/**
+ * 图片领域事件消费者
+ * <p>
+ * 实现类注册为 Spring Bean 即可，每个消费者在独立的线程上按发布顺序消费全部事件，并维护自己的消费进度，
+ * 消费慢或出错不会影响其他消费者。事件按批次投递：队列中积压的事件会合并成一批（不超过配置的批次大小），
+ * 便于消费者合并写操作
+ */
+public interface PictureEventConsumer {
+
+    /**
+     * 消费一批事件
+     *
+     * @param eventList 事件副本（按发布顺序），可以在回调之外持有
+     */
+    void onEvents(List<PictureEvent> eventList);
+}
@@ -0,0 +1,71 @@
+package com.steve.cloudpicturebackend.manager.event;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * 图片领域事件 disruptor 配置
+ * <p>
+ * 每个 {@link PictureEventConsumer} 对应一个独立的批处理器（独立线程、独立消费进度），
+ * 所有消费者都能收到全部事件；环形队列只有在最慢的消费者处理完之后才会复用槽位
+ */
+@Slf4j
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "picture.event")
+public class PictureEventDisruptorConfig {
+
+    /**
+     * 环形队列大小（必须是 2 的幂）
+     */
+    private int ringBufferSize = 1024 * 16;
+
+    /**
+     * 消费者等待策略：blocking / sleeping / yielding / busy-spin
+     */
+    private String waitStrategy = PictureEventWaitStrategyEnum.SLEEPING.getValue();
+
+    /**
+     * 每批最多投递给消费者的事件数
+     */
+    private int maxBatchSize = 256;
+
+    @Bean("pictureEventDisruptor")
+    public Disruptor<PictureEvent> pictureEventDisruptor(List<PictureEventConsumer> pictureEventConsumerList) {
+        if (Integer.bitCount(ringBufferSize) != 1) {
+            throw new IllegalArgumentException("picture.event.ring-buffer-size must be a power of 2");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("picture.event.max-batch-size must be positive");
+        }
+        PictureEventWaitStrategyEnum waitStrategyEnum = PictureEventWaitStrategyEnum.getEnumByValue(waitStrategy);
+        if (waitStrategyEnum == null) {
+            throw new IllegalArgumentException("unknown picture.event.wait-strategy: " + waitStrategy);
+        }
+        // 多个请求线程同时发布
+        Disruptor<PictureEvent> disruptor = new Disruptor<>(
+                PictureEvent::new,
+                ringBufferSize,
+                ThreadFactoryBuilder.create().setNamePrefix("pictureEventDisruptor").build(),
+                ProducerType.MULTI,
+                waitStrategyEnum.newWaitStrategy()
+        );
+        // 每个消费者一个批处理器，彼此独立
+        PictureEventBatchHandler[] handlers = pictureEventConsumerList.stream()
+                .map(pictureEventConsumer -> new PictureEventBatchHandler(pictureEventConsumer, maxBatchSize))
+                .toArray(PictureEventBatchHandler[]::new);
+        disruptor.handleEventsWith(handlers);
+        disruptor.start();
+        log.info("picture event disruptor started, ringBufferSize = {}, waitStrategy = {}, consumers = {}",
+                ringBufferSize, waitStrategyEnum.getValue(), pictureEventConsumerList.size());
+        return disruptor;
+    }
+}
@@ -0,0 +1,135 @@
+package com.steve.cloudpicturebackend.manager.event;
+
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.TimeoutException;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.steve.cloudpicturebackend.model.entity.Picture;
+import com.steve.cloudpicturebackend.model.enums.PictureEventTypeEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 图片领域事件发布者
+ * <p>
+ * 发布不会阻塞请求线程：队列已满（消费者严重积压）时直接丢弃事件并计数，事件只用于统计、排行等可以容忍少量丢失的场景
+ */
+@Slf4j
+@Component
+public class PictureEventPublisher {
+
+    /**
+     * 停机时等待消费者处理完积压事件的最长时间
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    @Resource
+    private Disruptor<PictureEvent> pictureEventDisruptor;
+
+    /**
+     * 因队列已满而丢弃的事件数
+     */
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * 发布事件
+     *
+     * @param type    事件类型
+     * @param picture 图片（事件发生后的状态）
+     * @param userId  触发事件的用户 id
+     */
+    public void publish(PictureEventTypeEnum type, Picture picture, Long userId) {
+        publish(type, picture, userId, 1);
+    }
+
+    /**
+     * 发布事件
+     *
+     * @param type    事件类型
+     * @param picture 图片（事件发生后的状态）
+     * @param userId  触发事件的用户 id
+     * @param delta   次数，取消点赞为 -1
+     */
+    public void publish(PictureEventTypeEnum type, Picture picture, Long userId, int delta) {
+        if (picture == null) {
+            return;
+        }
+        publish(type, picture.getId(), picture.getSpaceId(), picture.getReviewStatus(), userId, delta, null);
+    }
+
+    /**
+     * 发布浏览事件
+     *
+     * @param picture    图片
+     * @param userId     用户 id，未登录时为空
+     * @param visitorKey 访客标识
+     */
+    public void publishView(Picture picture, Long userId, String visitorKey) {
+        if (picture == null) {
+            return;
+        }
+        publish(PictureEventTypeEnum.VIEW, picture.getId(), picture.getSpaceId(), picture.getReviewStatus(), userId, 1, visitorKey);
+    }
+
+    /**
+     * 发布事件
+     *
+     * @param type         事件类型
+     * @param pictureId    图片 id
+     * @param spaceId      事件发生后图片所属的空间 id
+     * @param reviewStatus 事件发生后图片的审核状态
+     * @param userId       触发事件的用户 id
+     * @param delta        次数
+     * @param visitorKey   访客标识（仅浏览事件）
+     */
+    public void publish(PictureEventTypeEnum type, Long pictureId, Long spaceId, Integer reviewStatus, Long userId,
+                        int delta, String visitorKey) {
+        if (type == null || pictureId == null) {
+            return;
+        }
+        long timestamp = System.currentTimeMillis();
+        RingBuffer<PictureEvent> ringBuffer = pictureEventDisruptor.getRingBuffer();
+        boolean published = ringBuffer.tryPublishEvent((pictureEvent, sequence) -> {
+            pictureEvent.setType(type);
+            pictureEvent.setPictureId(pictureId);
+            pictureEvent.setSpaceId(spaceId);
+            pictureEvent.setReviewStatus(reviewStatus);
+            pictureEvent.setUserId(userId);
+            pictureEvent.setDelta(delta);
+            pictureEvent.setVisitorKey(visitorKey);
+            pictureEvent.setTimestamp(timestamp);
+        });
+        if (!published) {
+            long dropped = droppedCount.incrementAndGet();
+            // 避免积压时刷屏，每丢弃 1000 条打印一次
+            if (dropped % 1000 == 1) {
+                log.warn("picture event ring buffer is full, event dropped, type = {}, total dropped = {}",
+                        type.getValue(), dropped);
+            }
+        }
+    }
+
+    /**
+     * 因队列已满而丢弃的事件总数
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * 优雅停机：等待消费者处理完已发布的事件
+     */
+    @PreDestroy
+    public void close() {
+        try {
+            pictureEventDisruptor.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("picture event disruptor shutdown timeout, halt");
+            pictureEventDisruptor.halt();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.steve.cloudpicturebackend.manager.event;
+
+import cn.hutool.core.util.StrUtil;
+import com.lmax.disruptor.*;
+import lombok.Getter;
+
+/**
+ * 图片事件消费者的等待策略枚举
+ */
+@Getter
+public enum PictureEventWaitStrategyEnum {
+
+    BLOCKING("阻塞（锁 + 条件变量，CPU 占用最低，发布时需要唤醒消费者）", "blocking"),
+    SLEEPING("自旋后休眠（发布方无需加锁，延迟与 CPU 占用折中）", "sleeping"),
+    YIELDING("自旋后让出 CPU（低延迟，空闲时仍占用 CPU）", "yielding"),
+    BUSY_SPIN("忙等（延迟最低，每个消费者独占一个 CPU 核）", "busy-spin");
+
+    private final String text;
+
+    private final String value;
+
+    PictureEventWaitStrategyEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 创建等待策略实例
+     */
+    public WaitStrategy newWaitStrategy() {
+        switch (this) {
+            case BLOCKING:
+                return new BlockingWaitStrategy();
+            case YIELDING:
+                return new YieldingWaitStrategy();
+            case BUSY_SPIN:
+                return new BusySpinWaitStrategy();
+            case SLEEPING:
+            default:
+                return new SleepingWaitStrategy();
+        }
+    }
+
+    /**
+     * 根据 value 获取枚举
+     */
+    public static PictureEventWaitStrategyEnum getEnumByValue(String value) {
+        if (StrUtil.isBlank(value)) {
+            return null;
+        }
+        for (PictureEventWaitStrategyEnum pictureEventWaitStrategyEnum : PictureEventWaitStrategyEnum.values()) {
+            if (pictureEventWaitStrategyEnum.value.equals(value)) {
+                return pictureEventWaitStrategyEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,247 @@
+package com.steve.cloudpicturebackend.manager.feed;
+
+import cn.hutool.core.collection.CollUtil;
+import com.steve.cloudpicturebackend.mapper.PictureMapper;
+import com.steve.cloudpicturebackend.model.entity.Picture;
+import com.steve.cloudpicturebackend.model.enums.PictureReviewStatusEnum;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 公共图库首页的物化索引
+ * <p>
+ * 使用 Redis ZSet 保存所有公共图库中审核通过的图片 id，score 为创建时间，
+ * 首页按创建时间倒序分页时直接从索引中截取 id，不再访问 MySQL 做过滤和排序
+ */
+@Slf4j
+@Component
+public class PublicPictureFeedManager {
+
+    /**
+     * 索引 key
+     */
+    private static final String FEED_KEY = "cloud_picture:feed:public";
+
+    /**
+     * 重建时使用的临时 key
+     */
+    private static final String FEED_REBUILD_KEY = "cloud_picture:feed:public:rebuild";
+
+    /**
+     * 索引已构建的标记
+     * <p>
+     * 不能用索引 key 是否存在来判断：ZSet 的最后一个成员被移除（或重建时没有数据）后 key 会被 Redis 删除，
+     * 之后的增量写入都会被跳过，索引无法自行恢复
+     */
+    private static final String FEED_READY_KEY = "cloud_picture:feed:public:ready";
+
+    /**
+     * 重建时每批读取的条数
+     */
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    /**
+     * 正在重建的标记，存在期间的增量变更会额外记录到重建日志中
+     */
+    private static final String FEED_REBUILDING_KEY = "cloud_picture:feed:public:rebuilding";
+
+    /**
+     * 重建日志，field 为图片 id，value 为 score（写入）或 "-"（移除），只保留每张图片最后一次变更
+     */
+    private static final String FEED_REBUILD_JOURNAL_KEY = "cloud_picture:feed:public:rebuild_journal";
+
+    /**
+     * 重建标记的过期时间（秒），避免重建中途失败后标记一直存在
+     */
+    private static final long REBUILDING_EXPIRE_SECONDS = 3600;
+
+    /**
+     * 仅在索引已经构建过时才写入，避免索引未构建时被增量写入成一个不完整的索引；
+     * 正在重建时同时记录到重建日志，替换索引后重放
+     */
+    private static final DefaultRedisScript<Long> ADD_IF_READY_SCRIPT = new DefaultRedisScript<>(
+            "local result = -1 " +
+                    "if redis.call('EXISTS', KEYS[2]) == 1 then " +
+                    "result = redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2]) " +
+                    "end " +
+                    "if redis.call('EXISTS', KEYS[3]) == 1 then " +
+                    "redis.call('HSET', KEYS[4], ARGV[2], ARGV[1]) " +
+                    "redis.call('EXPIRE', KEYS[4], ARGV[3]) " +
+                    "end " +
+                    "return result",
+            Long.class);
+
+    /**
+     * 从索引中移除，正在重建时同时记录到重建日志
+     */
+    private static final DefaultRedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>(
+            "local result = redis.call('ZREM', KEYS[1], ARGV[1]) " +
+                    "if redis.call('EXISTS', KEYS[2]) == 1 then " +
+                    "redis.call('HSET', KEYS[3], ARGV[1], '-') " +
+                    "redis.call('EXPIRE', KEYS[3], ARGV[2]) " +
+                    "end " +
+                    "return result",
+            Long.class);
+
+    /**
+     * 用临时 key 原子替换索引，并重放重建期间记录的增量变更
+     * <p>
+     * 与增量写入脚本互斥执行：替换前的变更都在日志中，替换后的变更直接写入新索引
+     */
+    private static final DefaultRedisScript<Long> SWAP_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then " +
+                    "redis.call('RENAME', KEYS[1], KEYS[2]) " +
+                    "else " +
+                    "redis.call('DEL', KEYS[2]) " +
+                    "end " +
+                    "local entries = redis.call('HGETALL', KEYS[5]) " +
+                    "for i = 1, #entries, 2 do " +
+                    "if entries[i + 1] == '-' then " +
+                    "redis.call('ZREM', KEYS[2], entries[i]) " +
+                    "else " +
+                    "redis.call('ZADD', KEYS[2], entries[i + 1], entries[i]) " +
+                    "end " +
+                    "end " +
+                    "redis.call('DEL', KEYS[4], KEYS[5]) " +
+                    "redis.call('SET', KEYS[3], '1') " +
+                    "return #entries / 2",
+            Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    /**
+     * 根据图片的最新状态同步索引：公共图库且审核通过则写入，否则移除
+     *
+     * @param pictureId    图片 id
+     * @param spaceId      空间 id
+     * @param reviewStatus 审核状态
+     * @param createTime   创建时间，为空时使用当前时间
+     */
+    public void syncPicture(Long pictureId, Long spaceId, Integer reviewStatus, Date createTime) {
+        if (pictureId == null) {
+            return;
+        }
+        if (spaceId != null || reviewStatus == null || reviewStatus != PictureReviewStatusEnum.PASS.getValue()) {
+            removePicture(pictureId);
+            return;
+        }
+        long score = createTime == null ? System.currentTimeMillis() : createTime.getTime();
+        try {
+            stringRedisTemplate.execute(ADD_IF_READY_SCRIPT,
+                    Arrays.asList(FEED_KEY, FEED_READY_KEY, FEED_REBUILDING_KEY, FEED_REBUILD_JOURNAL_KEY),
+                    String.valueOf(score), String.valueOf(pictureId), String.valueOf(REBUILDING_EXPIRE_SECONDS));
+        } catch (Exception e) {
+            log.error("add picture to public feed error, pictureId = {}", pictureId, e);
+        }
+    }
+
+    /**
+     * 从索引中移除图片
+     *
+     * @param pictureId 图片 id
+     */
+    public void removePicture(Long pictureId) {
+        if (pictureId == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(REMOVE_SCRIPT,
+                    Arrays.asList(FEED_KEY, FEED_REBUILDING_KEY, FEED_REBUILD_JOURNAL_KEY),
+                    String.valueOf(pictureId), String.valueOf(REBUILDING_EXPIRE_SECONDS));
+        } catch (Exception e) {
+            log.error("remove picture from public feed error, pictureId = {}", pictureId, e);
+        }
+    }
+
+    /**
+     * 索引是否可用（已经构建过）
+     */
+    public boolean isReady() {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.hasKey(FEED_READY_KEY));
+        } catch (Exception e) {
+            log.error("check public feed error", e);
+            return false;
+        }
+    }
+
+    /**
+     * 索引中的图片总数
+     */
+    public long count() {
+        Long size = stringRedisTemplate.opsForZSet().zCard(FEED_KEY);
+        return size == null ? 0 : size;
+    }
+
+    /**
+     * 按创建时间倒序截取一页图片 id
+     *
+     * @param current  当前页号（从 1 开始）
+     * @param pageSize 页面大小
+     * @return 图片 id 列表（有序）
+     */
+    public List<Long> listPictureIds(long current, long pageSize) {
+        long start = Math.max(current - 1, 0) * pageSize;
+        long end = start + pageSize - 1;
+        Set<String> members = stringRedisTemplate.opsForZSet().reverseRange(FEED_KEY, start, end);
+        if (CollUtil.isEmpty(members)) {
+            return new ArrayList<>();
+        }
+        return members.stream().map(Long::valueOf).collect(Collectors.toList());
+    }
+
+    /**
+     * 从数据库重建索引
+     * <p>
+     * 按 id 分批读取，写入临时 key 后通过 RENAME 原子替换，重建期间读请求仍使用旧索引。
+     * 重建期间的增量变更记录在重建日志中，替换索引后按每张图片最后一次变更重放，不会被覆盖
+     *
+     * @return 写入索引的图片数量
+     */
+    public long rebuild() {
+        stringRedisTemplate.delete(Arrays.asList(FEED_REBUILD_KEY, FEED_REBUILD_JOURNAL_KEY));
+        // 先打标记再读库，保证读库之后的变更都能进入日志
+        stringRedisTemplate.opsForValue().set(FEED_REBUILDING_KEY, "1", REBUILDING_EXPIRE_SECONDS, TimeUnit.SECONDS);
+        long total = 0;
+        Long lastId = 0L;
+        while (true) {
+            List<Picture> pictureList = pictureMapper.selectList(new LambdaQueryWrapper<Picture>()
+                    .select(Picture::getId, Picture::getCreateTime)
+                    .isNull(Picture::getSpaceId)
+                    .eq(Picture::getReviewStatus, PictureReviewStatusEnum.PASS.getValue())
+                    .gt(Picture::getId, lastId)
+                    .orderByAsc(Picture::getId)
+                    .last("LIMIT " + REBUILD_BATCH_SIZE));
+            if (CollUtil.isEmpty(pictureList)) {
+                break;
+            }
+            Set<ZSetOperations.TypedTuple<String>> tuples = pictureList.stream()
+                    .map(picture -> ZSetOperations.TypedTuple.of(String.valueOf(picture.getId()),
+                            (double) (picture.getCreateTime() == null ? 0 : picture.getCreateTime().getTime())))
+                    .collect(Collectors.toSet());
+            stringRedisTemplate.opsForZSet().add(FEED_REBUILD_KEY, tuples);
+            total += pictureList.size();
+            lastId = pictureList.get(pictureList.size() - 1).getId();
+            if (pictureList.size() < REBUILD_BATCH_SIZE) {
+                break;
+            }
+        }
+        Long replayed = stringRedisTemplate.execute(SWAP_SCRIPT, Arrays.asList(FEED_REBUILD_KEY, FEED_KEY,
+                FEED_READY_KEY, FEED_REBUILDING_KEY, FEED_REBUILD_JOURNAL_KEY));
+        log.info("rebuild public picture feed finished, total = {}, replayed = {}", total, replayed);
+        return total;
+    }
+}
@@ -0,0 +1,410 @@
+package com.steve.cloudpicturebackend.manager.like;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.util.IdUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.steve.cloudpicturebackend.manager.lock.DistributedLock;
+import com.steve.cloudpicturebackend.manager.lock.DistributedLockManager;
+import com.steve.cloudpicturebackend.mapper.PictureLikeMapper;
+import com.steve.cloudpicturebackend.model.entity.PictureLike;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片点赞状态管理
+ * <p>
+ * 点赞关系保存在 Redis 中：用户 => 点赞过的图片（ZSet，score 为点赞时间）。点赞与取消点赞通过 Lua 脚本原子切换，
+ * 同时把变更追加到 Redis 列表中，再由定时任务批量写回 picture_like 表。列表页查询点赞状态、“我的点赞”按时间倒序翻页都只读 Redis，不访问 picture_like。
+ * 用户集合在一段时间没有访问后过期，再次访问时从数据库重新加载（过期时间远大于写回间隔，过期时变更早已写回）。
+ * 写回失败的变更留在队首重试，超过最大次数后移入死信列表，不会永久阻塞后续变更
+ */
+@Slf4j
+@Component
+public class PictureLikeManager {
+
+    /**
+     * 用户点赞过的图片有序集合 key 前缀（score 为点赞时间戳）
+     */
+    private static final String USER_LIKE_KEY_PREFIX = "cloud_picture:like:user_timeline:";
+
+    /**
+     * 待写回数据库的点赞变更（列表，元素格式：userId:pictureId:1 点赞 / 0 取消:时间戳[:已失败次数]）
+     */
+    private static final String PENDING_KEY = "cloud_picture:like:pending";
+
+    /**
+     * 无法写回的变更（死信列表，元素格式同 PENDING_KEY），需要人工排查
+     */
+    private static final String DEAD_LETTER_KEY = "cloud_picture:like:dead_letter";
+
+    /**
+     * 单条变更的最大写回次数，超过后移入死信列表
+     */
+    private static final int MAX_FLUSH_ATTEMPTS = 5;
+
+    /**
+     * 用户集合的空闲过期时间（秒），每次访问时刷新
+     */
+    private static final long USER_LIKE_EXPIRE_SECONDS = TimeUnit.DAYS.toSeconds(7);
+
+    /**
+     * 写回任务的分布式锁（持有期间自动续期）
+     */
+    private static final String FLUSH_LOCK_NAME = "picture:like:flush";
+
+    /**
+     * 从数据库加载用户集合时使用的临时 key 的过期时间（秒），加载进程崩溃时自动清理
+     */
+    private static final long LOADING_KEY_EXPIRE_SECONDS = 60;
+
+    /**
+     * 每次写回的变更数量
+     */
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    /**
+     * 从数据库加载集合时每批写入 Redis 的数量
+     */
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    /**
+     * 占位成员（id 均为正数），用于区分“集合已加载但为空”和“集合未加载”
+     */
+    private static final String PLACEHOLDER_MEMBER = "0";
+
+    /**
+     * 点赞时间的最小有效 score，用户有序集合中的占位成员 score 为 0，按时间翻页时需要排除
+     */
+    private static final double MIN_LIKE_SCORE = 1;
+
+    /**
+     * 切换点赞状态。KEYS：用户集合、变更列表；ARGV：图片 id、用户 id、1 点赞 / 0 取消、时间戳、过期时间。
+     * 返回 -1 集合未加载，0 状态未变化（重复点赞或未点赞），1 切换成功
+     */
+    private static final DefaultRedisScript<Long> TOGGLE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end " +
+                    "redis.call('EXPIRE', KEYS[1], ARGV[5]) " +
+                    "if ARGV[3] == '1' then " +
+                    "if redis.call('ZADD', KEYS[1], 'NX', ARGV[4], ARGV[1]) == 0 then return 0 end " +
+                    "else " +
+                    "if redis.call('ZREM', KEYS[1], ARGV[1]) == 0 then return 0 end " +
+                    "end " +
+                    "redis.call('RPUSH', KEYS[2], ARGV[2] .. ':' .. ARGV[1] .. ':' .. ARGV[3] .. ':' .. ARGV[4]) " +
+                    "return 1",
+            Long.class);
+
+    /**
+     * 把加载完成的临时集合原子地替换为正式集合并设置空闲过期时间；正式集合已经存在（其他请求先加载完成）时放弃，
+     * 避免覆盖并发写入的点赞。KEYS：临时 key、正式 key；ARGV：过期时间
+     */
+    private static final DefaultRedisScript<Long> RENAME_IF_ABSENT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[2]) == 1 then redis.call('DEL', KEYS[1]) return 0 end " +
+                    "redis.call('RENAME', KEYS[1], KEYS[2]) " +
+                    "redis.call('EXPIRE', KEYS[2], ARGV[1]) " +
+                    "return 1",
+            Long.class);
+
+    /**
+     * 批量判断是否为集合成员并刷新过期时间，集合未加载时返回空列表。ARGV：过期时间、图片 id...
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> IS_MEMBER_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return {} end " +
+                    "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+                    "local result = {} " +
+                    "for i = 2, #ARGV do result[i - 1] = redis.call('ZSCORE', KEYS[1], ARGV[i]) and 1 or 0 end " +
+                    "return result",
+            List.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private PictureLikeMapper pictureLikeMapper;
+
+    @Resource
+    private DistributedLockManager distributedLockManager;
+
+    /**
+     * 点赞
+     *
+     * @return 是否点赞成功，已经点赞过时返回 false
+     */
+    public boolean like(Long userId, Long pictureId) {
+        return toggle(userId, pictureId, true);
+    }
+
+    /**
+     * 取消点赞
+     *
+     * @return 是否取消成功，没有点赞过时返回 false
+     */
+    public boolean unlike(Long userId, Long pictureId) {
+        return toggle(userId, pictureId, false);
+    }
+
+    /**
+     * 批量查询用户点赞过的图片
+     *
+     * @param userId     用户 id
+     * @param pictureIds 待查询的图片 id
+     * @return 其中已点赞的图片 id
+     */
+    public Set<Long> getLikedPictureIdSet(Long userId, Collection<Long> pictureIds) {
+        Set<Long> result = new HashSet<>();
+        if (userId == null || CollUtil.isEmpty(pictureIds)) {
+            return result;
+        }
+        List<Long> pictureIdList = new ArrayList<>(new LinkedHashSet<>(pictureIds));
+        List<String> argList = new ArrayList<>(pictureIdList.size() + 1);
+        argList.add(String.valueOf(USER_LIKE_EXPIRE_SECONDS));
+        pictureIdList.forEach(pictureId -> argList.add(String.valueOf(pictureId)));
+        Object[] args = argList.toArray();
+        String userKey = getUserKey(userId);
+        List<?> flagList = stringRedisTemplate.execute(IS_MEMBER_SCRIPT, Collections.singletonList(userKey), args);
+        if (CollUtil.isEmpty(flagList)) {
+            // 集合未加载，从数据库加载后重试
+            loadUserLikes(userId);
+            flagList = stringRedisTemplate.execute(IS_MEMBER_SCRIPT, Collections.singletonList(userKey), args);
+        }
+        if (flagList == null) {
+            return result;
+        }
+        for (int i = 0; i < flagList.size() && i < pictureIdList.size(); i++) {
+            if (Convert.toLong(flagList.get(i), 0L) == 1L) {
+                result.add(pictureIdList.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按点赞时间倒序（键集分页）获取用户点赞过的图片
+     * <p>
+     * 从上一页最后一条（点赞时间，图片 id）之后开始截取。同一毫秒内的多条点赞按成员字符串倒序排列，
+     * 与 ZREVRANGEBYSCORE 的顺序一致，因此游标所在毫秒内已经返回过的成员需要跳过
+     *
+     * @param userId          用户 id
+     * @param lastLikeTime    上一页最后一条的点赞时间戳，首页传 null
+     * @param lastPictureId   上一页最后一条的图片 id，首页传 null
+     * @param count           获取数量
+     * @return 图片 id 与点赞时间戳（有序）
+     */
+    public List<ZSetOperations.TypedTuple<String>> listLikedPictures(Long userId, Long lastLikeTime, Long lastPictureId, int count) {
+        List<ZSetOperations.TypedTuple<String>> result = new ArrayList<>();
+        if (userId == null || count <= 0) {
+            return result;
+        }
+        String userKey = getUserKey(userId);
+        // 刷新过期时间，集合不存在时从数据库加载
+        if (!Boolean.TRUE.equals(stringRedisTemplate.expire(userKey, USER_LIKE_EXPIRE_SECONDS, TimeUnit.SECONDS))) {
+            loadUserLikes(userId);
+        }
+        double maxScore = lastLikeTime == null ? Double.MAX_VALUE : lastLikeTime;
+        String lastMember = lastPictureId == null ? null : String.valueOf(lastPictureId);
+        long offset = 0;
+        while (result.size() < count) {
+            int fetchCount = count - result.size() + 1;
+            Set<ZSetOperations.TypedTuple<String>> tupleSet = stringRedisTemplate.opsForZSet()
+                    .reverseRangeByScoreWithScores(userKey, MIN_LIKE_SCORE, maxScore, offset, fetchCount);
+            if (CollUtil.isEmpty(tupleSet)) {
+                break;
+            }
+            for (ZSetOperations.TypedTuple<String> tuple : tupleSet) {
+                boolean returned = lastMember != null && tuple.getScore() != null && tuple.getScore() == maxScore
+                        && tuple.getValue() != null && tuple.getValue().compareTo(lastMember) >= 0;
+                if (!returned && result.size() < count) {
+                    result.add(tuple);
+                }
+            }
+            if (tupleSet.size() < fetchCount) {
+                break;
+            }
+            offset += tupleSet.size();
+        }
+        return result;
+    }
+
+    /**
+     * 把 Redis 中的点赞变更批量写回 picture_like
+     */
+    @Scheduled(initialDelay = 1000, fixedDelay = 1000)
+    public void flushToDatabase() {
+        DistributedLock lock;
+        try {
+            lock = distributedLockManager.tryLock(FLUSH_LOCK_NAME, 0, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.error("acquire picture like flush lock error", e);
+            return;
+        }
+        if (lock == null) {
+            return;
+        }
+        try {
+            while (lock.isHeld()) {
+                List<String> changeList = stringRedisTemplate.opsForList().range(PENDING_KEY, 0, FLUSH_BATCH_SIZE - 1);
+                if (CollUtil.isEmpty(changeList)) {
+                    break;
+                }
+                int processedCount = flushBatch(changeList);
+                // 写回成功后再从列表中移除（至少一次，重复写入由唯一索引和条件删除保证幂等）
+                if (processedCount > 0) {
+                    stringRedisTemplate.opsForList().trim(PENDING_KEY, processedCount, -1);
+                }
+                // 有变更等待重试（已留在队首），下次再写回，保证同一关系的变更按顺序生效
+                if (processedCount < changeList.size() || changeList.size() < FLUSH_BATCH_SIZE) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("flush picture likes error", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 写回一批变更。整批失败时按顺序逐条重试，遇到失败的变更时停止：确认数据库可用后把它的失败次数加 1 留在队首，
+     * 下次再重试，超过最大次数才移入死信列表；数据库不可用时抛出异常，整批保留到下次重试
+     *
+     * @return 已处理（写回或移入死信列表）的前缀变更数量，可以从列表中移除
+     */
+    private int flushBatch(List<String> changeList) {
+        try {
+            applyChanges(changeList);
+            return changeList.size();
+        } catch (Exception e) {
+            log.warn("flush picture likes batch error, retry one by one, size = {}", changeList.size(), e);
+        }
+        for (int i = 0; i < changeList.size(); i++) {
+            String change = changeList.get(i);
+            try {
+                applyChanges(Collections.singletonList(change));
+                continue;
+            } catch (Exception e) {
+                log.warn("flush picture like change error, change = {}", change, e);
+            }
+            // 探测数据库是否可用：不可用时不能把正常的变更当成异常数据
+            pictureLikeMapper.selectCount(new LambdaQueryWrapper<PictureLike>().eq(PictureLike::getId, 0L));
+            String[] parts = change.split(":");
+            int attempts = (parts.length > 4 ? Convert.toInt(parts[4], 0) : 0) + 1;
+            if (attempts >= MAX_FLUSH_ATTEMPTS) {
+                stringRedisTemplate.opsForList().rightPush(DEAD_LETTER_KEY, change);
+                log.error("move picture like change to dead letter list, change = {}", change);
+                continue;
+            }
+            // 只有持有锁的写回任务会修改列表头部，新变更只追加到尾部，下标 i 仍然指向这条变更
+            String retryChange = parts.length > 4
+                    ? change.substring(0, change.lastIndexOf(':')) + ":" + attempts
+                    : change + ":" + attempts;
+            stringRedisTemplate.opsForList().set(PENDING_KEY, i, retryChange);
+            return i;
+        }
+        return changeList.size();
+    }
+
+    private boolean toggle(Long userId, Long pictureId, boolean like) {
+        List<String> keys = Arrays.asList(getUserKey(userId), PENDING_KEY);
+        Object[] args = {String.valueOf(pictureId), String.valueOf(userId), like ? "1" : "0",
+                String.valueOf(System.currentTimeMillis()), String.valueOf(USER_LIKE_EXPIRE_SECONDS)};
+        Long result = stringRedisTemplate.execute(TOGGLE_SCRIPT, keys, args);
+        if (result != null && result == -1) {
+            loadUserLikes(userId);
+            result = stringRedisTemplate.execute(TOGGLE_SCRIPT, keys, args);
+        }
+        return result != null && result == 1;
+    }
+
+    /**
+     * 合并同一（用户，图片）的多次变更，只保留最后一次，再分别批量新增和删除
+     */
+    private void applyChanges(List<String> changeList) {
+        Map<String, String[]> lastChangeMap = new LinkedHashMap<>();
+        for (String change : changeList) {
+            String[] parts = change.split(":");
+            if (parts.length < 4) {
+                throw new IllegalArgumentException("invalid picture like change: " + change);
+            }
+            String relationKey = parts[0] + ":" + parts[1];
+            lastChangeMap.remove(relationKey);
+            lastChangeMap.put(relationKey, parts);
+        }
+        List<PictureLike> insertList = new ArrayList<>();
+        List<String[]> deleteList = new ArrayList<>();
+        for (String[] parts : lastChangeMap.values()) {
+            if ("1".equals(parts[2])) {
+                PictureLike pictureLike = new PictureLike();
+                pictureLike.setUserId(Long.valueOf(parts[0]));
+                pictureLike.setPictureId(Long.valueOf(parts[1]));
+                pictureLike.setCreateTime(new Date(Long.parseLong(parts[3])));
+                insertList.add(pictureLike);
+            } else {
+                deleteList.add(parts);
+            }
+        }
+        if (!insertList.isEmpty()) {
+            pictureLikeMapper.insertIgnoreBatch(insertList);
+        }
+        if (!deleteList.isEmpty()) {
+            LambdaQueryWrapper<PictureLike> queryWrapper = new LambdaQueryWrapper<>();
+            for (String[] parts : deleteList) {
+                queryWrapper.or(qw -> qw.eq(PictureLike::getUserId, Long.valueOf(parts[0]))
+                        .eq(PictureLike::getPictureId, Long.valueOf(parts[1])));
+            }
+            pictureLikeMapper.delete(queryWrapper);
+        }
+    }
+
+    /**
+     * 用户集合不存在时从数据库加载
+     * <p>
+     * 先完整写入临时 key，再通过 RENAME 原子替换为正式集合，加载期间的点赞切换看到的是“集合未加载”，
+     * 不会作用在只加载了一部分的集合上
+     */
+    private void loadUserLikes(Long userId) {
+        String key = getUserKey(userId);
+        if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(key))) {
+            return;
+        }
+        List<PictureLike> pictureLikeList = pictureLikeMapper.selectList(new LambdaQueryWrapper<PictureLike>()
+                .select(PictureLike::getPictureId, PictureLike::getCreateTime)
+                .eq(PictureLike::getUserId, userId));
+        String loadingKey = key + ":loading:" + IdUtil.fastSimpleUUID();
+        stringRedisTemplate.opsForZSet().add(loadingKey, PLACEHOLDER_MEMBER, 0);
+        stringRedisTemplate.expire(loadingKey, LOADING_KEY_EXPIRE_SECONDS, TimeUnit.SECONDS);
+        for (List<PictureLike> batch : CollUtil.split(pictureLikeList, LOAD_BATCH_SIZE)) {
+            Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+            for (PictureLike pictureLike : batch) {
+                tuples.add(ZSetOperations.TypedTuple.of(String.valueOf(pictureLike.getPictureId()),
+                        (double) getLikeScore(pictureLike)));
+            }
+            stringRedisTemplate.opsForZSet().add(loadingKey, tuples);
+        }
+        Long loaded = stringRedisTemplate.execute(RENAME_IF_ABSENT_SCRIPT, Arrays.asList(loadingKey, key),
+                String.valueOf(USER_LIKE_EXPIRE_SECONDS));
+        if (loaded != null && loaded == 1) {
+            log.info("load picture likes into redis, key = {}, size = {}", key, pictureLikeList.size());
+        }
+    }
+
+    /**
+     * 点赞时间作为 score，缺失时取最小有效值，保证不与占位成员混淆
+     */
+    private static long getLikeScore(PictureLike pictureLike) {
+        Date createTime = pictureLike.getCreateTime();
+        return createTime == null ? (long) MIN_LIKE_SCORE : Math.max(createTime.getTime(), (long) MIN_LIKE_SCORE);
+    }
+
+    private static String getUserKey(Long userId) {
+        return USER_LIKE_KEY_PREFIX + userId;
+    }
+}
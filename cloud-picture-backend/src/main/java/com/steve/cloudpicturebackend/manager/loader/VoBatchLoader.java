@@ -0,0 +1,122 @@
+package com.steve.cloudpicturebackend.manager.loader;
+
+import cn.hutool.core.collection.CollUtil;
+import com.steve.cloudpicturebackend.model.entity.Space;
+import com.steve.cloudpicturebackend.model.entity.User;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 封装类组装时使用的批量加载器（一次请求内共享）
+ * <p>
+ * 组装封装类时先把需要关联查询的 id 放入队列（enqueue），第一次读取（get）时按类型一次性批量查询，
+ * 同一个 id 在整个请求内只会查询一次。因此无论返回多少条数据，组装过程的查询次数都是固定的。
+ * <p>
+ * 非线程安全，仅在单个请求线程内使用，通过 {@link VoBatchLoaderManager#getLoader} 获取
+ */
+public class VoBatchLoader {
+
+    private final DataLoader<User> userLoader;
+
+    private final DataLoader<Space> spaceLoader;
+
+    private final DataLoader<Boolean> pictureLikeLoader;
+
+    VoBatchLoader(Function<Set<Long>, Map<Long, User>> userBatchFunction,
+                  Function<Set<Long>, Map<Long, Space>> spaceBatchFunction,
+                  Function<Set<Long>, Map<Long, Boolean>> pictureLikeBatchFunction) {
+        this.userLoader = new DataLoader<>(userBatchFunction);
+        this.spaceLoader = new DataLoader<>(spaceBatchFunction);
+        this.pictureLikeLoader = new DataLoader<>(pictureLikeBatchFunction);
+    }
+
+    public void enqueueUser(Long userId) {
+        userLoader.enqueue(userId);
+    }
+
+    public void enqueueSpace(Long spaceId) {
+        spaceLoader.enqueue(spaceId);
+    }
+
+    /**
+     * 加入当前登录用户对图片的点赞状态查询
+     */
+    public void enqueuePictureLike(Long pictureId) {
+        pictureLikeLoader.enqueue(pictureId);
+    }
+
+    public User getUser(Long userId) {
+        return userLoader.get(userId);
+    }
+
+    public Space getSpace(Long spaceId) {
+        return spaceLoader.get(spaceId);
+    }
+
+    /**
+     * 当前登录用户是否点赞了图片（未登录时为 false）
+     */
+    public boolean isPictureLiked(Long pictureId) {
+        return Boolean.TRUE.equals(pictureLikeLoader.get(pictureId));
+    }
+
+    /**
+     * 单一类型的批量加载器
+     *
+     * @param <V> 值类型
+     */
+    private static class DataLoader<V> {
+
+        /**
+         * 批量查询方法，入参为去重后的 id 集合
+         */
+        private final Function<Set<Long>, Map<Long, V>> batchFunction;
+
+        /**
+         * 等待查询的 id
+         */
+        private final Set<Long> pendingKeys = new LinkedHashSet<>();
+
+        /**
+         * 已查询的结果（包括不存在的 id，值为 null）
+         */
+        private final Map<Long, V> loadedValues = new HashMap<>();
+
+        private DataLoader(Function<Set<Long>, Map<Long, V>> batchFunction) {
+            this.batchFunction = batchFunction;
+        }
+
+        private void enqueue(Long key) {
+            if (key != null && !loadedValues.containsKey(key)) {
+                pendingKeys.add(key);
+            }
+        }
+
+        private V get(Long key) {
+            if (key == null) {
+                return null;
+            }
+            if (!loadedValues.containsKey(key)) {
+                pendingKeys.add(key);
+                dispatch();
+            }
+            return loadedValues.get(key);
+        }
+
+        /**
+         * 一次性查询队列中的所有 id
+         */
+        private void dispatch() {
+            if (pendingKeys.isEmpty()) {
+                return;
+            }
+            Set<Long> keys = new HashSet<>(pendingKeys);
+            pendingKeys.clear();
+            Map<Long, V> result = batchFunction.apply(keys);
+            for (Long key : keys) {
+                loadedValues.put(key, CollUtil.isEmpty(result) ? null : result.get(key));
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.steve.cloudpicturebackend.manager.loader;
+
+import com.steve.cloudpicturebackend.manager.like.PictureLikeManager;
+import com.steve.cloudpicturebackend.model.entity.Space;
+import com.steve.cloudpicturebackend.model.entity.User;
+import com.steve.cloudpicturebackend.service.SpaceService;
+import com.steve.cloudpicturebackend.service.UserService;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 批量加载器管理
+ * <p>
+ * 加载器保存在请求属性中，同一个请求内组装多个封装类时共享查询结果
+ */
+@Component
+public class VoBatchLoaderManager {
+
+    /**
+     * 加载器在请求属性中的 key
+     */
+    private static final String LOADER_ATTRIBUTE = VoBatchLoader.class.getName();
+
+    @Resource
+    @Lazy
+    private UserService userService;
+
+    @Resource
+    @Lazy
+    private SpaceService spaceService;
+
+    @Resource
+    private PictureLikeManager pictureLikeManager;
+
+    /**
+     * 获取当前请求的批量加载器
+     *
+     * @param request 请求，为空时（如缓存回源、异步任务）返回一个新的加载器，点赞状态均为未点赞
+     * @return 批量加载器
+     */
+    public VoBatchLoader getLoader(HttpServletRequest request) {
+        if (request == null) {
+            return createLoader(null);
+        }
+        Object loader = request.getAttribute(LOADER_ATTRIBUTE);
+        if (loader instanceof VoBatchLoader) {
+            return (VoBatchLoader) loader;
+        }
+        VoBatchLoader voBatchLoader = createLoader(request);
+        request.setAttribute(LOADER_ATTRIBUTE, voBatchLoader);
+        return voBatchLoader;
+    }
+
+    private VoBatchLoader createLoader(HttpServletRequest request) {
+        return new VoBatchLoader(
+                userIds -> userService.listByIds(userIds).stream()
+                        .collect(Collectors.toMap(User::getId, user -> user)),
+                spaceIds -> spaceService.listByIds(spaceIds).stream()
+                        .collect(Collectors.toMap(Space::getId, space -> space)),
+                pictureIds -> loadPictureLike(request, pictureIds));
+    }
+
+    /**
+     * 查询当前登录用户的点赞状态（读取 Redis 中的点赞集合），未登录时不查询
+     */
+    private Map<Long, Boolean> loadPictureLike(HttpServletRequest request, Set<Long> pictureIds) {
+        Map<Long, Boolean> result = new HashMap<>();
+        User loginUser = userService.getLoginUserPermitNull(request);
+        Set<Long> likedPictureIds = loginUser == null
+                ? Collections.<Long>emptySet()
+                : pictureLikeManager.getLikedPictureIdSet(loginUser.getId(), pictureIds);
+        pictureIds.forEach(pictureId -> result.put(pictureId, likedPictureIds.contains(pictureId)));
+        return result;
+    }
+}
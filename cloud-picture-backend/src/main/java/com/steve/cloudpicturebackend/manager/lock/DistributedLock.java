@@ -0,0 +1,81 @@
+package com.steve.cloudpicturebackend.manager.lock;
+
+import lombok.Getter;
+
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * 分布式锁（租约）
+ * <p>
+ * 持有期间由后台线程自动续期，不与线程绑定，可以在一个线程加锁、另一个线程释放（例如 WebSocket 编辑会话）。
+ * 锁只用于减少并发冲突，不能保证严格互斥：租约过期（如长时间 GC 停顿）后旧的持有者仍可能继续写入，
+ * {@link #isHeld()} 只是某一时刻的检查，检查之后租约仍可能过期。需要严格互斥的写入必须由受保护的资源兜底，
+ * 例如数据库唯一约束（创建空间）、带批次号的幂等写入（计数器落库）或条件更新
+ */
+public class DistributedLock implements AutoCloseable {
+
+    /**
+     * 锁名称
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * 持有者标识（写入 Redis 的值）
+     */
+    @Getter
+    private final String owner;
+
+    private final DistributedLockManager distributedLockManager;
+
+    /**
+     * 续期任务
+     */
+    private volatile ScheduledFuture<?> renewFuture;
+
+    /**
+     * 续期失败（租约已经被他人持有或已过期）时置为 true
+     */
+    private volatile boolean lost;
+
+    DistributedLock(String name, String owner, DistributedLockManager distributedLockManager) {
+        this.name = name;
+        this.owner = owner;
+        this.distributedLockManager = distributedLockManager;
+    }
+
+    /**
+     * 是否仍然持有锁（查询 Redis）
+     */
+    public boolean isHeld() {
+        return !lost && distributedLockManager.isHeld(this);
+    }
+
+    /**
+     * 释放锁，重复释放无副作用
+     */
+    public void unlock() {
+        distributedLockManager.unlock(this);
+    }
+
+    @Override
+    public void close() {
+        unlock();
+    }
+
+    void setRenewFuture(ScheduledFuture<?> renewFuture) {
+        this.renewFuture = renewFuture;
+    }
+
+    void cancelRenew() {
+        ScheduledFuture<?> future = this.renewFuture;
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    void markLost() {
+        this.lost = true;
+        cancelRenew();
+    }
+}
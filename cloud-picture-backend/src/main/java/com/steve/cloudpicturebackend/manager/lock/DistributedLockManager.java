@@ -0,0 +1,148 @@
+package com.steve.cloudpicturebackend.manager.lock;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.IdUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Redis 的分布式锁（租约 + 自动续期）
+ * <p>
+ * 加锁时以 SET NX PX 写入随机的持有者标识；持有期间每隔租约的三分之一续期一次，
+ * 进程崩溃时租约到期自动释放；释放和续期都会先比较持有者标识，不会误删他人的锁。
+ * 租约过期后旧的持有者仍可能继续执行，严格互斥需要由受保护的资源兜底，见 {@link DistributedLock}
+ */
+@Slf4j
+@Component
+public class DistributedLockManager {
+
+    /**
+     * 锁 key 前缀
+     */
+    private static final String LOCK_KEY_PREFIX = "cloud_picture:lock:";
+
+    /**
+     * 默认租约时长
+     */
+    private static final long DEFAULT_LEASE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * 等待锁时的重试间隔
+     */
+    private static final long RETRY_INTERVAL_MILLIS = 50;
+
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+                    "end " +
+                    "return 0",
+            Long.class);
+
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('DEL', KEYS[1]) " +
+                    "end " +
+                    "return 0",
+            Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 续期线程（所有锁共用）
+     */
+    private final ScheduledExecutorService renewExecutor = Executors.newSingleThreadScheduledExecutor(
+            ThreadFactoryBuilder.create().setNamePrefix("distributedLockRenew").setDaemon(true).build());
+
+    /**
+     * 尝试加锁（使用默认租约时长）
+     *
+     * @param name     锁名称
+     * @param waitTime 最长等待时间，0 表示不等待
+     * @param unit     时间单位
+     * @return 锁，超时未获取到时返回 null
+     */
+    public DistributedLock tryLock(String name, long waitTime, TimeUnit unit) {
+        return tryLock(name, waitTime, unit, DEFAULT_LEASE_MILLIS);
+    }
+
+    /**
+     * 尝试加锁
+     *
+     * @param name        锁名称
+     * @param waitTime    最长等待时间，0 表示不等待
+     * @param unit        时间单位
+     * @param leaseMillis 租约时长（毫秒），持有期间自动续期
+     * @return 锁，超时未获取到时返回 null
+     */
+    public DistributedLock tryLock(String name, long waitTime, TimeUnit unit, long leaseMillis) {
+        String owner = IdUtil.fastSimpleUUID();
+        long deadline = System.currentTimeMillis() + unit.toMillis(waitTime);
+        while (true) {
+            Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(getLockKey(name), owner,
+                    leaseMillis, TimeUnit.MILLISECONDS);
+            if (Boolean.TRUE.equals(locked)) {
+                DistributedLock lock = new DistributedLock(name, owner, this);
+                long renewInterval = Math.max(leaseMillis / 3, 1);
+                lock.setRenewFuture(renewExecutor.scheduleWithFixedDelay(() -> renew(lock, leaseMillis),
+                        renewInterval, renewInterval, TimeUnit.MILLISECONDS));
+                return lock;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return null;
+            }
+            try {
+                Thread.sleep(RETRY_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    boolean isHeld(DistributedLock lock) {
+        return lock.getOwner().equals(stringRedisTemplate.opsForValue().get(getLockKey(lock.getName())));
+    }
+
+    void unlock(DistributedLock lock) {
+        lock.cancelRenew();
+        try {
+            stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(getLockKey(lock.getName())), lock.getOwner());
+        } catch (Exception e) {
+            // 释放失败时等待租约到期
+            log.error("unlock distributed lock error, name = {}", lock.getName(), e);
+        }
+    }
+
+    private void renew(DistributedLock lock, long leaseMillis) {
+        try {
+            Long result = stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(getLockKey(lock.getName())),
+                    lock.getOwner(), String.valueOf(leaseMillis));
+            if (result == null || result == 0) {
+                log.warn("distributed lock lost, name = {}", lock.getName());
+                lock.markLost();
+            }
+        } catch (Exception e) {
+            // 网络抖动时保留续期任务，下次继续尝试
+            log.error("renew distributed lock error, name = {}", lock.getName(), e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        renewExecutor.shutdownNow();
+    }
+
+    private static String getLockKey(String name) {
+        return LOCK_KEY_PREFIX + name;
+    }
+}
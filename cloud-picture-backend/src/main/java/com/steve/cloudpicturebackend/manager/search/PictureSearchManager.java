@@ -0,0 +1,266 @@
+package com.steve.cloudpicturebackend.manager.search;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.convert.Convert;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.steve.cloudpicturebackend.mapper.PictureMapper;
+import com.steve.cloudpicturebackend.mapper.PictureSearchTokenMapper;
+import com.steve.cloudpicturebackend.model.entity.Picture;
+import com.steve.cloudpicturebackend.model.entity.PictureSearchToken;
+import com.steve.cloudpicturebackend.model.enums.PictureSearchFieldEnum;
+import com.steve.cloudpicturebackend.utils.NGramTokenizeUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 图片全文检索（基于数据库倒排索引）
+ * <p>
+ * 图片的名称、简介按 N-Gram 切分后写入 picture_search_token 表，
+ * 检索时按词命中的图片分组，要求命中全部查询词，并按权重之和排序。
+ * 索引表在上线后为空，首次全量重建完成前（就绪标记不存在）调用方应使用 LIKE 查询
+ */
+@Slf4j
+@Component
+public class PictureSearchManager {
+
+    /**
+     * 重建时每批读取的条数
+     */
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    /**
+     * 索引就绪标记（全量重建完成后写入）
+     */
+    private static final String SEARCH_READY_KEY = "cloud_picture:search:ready";
+
+    @Resource
+    private PictureSearchTokenMapper pictureSearchTokenMapper;
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 本机缓存的就绪状态（就绪后不会再变为未就绪，只缓存 true）
+     */
+    private volatile boolean ready;
+
+    /**
+     * 索引是否已经全量构建过（未构建时索引中缺少存量图片，检索结果不完整）
+     */
+    public boolean isReady() {
+        if (ready) {
+            return true;
+        }
+        try {
+            ready = Boolean.TRUE.equals(stringRedisTemplate.hasKey(SEARCH_READY_KEY));
+        } catch (Exception e) {
+            log.error("check picture search index ready error", e);
+        }
+        return ready;
+    }
+
+    /**
+     * 更新图片的索引，只处理不为 null 的字段（null 表示该字段没有修改）
+     *
+     * @param pictureId    图片 id
+     * @param spaceId      空间 id
+     * @param name         名称
+     * @param introduction 简介
+     */
+    public void indexPicture(Long pictureId, Long spaceId, String name, String introduction) {
+        if (pictureId == null) {
+            return;
+        }
+        List<PictureSearchToken> tokenList = new ArrayList<>();
+        List<String> fieldList = new ArrayList<>();
+        if (name != null) {
+            fieldList.add(PictureSearchFieldEnum.NAME.getValue());
+            tokenList.addAll(buildTokens(pictureId, spaceId, PictureSearchFieldEnum.NAME, name));
+        }
+        if (introduction != null) {
+            fieldList.add(PictureSearchFieldEnum.INTRODUCTION.getValue());
+            tokenList.addAll(buildTokens(pictureId, spaceId, PictureSearchFieldEnum.INTRODUCTION, introduction));
+        }
+        if (fieldList.isEmpty()) {
+            return;
+        }
+        pictureSearchTokenMapper.delete(new LambdaQueryWrapper<PictureSearchToken>()
+                .eq(PictureSearchToken::getPictureId, pictureId)
+                .in(PictureSearchToken::getField, fieldList));
+        if (!tokenList.isEmpty()) {
+            pictureSearchTokenMapper.insert(tokenList);
+        }
+    }
+
+    /**
+     * 删除图片的索引
+     *
+     * @param pictureId 图片 id
+     */
+    public void removePicture(Long pictureId) {
+        if (pictureId == null) {
+            return;
+        }
+        pictureSearchTokenMapper.delete(new LambdaQueryWrapper<PictureSearchToken>()
+                .eq(PictureSearchToken::getPictureId, pictureId));
+    }
+
+    /**
+     * 批量删除图片的索引
+     *
+     * @param pictureIds 图片 id
+     */
+    public void removePictures(Collection<Long> pictureIds) {
+        if (CollUtil.isEmpty(pictureIds)) {
+            return;
+        }
+        pictureSearchTokenMapper.delete(new LambdaQueryWrapper<PictureSearchToken>()
+                .in(PictureSearchToken::getPictureId, pictureIds));
+    }
+
+    /**
+     * 检索图片
+     *
+     * @param text        查询文本
+     * @param fieldList   检索的字段（命中任一字段即可）
+     * @param spaceId     空间 id
+     * @param nullSpaceId 是否只检索公共图库
+     * @param limit       最多返回的条数
+     * @return 图片 id => 相关度（按相关度倒序）；查询文本无法分词时返回 null，调用方应退化为 LIKE 查询
+     */
+    public LinkedHashMap<Long, Integer> search(String text, List<PictureSearchFieldEnum> fieldList,
+                                               Long spaceId, boolean nullSpaceId, int limit) {
+        Set<String> tokenSet = NGramTokenizeUtils.tokenizeForQuery(text);
+        if (tokenSet.isEmpty()) {
+            return null;
+        }
+        List<String> fieldValueList = fieldList.stream()
+                .map(PictureSearchFieldEnum::getValue)
+                .collect(Collectors.toList());
+        QueryWrapper<PictureSearchToken> queryWrapper = new QueryWrapper<PictureSearchToken>()
+                .select("pictureId", "SUM(weight) AS score")
+                .in("token", tokenSet)
+                .in("field", fieldValueList)
+                .eq(spaceId != null, "spaceId", spaceId)
+                .isNull(nullSpaceId, "spaceId")
+                .groupBy("pictureId")
+                // 必须命中全部查询词
+                .having("COUNT(DISTINCT token) = {0}", tokenSet.size())
+                .orderByDesc("score")
+                .last("LIMIT " + limit);
+        LinkedHashMap<Long, Integer> result = new LinkedHashMap<>();
+        for (Map<String, Object> row : pictureSearchTokenMapper.selectMaps(queryWrapper)) {
+            result.put(Convert.toLong(row.get("pictureId")), Convert.toInt(row.get("score")));
+        }
+        return result;
+    }
+
+    /**
+     * 在图片查询上拼接倒排索引的半连接条件（必须命中全部查询词），分页和总数由数据库计算
+     * <p>
+     * 用于命中的图片过多、无法全部召回的情况，不提供相关度排序
+     *
+     * @param queryWrapper 图片查询条件
+     * @param text         查询文本
+     * @param fieldList    检索的字段（命中任一字段即可）
+     * @param spaceId      空间 id
+     * @param nullSpaceId  是否只检索公共图库
+     * @return 是否拼接了条件；查询文本无法分词时返回 false，调用方应退化为 LIKE 查询
+     */
+    public boolean applySearchCondition(QueryWrapper<?> queryWrapper, String text, List<PictureSearchFieldEnum> fieldList,
+                                        Long spaceId, boolean nullSpaceId) {
+        Set<String> tokenSet = NGramTokenizeUtils.tokenizeForQuery(text);
+        if (tokenSet.isEmpty()) {
+            return false;
+        }
+        // 查询词来自用户输入，全部通过参数占位符传入
+        List<Object> paramList = new ArrayList<>(tokenSet);
+        String tokenPlaceholders = buildPlaceholders(0, tokenSet.size());
+        fieldList.forEach(fieldEnum -> paramList.add(fieldEnum.getValue()));
+        String fieldPlaceholders = buildPlaceholders(tokenSet.size(), fieldList.size());
+        StringBuilder sql = new StringBuilder("id IN (SELECT pictureId FROM picture_search_token WHERE token IN (")
+                .append(tokenPlaceholders).append(") AND field IN (").append(fieldPlaceholders).append(")");
+        if (spaceId != null) {
+            sql.append(" AND spaceId = {").append(paramList.size()).append("}");
+            paramList.add(spaceId);
+        }
+        if (nullSpaceId) {
+            sql.append(" AND spaceId IS NULL");
+        }
+        sql.append(" GROUP BY pictureId HAVING COUNT(DISTINCT token) = ").append(tokenSet.size()).append(")");
+        queryWrapper.apply(sql.toString(), paramList.toArray());
+        return true;
+    }
+
+    /**
+     * 从图片表重建全部索引（按 id 分批处理）
+     *
+     * @return 处理的图片数量
+     */
+    public long rebuild() {
+        long total = 0;
+        Long lastId = 0L;
+        while (true) {
+            List<Picture> pictureList = pictureMapper.selectList(new LambdaQueryWrapper<Picture>()
+                    .select(Picture::getId, Picture::getSpaceId, Picture::getName, Picture::getIntroduction)
+                    .gt(Picture::getId, lastId)
+                    .orderByAsc(Picture::getId)
+                    .last("LIMIT " + REBUILD_BATCH_SIZE));
+            if (CollUtil.isEmpty(pictureList)) {
+                break;
+            }
+            List<Long> pictureIdList = pictureList.stream().map(Picture::getId).collect(Collectors.toList());
+            pictureSearchTokenMapper.delete(new LambdaQueryWrapper<PictureSearchToken>()
+                    .in(PictureSearchToken::getPictureId, pictureIdList));
+            List<PictureSearchToken> tokenList = new ArrayList<>();
+            for (Picture picture : pictureList) {
+                tokenList.addAll(buildTokens(picture.getId(), picture.getSpaceId(), PictureSearchFieldEnum.NAME, picture.getName()));
+                tokenList.addAll(buildTokens(picture.getId(), picture.getSpaceId(), PictureSearchFieldEnum.INTRODUCTION, picture.getIntroduction()));
+            }
+            if (!tokenList.isEmpty()) {
+                pictureSearchTokenMapper.insert(tokenList);
+            }
+            total += pictureList.size();
+            lastId = pictureList.get(pictureList.size() - 1).getId();
+            if (pictureList.size() < REBUILD_BATCH_SIZE) {
+                break;
+            }
+        }
+        stringRedisTemplate.opsForValue().set(SEARCH_READY_KEY, "1");
+        ready = true;
+        log.info("rebuild picture search index finished, total = {}", total);
+        return total;
+    }
+
+    private static String buildPlaceholders(int start, int count) {
+        StringJoiner joiner = new StringJoiner(",");
+        for (int i = start; i < start + count; i++) {
+            joiner.add("{" + i + "}");
+        }
+        return joiner.toString();
+    }
+
+    private static List<PictureSearchToken> buildTokens(Long pictureId, Long spaceId,
+                                                        PictureSearchFieldEnum fieldEnum, String text) {
+        return NGramTokenizeUtils.tokenizeForIndex(text).entrySet().stream()
+                .map(entry -> {
+                    PictureSearchToken pictureSearchToken = new PictureSearchToken();
+                    pictureSearchToken.setPictureId(pictureId);
+                    pictureSearchToken.setSpaceId(spaceId);
+                    pictureSearchToken.setField(fieldEnum.getValue());
+                    pictureSearchToken.setToken(entry.getKey());
+                    pictureSearchToken.setWeight(entry.getValue() * fieldEnum.getWeight());
+                    return pictureSearchToken;
+                })
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,259 @@
+package com.steve.cloudpicturebackend.manager.space;
+
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.steve.cloudpicturebackend.exception.ErrorCode;
+import com.steve.cloudpicturebackend.exception.ThrowUtils;
+import com.steve.cloudpicturebackend.manager.lock.DistributedLock;
+import com.steve.cloudpicturebackend.manager.lock.DistributedLockManager;
+import com.steve.cloudpicturebackend.mapper.SpaceDeleteTaskMapper;
+import com.steve.cloudpicturebackend.mapper.SpaceMapper;
+import com.steve.cloudpicturebackend.mapper.SpaceUsageSlotMapper;
+import com.steve.cloudpicturebackend.model.entity.Space;
+import com.steve.cloudpicturebackend.model.entity.SpaceDeleteTask;
+import com.steve.cloudpicturebackend.model.entity.SpaceUsageSlot;
+import com.steve.cloudpicturebackend.model.entity.SpaceUser;
+import com.steve.cloudpicturebackend.model.enums.SpaceDeleteTaskStatusEnum;
+import com.steve.cloudpicturebackend.model.enums.SpaceStatusEnum;
+import com.steve.cloudpicturebackend.service.PictureService;
+import com.steve.cloudpicturebackend.service.SpaceService;
+import com.steve.cloudpicturebackend.service.SpaceUserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 空间的后台级联删除
+ * <p>
+ * 删除空间时只把空间标记为“删除中”并创建删除任务，接口立即返回。后台线程按图片 id 升序分批删除图片
+ * （批量删除对象存储中的文件，再删除记录和索引），每批完成后把最大图片 id 作为断点写回任务表；
+ * 图片全部删除后再删除空间成员、用量分片和空间本身。进程崩溃后由定时任务从断点继续，
+ * 同一空间同时只有一个实例在执行（分布式锁）
+ */
+@Slf4j
+@Component
+public class SpaceDeleteManager {
+
+    /**
+     * 每批删除的图片数量
+     */
+    private static final int BATCH_SIZE = 200;
+
+    /**
+     * 超过该时长没有进展的进行中任务视为中断，由定时任务恢复
+     */
+    private static final long STALE_MILLIS = 2 * 60 * 1000;
+
+    /**
+     * 每次恢复的任务数量
+     */
+    private static final int RESUME_BATCH_SIZE = 20;
+
+    private static final int ERROR_MESSAGE_MAX_LENGTH = 512;
+
+    @Resource
+    private SpaceDeleteTaskMapper spaceDeleteTaskMapper;
+
+    @Resource
+    private SpaceMapper spaceMapper;
+
+    @Resource
+    private SpaceUsageSlotMapper spaceUsageSlotMapper;
+
+    @Resource
+    private SpaceUsageManager spaceUsageManager;
+
+    @Resource
+    @Lazy
+    private SpaceService spaceService;
+
+    @Resource
+    @Lazy
+    private SpaceUserService spaceUserService;
+
+    @Resource
+    @Lazy
+    private PictureService pictureService;
+
+    @Resource
+    private DistributedLockManager distributedLockManager;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 执行删除任务的线程池（队列满时拒绝，由定时任务稍后恢复）
+     */
+    private final ThreadPoolExecutor deleteExecutor = new ThreadPoolExecutor(2, 2,
+            60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(100),
+            ThreadFactoryBuilder.create().setNamePrefix("spaceDelete").setDaemon(true).build(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * 发起空间删除：标记空间为删除中并创建删除任务，提交后在后台执行
+     *
+     * @param space  空间
+     * @param userId 发起删除的用户 id
+     * @return 删除任务
+     */
+    public SpaceDeleteTask submit(Space space, Long userId) {
+        Long spaceId = space.getId();
+        SpaceUsage spaceUsage = spaceUsageManager.getUsage(space);
+        SpaceDeleteTask task = transactionTemplate.execute(status -> {
+            // 条件更新，重复删除时只有一个请求能成功
+            int updated = spaceMapper.update(null, new LambdaUpdateWrapper<Space>()
+                    .eq(Space::getId, spaceId)
+                    .eq(Space::getStatus, SpaceStatusEnum.NORMAL.getValue())
+                    .set(Space::getStatus, SpaceStatusEnum.DELETING.getValue()));
+            ThrowUtils.throwIf(updated == 0, ErrorCode.OPERATION_ERROR, "空间正在删除中");
+            SpaceDeleteTask spaceDeleteTask = new SpaceDeleteTask();
+            spaceDeleteTask.setSpaceId(spaceId);
+            spaceDeleteTask.setUserId(userId);
+            spaceDeleteTask.setStatus(SpaceDeleteTaskStatusEnum.RUNNING.getValue());
+            spaceDeleteTask.setTotalCount(spaceUsage == null ? 0 : spaceUsage.getTotalCount());
+            spaceDeleteTask.setDeletedCount(0L);
+            spaceDeleteTask.setLastPictureId(0L);
+            spaceDeleteTaskMapper.insert(spaceDeleteTask);
+            // 事务提交后再开始执行，避免后台线程读不到任务
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    execute(spaceDeleteTask.getId());
+                }
+            });
+            return spaceDeleteTask;
+        });
+        spaceService.evictSpaceCache(spaceId);
+        return task;
+    }
+
+    /**
+     * 获取空间的删除任务
+     *
+     * @param spaceId 空间 id
+     * @return 删除任务，未发起删除时返回 null
+     */
+    public SpaceDeleteTask getTask(Long spaceId) {
+        return spaceDeleteTaskMapper.selectOne(new LambdaQueryWrapper<SpaceDeleteTask>()
+                .eq(SpaceDeleteTask::getSpaceId, spaceId));
+    }
+
+    /**
+     * 定时恢复中断的删除任务（进程崩溃、线程池已满或执行失败）
+     */
+    @Scheduled(initialDelay = 60 * 1000, fixedDelay = 60 * 1000)
+    public void resumeStaleTasks() {
+        try {
+            List<SpaceDeleteTask> taskList = spaceDeleteTaskMapper.selectList(new LambdaQueryWrapper<SpaceDeleteTask>()
+                    .select(SpaceDeleteTask::getId)
+                    .eq(SpaceDeleteTask::getStatus, SpaceDeleteTaskStatusEnum.RUNNING.getValue())
+                    .lt(SpaceDeleteTask::getUpdateTime, DateUtil.date(System.currentTimeMillis() - STALE_MILLIS))
+                    .last("LIMIT " + RESUME_BATCH_SIZE));
+            for (SpaceDeleteTask task : taskList) {
+                execute(task.getId());
+            }
+        } catch (Exception e) {
+            log.error("resume space delete tasks error", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        deleteExecutor.shutdownNow();
+    }
+
+    private void execute(Long taskId) {
+        try {
+            deleteExecutor.execute(() -> run(taskId));
+        } catch (RejectedExecutionException e) {
+            log.warn("space delete executor is full, task will be resumed later, taskId = {}", taskId);
+        }
+    }
+
+    /**
+     * 执行删除任务：从断点开始分批删除图片，全部删除后清理空间
+     */
+    private void run(Long taskId) {
+        SpaceDeleteTask task = spaceDeleteTaskMapper.selectById(taskId);
+        if (task == null || task.getStatus() != SpaceDeleteTaskStatusEnum.RUNNING.getValue()) {
+            return;
+        }
+        Long spaceId = task.getSpaceId();
+        // 其他实例正在执行时直接返回
+        DistributedLock lock = distributedLockManager.tryLock("space:delete:" + spaceId, 0, TimeUnit.MILLISECONDS);
+        if (lock == null) {
+            return;
+        }
+        try {
+            // 加锁后重新读取断点
+            task = spaceDeleteTaskMapper.selectById(taskId);
+            if (task.getStatus() != SpaceDeleteTaskStatusEnum.RUNNING.getValue()) {
+                return;
+            }
+            long lastPictureId = task.getLastPictureId();
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Long> pictureIdList = pictureService.removeSpacePictureBatch(spaceId, lastPictureId, BATCH_SIZE,
+                        task.getUserId());
+                // 锁已丢失时不再写断点，由持有锁的实例继续
+                if (!lock.isHeld()) {
+                    log.warn("space delete lock lost, spaceId = {}", spaceId);
+                    return;
+                }
+                if (pictureIdList.isEmpty()) {
+                    finish(task);
+                    log.info("space deleted, spaceId = {}, deletedCount = {}", spaceId, task.getDeletedCount());
+                    return;
+                }
+                lastPictureId = pictureIdList.get(pictureIdList.size() - 1);
+                spaceDeleteTaskMapper.update(null, new LambdaUpdateWrapper<SpaceDeleteTask>()
+                        .eq(SpaceDeleteTask::getId, taskId)
+                        .set(SpaceDeleteTask::getLastPictureId, lastPictureId)
+                        .set(SpaceDeleteTask::getErrorMessage, null)
+                        .setSql("deletedCount = deletedCount + " + pictureIdList.size()));
+                task.setDeletedCount(task.getDeletedCount() + pictureIdList.size());
+            }
+        } catch (Exception e) {
+            log.error("delete space error, spaceId = {}", spaceId, e);
+            spaceDeleteTaskMapper.update(null, new LambdaUpdateWrapper<SpaceDeleteTask>()
+                    .eq(SpaceDeleteTask::getId, taskId)
+                    .set(SpaceDeleteTask::getErrorMessage,
+                            StrUtil.maxLength(StrUtil.blankToDefault(e.getMessage(), e.getClass().getName()),
+                                    ERROR_MESSAGE_MAX_LENGTH - 3)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 图片已全部删除：删除空间成员、用量分片和空间本身，并把任务标记为已完成
+     */
+    private void finish(SpaceDeleteTask task) {
+        Long spaceId = task.getSpaceId();
+        transactionTemplate.execute(status -> {
+            spaceUserService.remove(new LambdaQueryWrapper<SpaceUser>()
+                    .eq(SpaceUser::getSpaceId, spaceId));
+            spaceUsageSlotMapper.delete(new LambdaQueryWrapper<SpaceUsageSlot>()
+                    .eq(SpaceUsageSlot::getSpaceId, spaceId));
+            spaceService.removeById(spaceId);
+            spaceDeleteTaskMapper.update(null, new LambdaUpdateWrapper<SpaceDeleteTask>()
+                    .eq(SpaceDeleteTask::getId, task.getId())
+                    .set(SpaceDeleteTask::getStatus, SpaceDeleteTaskStatusEnum.SUCCEED.getValue()));
+            return true;
+        });
+    }
+}
@@ -0,0 +1,228 @@
+package com.steve.cloudpicturebackend.manager.space;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import com.steve.cloudpicturebackend.exception.BusinessException;
+import com.steve.cloudpicturebackend.exception.ErrorCode;
+import com.steve.cloudpicturebackend.exception.ThrowUtils;
+import com.steve.cloudpicturebackend.model.entity.Space;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 空间额度预占
+ * <p>
+ * 上传前先预占大小和数量，写库成功后提交，失败时释放，整个过程不加锁：
+ * <ul>
+ *     <li>已用额度以数据库为准（space 表加分片增量），进行中的预占记在 Redis 中，预占脚本原子地判断 已用 + 已预占 + 本次 不超过上限；</li>
+ *     <li>提交时先写库再释放预占，中间短暂重复计算只会偏保守；</li>
+ *     <li>为了避免“读到旧的已用额度后，别人恰好提交并释放了预占”导致漏算，每次提交都会递增空间的版本号，
+ *     预占时携带读取已用额度之前的版本号，版本号变化说明读到的已用额度可能已经过期，重新读取后重试；</li>
+ *     <li>预占带有过期时间，进程崩溃等原因遗留的预占由定时任务回收。</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class SpaceQuotaManager {
+
+    /**
+     * 空间预占信息 key 前缀（hash：version、reservedSize、reservedCount）
+     */
+    private static final String SPACE_QUOTA_KEY_PREFIX = "cloud_picture:space:quota:";
+
+    /**
+     * 预占明细（hash：预占 id => spaceId:size:count）
+     */
+    private static final String RESERVATION_KEY = "cloud_picture:space:quota_reservation";
+
+    /**
+     * 预占过期时间（zset：预占 id => 过期时间戳）
+     */
+    private static final String RESERVATION_EXPIRE_KEY = "cloud_picture:space:quota_reservation:expire";
+
+    /**
+     * 预占有效期，需要大于一次上传的最长耗时
+     */
+    private static final long RESERVATION_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * 已用额度过期时的最大重试次数
+     */
+    private static final int MAX_RESERVE_ATTEMPTS = 5;
+
+    /**
+     * 回收任务每次处理的预占数量
+     */
+    private static final int SWEEP_BATCH_SIZE = 100;
+
+    /**
+     * 预占。KEYS：空间预占信息、预占明细、预占过期时间；
+     * ARGV：版本号、已用大小、已用数量、预占大小、预占数量、最大大小、最大数量、预占 id、过期时间戳、空间 id。
+     * 返回 1 成功，-1 版本号已变化，0 数量不足，2 大小不足
+     */
+    private static final DefaultRedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "local version = redis.call('HGET', KEYS[1], 'version') or '0' " +
+                    "if version ~= ARGV[1] then return -1 end " +
+                    "local reservedSize = tonumber(redis.call('HGET', KEYS[1], 'reservedSize') or '0') " +
+                    "local reservedCount = tonumber(redis.call('HGET', KEYS[1], 'reservedCount') or '0') " +
+                    "if tonumber(ARGV[5]) > 0 and tonumber(ARGV[3]) + reservedCount + tonumber(ARGV[5]) > tonumber(ARGV[7]) then return 0 end " +
+                    "if tonumber(ARGV[2]) + reservedSize + tonumber(ARGV[4]) > tonumber(ARGV[6]) then return 2 end " +
+                    "redis.call('HINCRBY', KEYS[1], 'reservedSize', ARGV[4]) " +
+                    "redis.call('HINCRBY', KEYS[1], 'reservedCount', ARGV[5]) " +
+                    "redis.call('HSET', KEYS[2], ARGV[8], ARGV[10] .. ':' .. ARGV[4] .. ':' .. ARGV[5]) " +
+                    "redis.call('ZADD', KEYS[3], ARGV[9], ARGV[8]) " +
+                    "return 1",
+            Long.class);
+
+    /**
+     * 释放预占。KEYS：空间预占信息、预占明细、预占过期时间；ARGV：预占 id、是否递增版本号（1 / 0）。
+     * 返回 1 成功，0 预占不存在（已释放或已被回收）
+     */
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "local detail = redis.call('HGET', KEYS[2], ARGV[1]) " +
+                    "redis.call('ZREM', KEYS[3], ARGV[1]) " +
+                    "if ARGV[2] == '1' then redis.call('HINCRBY', KEYS[1], 'version', 1) end " +
+                    "if not detail then return 0 end " +
+                    "local spaceId, size, count = string.match(detail, '^(%d+):(%d+):(%d+)$') " +
+                    "redis.call('HINCRBY', KEYS[1], 'reservedSize', -tonumber(size)) " +
+                    "redis.call('HINCRBY', KEYS[1], 'reservedCount', -tonumber(count)) " +
+                    "redis.call('HDEL', KEYS[2], ARGV[1]) " +
+                    "return 1",
+            Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private SpaceUsageManager spaceUsageManager;
+
+    /**
+     * 预占空间额度，额度不足时抛出异常
+     *
+     * @param space 空间
+     * @param size  预占的图片总大小（上传前未知实际大小时传上限）
+     * @param count 预占的图片数量（替换已有图片时为 0）
+     * @return 预占凭证
+     */
+    public SpaceQuotaReservation reserve(Space space, long size, long count) {
+        return reserve(space, size, count, RESERVATION_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * 预占空间额度（指定有效期，用于分块上传等持续时间较长的上传），额度不足时抛出异常
+     *
+     * @param space         空间
+     * @param size          预占的图片总大小
+     * @param count         预占的图片数量（替换已有图片时为 0）
+     * @param timeoutMillis 有效期（毫秒），到期未提交也未释放时由回收任务释放
+     * @return 预占凭证
+     */
+    public SpaceQuotaReservation reserve(Space space, long size, long count, long timeoutMillis) {
+        Long spaceId = space.getId();
+        String spaceKey = getSpaceQuotaKey(spaceId);
+        List<String> keys = Arrays.asList(spaceKey, RESERVATION_KEY, RESERVATION_EXPIRE_KEY);
+        String reservationId = IdUtil.fastSimpleUUID();
+        for (int attempt = 0; attempt < MAX_RESERVE_ATTEMPTS; attempt++) {
+            // 先读版本号，再读已用额度
+            Object versionObj = stringRedisTemplate.opsForHash().get(spaceKey, "version");
+            String version = versionObj == null ? "0" : versionObj.toString();
+            SpaceUsage spaceUsage = spaceUsageManager.loadUsage(spaceId);
+            ThrowUtils.throwIf(spaceUsage == null, ErrorCode.NOT_FOUND_ERROR, "空间不存在");
+            long expireAt = System.currentTimeMillis() + timeoutMillis;
+            Long result = stringRedisTemplate.execute(RESERVE_SCRIPT, keys,
+                    version, String.valueOf(spaceUsage.getTotalSize()), String.valueOf(spaceUsage.getTotalCount()),
+                    String.valueOf(size), String.valueOf(count),
+                    String.valueOf(space.getMaxSize()), String.valueOf(space.getMaxCount()),
+                    reservationId, String.valueOf(expireAt), String.valueOf(spaceId));
+            if (result == null) {
+                break;
+            }
+            if (result == 1) {
+                return new SpaceQuotaReservation(reservationId, spaceId, size, count);
+            }
+            if (result == 0) {
+                throw new BusinessException(ErrorCode.OPERATION_ERROR, "空间条数不足");
+            }
+            if (result == 2) {
+                throw new BusinessException(ErrorCode.OPERATION_ERROR, "空间大小不足");
+            }
+            // 版本号已变化，读到的已用额度可能过期，重试
+        }
+        throw new BusinessException(ErrorCode.OPERATION_ERROR, "空间额度繁忙，请稍后重试");
+    }
+
+    /**
+     * 提交预占：已用额度已经写入数据库（事务已提交）后调用
+     *
+     * @param reservation 预占凭证，为空时忽略
+     */
+    public void commit(SpaceQuotaReservation reservation) {
+        release(reservation, true);
+    }
+
+    /**
+     * 释放预占：上传或写库失败时调用
+     *
+     * @param reservation 预占凭证，为空时忽略
+     */
+    public void release(SpaceQuotaReservation reservation) {
+        release(reservation, false);
+    }
+
+    /**
+     * 回收过期的预占（进程崩溃、请求超时等原因没有提交也没有释放）
+     */
+    @Scheduled(initialDelay = 30 * 1000, fixedDelay = 30 * 1000)
+    public void sweepExpiredReservations() {
+        try {
+            Set<String> expiredIdSet = stringRedisTemplate.opsForZSet()
+                    .rangeByScore(RESERVATION_EXPIRE_KEY, 0, System.currentTimeMillis(), 0, SWEEP_BATCH_SIZE);
+            if (CollUtil.isEmpty(expiredIdSet)) {
+                return;
+            }
+            for (String reservationId : expiredIdSet) {
+                Object detail = stringRedisTemplate.opsForHash().get(RESERVATION_KEY, reservationId);
+                if (detail == null) {
+                    stringRedisTemplate.opsForZSet().remove(RESERVATION_EXPIRE_KEY, reservationId);
+                    continue;
+                }
+                Long spaceId = Long.valueOf(StrUtil.subBefore(detail.toString(), ":", false));
+                // 无法确定遗留的预占是否已经写库，递增版本号让正在进行的预占重新读取已用额度
+                stringRedisTemplate.execute(RELEASE_SCRIPT,
+                        Arrays.asList(getSpaceQuotaKey(spaceId), RESERVATION_KEY, RESERVATION_EXPIRE_KEY),
+                        reservationId, "1");
+                log.warn("sweep expired space quota reservation, reservationId = {}, spaceId = {}", reservationId, spaceId);
+            }
+        } catch (Exception e) {
+            log.error("sweep expired space quota reservations error", e);
+        }
+    }
+
+    private void release(SpaceQuotaReservation reservation, boolean bumpVersion) {
+        if (reservation == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT,
+                    Arrays.asList(getSpaceQuotaKey(reservation.getSpaceId()), RESERVATION_KEY, RESERVATION_EXPIRE_KEY),
+                    reservation.getId(), bumpVersion ? "1" : "0");
+        } catch (Exception e) {
+            // 释放失败时由回收任务兜底
+            log.error("release space quota reservation error, reservationId = {}", reservation.getId(), e);
+        }
+    }
+
+    private static String getSpaceQuotaKey(Long spaceId) {
+        return SPACE_QUOTA_KEY_PREFIX + spaceId;
+    }
+}
@@ -0,0 +1,34 @@
+package com.steve.cloudpicturebackend.manager.space;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 空间额度预占凭证
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpaceQuotaReservation {
+
+    /**
+     * 预占 id
+     */
+    private String id;
+
+    /**
+     * 空间 id
+     */
+    private Long spaceId;
+
+    /**
+     * 预占的图片总大小
+     */
+    private long size;
+
+    /**
+     * 预占的图片数量
+     */
+    private long count;
+}
@@ -0,0 +1,24 @@
+package com.steve.cloudpicturebackend.manager.space;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 空间用量（space 表中已合并的值加上分片计数中尚未合并的增量）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpaceUsage {
+
+    /**
+     * 图片总大小
+     */
+    private long totalSize;
+
+    /**
+     * 图片数量
+     */
+    private long totalCount;
+}
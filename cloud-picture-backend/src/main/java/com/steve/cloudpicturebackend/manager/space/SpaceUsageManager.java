@@ -0,0 +1,184 @@
+package com.steve.cloudpicturebackend.manager.space;
+
+import cn.hutool.core.collection.CollUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.steve.cloudpicturebackend.mapper.SpaceMapper;
+import com.steve.cloudpicturebackend.mapper.SpaceUsageSlotMapper;
+import com.steve.cloudpicturebackend.model.entity.Space;
+import com.steve.cloudpicturebackend.model.entity.SpaceUsageSlot;
+import com.steve.cloudpicturebackend.service.SpaceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * 空间用量的分片计数
+ * <p>
+ * 上传、删除图片时不再更新 space 表中的同一行，而是把增量随机累加到 space_usage_slot 的 N 个分片行之一，
+ * 并发上传分散到不同的行锁上。读取用量时把 space 表中的值与分片增量相加，
+ * 定时任务在事务中锁住分片行，把增量合并回 space 表并从分片中扣除（扣除读到的值而不是清零，不会丢失合并期间的写入）
+ */
+@Slf4j
+@Component
+public class SpaceUsageManager {
+
+    /**
+     * 每个空间的分片数量
+     */
+    private static final int SLOT_COUNT = 16;
+
+    /**
+     * 每次合并处理的空间数量
+     */
+    private static final int ROLLUP_BATCH_SIZE = 500;
+
+    @Resource
+    private SpaceUsageSlotMapper spaceUsageSlotMapper;
+
+    @Resource
+    private SpaceMapper spaceMapper;
+
+    @Resource
+    @Lazy
+    private SpaceService spaceService;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 累加空间用量（在调用方的事务中执行，事务回滚时一起回滚）
+     *
+     * @param spaceId    空间 id
+     * @param deltaSize  图片总大小增量
+     * @param deltaCount 图片数量增量
+     */
+    public void addUsage(Long spaceId, long deltaSize, long deltaCount) {
+        if (spaceId == null || (deltaSize == 0 && deltaCount == 0)) {
+            return;
+        }
+        int slot = ThreadLocalRandom.current().nextInt(SLOT_COUNT);
+        spaceUsageSlotMapper.addUsage(spaceId, slot, deltaSize, deltaCount);
+    }
+
+    /**
+     * 获取空间的当前用量
+     *
+     * @param space 空间
+     * @return 用量，空间不存在时返回 null
+     */
+    public SpaceUsage getUsage(Space space) {
+        return getUsageMap(Collections.singletonList(space)).get(space.getId());
+    }
+
+    /**
+     * 直接从数据库读取空间的当前用量（不经过缓存，用于额度预占）
+     *
+     * @param spaceId 空间 id
+     * @return 用量，空间不存在时返回 null
+     */
+    public SpaceUsage loadUsage(Long spaceId) {
+        SpaceUsageSlot usage = spaceUsageSlotMapper.selectUsage(spaceId);
+        if (usage == null) {
+            return null;
+        }
+        return new SpaceUsage(toLong(usage.getTotalSize()), toLong(usage.getTotalCount()));
+    }
+
+    /**
+     * 批量获取空间的当前用量（一次聚合查询）
+     * <p>
+     * space 表中的值和分片增量在同一条语句中读取，不使用调用方传入的空间对象中的用量（可能来自缓存，
+     * 与实时的分片增量相加会把已合并的增量重复计算）
+     *
+     * @param spaceList 空间列表
+     * @return 空间 id => 用量
+     */
+    public Map<Long, SpaceUsage> getUsageMap(Collection<Space> spaceList) {
+        Map<Long, SpaceUsage> result = new HashMap<>();
+        if (CollUtil.isEmpty(spaceList)) {
+            return result;
+        }
+        Set<Long> spaceIdSet = spaceList.stream()
+                .map(Space::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (spaceIdSet.isEmpty()) {
+            return result;
+        }
+        for (SpaceUsageSlot usage : spaceUsageSlotMapper.selectUsageList(spaceIdSet)) {
+            result.put(usage.getSpaceId(), new SpaceUsage(toLong(usage.getTotalSize()), toLong(usage.getTotalCount())));
+        }
+        return result;
+    }
+
+    /**
+     * 定时把分片增量合并回 space 表（space 表中的值用于空间排行等直接查表的场景）
+     */
+    @Scheduled(initialDelay = 60 * 1000, fixedDelay = 60 * 1000)
+    public void rollup() {
+        try {
+            List<Long> spaceIdList = spaceUsageSlotMapper.selectList(new QueryWrapper<SpaceUsageSlot>()
+                            .select("DISTINCT spaceId")
+                            .and(qw -> qw.ne("totalSize", 0).or().ne("totalCount", 0))
+                            .last("LIMIT " + ROLLUP_BATCH_SIZE))
+                    .stream()
+                    .map(SpaceUsageSlot::getSpaceId)
+                    .collect(Collectors.toList());
+            for (Long spaceId : spaceIdList) {
+                rollupSpace(spaceId);
+            }
+        } catch (Exception e) {
+            log.error("rollup space usage error", e);
+        }
+    }
+
+    /**
+     * 合并单个空间：锁住分片行（多实例同时合并时串行执行），加到 space 表后从分片中扣除读到的值
+     */
+    private void rollupSpace(Long spaceId) {
+        Boolean merged = transactionTemplate.execute(status -> {
+            List<SpaceUsageSlot> slotList = spaceUsageSlotMapper.selectList(new QueryWrapper<SpaceUsageSlot>()
+                    .eq("spaceId", spaceId)
+                    .last("FOR UPDATE"));
+            long totalSize = 0;
+            long totalCount = 0;
+            for (SpaceUsageSlot slot : slotList) {
+                totalSize += toLong(slot.getTotalSize());
+                totalCount += toLong(slot.getTotalCount());
+            }
+            if (totalSize == 0 && totalCount == 0) {
+                return false;
+            }
+            spaceMapper.update(null, new UpdateWrapper<Space>()
+                    .eq("id", spaceId)
+                    .setSql("totalSize = totalSize + " + totalSize)
+                    .setSql("totalCount = totalCount + " + totalCount));
+            for (SpaceUsageSlot slot : slotList) {
+                if (toLong(slot.getTotalSize()) == 0 && toLong(slot.getTotalCount()) == 0) {
+                    continue;
+                }
+                spaceUsageSlotMapper.update(null, new UpdateWrapper<SpaceUsageSlot>()
+                        .eq("spaceId", spaceId)
+                        .eq("slot", slot.getSlot())
+                        .setSql("totalSize = totalSize - " + toLong(slot.getTotalSize()))
+                        .setSql("totalCount = totalCount - " + toLong(slot.getTotalCount())));
+            }
+            return true;
+        });
+        if (Boolean.TRUE.equals(merged)) {
+            spaceService.evictSpaceCache(spaceId);
+        }
+    }
+
+    private static long toLong(Long value) {
+        return value == null ? 0 : value;
+    }
+}
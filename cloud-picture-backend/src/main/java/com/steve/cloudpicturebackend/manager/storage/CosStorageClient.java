@@ -0,0 +1,201 @@
+package com.steve.cloudpicturebackend.manager.storage;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.core.util.URLUtil;
+import com.qcloud.cos.COSClient;
+import com.qcloud.cos.http.HttpMethodName;
+import com.qcloud.cos.model.*;
+import com.steve.cloudpicturebackend.config.CosClientConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 腾讯云对象存储实现
+ */
+@Component
+@ConditionalOnProperty(name = "storage.type", havingValue = "cos", matchIfMissing = true)
+public class CosStorageClient implements StorageClient {
+
+    /**
+     * 批量删除时每次请求的对象数量上限
+     */
+    private static final int DELETE_OBJECTS_BATCH_SIZE = 1000;
+
+    /**
+     * 列出对象时每次请求的数量上限
+     */
+    private static final int LIST_OBJECTS_BATCH_SIZE = 1000;
+
+    @Resource
+    private CosClientConfig cosClientConfig;
+
+    @Resource
+    private COSClient cosClient;
+
+    @Override
+    public void putObject(String key, InputStream inputStream, long contentLength, String contentType) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentLength(contentLength);
+        objectMetadata.setContentType(contentType);
+        cosClient.putObject(new PutObjectRequest(cosClientConfig.getBucket(), key, inputStream, objectMetadata));
+    }
+
+    @Override
+    public void putObject(String key, File file) {
+        cosClient.putObject(new PutObjectRequest(cosClientConfig.getBucket(), key, file));
+    }
+
+    @Override
+    public StorageObject getObject(String key) {
+        COSObject cosObject = cosClient.getObject(new GetObjectRequest(cosClientConfig.getBucket(), key));
+        ObjectMetadata objectMetadata = cosObject.getObjectMetadata();
+        return new StorageObject(cosObject.getObjectContent(), objectMetadata.getContentLength(),
+                objectMetadata.getContentType());
+    }
+
+    @Override
+    public StorageObject getObject(String key, long offset) {
+        GetObjectRequest getObjectRequest = new GetObjectRequest(cosClientConfig.getBucket(), key);
+        // 结束位置超过对象长度时按对象末尾处理
+        getObjectRequest.setRange(offset, Long.MAX_VALUE - 1);
+        COSObject cosObject = cosClient.getObject(getObjectRequest);
+        ObjectMetadata objectMetadata = cosObject.getObjectMetadata();
+        return new StorageObject(cosObject.getObjectContent(), objectMetadata.getContentLength(),
+                objectMetadata.getContentType());
+    }
+
+    @Override
+    public long transferTo(String key, WritableByteChannel target) throws IOException {
+        try (StorageObject storageObject = getObject(key)) {
+            return IoUtil.copy(storageObject.getInputStream(), Channels.newOutputStream(target));
+        }
+    }
+
+    @Override
+    public boolean doesObjectExist(String key) {
+        return cosClient.doesObjectExist(cosClientConfig.getBucket(), key);
+    }
+
+    @Override
+    public void deleteObject(String key) {
+        cosClient.deleteObject(cosClientConfig.getBucket(), key);
+    }
+
+    /**
+     * 批量删除对象（每次请求最多删除 1000 个）
+     * <p>
+     * 部分对象删除失败时抛出 MultiObjectDeleteException，调用方可以整批重试
+     */
+    @Override
+    public void deleteObjects(Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+        List<DeleteObjectsRequest.KeyVersion> keyVersionList = keys.stream()
+                .distinct()
+                .map(DeleteObjectsRequest.KeyVersion::new)
+                .collect(Collectors.toList());
+        for (List<DeleteObjectsRequest.KeyVersion> batch : CollUtil.split(keyVersionList, DELETE_OBJECTS_BATCH_SIZE)) {
+            DeleteObjectsRequest deleteObjectsRequest = new DeleteObjectsRequest(cosClientConfig.getBucket());
+            deleteObjectsRequest.setKeys(batch);
+            // 安静模式：只返回删除失败的对象
+            deleteObjectsRequest.setQuiet(true);
+            cosClient.deleteObjects(deleteObjectsRequest);
+        }
+    }
+
+    @Override
+    public void copyObject(String sourceKey, String targetKey) {
+        cosClient.copyObject(cosClientConfig.getBucket(), sourceKey, cosClientConfig.getBucket(), targetKey);
+    }
+
+    @Override
+    public List<String> listObjects(String prefix, int maxKeys) {
+        List<String> keyList = new ArrayList<>();
+        ListObjectsRequest listObjectsRequest = new ListObjectsRequest();
+        listObjectsRequest.setBucketName(cosClientConfig.getBucket());
+        listObjectsRequest.setPrefix(StrUtil.removePrefix(prefix, "/"));
+        ObjectListing objectListing;
+        do {
+            listObjectsRequest.setMaxKeys(Math.min(LIST_OBJECTS_BATCH_SIZE, maxKeys - keyList.size()));
+            objectListing = cosClient.listObjects(listObjectsRequest);
+            for (COSObjectSummary objectSummary : objectListing.getObjectSummaries()) {
+                keyList.add(objectSummary.getKey());
+            }
+            listObjectsRequest.setMarker(objectListing.getNextMarker());
+        } while (objectListing.isTruncated() && keyList.size() < maxKeys);
+        return keyList;
+    }
+
+    @Override
+    public String generatePresignedUrl(String key, long expireMillis) {
+        Date expiration = new Date(System.currentTimeMillis() + expireMillis);
+        return cosClient.generatePresignedUrl(cosClientConfig.getBucket(), key, expiration, HttpMethodName.GET).toString();
+    }
+
+    @Override
+    public String getObjectUrl(String key) {
+        return cosClientConfig.getHost() + "/" + StrUtil.removePrefix(key, "/");
+    }
+
+    /**
+     * 从访问地址中提取对象 key
+     * 例如：从 https://bucket.cos.ap-beijing.myqcloud.com/public/1/test.jpg 提取出 public/1/test.jpg。
+     * 不是当前存储桶域名的地址（更换过域名或使用 CDN 域名）取 url 的路径部分
+     */
+    @Override
+    public String getKeyFromUrl(String url) {
+        if (StrUtil.isBlank(url)) {
+            return "";
+        }
+        String host = cosClientConfig.getHost() + "/";
+        if (url.startsWith(host)) {
+            return url.substring(host.length());
+        }
+        return StrUtil.removePrefix(URLUtil.getPath(url), "/");
+    }
+
+    @Override
+    public String initiateMultipartUpload(String key) {
+        InitiateMultipartUploadRequest initiateMultipartUploadRequest =
+                new InitiateMultipartUploadRequest(cosClientConfig.getBucket(), key);
+        return cosClient.initiateMultipartUpload(initiateMultipartUploadRequest).getUploadId();
+    }
+
+    @Override
+    public String uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long partSize) {
+        UploadPartRequest uploadPartRequest = new UploadPartRequest();
+        uploadPartRequest.setBucketName(cosClientConfig.getBucket());
+        uploadPartRequest.setKey(key);
+        uploadPartRequest.setUploadId(uploadId);
+        uploadPartRequest.setPartNumber(partNumber);
+        uploadPartRequest.setInputStream(inputStream);
+        uploadPartRequest.setPartSize(partSize);
+        return cosClient.uploadPart(uploadPartRequest).getETag();
+    }
+
+    @Override
+    public void completeMultipartUpload(String key, String uploadId, SortedMap<Integer, String> partETags) {
+        List<PartETag> partETagList = partETags.entrySet().stream()
+                .map(entry -> new PartETag(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+        cosClient.completeMultipartUpload(new CompleteMultipartUploadRequest(cosClientConfig.getBucket(), key, uploadId,
+                partETagList));
+    }
+
+    @Override
+    public void abortMultipartUpload(String key, String uploadId) {
+        cosClient.abortMultipartUpload(new AbortMultipartUploadRequest(cosClientConfig.getBucket(), key, uploadId));
+    }
+}
@@ -0,0 +1,504 @@
+package com.steve.cloudpicturebackend.manager.storage;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.ReUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.core.util.URLUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.crypto.digest.HMac;
+import com.steve.cloudpicturebackend.config.LocalStorageConfig;
+import com.steve.cloudpicturebackend.exception.BusinessException;
+import com.steve.cloudpicturebackend.exception.ErrorCode;
+import com.steve.cloudpicturebackend.exception.ThrowUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 本地文件系统实现（storage.type=local），用于压测和没有云存储桶的私有化部署
+ * <p>
+ * 目录结构（位于 storage.local.root 下）：
+ * <ul>
+ *     <li>blobs/ab/cd/&lt;sha256&gt;：按内容寻址的文件，相同内容只保存一份</li>
+ *     <li>keys/&lt;对象 key&gt;：对象，是内容文件的硬链接，复制对象只需新建一个硬链接</li>
+ *     <li>tmp/、multipart/：写入中的临时文件和未完成的分块</li>
+ * </ul>
+ * 写入时先写临时文件，再通过原子重命名发布，读取方不会看到写了一半的文件；文件发布后不再原地修改。
+ * 删除对象只删除硬链接，不再被任何对象引用的内容文件（硬链接数为 1）由定时任务回收
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "storage.type", havingValue = "local")
+public class LocalStorageClient implements StorageClient {
+
+    /**
+     * 临时文件、未被引用的内容文件至少保留的时间，避免回收正在写入的文件
+     */
+    private static final long GC_GRACE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * 未完成的分块上传保留的时间（超过分块上传会话的有效期）
+     */
+    private static final long MULTIPART_RETAIN_MILLIS = TimeUnit.HOURS.toMillis(48);
+
+    @Resource
+    private LocalStorageConfig localStorageConfig;
+
+    private Path keysRoot;
+
+    private Path blobsRoot;
+
+    private Path tmpRoot;
+
+    private Path multipartRoot;
+
+    /**
+     * 文件系统能否读取硬链接数（不能时不回收内容文件）
+     */
+    private boolean linkCountSupported;
+
+    private HMac signer;
+
+    @PostConstruct
+    public void init() throws IOException {
+        Path root = Paths.get(localStorageConfig.getRoot()).toAbsolutePath().normalize();
+        keysRoot = Files.createDirectories(root.resolve("keys"));
+        blobsRoot = Files.createDirectories(root.resolve("blobs"));
+        tmpRoot = Files.createDirectories(root.resolve("tmp"));
+        multipartRoot = Files.createDirectories(root.resolve("multipart"));
+        linkCountSupported = Files.getFileStore(root).supportsFileAttributeView("unix");
+        if (!linkCountSupported) {
+            log.warn("local storage does not support link count, unreferenced blobs will not be collected, root = {}", root);
+        }
+        String secret = localStorageConfig.getSecret();
+        if (StrUtil.isBlank(secret)) {
+            secret = IdUtil.fastSimpleUUID();
+            log.warn("storage.local.secret is not set, presigned urls will be invalid after restart");
+        }
+        signer = SecureUtil.hmacSha256(secret);
+        log.info("local storage initialized, root = {}", root);
+    }
+
+    @Override
+    public void putObject(String key, InputStream inputStream, long contentLength, String contentType) {
+        Path keyPath = resolveKey(key);
+        Path tmpFile = null;
+        try {
+            tmpFile = Files.createTempFile(tmpRoot, "put", ".tmp");
+            MessageDigest digest = newDigest("SHA-256");
+            // 不关闭调用方的输入流
+            long size = Files.copy(new DigestInputStream(inputStream, digest), tmpFile, StandardCopyOption.REPLACE_EXISTING);
+            if (contentLength >= 0 && size != contentLength) {
+                throw new IOException("content length mismatch, expected " + contentLength + ", actual " + size);
+            }
+            commit(keyPath, tmpFile, HexUtil.encodeHexStr(digest.digest()));
+        } catch (IOException e) {
+            log.error("put object to local storage error, key = {}", key, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件存储失败");
+        } finally {
+            deleteQuietly(tmpFile);
+        }
+    }
+
+    @Override
+    public void putObject(String key, File file) {
+        try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+            putObject(key, inputStream, file.length(), URLConnection.guessContentTypeFromName(file.getName()));
+        } catch (IOException e) {
+            log.error("read file error, file = {}", file, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件存储失败");
+        }
+    }
+
+    @Override
+    public StorageObject getObject(String key) {
+        Path keyPath = resolveKey(key);
+        try {
+            InputStream inputStream = Files.newInputStream(keyPath);
+            return new StorageObject(inputStream, Files.size(keyPath), getContentType(keyPath));
+        } catch (NoSuchFileException e) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "文件不存在");
+        } catch (IOException e) {
+            log.error("get object from local storage error, key = {}", key, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件读取失败");
+        }
+    }
+
+    @Override
+    public StorageObject getObject(String key, long offset) {
+        Path keyPath = resolveKey(key);
+        try {
+            SeekableByteChannel channel = Files.newByteChannel(keyPath, StandardOpenOption.READ);
+            long size = channel.size();
+            channel.position(Math.min(offset, size));
+            return new StorageObject(Channels.newInputStream(channel), Math.max(size - offset, 0), getContentType(keyPath));
+        } catch (NoSuchFileException e) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "文件不存在");
+        } catch (IOException e) {
+            log.error("get object from local storage error, key = {}", key, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件读取失败");
+        }
+    }
+
+    /**
+     * 使用 FileChannel.transferTo 写入目标通道：目标是 SocketChannel 或 FileChannel 时由内核直接复制（sendfile），
+     * 其他通道（例如用 Channels.newChannel 包装的 Servlet 输出流）由 JDK 按 8KB 分块读出后写入，
+     * 包装通道还会再复制到堆内缓冲区，只是不会把整个文件读入内存
+     */
+    @Override
+    public long transferTo(String key, WritableByteChannel target) throws IOException {
+        Path keyPath = resolveKey(key);
+        try (FileChannel fileChannel = FileChannel.open(keyPath, StandardOpenOption.READ)) {
+            return transferFully(fileChannel, target);
+        } catch (NoSuchFileException e) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "文件不存在");
+        }
+    }
+
+    @Override
+    public boolean doesObjectExist(String key) {
+        return Files.isRegularFile(resolveKey(key));
+    }
+
+    @Override
+    public void deleteObject(String key) {
+        Path keyPath = resolveKey(key);
+        try {
+            Files.deleteIfExists(keyPath);
+        } catch (IOException e) {
+            log.error("delete object from local storage error, key = {}", key, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件删除失败");
+        }
+    }
+
+    @Override
+    public void deleteObjects(Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+        keys.stream().distinct().forEach(this::deleteObject);
+    }
+
+    /**
+     * 复制对象：新建一个指向同一内容文件的硬链接，不复制数据
+     */
+    @Override
+    public void copyObject(String sourceKey, String targetKey) {
+        Path sourcePath = resolveKey(sourceKey);
+        Path targetPath = resolveKey(targetKey);
+        try {
+            link(targetPath, sourcePath);
+        } catch (NoSuchFileException e) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "文件不存在");
+        } catch (IOException e) {
+            log.error("copy object in local storage error, sourceKey = {}, targetKey = {}", sourceKey, targetKey, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件复制失败");
+        }
+    }
+
+    @Override
+    public List<String> listObjects(String prefix, int maxKeys) {
+        String normalizedPrefix = normalizeKey(prefix);
+        // 只遍历前缀中最后一级目录以下的文件
+        int index = normalizedPrefix.lastIndexOf('/');
+        Path baseDir = index < 0 ? keysRoot : keysRoot.resolve(normalizedPrefix.substring(0, index)).normalize();
+        if (!baseDir.startsWith(keysRoot) || !Files.isDirectory(baseDir)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> pathStream = Files.walk(baseDir)) {
+            return pathStream
+                    .filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().startsWith("."))
+                    .map(path -> keysRoot.relativize(path).toString().replace(File.separatorChar, '/'))
+                    .filter(key -> key.startsWith(normalizedPrefix))
+                    .sorted()
+                    .limit(maxKeys)
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            log.error("list objects in local storage error, prefix = {}", prefix, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件列表获取失败");
+        }
+    }
+
+    @Override
+    public String generatePresignedUrl(String key, long expireMillis) {
+        long expires = System.currentTimeMillis() + expireMillis;
+        return getObjectUrl(key) + "?expires=" + expires + "&signature=" + sign(normalizeKey(key), expires);
+    }
+
+    @Override
+    public String getObjectUrl(String key) {
+        return localStorageConfig.getHost() + "/" + normalizeKey(key);
+    }
+
+    @Override
+    public String getKeyFromUrl(String url) {
+        if (StrUtil.isBlank(url)) {
+            return "";
+        }
+        String path = URLUtil.getPath(url);
+        String hostPath = StrUtil.removeSuffix(URLUtil.getPath(localStorageConfig.getHost()), "/");
+        return StrUtil.removePrefix(StrUtil.removePrefix(path, hostPath), "/");
+    }
+
+    /**
+     * 是否允许不带签名访问
+     */
+    public boolean isPublicRead() {
+        return localStorageConfig.isPublicRead();
+    }
+
+    /**
+     * 校验预签名 url 的签名
+     *
+     * @param key       唯一键
+     * @param expires   过期时间戳
+     * @param signature 签名
+     */
+    public boolean verifySignature(String key, long expires, String signature) {
+        if (StrUtil.isBlank(signature) || expires < System.currentTimeMillis()) {
+            return false;
+        }
+        return MessageDigest.isEqual(sign(normalizeKey(key), expires).getBytes(StandardCharsets.UTF_8),
+                signature.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String initiateMultipartUpload(String key) {
+        resolveKey(key);
+        String uploadId = IdUtil.fastSimpleUUID();
+        try {
+            Files.createDirectories(multipartRoot.resolve(uploadId));
+        } catch (IOException e) {
+            log.error("initiate multipart upload in local storage error, key = {}", key, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件存储失败");
+        }
+        return uploadId;
+    }
+
+    @Override
+    public String uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long partSize) {
+        Path uploadDir = resolveUploadDir(uploadId);
+        Path tmpFile = null;
+        try {
+            tmpFile = Files.createTempFile(tmpRoot, "part", ".tmp");
+            MessageDigest digest = newDigest("MD5");
+            long size = Files.copy(new DigestInputStream(inputStream, digest), tmpFile, StandardCopyOption.REPLACE_EXISTING);
+            if (size != partSize) {
+                throw new IOException("part size mismatch, expected " + partSize + ", actual " + size);
+            }
+            Files.move(tmpFile, uploadDir.resolve(String.valueOf(partNumber)),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return HexUtil.encodeHexStr(digest.digest());
+        } catch (IOException e) {
+            log.error("upload part to local storage error, uploadId = {}, partNumber = {}", uploadId, partNumber, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件存储失败");
+        } finally {
+            deleteQuietly(tmpFile);
+        }
+    }
+
+    /**
+     * 完成分块上传：按编号把分块拼接成临时文件（FileChannel.transferTo，文件之间直接复制），再按内容发布
+     */
+    @Override
+    public void completeMultipartUpload(String key, String uploadId, SortedMap<Integer, String> partETags) {
+        Path keyPath = resolveKey(key);
+        Path uploadDir = resolveUploadDir(uploadId);
+        Path tmpFile = null;
+        try {
+            tmpFile = Files.createTempFile(tmpRoot, "complete", ".tmp");
+            try (FileChannel targetChannel = FileChannel.open(tmpFile, StandardOpenOption.WRITE)) {
+                for (Integer partNumber : partETags.keySet()) {
+                    try (FileChannel partChannel = FileChannel.open(uploadDir.resolve(String.valueOf(partNumber)),
+                            StandardOpenOption.READ)) {
+                        transferFully(partChannel, targetChannel);
+                    }
+                }
+            }
+            commit(keyPath, tmpFile, DigestUtil.sha256Hex(tmpFile.toFile()));
+        } catch (NoSuchFileException e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "分块未全部上传");
+        } catch (IOException e) {
+            log.error("complete multipart upload in local storage error, uploadId = {}", uploadId, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件存储失败");
+        } finally {
+            deleteQuietly(tmpFile);
+        }
+        FileUtil.del(uploadDir);
+    }
+
+    @Override
+    public void abortMultipartUpload(String key, String uploadId) {
+        FileUtil.del(resolveUploadDir(uploadId));
+    }
+
+    /**
+     * 回收存储空间：删除不再被任何对象引用的内容文件，以及中断的写入留下的临时文件和分块
+     */
+    @Scheduled(initialDelay = 10 * 60 * 1000, fixedDelay = 60 * 60 * 1000)
+    public void collectGarbage() {
+        long deadline = System.currentTimeMillis() - GC_GRACE_MILLIS;
+        int blobCount = 0;
+        if (linkCountSupported) {
+            try (Stream<Path> pathStream = Files.walk(blobsRoot)) {
+                for (Path blobPath : (Iterable<Path>) pathStream.filter(Files::isRegularFile)::iterator) {
+                    // 只剩内容目录中的这一个硬链接
+                    if (isModifiedBefore(blobPath, deadline) && (Integer) Files.getAttribute(blobPath, "unix:nlink") == 1) {
+                        Files.deleteIfExists(blobPath);
+                        blobCount++;
+                    }
+                }
+            } catch (IOException e) {
+                log.error("collect unreferenced blobs error", e);
+            }
+        }
+        try (Stream<Path> pathStream = Files.list(tmpRoot)) {
+            pathStream.filter(path -> isModifiedBefore(path, deadline)).forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            log.error("collect temp files error", e);
+        }
+        long multipartDeadline = System.currentTimeMillis() - MULTIPART_RETAIN_MILLIS;
+        try (Stream<Path> pathStream = Files.list(multipartRoot)) {
+            pathStream.filter(path -> isModifiedBefore(path, multipartDeadline)).forEach(FileUtil::del);
+        } catch (IOException e) {
+            log.error("collect multipart uploads error", e);
+        }
+        if (blobCount > 0) {
+            log.info("local storage collected {} unreferenced blobs", blobCount);
+        }
+    }
+
+    /**
+     * 发布写好的临时文件：相同内容已存在时直接引用已有的内容文件，否则把临时文件原子地重命名为内容文件，
+     * 再把对象原子地指向该内容文件
+     */
+    private void commit(Path keyPath, Path tmpFile, String sha256) throws IOException {
+        Path blobPath = blobsRoot.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+        if (Files.exists(blobPath)) {
+            try {
+                link(keyPath, blobPath);
+                return;
+            } catch (NoSuchFileException e) {
+                // 内容文件刚好被回收，重新写入
+            }
+        }
+        Files.createDirectories(blobPath.getParent());
+        try {
+            Files.move(tmpFile, blobPath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // 并发写入了相同的内容
+        }
+        link(keyPath, blobPath);
+    }
+
+    /**
+     * 把对象原子地指向目标文件（先在同目录建立临时硬链接，再重命名覆盖）
+     */
+    private void link(Path keyPath, Path target) throws IOException {
+        Files.createDirectories(keyPath.getParent());
+        Path linkPath = keyPath.resolveSibling("." + keyPath.getFileName() + "." + IdUtil.fastSimpleUUID() + ".tmp");
+        try {
+            Files.createLink(linkPath, target);
+            Files.move(linkPath, keyPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            deleteQuietly(linkPath);
+        }
+    }
+
+    private static long transferFully(FileChannel source, WritableByteChannel target) throws IOException {
+        long size = source.size();
+        long position = 0;
+        while (position < size) {
+            position += source.transferTo(position, size - position, target);
+        }
+        return position;
+    }
+
+    /**
+     * 解析对象路径，不允许越出对象目录，也不允许以 . 开头的文件名（临时文件）
+     */
+    private Path resolveKey(String key) {
+        String normalizedKey = normalizeKey(key);
+        ThrowUtils.throwIf(StrUtil.isBlank(normalizedKey), ErrorCode.PARAMS_ERROR, "对象 key 不能为空");
+        Path keyPath = keysRoot.resolve(normalizedKey).normalize();
+        ThrowUtils.throwIf(!keyPath.startsWith(keysRoot) || keyPath.equals(keysRoot)
+                || keyPath.getFileName().toString().startsWith("."), ErrorCode.PARAMS_ERROR, "对象 key 不合法");
+        return keyPath;
+    }
+
+    private Path resolveUploadDir(String uploadId) {
+        ThrowUtils.throwIf(!ReUtil.isMatch("[0-9a-zA-Z]+", StrUtil.nullToEmpty(uploadId)), ErrorCode.PARAMS_ERROR,
+                "分块上传 id 不合法");
+        Path uploadDir = multipartRoot.resolve(uploadId);
+        ThrowUtils.throwIf(!Files.isDirectory(uploadDir), ErrorCode.NOT_FOUND_ERROR, "分块上传不存在");
+        return uploadDir;
+    }
+
+    private static String normalizeKey(String key) {
+        return StrUtil.removePrefix(StrUtil.nullToEmpty(key), "/");
+    }
+
+    private String sign(String key, long expires) {
+        return signer.digestHex(key + "\n" + expires);
+    }
+
+    private static String getContentType(Path path) {
+        String contentType = URLConnection.guessContentTypeFromName(path.getFileName().toString());
+        if (contentType == null && path.getFileName().toString().endsWith(".webp")) {
+            contentType = "image/webp";
+        }
+        return StrUtil.blankToDefault(contentType, "application/octet-stream");
+    }
+
+    private static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isModifiedBefore(Path path, long deadline) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis() < deadline;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.error("delete temp file error, path = {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.steve.cloudpicturebackend.manager.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * 对象存储接口
+ * <p>
+ * 业务代码通过该接口读写文件，不直接依赖具体的存储。通过 storage.type 选择实现：
+ * cos（腾讯云对象存储，默认）或 local（本地文件系统，用于压测和私有化部署）。
+ * 对象 key 使用 / 分隔，开头的 / 可有可无
+ */
+public interface StorageClient {
+
+    /**
+     * 上传对象
+     *
+     * @param key           唯一键
+     * @param inputStream   输入流（由调用方关闭）
+     * @param contentLength 内容长度，必须准确
+     * @param contentType   内容类型
+     */
+    void putObject(String key, InputStream inputStream, long contentLength, String contentType);
+
+    /**
+     * 上传文件
+     *
+     * @param key  唯一键
+     * @param file 文件
+     */
+    void putObject(String key, File file);
+
+    /**
+     * 下载对象
+     *
+     * @param key 唯一键
+     * @return 对象（使用后需要关闭）
+     */
+    StorageObject getObject(String key);
+
+    /**
+     * 从指定位置开始下载对象
+     *
+     * @param key    唯一键
+     * @param offset 起始位置（字节）
+     * @return 对象（contentLength 为剩余内容的长度，使用后需要关闭）
+     */
+    StorageObject getObject(String key, long offset);
+
+    /**
+     * 把对象内容写入目标通道（分块写入，不会把整个对象读入内存）
+     *
+     * @param key    唯一键
+     * @param target 目标通道（由调用方关闭）
+     * @return 写入的字节数
+     */
+    long transferTo(String key, WritableByteChannel target) throws IOException;
+
+    /**
+     * 对象是否存在
+     *
+     * @param key 唯一键
+     */
+    boolean doesObjectExist(String key);
+
+    /**
+     * 删除对象（对象不存在视为删除成功）
+     *
+     * @param key 唯一键
+     */
+    void deleteObject(String key);
+
+    /**
+     * 批量删除对象（对象不存在视为删除成功）
+     *
+     * @param keys 唯一键
+     */
+    void deleteObjects(Collection<String> keys);
+
+    /**
+     * 复制对象
+     *
+     * @param sourceKey 源对象
+     * @param targetKey 目标对象（已存在时覆盖）
+     */
+    void copyObject(String sourceKey, String targetKey);
+
+    /**
+     * 按前缀列出对象
+     *
+     * @param prefix  前缀
+     * @param maxKeys 最多返回的数量
+     * @return 对象 key（按字典序）
+     */
+    List<String> listObjects(String prefix, int maxKeys);
+
+    /**
+     * 生成带过期时间的下载地址
+     *
+     * @param key          唯一键
+     * @param expireMillis 有效期（毫秒）
+     * @return 下载地址
+     */
+    String generatePresignedUrl(String key, long expireMillis);
+
+    /**
+     * 获取对象的访问地址
+     *
+     * @param key 唯一键
+     */
+    String getObjectUrl(String key);
+
+    /**
+     * 从访问地址中提取对象 key
+     *
+     * @param url 访问地址
+     */
+    String getKeyFromUrl(String url);
+
+    /**
+     * 初始化分块上传
+     *
+     * @param key 唯一键
+     * @return 分块上传 id
+     */
+    String initiateMultipartUpload(String key);
+
+    /**
+     * 上传分块
+     *
+     * @param key         唯一键
+     * @param uploadId    分块上传 id
+     * @param partNumber  分块编号（从 1 开始）
+     * @param inputStream 分块数据（由调用方关闭）
+     * @param partSize    分块大小
+     * @return 分块的 ETag
+     */
+    String uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long partSize);
+
+    /**
+     * 完成分块上传
+     *
+     * @param key       唯一键
+     * @param uploadId  分块上传 id
+     * @param partETags 分块编号 => ETag（全部分块）
+     */
+    void completeMultipartUpload(String key, String uploadId, SortedMap<Integer, String> partETags);
+
+    /**
+     * 取消分块上传（删除已上传的分块）
+     *
+     * @param key      唯一键
+     * @param uploadId 分块上传 id
+     */
+    void abortMultipartUpload(String key, String uploadId);
+}
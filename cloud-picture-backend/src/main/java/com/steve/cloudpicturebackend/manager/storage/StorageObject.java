@@ -0,0 +1,36 @@
+package com.steve.cloudpicturebackend.manager.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 从存储中读取的对象（使用后需要关闭）
+ */
+@Getter
+@AllArgsConstructor
+public class StorageObject implements Closeable {
+
+    /**
+     * 对象内容
+     */
+    private final InputStream inputStream;
+
+    /**
+     * 内容长度
+     */
+    private final long contentLength;
+
+    /**
+     * 内容类型
+     */
+    private final String contentType;
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+}
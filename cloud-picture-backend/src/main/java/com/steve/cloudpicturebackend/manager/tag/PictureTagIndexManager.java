@@ -0,0 +1,471 @@
+package com.steve.cloudpicturebackend.manager.tag;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.steve.cloudpicturebackend.manager.cache.MultiLevelCacheManager;
+import com.steve.cloudpicturebackend.mapper.PictureMapper;
+import com.steve.cloudpicturebackend.mapper.PictureTagMapper;
+import com.steve.cloudpicturebackend.mapper.PictureTagRelationMapper;
+import com.steve.cloudpicturebackend.model.entity.Picture;
+import com.steve.cloudpicturebackend.model.entity.PictureTag;
+import com.steve.cloudpicturebackend.model.entity.PictureTagRelation;
+import com.steve.cloudpicturebackend.utils.PictureTagsJsonUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 图片标签倒排索引
+ * <p>
+ * 标签名称通过字典表映射为标签 id，图片与标签的关系持久化在 picture_tag_relation 表中。
+ * 查询时按 空间（或公共图库）+ 标签 把关系加载为图片 id 压缩位图，多标签查询即位图求交集。
+ * 位图按 空间 + 标签 缓存在本地，写入后只递增受影响标签的版本号，各实例读取时发现版本变化只重新加载这些标签；
+ * 重建索引时递增整个空间的版本号。
+ * 索引表在上线后为空，首次全量重建完成前（就绪标记不存在）调用方应按 JSON 列查询，统计也直接扫描图片表
+ */
+@Slf4j
+@Component
+public class PictureTagIndexManager {
+
+    /**
+     * 版本号命名空间前缀
+     */
+    private static final String VERSION_NAMESPACE_PREFIX = "picture_tag_index:";
+
+    /**
+     * 公共图库的范围标识
+     */
+    private static final String PUBLIC_SCOPE = "public";
+
+    /**
+     * 位图缓存最大占用（字节）
+     */
+    private static final long POSTINGS_CACHE_MAX_BYTES = 128L * 1024 * 1024;
+
+    /**
+     * 重建时每批读取的条数
+     */
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    /**
+     * 索引就绪标记（全量重建完成后写入）
+     */
+    private static final String TAG_INDEX_READY_KEY = "cloud_picture:tag_index:ready";
+
+    @Resource
+    private PictureTagMapper pictureTagMapper;
+
+    @Resource
+    private PictureTagRelationMapper pictureTagRelationMapper;
+
+    @Resource
+    private PictureMapper pictureMapper;
+
+    @Resource
+    private MultiLevelCacheManager multiLevelCacheManager;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 本机缓存的就绪状态（就绪后不会再变为未就绪，只缓存 true）
+     */
+    private volatile boolean ready;
+
+    /**
+     * 标签名称 => 标签 id
+     */
+    private final Cache<String, Long> tagIdCache = Caffeine.newBuilder()
+            .maximumSize(100000L)
+            .build();
+
+    /**
+     * 标签 id => 标签名称
+     */
+    private final Cache<Long, String> tagNameCache = Caffeine.newBuilder()
+            .maximumSize(100000L)
+            .build();
+
+    /**
+     * 范围:范围版本号:标签 id:标签版本号 => 图片 id 位图，按位图占用的字节数淘汰
+     */
+    private final Cache<String, Roaring64NavigableMap> postingsCache = Caffeine.newBuilder()
+            .maximumWeight(POSTINGS_CACHE_MAX_BYTES)
+            .weigher((String key, Roaring64NavigableMap bitmap) ->
+                    (int) Math.min(Integer.MAX_VALUE, bitmap.getLongSizeInBytes()))
+            .build();
+
+    /**
+     * 更新图片的标签索引
+     *
+     * @param pictureId 图片 id
+     * @param spaceId   空间 id
+     * @param tagsJson  标签（JSON 数组）
+     */
+    public void indexPicture(Long pictureId, Long spaceId, String tagsJson) {
+        if (pictureId == null) {
+            return;
+        }
+        List<String> tagList = parseTags(tagsJson);
+        // 旧标签和新标签的位图都需要失效
+        Map<String, Set<Long>> touchedTagIdMap = new HashMap<>();
+        pictureTagRelationMapper.selectList(new LambdaQueryWrapper<PictureTagRelation>()
+                        .select(PictureTagRelation::getTagId, PictureTagRelation::getSpaceId)
+                        .eq(PictureTagRelation::getPictureId, pictureId))
+                .forEach(relation -> touchedTagIdMap.computeIfAbsent(toScope(relation.getSpaceId()), scope -> new HashSet<>())
+                        .add(relation.getTagId()));
+        pictureTagRelationMapper.delete(new LambdaQueryWrapper<PictureTagRelation>()
+                .eq(PictureTagRelation::getPictureId, pictureId));
+        // 排序规则认为相同的名称会映射到同一个标签 id，按 id 再去重一次
+        List<PictureTagRelation> relationList = tagList.stream()
+                .map(this::getOrCreateTagId)
+                .distinct()
+                .map(tagId -> {
+                    PictureTagRelation relation = new PictureTagRelation();
+                    relation.setTagId(tagId);
+                    relation.setPictureId(pictureId);
+                    relation.setSpaceId(spaceId);
+                    return relation;
+                })
+                .collect(Collectors.toList());
+        if (!relationList.isEmpty()) {
+            pictureTagRelationMapper.insert(relationList);
+        }
+        relationList.forEach(relation -> touchedTagIdMap.computeIfAbsent(toScope(spaceId), scope -> new HashSet<>())
+                .add(relation.getTagId()));
+        bumpVersionAfterCommit(touchedTagIdMap);
+    }
+
+    /**
+     * 删除图片的标签索引
+     *
+     * @param pictureId 图片 id
+     */
+    public void removePicture(Long pictureId) {
+        if (pictureId == null) {
+            return;
+        }
+        removePictures(Collections.singletonList(pictureId));
+    }
+
+    /**
+     * 批量删除图片的标签索引
+     *
+     * @param pictureIds 图片 id
+     */
+    public void removePictures(Collection<Long> pictureIds) {
+        if (CollUtil.isEmpty(pictureIds)) {
+            return;
+        }
+        List<PictureTagRelation> relationList = pictureTagRelationMapper.selectList(new LambdaQueryWrapper<PictureTagRelation>()
+                .select(PictureTagRelation::getTagId, PictureTagRelation::getSpaceId)
+                .in(PictureTagRelation::getPictureId, pictureIds));
+        if (relationList.isEmpty()) {
+            return;
+        }
+        pictureTagRelationMapper.delete(new LambdaQueryWrapper<PictureTagRelation>()
+                .in(PictureTagRelation::getPictureId, pictureIds));
+        bumpVersionAfterCommit(relationList.stream()
+                .collect(Collectors.groupingBy(relation -> toScope(relation.getSpaceId()),
+                        Collectors.mapping(PictureTagRelation::getTagId, Collectors.toSet()))));
+    }
+
+    /**
+     * 查询同时带有全部标签的图片
+     *
+     * @param spaceId 空间 id，为空表示公共图库
+     * @param tagIds  标签 id 列表
+     * @return 图片 id 位图
+     */
+    public Roaring64NavigableMap intersect(Long spaceId, List<Long> tagIds) {
+        String scope = toScope(spaceId);
+        long scopeVersion = multiLevelCacheManager.getVersion(VERSION_NAMESPACE_PREFIX + scope);
+        Roaring64NavigableMap result = null;
+        for (Long tagId : tagIds) {
+            Roaring64NavigableMap bitmap = getPostings(scope, scopeVersion, tagId);
+            if (bitmap.isEmpty()) {
+                return new Roaring64NavigableMap();
+            }
+            if (result == null) {
+                // 复制一份，避免修改缓存中的位图
+                result = new Roaring64NavigableMap();
+                result.or(bitmap);
+            } else {
+                result.and(bitmap);
+            }
+        }
+        return result == null ? new Roaring64NavigableMap() : result;
+    }
+
+    /**
+     * 根据标签名称获取标签 id
+     *
+     * @param tagList 标签名称
+     * @return 标签 id 列表（已去重，标签名称按数据库排序规则不区分大小写）；
+     * 任一标签不存在时返回 null（说明不可能有图片同时带有全部标签）
+     */
+    public List<Long> getTagIds(List<String> tagList) {
+        Set<Long> tagIdSet = new LinkedHashSet<>();
+        for (String tag : tagList) {
+            Long tagId = getTagId(tag);
+            if (tagId == null) {
+                return null;
+            }
+            tagIdSet.add(tagId);
+        }
+        return new ArrayList<>(tagIdSet);
+    }
+
+    /**
+     * 索引是否已经全量构建过（未构建时索引中缺少存量图片）
+     */
+    public boolean isReady() {
+        if (ready) {
+            return true;
+        }
+        try {
+            ready = Boolean.TRUE.equals(stringRedisTemplate.hasKey(TAG_INDEX_READY_KEY));
+        } catch (Exception e) {
+            log.error("check picture tag index ready error", e);
+        }
+        return ready;
+    }
+
+    /**
+     * 统计各标签的图片数量
+     *
+     * @param spaceId   空间 id，为空表示公共图库
+     * @param queryAll  是否统计全部空间
+     * @return 标签名称 => 图片数量
+     */
+    public Map<String, Long> countTags(Long spaceId, boolean queryAll) {
+        if (!isReady()) {
+            return countTagsFromPictures(spaceId, queryAll);
+        }
+        // 直接在数据库中分组统计（限定范围时走 (spaceId, tagId, pictureId) 覆盖索引），不需要加载整个范围的位图
+        QueryWrapper<PictureTagRelation> queryWrapper = new QueryWrapper<PictureTagRelation>()
+                .select("tagId", "COUNT(*) AS count")
+                .groupBy("tagId");
+        if (!queryAll) {
+            queryWrapper.eq(spaceId != null, "spaceId", spaceId)
+                    .isNull(spaceId == null, "spaceId");
+        }
+        Map<Long, Long> tagIdCountMap = new HashMap<>();
+        pictureTagRelationMapper.selectMaps(queryWrapper).forEach(row ->
+                tagIdCountMap.put(Convert.toLong(row.get("tagId")), Convert.toLong(row.get("count"))));
+        Map<String, Long> tagCountMap = new HashMap<>();
+        tagIdCountMap.forEach((tagId, count) -> {
+            String tagName = getTagName(tagId);
+            if (tagName != null) {
+                tagCountMap.merge(tagName, count, Long::sum);
+            }
+        });
+        return tagCountMap;
+    }
+
+    /**
+     * 索引构建前直接读取图片表的标签列统计（按 id 分批读取）
+     */
+    private Map<String, Long> countTagsFromPictures(Long spaceId, boolean queryAll) {
+        Map<String, Long> tagCountMap = new HashMap<>();
+        Long lastId = 0L;
+        while (true) {
+            LambdaQueryWrapper<Picture> queryWrapper = new LambdaQueryWrapper<Picture>()
+                    .select(Picture::getId, Picture::getTags)
+                    .gt(Picture::getId, lastId)
+                    .orderByAsc(Picture::getId)
+                    .last("LIMIT " + REBUILD_BATCH_SIZE);
+            if (!queryAll) {
+                queryWrapper.eq(spaceId != null, Picture::getSpaceId, spaceId)
+                        .isNull(spaceId == null, Picture::getSpaceId);
+            }
+            List<Picture> pictureList = pictureMapper.selectList(queryWrapper);
+            pictureList.forEach(picture -> parseTags(picture.getTags())
+                    .forEach(tag -> tagCountMap.merge(tag, 1L, Long::sum)));
+            if (pictureList.size() < REBUILD_BATCH_SIZE) {
+                break;
+            }
+            lastId = pictureList.get(pictureList.size() - 1).getId();
+        }
+        return tagCountMap;
+    }
+
+    /**
+     * 从图片表重建全部标签索引（按 id 分批处理）
+     *
+     * @return 处理的图片数量
+     */
+    public long rebuild() {
+        long total = 0;
+        Long lastId = 0L;
+        Set<String> scopeSet = new HashSet<>();
+        while (true) {
+            List<Picture> pictureList = pictureMapper.selectList(new LambdaQueryWrapper<Picture>()
+                    .select(Picture::getId, Picture::getSpaceId, Picture::getTags)
+                    .gt(Picture::getId, lastId)
+                    .orderByAsc(Picture::getId)
+                    .last("LIMIT " + REBUILD_BATCH_SIZE));
+            if (CollUtil.isEmpty(pictureList)) {
+                break;
+            }
+            List<Long> pictureIdList = pictureList.stream().map(Picture::getId).collect(Collectors.toList());
+            pictureTagRelationMapper.delete(new LambdaQueryWrapper<PictureTagRelation>()
+                    .in(PictureTagRelation::getPictureId, pictureIdList));
+            List<PictureTagRelation> relationList = new ArrayList<>();
+            for (Picture picture : pictureList) {
+                Set<Long> tagIdSet = new LinkedHashSet<>();
+                parseTags(picture.getTags()).forEach(tag -> tagIdSet.add(getOrCreateTagId(tag)));
+                for (Long tagId : tagIdSet) {
+                    PictureTagRelation relation = new PictureTagRelation();
+                    relation.setTagId(tagId);
+                    relation.setPictureId(picture.getId());
+                    relation.setSpaceId(picture.getSpaceId());
+                    relationList.add(relation);
+                }
+                scopeSet.add(toScope(picture.getSpaceId()));
+            }
+            if (!relationList.isEmpty()) {
+                pictureTagRelationMapper.insert(relationList);
+            }
+            total += pictureList.size();
+            lastId = pictureList.get(pictureList.size() - 1).getId();
+            if (pictureList.size() < REBUILD_BATCH_SIZE) {
+                break;
+            }
+        }
+        scopeSet.forEach(scope -> multiLevelCacheManager.bumpVersion(VERSION_NAMESPACE_PREFIX + scope));
+        stringRedisTemplate.opsForValue().set(TAG_INDEX_READY_KEY, "1");
+        ready = true;
+        log.info("rebuild picture tag index finished, total = {}", total);
+        return total;
+    }
+
+    /**
+     * 获取某个范围内某个标签的位图（没有图片时为空位图），范围或标签的版本号变化后重新从数据库加载
+     */
+    private Roaring64NavigableMap getPostings(String scope, long scopeVersion, Long tagId) {
+        long tagVersion = multiLevelCacheManager.getVersion(buildTagVersionNamespace(scope, tagId));
+        return postingsCache.get(scope + ":" + scopeVersion + ":" + tagId + ":" + tagVersion, key -> {
+            LambdaQueryWrapper<PictureTagRelation> queryWrapper = new LambdaQueryWrapper<PictureTagRelation>()
+                    .select(PictureTagRelation::getPictureId)
+                    .eq(PictureTagRelation::getTagId, tagId);
+            if (PUBLIC_SCOPE.equals(scope)) {
+                queryWrapper.isNull(PictureTagRelation::getSpaceId);
+            } else {
+                queryWrapper.eq(PictureTagRelation::getSpaceId, Long.valueOf(scope));
+            }
+            Roaring64NavigableMap bitmap = new Roaring64NavigableMap();
+            pictureTagRelationMapper.selectList(queryWrapper).forEach(relation -> bitmap.addLong(relation.getPictureId()));
+            bitmap.runOptimize();
+            return bitmap;
+        });
+    }
+
+    /**
+     * 写入后递增受影响标签的版本号；处于事务中时在提交后再递增，避免其他请求在提交前加载到旧数据
+     *
+     * @param touchedTagIdMap 范围 => 受影响的标签 id
+     */
+    private void bumpVersionAfterCommit(Map<String, Set<Long>> touchedTagIdMap) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    bumpTagVersions(touchedTagIdMap);
+                }
+            });
+            return;
+        }
+        bumpTagVersions(touchedTagIdMap);
+    }
+
+    private void bumpTagVersions(Map<String, Set<Long>> touchedTagIdMap) {
+        touchedTagIdMap.forEach((scope, tagIdSet) -> tagIdSet.forEach(tagId ->
+                multiLevelCacheManager.bumpVersion(buildTagVersionNamespace(scope, tagId))));
+    }
+
+    private static String buildTagVersionNamespace(String scope, Long tagId) {
+        return VERSION_NAMESPACE_PREFIX + scope + ":" + tagId;
+    }
+
+    private Long getTagId(String tag) {
+        Long tagId = tagIdCache.getIfPresent(tag);
+        if (tagId != null) {
+            return tagId;
+        }
+        PictureTag pictureTag = pictureTagMapper.selectOne(new LambdaQueryWrapper<PictureTag>()
+                .eq(PictureTag::getTagName, tag));
+        if (pictureTag == null) {
+            return null;
+        }
+        tagIdCache.put(tag, pictureTag.getId());
+        tagNameCache.put(pictureTag.getId(), pictureTag.getTagName());
+        return pictureTag.getId();
+    }
+
+    private Long getOrCreateTagId(String tag) {
+        Long tagId = getTagId(tag);
+        if (tagId != null) {
+            return tagId;
+        }
+        PictureTag pictureTag = new PictureTag();
+        pictureTag.setTagName(tag);
+        try {
+            pictureTagMapper.insert(pictureTag);
+        } catch (DuplicateKeyException e) {
+            // 并发创建了同名标签
+            return getTagId(tag);
+        }
+        tagIdCache.put(tag, pictureTag.getId());
+        tagNameCache.put(pictureTag.getId(), tag);
+        return pictureTag.getId();
+    }
+
+    private String getTagName(Long tagId) {
+        return tagNameCache.get(tagId, id -> {
+            PictureTag pictureTag = pictureTagMapper.selectById(id);
+            return pictureTag == null ? null : pictureTag.getTagName();
+        });
+    }
+
+    /**
+     * 解析并去重标签；标签名称列的排序规则不区分大小写，去重时也需要忽略大小写，
+     * 否则同一张图片会对同一个标签 id 写入多条关联
+     */
+    private static List<String> parseTags(String tagsJson) {
+        return distinctTags(PictureTagsJsonUtils.parseTags(tagsJson));
+    }
+
+    /**
+     * 标签去重：去除空白项，忽略大小写，保留第一次出现的写法
+     *
+     * @param tagList 标签名称
+     * @return 去重后的标签名称
+     */
+    public static List<String> distinctTags(Collection<String> tagList) {
+        Map<String, String> tagMap = new LinkedHashMap<>();
+        for (String tag : tagList) {
+            if (StrUtil.isNotBlank(tag)) {
+                tagMap.putIfAbsent(tag.toLowerCase(Locale.ROOT), tag);
+            }
+        }
+        return new ArrayList<>(tagMap.values());
+    }
+
+    private static String toScope(Long spaceId) {
+        return spaceId == null ? PUBLIC_SCOPE : String.valueOf(spaceId);
+    }
+}
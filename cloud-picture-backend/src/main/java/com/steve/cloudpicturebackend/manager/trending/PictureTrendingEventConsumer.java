@@ -0,0 +1,67 @@
+package com.steve.cloudpicturebackend.manager.trending;
+
+import com.steve.cloudpicturebackend.manager.event.PictureEvent;
+import com.steve.cloudpicturebackend.manager.event.PictureEventConsumer;
+import com.steve.cloudpicturebackend.model.enums.PictureReviewStatusEnum;
+import com.steve.cloudpicturebackend.model.enums.PictureTrendingActionEnum;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.*;
+
+/**
+ * 热门图片排行的事件消费者
+ * <p>
+ * 同一批次内的行为先按图片合并加权次数，再一次脚本调用写入排行；图片删除或不再公开时从排行中移除
+ */
+@Component
+public class PictureTrendingEventConsumer implements PictureEventConsumer {
+
+    @Resource
+    private PictureTrendingManager pictureTrendingManager;
+
+    @Override
+    public void onEvents(List<PictureEvent> eventList) {
+        Map<Long, Long> pictureWeightMap = new LinkedHashMap<>();
+        Set<Long> removedIdSet = new LinkedHashSet<>();
+        for (PictureEvent pictureEvent : eventList) {
+            Long pictureId = pictureEvent.getPictureId();
+            switch (pictureEvent.getType()) {
+                case VIEW:
+                case DOWNLOAD:
+                case LIKE:
+                case SHARE:
+                    if (!isPublicPicture(pictureEvent)) {
+                        break;
+                    }
+                    PictureTrendingActionEnum action = PictureTrendingActionEnum.getEnumByValue(pictureEvent.getType().getValue());
+                    if (action != null) {
+                        pictureWeightMap.merge(pictureId, (long) action.getWeight() * pictureEvent.getDelta(), Long::sum);
+                        removedIdSet.remove(pictureId);
+                    }
+                    break;
+                case EDIT:
+                case REVIEW:
+                    if (!isPublicPicture(pictureEvent)) {
+                        pictureWeightMap.remove(pictureId);
+                        removedIdSet.add(pictureId);
+                    }
+                    break;
+                case DELETE:
+                    pictureWeightMap.remove(pictureId);
+                    removedIdSet.add(pictureId);
+                    break;
+                default:
+                    break;
+            }
+        }
+        pictureTrendingManager.increaseScores(pictureWeightMap);
+        pictureTrendingManager.removePictures(removedIdSet);
+    }
+
+    private static boolean isPublicPicture(PictureEvent pictureEvent) {
+        return pictureEvent.getSpaceId() == null
+                && pictureEvent.getReviewStatus() != null
+                && pictureEvent.getReviewStatus() == PictureReviewStatusEnum.PASS.getValue();
+    }
+}
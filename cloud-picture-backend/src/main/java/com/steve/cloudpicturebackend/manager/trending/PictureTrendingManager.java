@@ -0,0 +1,178 @@
+package com.steve.cloudpicturebackend.manager.trending;
+
+import cn.hutool.core.util.IdUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 公共图库热门图片排行
+ * <p>
+ * 热度按时间指数衰减（半衰期可配置）。为了只做增量更新，采用前向衰减：以某个基准时间为起点，
+ * 一次行为的得分为 权重 × 2^((当前时间 - 基准时间) / 半衰期)，越新的行为得分越高，ZSet 中的相对顺序即衰减后的热度顺序。
+ * 得分会随时间指数增长，因此定期把基准时间推进到当前时间，并把所有得分按比例缩小（重新归一化），同时清理已经衰减殆尽的图片。
+ * 读取前 K 名只需要一次 ZREVRANGE，复杂度为 O(log N + K)
+ */
+@Slf4j
+@Component
+public class PictureTrendingManager {
+
+    /**
+     * 热度排行 key
+     */
+    private static final String TRENDING_KEY = "cloud_picture:trending:public";
+
+    /**
+     * 基准时间 key（毫秒时间戳）
+     */
+    private static final String EPOCH_KEY = "cloud_picture:trending:epoch";
+
+    /**
+     * 重新归一化任务的分布式锁
+     */
+    private static final String RENORMALIZE_LOCK_KEY = "cloud_picture:trending:renormalize_lock";
+
+    /**
+     * 归一化后得分低于该值的图片从排行中移除（相当于一次浏览在约 7 个半衰期之前发生）
+     */
+    private static final double PRUNE_THRESHOLD = 0.01;
+
+    /**
+     * 累加热度：以 Redis 中的基准时间计算前向衰减系数，与重新归一化互斥。
+     * ARGV：当前时间、半衰期，之后为（加权次数，图片 id）交替排列
+     */
+    private static final DefaultRedisScript<Long> INCREASE_SCRIPT = new DefaultRedisScript<>(
+            "local now = tonumber(ARGV[1]) " +
+                    "local epoch = tonumber(redis.call('GET', KEYS[2])) " +
+                    "if not epoch then epoch = now redis.call('SET', KEYS[2], now) end " +
+                    "local factor = math.exp(0.6931471805599453 * (now - epoch) / tonumber(ARGV[2])) " +
+                    "for i = 3, #ARGV, 2 do " +
+                    "redis.call('ZINCRBY', KEYS[1], tonumber(ARGV[i]) * factor, ARGV[i + 1]) " +
+                    "end " +
+                    "return 1",
+            Long.class);
+
+    /**
+     * 重新归一化：所有得分乘以衰减系数，基准时间推进到当前时间，并清理得分过低的图片
+     */
+    private static final DefaultRedisScript<Long> RENORMALIZE_SCRIPT = new DefaultRedisScript<>(
+            "local now = tonumber(ARGV[1]) " +
+                    "local epoch = tonumber(redis.call('GET', KEYS[2])) " +
+                    "if epoch and redis.call('EXISTS', KEYS[1]) == 1 then " +
+                    "local factor = math.exp(-0.6931471805599453 * (now - epoch) / tonumber(ARGV[2])) " +
+                    "redis.call('ZUNIONSTORE', KEYS[1], 1, KEYS[1], 'WEIGHTS', tostring(factor)) " +
+                    "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', ARGV[3]) " +
+                    "end " +
+                    "redis.call('SET', KEYS[2], now) " +
+                    "return 1",
+            Long.class);
+
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('DEL', KEYS[1]) " +
+                    "end " +
+                    "return 0",
+            Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 热度半衰期（小时）：N 小时前的一次行为，贡献只有现在的一半
+     */
+    @Value("${trending.halfLifeHours:6}")
+    private double halfLifeHours;
+
+    /**
+     * 批量累加热度（调用方需保证只包含公共图库中审核通过的图片）
+     *
+     * @param pictureWeightMap 图片 id => 加权后的行为次数（行为权重 × 次数，取消点赞等撤销行为为负数）
+     */
+    public void increaseScores(Map<Long, Long> pictureWeightMap) {
+        if (pictureWeightMap == null || pictureWeightMap.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.add(String.valueOf(getHalfLifeMillis()));
+        pictureWeightMap.forEach((pictureId, weight) -> {
+            if (weight != 0) {
+                args.add(String.valueOf(weight));
+                args.add(String.valueOf(pictureId));
+            }
+        });
+        if (args.size() == 2) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(INCREASE_SCRIPT, Arrays.asList(TRENDING_KEY, EPOCH_KEY), args.toArray());
+        } catch (Exception e) {
+            log.error("increase picture trending scores error, size = {}", pictureWeightMap.size(), e);
+        }
+    }
+
+    /**
+     * 获取热度最高的图片
+     *
+     * @param size 数量
+     * @return 图片 id（按热度倒序）
+     */
+    public List<Long> listTopPictureIds(int size) {
+        Set<String> members = stringRedisTemplate.opsForZSet().reverseRange(TRENDING_KEY, 0, size - 1);
+        if (members == null) {
+            return new ArrayList<>();
+        }
+        return members.stream().map(Long::valueOf).collect(Collectors.toList());
+    }
+
+    /**
+     * 从排行中移除图片（图片删除或不再公开时）
+     *
+     * @param pictureIds 图片 id
+     */
+    public void removePictures(Collection<Long> pictureIds) {
+        if (pictureIds == null || pictureIds.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForZSet().remove(TRENDING_KEY,
+                    pictureIds.stream().map(String::valueOf).toArray());
+        } catch (Exception e) {
+            log.error("remove pictures from trending error, pictureIds = {}", pictureIds, e);
+        }
+    }
+
+    /**
+     * 定期重新归一化，避免得分无限增长
+     */
+    @Scheduled(initialDelay = 60 * 1000, fixedDelay = 60 * 60 * 1000)
+    public void renormalize() {
+        String lockValue = IdUtil.fastSimpleUUID();
+        try {
+            Boolean locked = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(RENORMALIZE_LOCK_KEY, lockValue, 5, TimeUnit.MINUTES);
+            if (!Boolean.TRUE.equals(locked)) {
+                return;
+            }
+            stringRedisTemplate.execute(RENORMALIZE_SCRIPT, Arrays.asList(TRENDING_KEY, EPOCH_KEY),
+                    String.valueOf(System.currentTimeMillis()), String.valueOf(getHalfLifeMillis()),
+                    String.valueOf(PRUNE_THRESHOLD));
+        } catch (Exception e) {
+            log.error("renormalize picture trending error", e);
+        } finally {
+            stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(RENORMALIZE_LOCK_KEY), lockValue);
+        }
+    }
+
+    private long getHalfLifeMillis() {
+        return (long) (halfLifeHours * 60 * 60 * 1000);
+    }
+}
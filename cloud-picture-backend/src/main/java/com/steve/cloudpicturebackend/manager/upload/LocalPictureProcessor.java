@@ -0,0 +1,369 @@
+package com.steve.cloudpicturebackend.manager.upload;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.StrUtil;
+import com.luciad.imageio.webp.WebPWriteParam;
+import com.steve.cloudpicturebackend.exception.BusinessException;
+import com.steve.cloudpicturebackend.exception.ErrorCode;
+import com.steve.cloudpicturebackend.exception.ThrowUtils;
+import com.steve.cloudpicturebackend.manager.storage.StorageClient;
+import com.steve.cloudpicturebackend.model.dto.file.UploadPictureResult;
+import com.steve.cloudpicturebackend.model.enums.PictureProcessEngineEnum;
+import com.steve.cloudpicturebackend.model.enums.StorageTypeEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 本地图片处理引擎
+ * <p>
+ * 代替对象存储数据万象的处理规则（配置 picture.process.engine=local 时启用）：在本机把图片转成 webp 压缩图、
+ * 生成不超过 256x256 的缩略图并解析宽高和主色调，再把结果写入对象存储，返回的上传结果与数据万象一致。
+ * 适用于无法访问数据万象的隔离环境，也可以省去按次计费的处理费用。
+ * 解码后的图片占用的内存与像素数成正比，因此处理任务在有界线程池中执行，并按像素数占用全局的内存预算
+ * （picture.process.maxPixels）：除解码后的原图外，还要计入缩放的第一步（原图的 1/4）和 webp 编码器的缓冲区，
+ * 单张图片超过预算直接拒绝，预算不足时等待其他任务释放
+ */
+@Slf4j
+@Component
+public class LocalPictureProcessor {
+
+    /**
+     * 缩略图的最大宽高
+     */
+    private static final int THUMBNAIL_SIZE = 256;
+
+    /**
+     * 只为超过该大小的图片生成缩略图（与数据万象的处理规则一致）
+     */
+    private static final long THUMBNAIL_MIN_FILE_SIZE = 2 * 1024L;
+
+    /**
+     * webp 压缩质量
+     */
+    private static final float WEBP_QUALITY = 0.8f;
+
+    /**
+     * 计算主色调时先把图片缩小到该宽高以内
+     */
+    private static final int COLOR_SAMPLE_SIZE = 64;
+
+    /**
+     * 处理线程数
+     */
+    private static final int PROCESS_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * 等待处理完成的最长时间
+     */
+    private static final long PROCESS_TIMEOUT_SECONDS = 60;
+
+    /**
+     * 处理一张图片占用的预算，以原图像素数的 1/4 为单位：
+     * 解码后的原图 4 份 + 缩放第一步生成的半宽半高图 1 份 + webp 编码时复制的像素和 YUV 缓冲区约 4 份
+     */
+    private static final long BUDGET_QUARTERS_PER_PIXEL = 4 + 1 + 4;
+
+    /**
+     * 等待内存预算的最长时间
+     */
+    private static final long BUDGET_WAIT_SECONDS = 30;
+
+    @Resource
+    private StorageClient storageClient;
+
+    @Resource
+    private PictureUploadResultBuilder pictureUploadResultBuilder;
+
+    /**
+     * 图片处理引擎：cos（数据万象，默认）或 local（本地处理）
+     */
+    @Value("${picture.process.engine:cos}")
+    private String engine;
+
+    /**
+     * 存储类型，本地文件系统存储没有数据万象，只能使用本地处理
+     */
+    @Value("${storage.type:cos}")
+    private String storageType;
+
+    /**
+     * 同时处理的内存预算，以像素为单位（每个像素约占 4 字节）
+     */
+    @Value("${picture.process.maxPixels:100000000}")
+    private long maxPixels;
+
+    /**
+     * 像素预算（公平模式，避免大图一直等不到预算）
+     */
+    private Semaphore pixelBudget;
+
+    /**
+     * 图片处理线程池（队列满时拒绝，客户端稍后重试）
+     */
+    private final ThreadPoolExecutor processExecutor = new ThreadPoolExecutor(PROCESS_THREADS, PROCESS_THREADS,
+            60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(PROCESS_THREADS * 4),
+            ThreadFactoryBuilder.create().setNamePrefix("pictureProcess").setDaemon(true).build(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    @PostConstruct
+    public void init() {
+        maxPixels = Math.min(maxPixels, Integer.MAX_VALUE);
+        pixelBudget = new Semaphore((int) maxPixels, true);
+    }
+
+    /**
+     * 是否启用本地处理
+     */
+    public boolean isEnabled() {
+        return PictureProcessEngineEnum.LOCAL.equals(PictureProcessEngineEnum.getEnumByValue(engine))
+                || StorageTypeEnum.LOCAL.equals(StorageTypeEnum.getEnumByValue(storageType));
+    }
+
+    /**
+     * 处理图片，并把压缩图和缩略图写入对象存储（与原图同目录，命名规则与数据万象一致）。原图不会被写入
+     *
+     * @param inputStream    原图数据（交由处理任务读取并关闭，调用方不能再使用或关闭）
+     * @param fileSize       原图大小
+     * @param uploadPath     原图的上传路径
+     * @param originFilename 原始文件名
+     * @return 上传结果
+     */
+    public UploadPictureResult process(InputStream inputStream, long fileSize, String uploadPath, String originFilename) {
+        // 数据流由处理任务关闭：超时取消后任务可能仍在读取，调用方此时关闭会导致读取失败或读到已释放的资源；
+        // 任务还没开始执行就被取消时，由调用方关闭
+        AtomicBoolean started = new AtomicBoolean();
+        Future<UploadPictureResult> future;
+        try {
+            future = processExecutor.submit(() -> {
+                if (!started.compareAndSet(false, true)) {
+                    return null;
+                }
+                try (InputStream source = inputStream) {
+                    return doProcess(source, fileSize, uploadPath, originFilename);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            IoUtil.close(inputStream);
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "图片处理繁忙，请稍后重试");
+        }
+        try {
+            return future.get(PROCESS_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            closeIfNotStarted(started, inputStream);
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "图片处理失败");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BusinessException) {
+                throw (BusinessException) e.getCause();
+            }
+            log.error("process picture error, uploadPath = {}", uploadPath, e.getCause());
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "图片处理失败");
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            closeIfNotStarted(started, inputStream);
+            log.error("process picture timeout, uploadPath = {}", uploadPath);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "图片处理失败");
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        processExecutor.shutdownNow();
+    }
+
+    private static void closeIfNotStarted(AtomicBoolean started, InputStream inputStream) {
+        if (started.compareAndSet(false, true)) {
+            IoUtil.close(inputStream);
+        }
+    }
+
+    /**
+     * 先只读取图片头部得到宽高，占用预算后再解码
+     */
+    private UploadPictureResult doProcess(InputStream inputStream, long fileSize, String uploadPath,
+                                          String originFilename) throws IOException, InterruptedException {
+        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+            ThrowUtils.throwIf(imageInputStream == null, ErrorCode.SYSTEM_ERROR, "图片处理失败");
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInputStream);
+            ThrowUtils.throwIf(!readers.hasNext(), ErrorCode.PARAMS_ERROR, "不支持的图片格式");
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInputStream, true, true);
+                int picWidth = reader.getWidth(0);
+                int picHeight = reader.getHeight(0);
+                long permits = (long) picWidth * picHeight * BUDGET_QUARTERS_PER_PIXEL / 4;
+                ThrowUtils.throwIf(permits > maxPixels, ErrorCode.PARAMS_ERROR, "图片分辨率过大");
+                if (!pixelBudget.tryAcquire((int) permits, BUDGET_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                    throw new BusinessException(ErrorCode.OPERATION_ERROR, "图片处理繁忙，请稍后重试");
+                }
+                try {
+                    BufferedImage image = reader.read(0);
+                    return processImage(image, fileSize, uploadPath, originFilename);
+                } finally {
+                    pixelBudget.release((int) permits);
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private UploadPictureResult processImage(BufferedImage image, long fileSize, String uploadPath,
+                                             String originFilename) throws IOException {
+        String path = StrUtil.removePrefix(uploadPath, "/");
+        String dir = path.substring(0, path.lastIndexOf('/') + 1);
+        String mainName = FileUtil.mainName(path);
+        // 1. 压缩图（转成 webp 格式）
+        String webpKey = dir + mainName + ".webp";
+        byte[] webpBytes = encode(image, "webp");
+        putObject(webpKey, webpBytes, "image/webp");
+        // 2. 缩略图（宽高不超过 256，原图更小时不放大），格式与原图一致
+        BufferedImage colorSource = image;
+        String thumbnailKey = null;
+        if (fileSize > THUMBNAIL_MIN_FILE_SIZE) {
+            String suffix = FileUtil.getSuffix(path);
+            String formatName = getFormatName(suffix);
+            BufferedImage thumbnail = resize(image, THUMBNAIL_SIZE, !"jpeg".equals(formatName));
+            thumbnailKey = dir + mainName + "_thumbnail." + suffix;
+            putObject(thumbnailKey, encode(thumbnail, formatName), "image/" + formatName);
+            colorSource = thumbnail;
+        }
+        // 3. 主色调
+        String picColor = getAverageColor(resize(colorSource, COLOR_SAMPLE_SIZE, true));
+        return pictureUploadResultBuilder.build(originFilename, webpKey, webpBytes.length, thumbnailKey,
+                image.getWidth(), image.getHeight(), picColor);
+    }
+
+    private void putObject(String key, byte[] bytes, String contentType) throws IOException {
+        try (InputStream inputStream = new ByteArrayInputStream(bytes)) {
+            storageClient.putObject(key, inputStream, bytes.length, contentType);
+        }
+    }
+
+    /**
+     * 根据文件后缀获取写出格式，没有对应的写出器时使用 png
+     */
+    private static String getFormatName(String suffix) {
+        String formatName = StrUtil.isBlank(suffix) ? "png" : suffix.toLowerCase();
+        if ("jpg".equals(formatName)) {
+            formatName = "jpeg";
+        }
+        if (!ImageIO.getImageWritersByFormatName(formatName).hasNext()) {
+            return "png";
+        }
+        return formatName;
+    }
+
+    /**
+     * 编码图片，webp 使用有损压缩
+     */
+    private static byte[] encode(BufferedImage image, String formatName) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
+        ThrowUtils.throwIf(!writers.hasNext(), ErrorCode.SYSTEM_ERROR, "不支持的图片格式");
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+            writer.setOutput(imageOutputStream);
+            ImageWriteParam writeParam = writer.getDefaultWriteParam();
+            if ("webp".equals(formatName)) {
+                writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                writeParam.setCompressionType(writeParam.getCompressionTypes()[WebPWriteParam.LOSSY_COMPRESSION]);
+                writeParam.setCompressionQuality(WEBP_QUALITY);
+            }
+            writer.write(null, new IIOImage(image, null, null), writeParam);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * 等比缩小到宽高不超过 maxSize（不放大）。每次最多缩小一半，逐步缩小以减少双线性插值的锯齿
+     *
+     * @param keepAlpha 是否保留透明通道（jpeg 不支持透明通道）
+     */
+    private static BufferedImage resize(BufferedImage image, int maxSize, boolean keepAlpha) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double scale = Math.min(1.0, Math.min(maxSize * 1.0 / width, maxSize * 1.0 / height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+        int imageType = keepAlpha && image.getColorModel().hasAlpha()
+                ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = image;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage scaled = new BufferedImage(width, height, imageType);
+            Graphics2D graphics = scaled.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                if (imageType == BufferedImage.TYPE_INT_RGB) {
+                    // 去掉透明通道时以白色为底
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, width, height);
+                }
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = scaled;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    /**
+     * 计算平均色（按透明度加权），格式与数据万象返回的 ave 一致：0x 加三个颜色分量，
+     * 分量为 0 时只写一位（1~15 的分量无法表示，记为 0），由 ColorTransformUtils 还原成完整格式
+     */
+    private static String getAverageColor(BufferedImage image) {
+        long red = 0;
+        long green = 0;
+        long blue = 0;
+        long weight = 0;
+        int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+        for (int argb : pixels) {
+            int alpha = (argb >>> 24) & 0xff;
+            red += (long) ((argb >> 16) & 0xff) * alpha;
+            green += (long) ((argb >> 8) & 0xff) * alpha;
+            blue += (long) (argb & 0xff) * alpha;
+            weight += alpha;
+        }
+        if (weight == 0) {
+            return "0x000";
+        }
+        return "0x" + toColorComponent(red / weight) + toColorComponent(green / weight) + toColorComponent(blue / weight);
+    }
+
+    private static String toColorComponent(long value) {
+        if (value < 16) {
+            return "0";
+        }
+        return Long.toHexString(value).toUpperCase();
+    }
+}
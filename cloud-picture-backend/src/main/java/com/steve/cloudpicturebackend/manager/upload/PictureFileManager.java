@@ -0,0 +1,150 @@
+package com.steve.cloudpicturebackend.manager.upload;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.steve.cloudpicturebackend.mapper.PictureFileMapper;
+import com.steve.cloudpicturebackend.model.dto.file.UploadPictureResult;
+import com.steve.cloudpicturebackend.model.entity.PictureFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.Resource;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 图片文件的内容哈希索引
+ * <p>
+ * 上传时按原始文件的 SHA-256 登记对象存储中的文件（压缩图和缩略图），内容相同的图片共用同一份文件，
+ * refCount 记录引用该文件的图片数。增加、减少引用都与图片记录的写入在同一个事务中完成，
+ * 引用数减到 0 时删除索引，由调用方在事务提交后删除文件。
+ * 索引建立之前上传的图片不在索引中，仍按 url 统计引用
+ */
+@Slf4j
+@Component
+public class PictureFileManager {
+
+    /**
+     * 文件不在索引中（索引建立之前上传的图片，或分块上传时未能计算摘要的图片）
+     */
+    public static final long NOT_INDEXED = -1;
+
+    @Resource
+    private PictureFileMapper pictureFileMapper;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 根据内容哈希获取文件
+     *
+     * @param sha256 文件内容哈希
+     * @return 文件，不存在时为 null
+     */
+    public PictureFile getByHash(String sha256) {
+        if (StrUtil.isBlank(sha256)) {
+            return null;
+        }
+        return pictureFileMapper.selectOne(new LambdaQueryWrapper<PictureFile>()
+                .eq(PictureFile::getSha256, sha256));
+    }
+
+    /**
+     * 登记刚上传的文件并增加一次引用（需在写入图片记录的事务中调用）。
+     * 相同内容的文件已存在时不会新增记录，返回已有的文件，调用方应改用已有文件的地址并删除刚上传的文件
+     *
+     * @param uploadPictureResult 上传结果（需包含 sha256）
+     * @return 图片最终引用的文件
+     */
+    public PictureFile register(UploadPictureResult uploadPictureResult) {
+        PictureFile pictureFile = new PictureFile();
+        pictureFile.setSha256(uploadPictureResult.getSha256());
+        pictureFile.setUrl(uploadPictureResult.getUrl());
+        pictureFile.setThumbnailUrl(uploadPictureResult.getThumbnailUrl());
+        pictureFile.setPicSize(uploadPictureResult.getPicSize());
+        pictureFile.setPicWidth(uploadPictureResult.getPicWidth());
+        pictureFile.setPicHeight(uploadPictureResult.getPicHeight());
+        pictureFile.setPicScale(uploadPictureResult.getPicScale());
+        pictureFile.setPicFormat(uploadPictureResult.getPicFormat());
+        pictureFile.setPicColor(uploadPictureResult.getPicColor());
+        pictureFileMapper.insertOrAcquire(pictureFile);
+        return getByHash(uploadPictureResult.getSha256());
+    }
+
+    /**
+     * 为已存在的文件增加一次引用（秒传，需在写入图片记录的事务中调用）
+     *
+     * @param sha256 文件内容哈希
+     * @return 文件，已被删除时为 null
+     */
+    public PictureFile acquire(String sha256) {
+        if (StrUtil.isBlank(sha256) || pictureFileMapper.acquire(sha256) == 0) {
+            return null;
+        }
+        return getByHash(sha256);
+    }
+
+    /**
+     * 释放一次引用
+     *
+     * @param url 图片 url
+     * @return 剩余的引用数，为 0 时调用方应删除文件；文件不在索引中时返回 {@link #NOT_INDEXED}
+     */
+    public long release(String url) {
+        return release(url, 1);
+    }
+
+    /**
+     * 释放多次引用（批量删除引用同一文件的多张图片时），引用数减到 0 时删除索引。
+     * 没有外层事务时单独开启事务，锁住索引行，避免与并发的秒传交错
+     *
+     * @param url   图片 url
+     * @param count 释放的引用数
+     * @return 剩余的引用数，为 0 时调用方应删除文件；文件不在索引中时返回 {@link #NOT_INDEXED}
+     */
+    public long release(String url, long count) {
+        if (StrUtil.isBlank(url)) {
+            return NOT_INDEXED;
+        }
+        Long remaining = transactionTemplate.execute(status -> {
+            PictureFile pictureFile = pictureFileMapper.selectOne(new LambdaQueryWrapper<PictureFile>()
+                    .eq(PictureFile::getUrl, url)
+                    .last("FOR UPDATE"));
+            if (pictureFile == null) {
+                return NOT_INDEXED;
+            }
+            if (pictureFile.getRefCount() <= count) {
+                pictureFileMapper.deleteById(pictureFile.getId());
+                return 0L;
+            }
+            pictureFileMapper.update(null, new LambdaUpdateWrapper<PictureFile>()
+                    .eq(PictureFile::getId, pictureFile.getId())
+                    .setSql("refCount = refCount - " + count));
+            return pictureFile.getRefCount() - count;
+        });
+        return remaining == null ? NOT_INDEXED : remaining;
+    }
+
+    /**
+     * 筛选出在索引中的 url
+     *
+     * @param urls 图片 url
+     * @return 在索引中的 url
+     */
+    public Set<String> listIndexedUrls(Collection<String> urls) {
+        if (CollUtil.isEmpty(urls)) {
+            return new HashSet<>();
+        }
+        return pictureFileMapper.selectList(new LambdaQueryWrapper<PictureFile>()
+                        .select(PictureFile::getUrl)
+                        .in(PictureFile::getUrl, urls))
+                .stream()
+                .map(PictureFile::getUrl)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,528 @@
+package com.steve.cloudpicturebackend.manager.upload;
+
+import cn.hutool.core.codec.Base64;
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.qcloud.cos.model.CompleteMultipartUploadResult;
+import com.qcloud.cos.model.ciModel.persistence.CIUploadResult;
+import com.qcloud.cos.model.ciModel.persistence.ImageInfo;
+import com.steve.cloudpicturebackend.exception.BusinessException;
+import com.steve.cloudpicturebackend.exception.ErrorCode;
+import com.steve.cloudpicturebackend.exception.ThrowUtils;
+import com.steve.cloudpicturebackend.manager.CosManager;
+import com.steve.cloudpicturebackend.manager.space.SpaceQuotaManager;
+import com.steve.cloudpicturebackend.manager.storage.StorageClient;
+import com.steve.cloudpicturebackend.manager.storage.StorageObject;
+import com.steve.cloudpicturebackend.model.dto.file.UploadPictureResult;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * 大图的分块上传（可断点续传）
+ * <p>
+ * 客户端先初始化会话（按声明的文件大小校验并预占空间额度，同时在对象存储中初始化分块上传），
+ * 再逐块上传（可以并发，断线后查询已上传的分块继续上传），最后完成上传并生成压缩图和缩略图。
+ * 每个请求只传输一个分块，在请求线程中直接转存到对象存储（失败时自动重试），同时转存的分块数量由信号量限制。
+ * 会话保存在 Redis 中，过期未完成的会话由定时任务取消并释放额度
+ * <p>
+ * 文件的 SHA-256 按分块顺序增量计算：摘要的中间状态保存在 Redis 中，分块按顺序到达时直接累加；
+ * 乱序到达的分块在完成上传时从合并后的文件中读取剩余部分补算。完成后按摘要登记到内容哈希索引，与普通上传一样去重
+ */
+@Slf4j
+@Component
+public class PictureMultipartUploadManager {
+
+    /**
+     * 上传会话 key 前缀（string：会话 JSON）
+     */
+    private static final String SESSION_KEY_PREFIX = "cloud_picture:upload:multipart:";
+
+    /**
+     * 已上传的分块 key 前缀（hash：分块编号 => ETag）
+     */
+    private static final String PARTS_KEY_PREFIX = "cloud_picture:upload:multipart_parts:";
+
+    /**
+     * 文件摘要的中间状态 key 前缀（hash：count 已按顺序计入摘要的分块数，state 摘要状态，etag:分块编号 计入时的 ETag）
+     */
+    private static final String DIGEST_KEY_PREFIX = "cloud_picture:upload:multipart_digest:";
+
+    /**
+     * 会话过期时间（zset：会话 id => 过期时间戳）
+     */
+    private static final String SESSION_EXPIRE_KEY = "cloud_picture:upload:multipart_expire";
+
+    /**
+     * 分块上传支持的最大文件大小
+     */
+    private static final long MAX_FILE_SIZE = 100 * 1024 * 1024L;
+
+    /**
+     * 分块大小（对象存储要求除最后一块外不小于 1MB）
+     */
+    private static final long PART_SIZE = 5 * 1024 * 1024L;
+
+    /**
+     * 会话有效期
+     */
+    private static final long SESSION_TIMEOUT_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    /**
+     * Redis 中会话数据比有效期多保留的时间，保证回收任务能读到过期的会话
+     */
+    private static final long SESSION_RETAIN_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * 分块转存的最大尝试次数
+     */
+    private static final int MAX_PART_ATTEMPTS = 3;
+
+    /**
+     * 同时向对象存储传输的分块数量上限
+     */
+    private static final int PART_UPLOAD_CONCURRENCY = 16;
+
+    /**
+     * 等待转存许可的最长时间
+     */
+    private static final long PART_UPLOAD_PERMIT_WAIT_MILLIS = 500;
+
+    /**
+     * 回收任务每次处理的会话数量
+     */
+    private static final int SWEEP_BATCH_SIZE = 100;
+
+    private static final List<String> ALLOW_FORMAT_LIST = Arrays.asList("jpeg", "jpg", "png", "webp");
+
+    /**
+     * 把一个分块计入摘要：已计入的分块数等于预期值（上一块已计入）时才更新，避免并发上传的分块交错计入。
+     * KEYS：摘要 key；ARGV：预期的已计入分块数、新的摘要状态、分块 ETag、过期时间（毫秒）
+     */
+    private static final DefaultRedisScript<Long> EXTEND_DIGEST_SCRIPT = new DefaultRedisScript<>(
+            "local count = tonumber(redis.call('HGET', KEYS[1], 'count') or '0') " +
+                    "if count ~= tonumber(ARGV[1]) then return 0 end " +
+                    "redis.call('HSET', KEYS[1], 'count', count + 1) " +
+                    "redis.call('HSET', KEYS[1], 'state', ARGV[2]) " +
+                    "redis.call('HSET', KEYS[1], 'etag:' .. (count + 1), ARGV[3]) " +
+                    "redis.call('PEXPIRE', KEYS[1], ARGV[4]) " +
+                    "return 1",
+            Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    @Lazy
+    private CosManager cosManager;
+
+    @Resource
+    private StorageClient storageClient;
+
+    @Resource
+    private SpaceQuotaManager spaceQuotaManager;
+
+    @Resource
+    private PictureUploadResultBuilder pictureUploadResultBuilder;
+
+    @Resource
+    private LocalPictureProcessor localPictureProcessor;
+
+    /**
+     * 分块转存许可（拿不到许可时拒绝，客户端稍后重试该分块）
+     */
+    private final Semaphore partUploadPermits = new Semaphore(PART_UPLOAD_CONCURRENCY);
+
+    /**
+     * 校验要分块上传的文件
+     *
+     * @param fileName 文件名
+     * @param fileSize 声明的文件大小
+     */
+    public void validFile(String fileName, Long fileSize) {
+        ThrowUtils.throwIf(fileSize == null || fileSize <= 0, ErrorCode.PARAMS_ERROR, "文件大小不能为空");
+        ThrowUtils.throwIf(fileSize > MAX_FILE_SIZE, ErrorCode.PARAMS_ERROR, "文件大小不能超过 100M");
+        String fileSuffix = FileUtil.getSuffix(fileName);
+        ThrowUtils.throwIf(!ALLOW_FORMAT_LIST.contains(StrUtil.nullToEmpty(fileSuffix).toLowerCase()),
+                ErrorCode.PARAMS_ERROR, "文件类型错误");
+    }
+
+    /**
+     * 会话有效期（空间额度按该时长预占）
+     */
+    public long getSessionTimeoutMillis() {
+        return SESSION_TIMEOUT_MILLIS;
+    }
+
+    /**
+     * 创建上传会话
+     *
+     * @param session          会话信息（调用方填充用户、空间、图片、文件名、文件大小和额度预占凭证）
+     * @param uploadPathPrefix 上传路径前缀
+     * @return 会话
+     */
+    public PictureMultipartUploadSession createSession(PictureMultipartUploadSession session, String uploadPathPrefix) {
+        String uploadFilename = String.format("%s_%s.%s", DateUtil.formatDate(new Date()), RandomUtil.randomString(16),
+                FileUtil.getSuffix(session.getFileName()).toLowerCase());
+        String key = String.format("/%s/%s", uploadPathPrefix, uploadFilename);
+        session.setUploadId(IdUtil.fastSimpleUUID());
+        session.setKey(key);
+        session.setCosUploadId(storageClient.initiateMultipartUpload(key));
+        session.setPartSize(PART_SIZE);
+        session.setPartCount((int) ((session.getFileSize() + PART_SIZE - 1) / PART_SIZE));
+        session.setExpireAt(System.currentTimeMillis() + SESSION_TIMEOUT_MILLIS);
+        stringRedisTemplate.opsForValue().set(getSessionKey(session.getUploadId()), JSONUtil.toJsonStr(session),
+                SESSION_TIMEOUT_MILLIS + SESSION_RETAIN_MILLIS, TimeUnit.MILLISECONDS);
+        stringRedisTemplate.opsForZSet().add(SESSION_EXPIRE_KEY, session.getUploadId(), session.getExpireAt());
+        return session;
+    }
+
+    /**
+     * 获取上传会话
+     *
+     * @param uploadId 会话 id
+     * @param userId   当前用户 id，只能操作自己的会话
+     * @return 会话
+     */
+    public PictureMultipartUploadSession getSession(String uploadId, Long userId) {
+        ThrowUtils.throwIf(StrUtil.isBlank(uploadId), ErrorCode.PARAMS_ERROR);
+        String json = stringRedisTemplate.opsForValue().get(getSessionKey(uploadId));
+        ThrowUtils.throwIf(json == null, ErrorCode.NOT_FOUND_ERROR, "上传会话不存在或已过期");
+        PictureMultipartUploadSession session = JSONUtil.toBean(json, PictureMultipartUploadSession.class);
+        ThrowUtils.throwIf(session.getExpireAt() < System.currentTimeMillis(), ErrorCode.NOT_FOUND_ERROR, "上传会话不存在或已过期");
+        ThrowUtils.throwIf(!session.getUserId().equals(userId), ErrorCode.NO_AUTH_ERROR);
+        return session;
+    }
+
+    /**
+     * 获取已上传的分块编号
+     *
+     * @param uploadId 会话 id
+     * @return 分块编号（升序）
+     */
+    public List<Integer> listUploadedPartNumbers(String uploadId) {
+        return stringRedisTemplate.opsForHash().keys(getPartsKey(uploadId)).stream()
+                .map(partNumber -> Integer.valueOf(partNumber.toString()))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 上传分块（同一分块可以重复上传，以最后一次为准）
+     *
+     * @param session       会话
+     * @param partNumber    分块编号（从 1 开始）
+     * @param multipartFile 分块数据
+     */
+    public void uploadPart(PictureMultipartUploadSession session, int partNumber, MultipartFile multipartFile) {
+        ThrowUtils.throwIf(multipartFile == null, ErrorCode.PARAMS_ERROR, "分块不能为空");
+        ThrowUtils.throwIf(partNumber < 1 || partNumber > session.getPartCount(), ErrorCode.PARAMS_ERROR, "分块编号错误");
+        // 除最后一块外大小必须等于分块大小
+        long expectedSize = partNumber < session.getPartCount()
+                ? session.getPartSize()
+                : session.getFileSize() - session.getPartSize() * (session.getPartCount() - 1);
+        ThrowUtils.throwIf(multipartFile.getSize() != expectedSize, ErrorCode.PARAMS_ERROR, "分块大小错误");
+        // 第一块包含文件头，校验图片格式
+        if (partNumber == 1) {
+            try (InputStream inputStream = multipartFile.getInputStream()) {
+                PictureValidatingInputStream.wrap(inputStream, expectedSize);
+            } catch (BusinessException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "分块读取失败");
+            }
+        }
+        boolean acquired;
+        try {
+            acquired = partUploadPermits.tryAcquire(PART_UPLOAD_PERMIT_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "分块上传失败");
+        }
+        ThrowUtils.throwIf(!acquired, ErrorCode.OPERATION_ERROR, "上传繁忙，请稍后重试");
+        String eTag;
+        try {
+            eTag = uploadPartWithRetry(session, partNumber, multipartFile, expectedSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "分块上传失败");
+        } catch (Exception e) {
+            log.error("upload picture part error, uploadId = {}, partNumber = {}", session.getUploadId(), partNumber, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "分块上传失败");
+        } finally {
+            partUploadPermits.release();
+        }
+        stringRedisTemplate.opsForHash().put(getPartsKey(session.getUploadId()), String.valueOf(partNumber), eTag);
+        stringRedisTemplate.expire(getPartsKey(session.getUploadId()),
+                session.getExpireAt() + SESSION_RETAIN_MILLIS - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        extendDigest(session, partNumber, multipartFile, eTag);
+    }
+
+    /**
+     * 上一块已计入摘要时，把当前分块也计入摘要（读取的是请求中已落盘的分块，不访问对象存储）。
+     * 乱序到达或计入失败时跳过，完成上传时从合并后的文件中补算
+     */
+    private void extendDigest(PictureMultipartUploadSession session, int partNumber, MultipartFile multipartFile, String eTag) {
+        String digestKey = getDigestKey(session.getUploadId());
+        try {
+            List<Object> valueList = stringRedisTemplate.opsForHash().multiGet(digestKey, Arrays.asList("count", "state"));
+            int count = Convert.toInt(valueList.get(0), 0);
+            if (count != partNumber - 1 || (count > 0 && valueList.get(1) == null)) {
+                return;
+            }
+            SHA256Digest digest = count == 0 ? new SHA256Digest() : new SHA256Digest(Base64.decode(valueList.get(1).toString()));
+            try (InputStream inputStream = multipartFile.getInputStream()) {
+                updateDigest(digest, inputStream);
+            }
+            stringRedisTemplate.execute(EXTEND_DIGEST_SCRIPT, Collections.singletonList(digestKey),
+                    String.valueOf(count), Base64.encode(digest.getEncodedState()), eTag,
+                    String.valueOf(session.getExpireAt() + SESSION_RETAIN_MILLIS - System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.warn("extend picture multipart digest error, uploadId = {}, partNumber = {}",
+                    session.getUploadId(), partNumber, e);
+        }
+    }
+
+    /**
+     * 完成上传：合并分块并生成压缩图和缩略图。失败时保留会话，可以重试；
+     * 本地处理时图片本身不合法（重试也不会成功）则取消会话并释放额度
+     *
+     * @param session 会话
+     * @return 上传结果
+     */
+    public UploadPictureResult complete(PictureMultipartUploadSession session) {
+        Map<Object, Object> partMap = stringRedisTemplate.opsForHash().entries(getPartsKey(session.getUploadId()));
+        ThrowUtils.throwIf(partMap.size() != session.getPartCount(), ErrorCode.PARAMS_ERROR, "分块未全部上传");
+        SortedMap<Integer, String> partETagMap = new TreeMap<>();
+        partMap.forEach((partNumber, eTag) -> partETagMap.put(Integer.parseInt(partNumber.toString()), eTag.toString()));
+        if (localPictureProcessor.isEnabled()) {
+            return completeWithLocalProcess(session, partETagMap);
+        }
+        CompleteMultipartUploadResult completeResult;
+        try {
+            completeResult = cosManager.completePictureMultipartUpload(session.getKey(), session.getCosUploadId(),
+                    partETagMap, session.getFileSize());
+        } catch (Exception e) {
+            log.error("complete picture multipart upload error, uploadId = {}", session.getUploadId(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传失败");
+        }
+        CIUploadResult ciUploadResult = completeResult.getCiUploadResult();
+        // 第一块只校验了文件头，合并后按数据万象解析出的图片信息校验整个文件；不合法时重试也不会成功，删除文件并释放额度
+        if (!isSupportedImage(ciUploadResult)) {
+            List<String> keyList = new ArrayList<>();
+            keyList.add(session.getKey());
+            if (pictureUploadResultBuilder.hasProcessedObject(ciUploadResult)) {
+                ciUploadResult.getProcessResults().getObjectList().forEach(ciObject -> keyList.add(ciObject.getKey()));
+            }
+            storageClient.deleteObjects(keyList);
+            removeSession(session.getUploadId());
+            spaceQuotaManager.release(session.getReservation());
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件类型错误");
+        }
+        // 原图删除前补算摘要
+        String sha256 = computeSha256(session, partETagMap);
+        UploadPictureResult uploadPictureResult = pictureUploadResultBuilder.build(session.getFileName(),
+                ciUploadResult, session.getKey(), session.getFileSize());
+        uploadPictureResult.setSha256(sha256);
+        // 已生成压缩图时不再保留原图（与普通上传一致）
+        if (pictureUploadResultBuilder.hasProcessedObject(ciUploadResult)) {
+            storageClient.deleteObject(session.getKey());
+        }
+        return uploadPictureResult;
+    }
+
+    /**
+     * 数据万象是否解析出了支持的图片格式（解析失败说明合并后的文件不是图片）
+     */
+    private static boolean isSupportedImage(CIUploadResult ciUploadResult) {
+        if (ciUploadResult == null || ciUploadResult.getOriginalInfo() == null) {
+            return false;
+        }
+        ImageInfo imageInfo = ciUploadResult.getOriginalInfo().getImageInfo();
+        return imageInfo != null && imageInfo.getWidth() > 0 && imageInfo.getHeight() > 0
+                && ALLOW_FORMAT_LIST.contains(StrUtil.nullToEmpty(imageInfo.getFormat()).toLowerCase());
+    }
+
+    /**
+     * 计算合并后文件的 SHA-256：从 Redis 中恢复按顺序计入的摘要状态，剩余部分从合并后的文件中读取。
+     * 计入时的 ETag 与最终的分块不一致（分块被重新上传过）时从头计算。计算失败时返回 null，图片不登记到内容哈希索引
+     */
+    private String computeSha256(PictureMultipartUploadSession session, SortedMap<Integer, String> partETagMap) {
+        try {
+            Map<Object, Object> digestMap = stringRedisTemplate.opsForHash().entries(getDigestKey(session.getUploadId()));
+            Object state = digestMap.get("state");
+            int count = state == null ? 0 : Convert.toInt(digestMap.get("count"), 0);
+            for (int partNumber = 1; partNumber <= count; partNumber++) {
+                if (!Objects.equals(partETagMap.get(partNumber), digestMap.get("etag:" + partNumber))) {
+                    count = 0;
+                    break;
+                }
+            }
+            SHA256Digest digest = count == 0 ? new SHA256Digest() : new SHA256Digest(Base64.decode(state.toString()));
+            if (count < session.getPartCount()) {
+                try (StorageObject storageObject = storageClient.getObject(session.getKey(), count * session.getPartSize())) {
+                    updateDigest(digest, storageObject.getInputStream());
+                }
+            }
+            byte[] hash = new byte[digest.getDigestSize()];
+            digest.doFinal(hash, 0);
+            return HexUtil.encodeHexStr(hash);
+        } catch (Exception e) {
+            log.error("compute picture multipart sha256 error, uploadId = {}", session.getUploadId(), e);
+            return null;
+        }
+    }
+
+    private static void updateDigest(SHA256Digest digest, InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = inputStream.read(buffer)) != -1) {
+            digest.update(buffer, 0, n);
+        }
+    }
+
+    /**
+     * 本地处理时完成上传：先合并分块，再读取合并后的原图在本地生成压缩图和缩略图，最后删除原图。
+     * 合并成功但处理失败时重试会合并失败，此时原图已存在，直接重新处理
+     */
+    private UploadPictureResult completeWithLocalProcess(PictureMultipartUploadSession session,
+                                                         SortedMap<Integer, String> partETagMap) {
+        try {
+            storageClient.completeMultipartUpload(session.getKey(), session.getCosUploadId(), partETagMap);
+        } catch (Exception e) {
+            if (!storageClient.doesObjectExist(session.getKey())) {
+                log.error("complete picture multipart upload error, uploadId = {}", session.getUploadId(), e);
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传失败");
+            }
+        }
+        String sha256 = computeSha256(session, partETagMap);
+        UploadPictureResult uploadPictureResult;
+        try {
+            // 数据流交由处理任务关闭（超时后任务可能仍在读取）；本地处理会解码整个文件，不合法时抛出参数错误
+            StorageObject storageObject = storageClient.getObject(session.getKey());
+            uploadPictureResult = localPictureProcessor.process(storageObject.getInputStream(), session.getFileSize(), session.getKey(),
+                    session.getFileName());
+            uploadPictureResult.setSha256(sha256);
+        } catch (BusinessException e) {
+            // 图片本身不合法（格式不支持、分辨率过大），重试也不会成功：删除原图、取消会话并释放额度
+            if (e.getCode() == ErrorCode.PARAMS_ERROR.getCode()) {
+                storageClient.deleteObject(session.getKey());
+                abort(session);
+                spaceQuotaManager.release(session.getReservation());
+            }
+            throw e;
+        } catch (Exception e) {
+            log.error("read picture multipart upload error, uploadId = {}", session.getUploadId(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传失败");
+        }
+        storageClient.deleteObject(session.getKey());
+        return uploadPictureResult;
+    }
+
+    /**
+     * 取消上传：删除对象存储中已上传的分块和会话（空间额度由调用方释放）
+     *
+     * @param session 会话
+     */
+    public void abort(PictureMultipartUploadSession session) {
+        try {
+            storageClient.abortMultipartUpload(session.getKey(), session.getCosUploadId());
+        } catch (Exception e) {
+            // 未完成的分块可以由存储桶的生命周期规则清理
+            log.error("abort picture multipart upload error, uploadId = {}", session.getUploadId(), e);
+        }
+        removeSession(session.getUploadId());
+    }
+
+    /**
+     * 删除会话
+     *
+     * @param uploadId 会话 id
+     */
+    public void removeSession(String uploadId) {
+        stringRedisTemplate.delete(Arrays.asList(getSessionKey(uploadId), getPartsKey(uploadId), getDigestKey(uploadId)));
+        stringRedisTemplate.opsForZSet().remove(SESSION_EXPIRE_KEY, uploadId);
+    }
+
+    /**
+     * 回收过期未完成的会话：取消分块上传并释放空间额度
+     */
+    @Scheduled(initialDelay = 60 * 1000, fixedDelay = 5 * 60 * 1000)
+    public void sweepExpiredSessions() {
+        try {
+            Set<String> expiredIdSet = stringRedisTemplate.opsForZSet()
+                    .rangeByScore(SESSION_EXPIRE_KEY, 0, System.currentTimeMillis(), 0, SWEEP_BATCH_SIZE);
+            if (CollUtil.isEmpty(expiredIdSet)) {
+                return;
+            }
+            for (String uploadId : expiredIdSet) {
+                // 多实例同时回收时只有一个实例能移除成功
+                Long removed = stringRedisTemplate.opsForZSet().remove(SESSION_EXPIRE_KEY, uploadId);
+                if (removed == null || removed == 0) {
+                    continue;
+                }
+                String json = stringRedisTemplate.opsForValue().get(getSessionKey(uploadId));
+                if (json == null) {
+                    removeSession(uploadId);
+                    continue;
+                }
+                PictureMultipartUploadSession session = JSONUtil.toBean(json, PictureMultipartUploadSession.class);
+                abort(session);
+                spaceQuotaManager.release(session.getReservation());
+                log.info("sweep expired picture multipart upload, uploadId = {}", uploadId);
+            }
+        } catch (Exception e) {
+            log.error("sweep expired picture multipart uploads error", e);
+        }
+    }
+
+    /**
+     * 转存分块到对象存储，失败时重新读取分块数据重试
+     */
+    private String uploadPartWithRetry(PictureMultipartUploadSession session, int partNumber,
+                                       MultipartFile multipartFile, long partSize) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try (InputStream inputStream = multipartFile.getInputStream()) {
+                return storageClient.uploadPart(session.getKey(), session.getCosUploadId(), partNumber, inputStream, partSize);
+            } catch (Exception e) {
+                if (attempt >= MAX_PART_ATTEMPTS || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                log.warn("upload picture part failed, retrying, uploadId = {}, partNumber = {}, attempt = {}",
+                        session.getUploadId(), partNumber, attempt);
+                Thread.sleep(500L * attempt);
+            }
+        }
+    }
+
+    private static String getSessionKey(String uploadId) {
+        return SESSION_KEY_PREFIX + uploadId;
+    }
+
+    private static String getPartsKey(String uploadId) {
+        return PARTS_KEY_PREFIX + uploadId;
+    }
+
+    private static String getDigestKey(String uploadId) {
+        return DIGEST_KEY_PREFIX + uploadId;
+    }
+}
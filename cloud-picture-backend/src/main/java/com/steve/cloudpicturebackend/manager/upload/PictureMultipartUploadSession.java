@@ -0,0 +1,76 @@
+package com.steve.cloudpicturebackend.manager.upload;
+
+import com.steve.cloudpicturebackend.manager.space.SpaceQuotaReservation;
+import lombok.Data;
+
+/**
+ * 分块上传会话（保存在 Redis 中）
+ */
+@Data
+public class PictureMultipartUploadSession {
+
+    /**
+     * 上传会话 id
+     */
+    private String uploadId;
+
+    /**
+     * 发起上传的用户 id
+     */
+    private Long userId;
+
+    /**
+     * 空间 id，公共图库为空
+     */
+    private Long spaceId;
+
+    /**
+     * 要替换的图片 id，新增时为空
+     */
+    private Long pictureId;
+
+    /**
+     * 图片名称
+     */
+    private String picName;
+
+    /**
+     * 原始文件名
+     */
+    private String fileName;
+
+    /**
+     * 对象存储中的原图 key
+     */
+    private String key;
+
+    /**
+     * 对象存储的分块上传 id
+     */
+    private String cosUploadId;
+
+    /**
+     * 文件大小
+     */
+    private long fileSize;
+
+    /**
+     * 分块大小
+     */
+    private long partSize;
+
+    /**
+     * 分块数量
+     */
+    private int partCount;
+
+    /**
+     * 空间额度预占凭证，公共图库为空
+     */
+    private SpaceQuotaReservation reservation;
+
+    /**
+     * 过期时间戳（毫秒）
+     */
+    private long expireAt;
+}
@@ -0,0 +1,135 @@
+package com.steve.cloudpicturebackend.manager.upload;
+
+import cn.hutool.core.collection.CollectionUtil;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.NumberUtil;
+import com.qcloud.cos.model.ciModel.persistence.CIObject;
+import com.qcloud.cos.model.ciModel.persistence.CIUploadResult;
+import com.qcloud.cos.model.ciModel.persistence.ImageInfo;
+import com.steve.cloudpicturebackend.manager.storage.StorageClient;
+import com.steve.cloudpicturebackend.model.dto.file.UploadPictureResult;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.List;
+
+/**
+ * 根据图片处理结果（对象存储数据万象或本地处理）封装上传结果（普通上传和分块上传共用）
+ */
+@Component
+public class PictureUploadResultBuilder {
+
+    @Resource
+    private StorageClient storageClient;
+
+    /**
+     * 封装返回结果
+     *
+     * @param originFilename 原始文件名
+     * @param ciUploadResult 图片处理结果
+     * @param uploadPath     原图的上传路径
+     * @param picSize        原图大小（没有处理结果时使用）
+     */
+    public UploadPictureResult build(String originFilename, CIUploadResult ciUploadResult, String uploadPath, long picSize) {
+        ImageInfo imageInfo = ciUploadResult.getOriginalInfo().getImageInfo();
+        // 获取图片处理结果
+        List<CIObject> objectList = ciUploadResult.getProcessResults().getObjectList();
+        if (CollectionUtil.isNotEmpty(objectList)) {
+            // 获取压缩后的图片信息
+            CIObject compressedCIObject = objectList.get(0);
+            // 缩略图默认等于压缩图
+            CIObject thumbnailCIObject = compressedCIObject;
+            if (objectList.size() > 1) {
+                thumbnailCIObject = objectList.get(1);
+            }
+            return buildResult(originFilename, compressedCIObject, thumbnailCIObject, imageInfo);
+        }
+        return buildResult(originFilename, picSize, uploadPath, imageInfo);
+    }
+
+    /**
+     * 根据本地处理结果封装返回结果
+     *
+     * @param originFilename 原始文件名
+     * @param webpKey        压缩图的对象 key
+     * @param webpSize       压缩图大小
+     * @param thumbnailKey   缩略图的对象 key（没有生成缩略图时为 null，此时缩略图等于压缩图）
+     * @param picWidth       图片宽度
+     * @param picHeight      图片高度
+     * @param picColor       图片主色调
+     */
+    public UploadPictureResult build(String originFilename, String webpKey, long webpSize, String thumbnailKey,
+                                     int picWidth, int picHeight, String picColor) {
+        UploadPictureResult uploadPictureResult = new UploadPictureResult();
+        double picScale = NumberUtil.round(picWidth * 1.0 / picHeight, 2).doubleValue();
+        uploadPictureResult.setPicName(FileUtil.getName(originFilename));
+        uploadPictureResult.setPicWidth(picWidth);
+        uploadPictureResult.setPicHeight(picHeight);
+        uploadPictureResult.setPicScale(picScale);
+        uploadPictureResult.setPicFormat("webp");
+        uploadPictureResult.setPicSize(webpSize);
+        uploadPictureResult.setPicColor(picColor);
+        uploadPictureResult.setUrl(storageClient.getObjectUrl(webpKey));
+        uploadPictureResult.setThumbnailUrl(storageClient.getObjectUrl(thumbnailKey == null ? webpKey : thumbnailKey));
+        return uploadPictureResult;
+    }
+
+    /**
+     * 是否生成了压缩图（生成后原图不再被引用）
+     *
+     * @param ciUploadResult 图片处理结果
+     */
+    public boolean hasProcessedObject(CIUploadResult ciUploadResult) {
+        return ciUploadResult != null && ciUploadResult.getProcessResults() != null
+                && CollectionUtil.isNotEmpty(ciUploadResult.getProcessResults().getObjectList());
+    }
+
+    /**
+     * 封装返回结果
+     * @param originFilename 原始文件名
+     * @param compressedCIObject 压缩后的对象
+     * @param thumbnailCIObject 缩略图对象
+     * @param imageInfo 图片信息
+     */
+    private UploadPictureResult buildResult(String originFilename, CIObject compressedCIObject, CIObject thumbnailCIObject,
+                                            ImageInfo imageInfo) {
+        UploadPictureResult uploadPictureResult = new UploadPictureResult();
+        int picWidth = compressedCIObject.getWidth();
+        int picHeight = compressedCIObject.getHeight();
+        double picScale = NumberUtil.round(picWidth * 1.0 / picHeight, 2).doubleValue();
+        uploadPictureResult.setPicName(FileUtil.getName(originFilename));
+        uploadPictureResult.setPicWidth(picWidth);
+        uploadPictureResult.setPicHeight(picHeight);
+        uploadPictureResult.setPicScale(picScale);
+        uploadPictureResult.setPicFormat(compressedCIObject.getFormat());
+        uploadPictureResult.setPicSize(compressedCIObject.getSize().longValue());
+        uploadPictureResult.setPicColor(imageInfo.getAve());
+        uploadPictureResult.setUrl(storageClient.getObjectUrl(compressedCIObject.getKey()));
+        // 设置缩略图地址
+        uploadPictureResult.setThumbnailUrl(storageClient.getObjectUrl(thumbnailCIObject.getKey()));
+        return uploadPictureResult;
+    }
+
+    /**
+     * 封装返回结果
+     * @param originFilename 原始文件名
+     * @param picSize 文件大小
+     * @param uploadPath 上传路径
+     * @param imageInfo 图片信息
+     */
+    private UploadPictureResult buildResult(String originFilename, long picSize, String uploadPath, ImageInfo imageInfo) {
+        UploadPictureResult uploadPictureResult = new UploadPictureResult();
+        int picWidth = imageInfo.getWidth();
+        int picHeight = imageInfo.getHeight();
+        double picScale = NumberUtil.round(picWidth * 1.0 / picHeight, 2).doubleValue();
+        uploadPictureResult.setPicName(FileUtil.getName(originFilename));
+        uploadPictureResult.setPicWidth(picWidth);
+        uploadPictureResult.setPicHeight(picHeight);
+        uploadPictureResult.setPicScale(picScale);
+        uploadPictureResult.setPicFormat(imageInfo.getFormat());
+        uploadPictureResult.setPicSize(picSize);
+        uploadPictureResult.setPicColor(imageInfo.getAve());
+        uploadPictureResult.setUrl(storageClient.getObjectUrl(uploadPath));
+        return uploadPictureResult;
+    }
+}
@@ -0,0 +1,48 @@
+package com.steve.cloudpicturebackend.manager.upload;
+
+import cn.hutool.core.io.IoUtil;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.InputStream;
+
+/**
+ * 图片上传的数据来源：输入流及其长度
+ */
+@Getter
+public class PictureUploadSource implements Closeable {
+
+    /**
+     * 输入流
+     */
+    private final InputStream inputStream;
+
+    /**
+     * 内容长度，未知时为 -1（只能先写入临时文件再上传）
+     */
+    private final long contentLength;
+
+    /**
+     * 随输入流一起释放的资源（如 HTTP 响应）
+     */
+    private final Closeable resource;
+
+    public PictureUploadSource(InputStream inputStream, long contentLength, Closeable resource) {
+        this.inputStream = inputStream;
+        this.contentLength = contentLength;
+        this.resource = resource;
+    }
+
+    /**
+     * 是否已知内容长度（可以直接流式上传）
+     */
+    public boolean hasContentLength() {
+        return contentLength >= 0;
+    }
+
+    @Override
+    public void close() {
+        IoUtil.close(inputStream);
+        IoUtil.close(resource);
+    }
+}
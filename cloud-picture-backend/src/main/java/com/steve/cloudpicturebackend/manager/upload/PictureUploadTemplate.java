@@ -1,25 +1,27 @@
 package com.steve.cloudpicturebackend.manager.upload;
 
-import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.util.NumberUtil;
+import cn.hutool.core.io.IoUtil;
 import cn.hutool.core.util.RandomUtil;
 import com.qcloud.cos.model.PutObjectResult;
 import com.qcloud.cos.model.ciModel.persistence.CIObject;
-import com.qcloud.cos.model.ciModel.persistence.ImageInfo;
-import com.qcloud.cos.model.ciModel.persistence.ProcessResults;
-import com.steve.cloudpicturebackend.config.CosClientConfig;
+import com.qcloud.cos.model.ciModel.persistence.CIUploadResult;
 import com.steve.cloudpicturebackend.exception.BusinessException;
 import com.steve.cloudpicturebackend.exception.ErrorCode;
+import com.steve.cloudpicturebackend.exception.ThrowUtils;
 import com.steve.cloudpicturebackend.manager.CosManager;
+import com.steve.cloudpicturebackend.manager.storage.StorageClient;
 import com.steve.cloudpicturebackend.model.dto.file.UploadPictureResult;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 
 import javax.annotation.Resource;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.util.Date;
-import java.util.List;
 
 /**
  * 图片上传模板
@@ -28,10 +30,28 @@ import java.util.List;
 public abstract class PictureUploadTemplate {
 
     @Resource
+    @Lazy
     protected CosManager cosManager;
 
     @Resource
-    protected CosClientConfig cosClientConfig;
+    protected StorageClient storageClient;
+
+    @Resource
+    private PictureUploadResultBuilder pictureUploadResultBuilder;
+
+    @Resource
+    private LocalPictureProcessor localPictureProcessor;
+
+    /**
+     * 图片大小上限（预占空间额度时也按此上限估算）
+     */
+    public static final long MAX_PICTURE_SIZE = 2 * 1024 * 1024L;
+
+    /**
+     * 是否启用流式上传（关闭后全部先写入临时文件）
+     */
+    @Value("${picture.upload.streaming:true}")
+    private boolean streamingEnabled;
 
     /**
      * 模板方法，定义上传流程
@@ -54,65 +74,89 @@ public abstract class PictureUploadTemplate {
         String uploadPath = String.format("/%s/%s", uploadPathPrefix, uploadFilename);
 
         File file = null;
-        try {
-            // 3. 创建临时文件
-            file = File.createTempFile(uploadPath, null);
-            // 处理文件来源（本地或 URL）
-            processFile(inputSource, file);
-            // 4. 上传图片到对象存储
-            PutObjectResult putObjectResult = cosManager.putPictureObject(uploadPath, file);
-            // 5. 获取图片信息，封装返回结果
-            ImageInfo imageInfo = putObjectResult.getCiUploadResult().getOriginalInfo().getImageInfo();
-            // 获取图片处理结果
-            ProcessResults processResults = putObjectResult.getCiUploadResult().getProcessResults();
-            List<CIObject> objectList = processResults.getObjectList();
-            if(CollectionUtil.isNotEmpty(objectList)) {
-                // 获取压缩后的图片信息
-                CIObject compressedCIObject = objectList.get(0);
-                // 缩略图默认等于压缩图
-                CIObject thumbnailCIObject = compressedCIObject;
-                if (objectList.size() > 1) {
-                    thumbnailCIObject = objectList.get(1);
+        PictureValidatingInputStream validatingInputStream = null;
+        boolean localProcess = localPictureProcessor.isEnabled();
+        try (PictureUploadSource uploadSource = openSource(inputSource)) {
+            // 3. 边读边校验文件头、大小并计算摘要
+            validatingInputStream = PictureValidatingInputStream.wrap(uploadSource.getInputStream(), MAX_PICTURE_SIZE);
+            if (localProcess) {
+                // 4. 本地处理：读入内存（不超过大小上限）后生成压缩图和缩略图，只把处理结果写入对象存储
+                byte[] bytes = IoUtil.readBytes(validatingInputStream);
+                UploadPictureResult uploadPictureResult = localPictureProcessor.process(new ByteArrayInputStream(bytes),
+                        bytes.length, uploadPath, originFilename);
+                uploadPictureResult.setSha256(validatingInputStream.getSha256Hex());
+                return uploadPictureResult;
+            }
+            // 4. 上传图片到对象存储：已知长度时直接流式上传，否则先写入临时文件
+            PutObjectResult putObjectResult;
+            if (streamingEnabled && uploadSource.hasContentLength()) {
+                ThrowUtils.throwIf(uploadSource.getContentLength() > MAX_PICTURE_SIZE, ErrorCode.PARAMS_ERROR, "文件大小不能超过 2M");
+                putObjectResult = cosManager.putPictureObject(uploadPath, validatingInputStream, uploadSource.getContentLength());
+                // 声明的长度偏小时对象存储只会读取声明的长度，必须确认已读到流末尾，否则保存的是被截断的文件
+                if (!isFullyRead(validatingInputStream, uploadSource.getContentLength())) {
+                    deleteProcessedObjects(putObjectResult);
+                    throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件长度与声明的不一致");
                 }
-                // 封装返回结果
-                return buildResult(originFilename, compressedCIObject, thumbnailCIObject, imageInfo);
+            } else {
+                file = File.createTempFile(uploadPath, null);
+                FileUtil.writeFromStream(validatingInputStream, file, false);
+                putObjectResult = cosManager.putPictureObject(uploadPath, file);
             }
-            return buildResult(originFilename, file, uploadPath, imageInfo);
+            String sha256 = validatingInputStream.getSha256Hex();
+            // 5. 获取图片信息，封装返回结果
+            UploadPictureResult uploadPictureResult = pictureUploadResultBuilder.build(originFilename,
+                    putObjectResult.getCiUploadResult(), uploadPath, validatingInputStream.getReadSize());
+            uploadPictureResult.setSha256(sha256);
+            return uploadPictureResult;
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
+            if (validatingInputStream != null && validatingInputStream.isSizeExceeded()) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件大小不能超过 2M");
+            }
             log.error("图片上传到对象存储失败", e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传失败");
         } finally {
             // 6. 清理临时文件
             // check
-            cosManager.deleteObject(uploadPath);
+            if (!localProcess) {
+                storageClient.deleteObject(uploadPath);
+            }
             this.deleteTempFile(file);
         }
     }
 
     /**
-     * 封装返回结果
-     * @param originFilename 原始文件名
-     * @param compressedCIObject 压缩后的对象
-     * @param thumbnailCIObject 缩略图对象
-     * @param imageInfo 图片信息
+     * 流式上传后确认数据流恰好在声明的长度处结束
      */
-    private UploadPictureResult buildResult(String originFilename, CIObject compressedCIObject, CIObject thumbnailCIObject,
-                                            ImageInfo imageInfo) {
-        UploadPictureResult uploadPictureResult = new UploadPictureResult();
-        int picWidth = compressedCIObject.getWidth();
-        int picHeight = compressedCIObject.getHeight();
-        double picScale = NumberUtil.round(picWidth * 1.0 / picHeight, 2).doubleValue();
-        uploadPictureResult.setPicName(FileUtil.getName(originFilename));
-        uploadPictureResult.setPicWidth(picWidth);
-        uploadPictureResult.setPicHeight(picHeight);
-        uploadPictureResult.setPicScale(picScale);
-        uploadPictureResult.setPicFormat(compressedCIObject.getFormat());
-        uploadPictureResult.setPicSize(compressedCIObject.getSize().longValue());
-        uploadPictureResult.setPicColor(imageInfo.getAve());
-        uploadPictureResult.setUrl(cosClientConfig.getHost() + "/" + compressedCIObject.getKey());
-        // 设置缩略图地址
-        uploadPictureResult.setThumbnailUrl(cosClientConfig.getHost() + "/" +thumbnailCIObject.getKey());
-        return uploadPictureResult;
+    private static boolean isFullyRead(PictureValidatingInputStream validatingInputStream, long contentLength) {
+        if (validatingInputStream.getReadSize() != contentLength) {
+            return false;
+        }
+        try {
+            return validatingInputStream.read() < 0;
+        } catch (IOException e) {
+            // 多出的数据超过大小上限等情况
+            return false;
+        }
+    }
+
+    /**
+     * 删除对象存储图片处理生成的压缩图、缩略图
+     */
+    private void deleteProcessedObjects(PutObjectResult putObjectResult) {
+        CIUploadResult ciUploadResult = putObjectResult.getCiUploadResult();
+        if (ciUploadResult == null || ciUploadResult.getProcessResults() == null
+                || ciUploadResult.getProcessResults().getObjectList() == null) {
+            return;
+        }
+        for (CIObject ciObject : ciUploadResult.getProcessResults().getObjectList()) {
+            try {
+                storageClient.deleteObject(ciObject.getKey());
+            } catch (Exception e) {
+                log.error("delete processed object error, key = {}", ciObject.getKey(), e);
+            }
+        }
     }
 
     /**
@@ -127,32 +171,9 @@ public abstract class PictureUploadTemplate {
 
 
     /**
-     * 处理输入源并生成本地临时文件
+     * 打开输入源的数据流（能拿到长度时一并返回，以便直接流式上传）
      */
-    protected abstract void processFile(Object inputSource, File file) throws Exception;
-
-    /**
-     * 封装返回结果
-     * @param originFilename 原始文件名
-     * @param file 临时文件
-     * @param uploadPath 上传路径
-     * @param imageInfo 图片信息
-     */
-    private UploadPictureResult buildResult(String originFilename, File file, String uploadPath, ImageInfo imageInfo) {
-        UploadPictureResult uploadPictureResult = new UploadPictureResult();
-        int picWidth = imageInfo.getWidth();
-        int picHeight = imageInfo.getHeight();
-        double picScale = NumberUtil.round(picWidth * 1.0 / picHeight, 2).doubleValue();
-        uploadPictureResult.setPicName(FileUtil.getName(originFilename));
-        uploadPictureResult.setPicWidth(picWidth);
-        uploadPictureResult.setPicHeight(picHeight);
-        uploadPictureResult.setPicScale(picScale);
-        uploadPictureResult.setPicFormat(imageInfo.getFormat());
-        uploadPictureResult.setPicSize(FileUtil.size(file));
-        uploadPictureResult.setPicColor(imageInfo.getAve());
-        uploadPictureResult.setUrl(cosClientConfig.getHost() + "/" + uploadPath);
-        return uploadPictureResult;
-    }
+    protected abstract PictureUploadSource openSource(Object inputSource) throws Exception;
 
     /**
      * 删除临时文件
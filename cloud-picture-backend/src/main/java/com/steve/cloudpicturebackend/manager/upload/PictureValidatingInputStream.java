@@ -0,0 +1,154 @@
+package com.steve.cloudpicturebackend.manager.upload;
+
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.crypto.digest.DigestAlgorithm;
+import cn.hutool.crypto.digest.Digester;
+import com.steve.cloudpicturebackend.exception.ErrorCode;
+import com.steve.cloudpicturebackend.exception.ThrowUtils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * 边读边校验的图片输入流
+ * <p>
+ * 读取前先预读文件头校验魔数（不消耗数据），读取过程中累计字节数、超过大小上限时中断，并同步计算 SHA-256，
+ * 数据只流经一次，不需要落盘后再校验
+ */
+public class PictureValidatingInputStream extends FilterInputStream {
+
+    /**
+     * 预读的文件头长度（webp 需要 12 个字节）
+     */
+    private static final int HEADER_LENGTH = 12;
+
+    private static final byte[] JPEG_MAGIC = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private static final byte[] RIFF_MAGIC = {'R', 'I', 'F', 'F'};
+
+    private static final byte[] WEBP_MAGIC = {'W', 'E', 'B', 'P'};
+
+    private final long maxSize;
+
+    private final MessageDigest messageDigest = new Digester(DigestAlgorithm.SHA256).getDigest();
+
+    private long readSize;
+
+    private boolean sizeExceeded;
+
+    private PictureValidatingInputStream(PushbackInputStream in, long maxSize) {
+        super(in);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 包装输入流并校验文件头
+     *
+     * @param inputStream 原始输入流
+     * @param maxSize     大小上限
+     * @return 校验流
+     * @throws IOException 读取失败
+     */
+    public static PictureValidatingInputStream wrap(InputStream inputStream, long maxSize) throws IOException {
+        PushbackInputStream pushbackInputStream = new PushbackInputStream(inputStream, HEADER_LENGTH);
+        byte[] header = new byte[HEADER_LENGTH];
+        int length = 0;
+        while (length < HEADER_LENGTH) {
+            int n = pushbackInputStream.read(header, length, HEADER_LENGTH - length);
+            if (n < 0) {
+                break;
+            }
+            length += n;
+        }
+        // 只允许 jpeg、png、webp
+        ThrowUtils.throwIf(!isSupportedImage(Arrays.copyOf(header, length)), ErrorCode.PARAMS_ERROR, "文件类型错误");
+        pushbackInputStream.unread(header, 0, length);
+        return new PictureValidatingInputStream(pushbackInputStream, maxSize);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            messageDigest.update((byte) b);
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            messageDigest.update(b, off, n);
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // 跳过的数据也要参与摘要计算
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        int read = read(buffer, 0, buffer.length);
+        return Math.max(read, 0);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * 已读取的字节数
+     */
+    public long getReadSize() {
+        return readSize;
+    }
+
+    /**
+     * 是否因超过大小上限而中断
+     */
+    public boolean isSizeExceeded() {
+        return sizeExceeded;
+    }
+
+    /**
+     * 已读取内容的 SHA-256（读取完毕后调用）
+     */
+    public String getSha256Hex() {
+        return HexUtil.encodeHexStr(messageDigest.digest());
+    }
+
+    private void count(int n) throws IOException {
+        readSize += n;
+        if (readSize > maxSize) {
+            sizeExceeded = true;
+            throw new IOException("picture size exceeds " + maxSize + " bytes");
+        }
+    }
+
+    private static boolean isSupportedImage(byte[] header) {
+        return startsWith(header, JPEG_MAGIC, 0)
+                || startsWith(header, PNG_MAGIC, 0)
+                || (startsWith(header, RIFF_MAGIC, 0) && startsWith(header, WEBP_MAGIC, 8));
+    }
+
+    private static boolean startsWith(byte[] header, byte[] magic, int offset) {
+        if (header.length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header[offset + i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
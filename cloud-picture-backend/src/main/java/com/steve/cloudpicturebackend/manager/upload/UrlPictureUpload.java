@@ -11,7 +11,6 @@ import com.steve.cloudpicturebackend.exception.ErrorCode;
 import com.steve.cloudpicturebackend.exception.ThrowUtils;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Arrays;
@@ -70,10 +69,10 @@ public class UrlPictureUpload extends PictureUploadTemplate {
             }
             // 文件大小校验
             String contentLength = httpResponse.header("Content-Length");
-            if (StrUtil.isBlank(contentLength)) {
+            // 没有 Content-Length 时在下载过程中校验
+            if (StrUtil.isNotBlank(contentLength)) {
                 try {
-                    final long ONE_M = 1024 * 1024;
-                    ThrowUtils.throwIf(Long.parseLong(contentLength) > 2 * ONE_M, ErrorCode.PARAMS_ERROR, "文件大小不能超过 2MB");
+                    ThrowUtils.throwIf(Long.parseLong(contentLength) > MAX_PICTURE_SIZE, ErrorCode.PARAMS_ERROR, "文件大小不能超过 2MB");
                 }catch (NumberFormatException e) {
                     throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件大小格式错误");
                 }
@@ -98,10 +97,15 @@ public class UrlPictureUpload extends PictureUploadTemplate {
 
 
     @Override
-    protected void processFile(Object inputSource, File file) throws Exception {
+    protected PictureUploadSource openSource(Object inputSource) throws Exception {
         String fileUrl = (String) inputSource;
-        // 下载文件到临时目录
-        HttpUtil.downloadFile(fileUrl, file);
+        HttpResponse httpResponse = HttpUtil.createGet(fileUrl).executeAsync();
+        if (!httpResponse.isOk()) {
+            httpResponse.close();
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "文件下载失败");
+        }
+        // 没有 Content-Length、分块传输或压缩传输时长度未知（-1），退化为先写入临时文件
+        return new PictureUploadSource(httpResponse.bodyStream(), httpResponse.contentLength(), httpResponse);
     }
 }
 
@@ -0,0 +1,36 @@
+package com.steve.cloudpicturebackend.manager.view;
+
+import com.steve.cloudpicturebackend.manager.event.PictureEvent;
+import com.steve.cloudpicturebackend.manager.event.PictureEventConsumer;
+import com.steve.cloudpicturebackend.model.enums.PictureEventTypeEnum;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.*;
+
+/**
+ * 图片浏览统计的事件消费者
+ * <p>
+ * 同一批次内的浏览按图片合并访客，浏览次数和独立访客各写一次；图片删除时清理统计
+ */
+@Component
+public class PictureViewEventConsumer implements PictureEventConsumer {
+
+    @Resource
+    private PictureViewManager pictureViewManager;
+
+    @Override
+    public void onEvents(List<PictureEvent> eventList) {
+        Map<Long, List<String>> pictureVisitorMap = new LinkedHashMap<>();
+        for (PictureEvent pictureEvent : eventList) {
+            Long pictureId = pictureEvent.getPictureId();
+            if (PictureEventTypeEnum.VIEW.equals(pictureEvent.getType())) {
+                pictureVisitorMap.computeIfAbsent(pictureId, key -> new ArrayList<>()).add(pictureEvent.getVisitorKey());
+            } else if (PictureEventTypeEnum.DELETE.equals(pictureEvent.getType())) {
+                pictureVisitorMap.remove(pictureId);
+                pictureViewManager.removePicture(pictureId);
+            }
+        }
+        pictureViewManager.recordViews(pictureVisitorMap);
+    }
+}
@@ -5,6 +5,8 @@ import cn.hutool.json.JSONUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.steve.cloudpicturebackend.manager.lock.DistributedLock;
+import com.steve.cloudpicturebackend.manager.lock.DistributedLockManager;
 import com.steve.cloudpicturebackend.manager.websocket.disruptor.PictureEditEventProducer;
 import com.steve.cloudpicturebackend.manager.websocket.model.PictureEditActionEnum;
 import com.steve.cloudpicturebackend.manager.websocket.model.PictureEditMessageTypeEnum;
@@ -24,6 +26,7 @@ import javax.annotation.Resource;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 图片编辑 WebSocket 处理器
@@ -38,9 +41,15 @@ public class PictureEditHandler extends TextWebSocketHandler {
     // 每张图片的编辑状态，key: pictureId, value: 当前正在编辑的用户 ID
     private final Map<Long, Long> pictureEditingUsers = new ConcurrentHashMap<>();
 
+    // 每张图片的编辑锁（集群内同一张图片只能有一个编辑者），key: pictureId, value: 分布式锁
+    private final Map<Long, DistributedLock> pictureEditLocks = new ConcurrentHashMap<>();
+
     // 保存所有连接的会话，key: pictureId, value: 用户会话集合
     private final Map<Long, Set<WebSocketSession>> pictureSessions = new ConcurrentHashMap<>();
 
+    @Resource
+    private DistributedLockManager distributedLockManager;
+
     @Resource
     @Lazy
     private PictureEditEventProducer pictureEditEventProducer;
@@ -101,6 +110,18 @@ public class PictureEditHandler extends TextWebSocketHandler {
     public void handleEnterEditMessage(PictureEditRequestMessage pictureEditRequestMessage, WebSocketSession session, User user, Long pictureId) throws Exception {
         // 没有用户正在编辑，才能进入编辑
         if (!pictureEditingUsers.containsKey(pictureId)) {
+            // 其他节点上可能有用户正在编辑，不等待
+            DistributedLock lock = distributedLockManager.tryLock("picture:edit:" + pictureId, 0, TimeUnit.SECONDS);
+            if (lock == null) {
+                // 告知当前用户无法进入编辑
+                PictureEditResponseMessage pictureEditResponseMessage = new PictureEditResponseMessage();
+                pictureEditResponseMessage.setType(PictureEditMessageTypeEnum.ERROR.getValue());
+                pictureEditResponseMessage.setMessage("其他用户正在编辑该图片，请稍后重试");
+                pictureEditResponseMessage.setUser(userService.getUserVO(user));
+                session.sendMessage(new TextMessage(JSONUtil.toJsonStr(pictureEditResponseMessage)));
+                return;
+            }
+            pictureEditLocks.put(pictureId, lock);
             // 保存当前正在编辑的用户 ID
             pictureEditingUsers.put(pictureId, user.getId());
             // 构造响应，发送进入编辑的消息
@@ -156,8 +177,12 @@ public class PictureEditHandler extends TextWebSocketHandler {
         // 正在编辑的用户
         Long editingUserId = pictureEditingUsers.get(pictureId);
         if (editingUserId != null && editingUserId.equals(user.getId())) {
-            // 保存当前正在编辑的用户 ID
+            // 移除当前正在编辑的用户 ID，并释放编辑锁
             pictureEditingUsers.remove(pictureId);
+            DistributedLock lock = pictureEditLocks.remove(pictureId);
+            if (lock != null) {
+                lock.unlock();
+            }
             // 构造响应，发送退出编辑的消息
             PictureEditResponseMessage pictureEditResponseMessage = new PictureEditResponseMessage();
             pictureEditResponseMessage.setType(PictureEditMessageTypeEnum.EXIT_EDIT.getValue());
@@ -0,0 +1,21 @@
+package com.steve.cloudpicturebackend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.steve.cloudpicturebackend.model.entity.PictureCounterFlush;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 针对表【picture_counter_flush】的数据库操作Mapper
+ */
+public interface PictureCounterFlushMapper extends BaseMapper<PictureCounterFlush> {
+
+    /**
+     * 记录已落库的批次，批次已存在时忽略
+     *
+     * @param batchId 批次号
+     * @return 影响的行数，为 0 表示该批次已经落库过
+     */
+    @Insert("INSERT IGNORE INTO picture_counter_flush (batchId) VALUES (#{batchId})")
+    int insertIgnore(@Param("batchId") String batchId);
+}
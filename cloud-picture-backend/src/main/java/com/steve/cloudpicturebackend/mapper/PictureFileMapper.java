@@ -0,0 +1,33 @@
+package com.steve.cloudpicturebackend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.steve.cloudpicturebackend.model.entity.PictureFile;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 针对表【picture_file】的数据库操作Mapper
+ */
+public interface PictureFileMapper extends BaseMapper<PictureFile> {
+
+    /**
+     * 登记新上传的文件，相同内容的文件已存在时只增加引用数
+     *
+     * @param pictureFile 文件信息
+     * @return 影响的行数（新增为 1，增加引用数为 2）
+     */
+    @Insert("INSERT INTO picture_file (sha256, url, thumbnailUrl, picSize, picWidth, picHeight, picScale, picFormat, picColor, refCount) " +
+            "VALUES (#{sha256}, #{url}, #{thumbnailUrl}, #{picSize}, #{picWidth}, #{picHeight}, #{picScale}, #{picFormat}, #{picColor}, 1) " +
+            "ON DUPLICATE KEY UPDATE refCount = refCount + 1")
+    int insertOrAcquire(PictureFile pictureFile);
+
+    /**
+     * 增加已有文件的引用数
+     *
+     * @param sha256 文件内容哈希
+     * @return 影响的行数，文件已被删除时为 0
+     */
+    @Update("UPDATE picture_file SET refCount = refCount + 1 WHERE sha256 = #{sha256}")
+    int acquire(@Param("sha256") String sha256);
+}
@@ -2,9 +2,27 @@ package com.steve.cloudpicturebackend.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.steve.cloudpicturebackend.model.entity.PictureLike;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 针对表【picture_like】的数据库操作Mapper
  */
 public interface PictureLikeMapper extends BaseMapper<PictureLike> {
-} 
\ No newline at end of file
+
+    /**
+     * 批量新增点赞记录，已存在的（userId, pictureId）忽略
+     *
+     * @param pictureLikeList 点赞记录
+     * @return 实际新增的条数
+     */
+    @Insert("<script>" +
+            "INSERT IGNORE INTO picture_like (userId, pictureId, createTime) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.userId}, #{item.pictureId}, #{item.createTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertIgnoreBatch(@Param("list") List<PictureLike> pictureLikeList);
+}
@@ -0,0 +1,10 @@
+package com.steve.cloudpicturebackend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.steve.cloudpicturebackend.model.entity.PictureSearchToken;
+
+/**
+ * 针对表【picture_search_token】的数据库操作Mapper
+ */
+public interface PictureSearchTokenMapper extends BaseMapper<PictureSearchToken> {
+}
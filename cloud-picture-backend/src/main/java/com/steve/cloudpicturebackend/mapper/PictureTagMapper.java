@@ -0,0 +1,10 @@
+package com.steve.cloudpicturebackend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.steve.cloudpicturebackend.model.entity.PictureTag;
+
+/**
+ * 针对表【picture_tag】的数据库操作Mapper
+ */
+public interface PictureTagMapper extends BaseMapper<PictureTag> {
+}
@@ -0,0 +1,10 @@
+package com.steve.cloudpicturebackend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.steve.cloudpicturebackend.model.entity.PictureTagRelation;
+
+/**
+ * 针对表【picture_tag_relation】的数据库操作Mapper
+ */
+public interface PictureTagRelationMapper extends BaseMapper<PictureTagRelation> {
+}
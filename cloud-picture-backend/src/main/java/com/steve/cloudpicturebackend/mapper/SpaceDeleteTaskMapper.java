@@ -0,0 +1,11 @@
+package com.steve.cloudpicturebackend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.steve.cloudpicturebackend.model.entity.SpaceDeleteTask;
+
+/**
+ * 针对表【space_delete_task】的数据库操作Mapper
+ */
+public interface SpaceDeleteTaskMapper extends BaseMapper<SpaceDeleteTask> {
+
+}
@@ -0,0 +1,60 @@
+package com.steve.cloudpicturebackend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.steve.cloudpicturebackend.model.entity.SpaceUsageSlot;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 针对表【space_usage_slot】的数据库操作Mapper
+ */
+public interface SpaceUsageSlotMapper extends BaseMapper<SpaceUsageSlot> {
+
+    /**
+     * 累加分片的用量，分片行不存在时创建
+     *
+     * @param spaceId    空间 id
+     * @param slot       分片序号
+     * @param deltaSize  图片总大小增量
+     * @param deltaCount 图片数量增量
+     * @return 影响的行数
+     */
+    @Insert("INSERT INTO space_usage_slot (spaceId, slot, totalSize, totalCount) " +
+            "VALUES (#{spaceId}, #{slot}, #{deltaSize}, #{deltaCount}) " +
+            "ON DUPLICATE KEY UPDATE totalSize = totalSize + VALUES(totalSize), totalCount = totalCount + VALUES(totalCount)")
+    int addUsage(@Param("spaceId") Long spaceId, @Param("slot") int slot,
+                 @Param("deltaSize") long deltaSize, @Param("deltaCount") long deltaCount);
+
+    /**
+     * 用一条语句读取空间的当前用量（space 表中的值加上分片增量），读到的两部分来自同一个快照，不受合并任务影响
+     *
+     * @param spaceId 空间 id
+     * @return 用量（slot 为空），空间不存在时返回 null
+     */
+    @Select("SELECT s.id AS spaceId, s.totalSize + COALESCE(SUM(u.totalSize), 0) AS totalSize, " +
+            "s.totalCount + COALESCE(SUM(u.totalCount), 0) AS totalCount " +
+            "FROM space s LEFT JOIN space_usage_slot u ON u.spaceId = s.id " +
+            "WHERE s.id = #{spaceId} AND s.isDelete = 0 " +
+            "GROUP BY s.id, s.totalSize, s.totalCount")
+    SpaceUsageSlot selectUsage(@Param("spaceId") Long spaceId);
+
+    /**
+     * 用一条语句批量读取多个空间的当前用量，每个空间的两部分来自同一个快照
+     *
+     * @param spaceIds 空间 id
+     * @return 用量列表（slot 为空），不包含不存在的空间
+     */
+    @Select("<script>" +
+            "SELECT s.id AS spaceId, s.totalSize + COALESCE(SUM(u.totalSize), 0) AS totalSize, " +
+            "s.totalCount + COALESCE(SUM(u.totalCount), 0) AS totalCount " +
+            "FROM space s LEFT JOIN space_usage_slot u ON u.spaceId = s.id " +
+            "WHERE s.isDelete = 0 AND s.id IN " +
+            "<foreach collection='spaceIds' item='spaceId' open='(' separator=',' close=')'>#{spaceId}</foreach> " +
+            "GROUP BY s.id, s.totalSize, s.totalCount" +
+            "</script>")
+    List<SpaceUsageSlot> selectUsageList(@Param("spaceIds") Collection<Long> spaceIds);
+}
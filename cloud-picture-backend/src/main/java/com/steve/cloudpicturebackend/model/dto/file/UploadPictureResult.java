@@ -53,5 +53,14 @@ public class UploadPictureResult {
      */
     private String picColor;
 
+    /**
+     * 文件内容的 SHA-256（上传时边读边计算）
+     */
+    private String sha256;
+
+    /**
+     * 是否为秒传（直接复用已存在的文件，没有上传任何内容）
+     */
+    private boolean instant;
 
 }
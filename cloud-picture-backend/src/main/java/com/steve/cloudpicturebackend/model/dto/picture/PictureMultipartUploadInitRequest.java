@@ -0,0 +1,39 @@
+package com.steve.cloudpicturebackend.model.dto.picture;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 分块上传初始化请求
+ */
+@Data
+public class PictureMultipartUploadInitRequest implements Serializable {
+
+    /**
+     * 图片id（用于修改）
+     */
+    private Long id;
+
+    /**
+     * 空间 id
+     */
+    private Long spaceId;
+
+    /**
+     * 文件名（用于校验文件后缀）
+     */
+    private String fileName;
+
+    /**
+     * 文件大小（字节），按该大小校验并预占空间额度
+     */
+    private Long fileSize;
+
+    /**
+     * 图片名称
+     */
+    private String picName;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,19 @@
+package com.steve.cloudpicturebackend.model.dto.picture;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 分块上传请求（完成、取消）
+ */
+@Data
+public class PictureMultipartUploadRequest implements Serializable {
+
+    /**
+     * 上传会话 id
+     */
+    private String uploadId;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -116,6 +116,10 @@ public class PictureQueryRequest extends PageRequest implements Serializable {
      */
     private Date endEditTime;
 
+    /**
+     * 游标（游标分页时使用，首页不传，后续传入上一页返回的 nextCursor）
+     */
+    private String cursor;
 
     private static final long serialVersionUID = 1L;
 }
@@ -0,0 +1,34 @@
+package com.steve.cloudpicturebackend.model.dto.picture;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 按内容哈希秒传图片请求
+ */
+@Data
+public class PictureUploadByHashRequest implements Serializable {
+
+    /**
+     * 图片id（用于修改）
+     */
+    private Long id;
+
+    /**
+     * 空间 id
+     */
+    private Long spaceId;
+
+    /**
+     * 文件内容的 SHA-256（十六进制）
+     */
+    private String sha256;
+
+    /**
+     * 图片名称
+     */
+    private String picName;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,13 @@
+package com.steve.cloudpicturebackend.model.dto.space.analyze;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 空间图片浏览分析
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+public class SpaceViewAnalyzeRequest extends SpaceAnalyzeRequest {
+
+}
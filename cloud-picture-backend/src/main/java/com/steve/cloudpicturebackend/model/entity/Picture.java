@@ -147,6 +147,11 @@ public class Picture implements Serializable {
      */
     private Integer likeCount;
 
+    /**
+     * 浏览次数
+     */
+    private Integer viewCount;
+
     @TableField(exist = false)
     private static final long serialVersionUID = 1L;
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.steve.cloudpicturebackend.model.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 图片计数器已落库的批次（与计数更新在同一个事务中写入，用于保证同一批增量只落库一次）
+ * @TableName picture_counter_flush
+ */
+@TableName(value = "picture_counter_flush")
+@Data
+public class PictureCounterFlush implements Serializable {
+    /**
+     * 批次号
+     */
+    private String batchId;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,49 @@
+package com.steve.cloudpicturebackend.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 图片全文检索倒排索引
+ * @TableName picture_search_token
+ */
+@TableName(value = "picture_search_token")
+@Data
+public class PictureSearchToken implements Serializable {
+    /**
+     * 主键
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 图片ID
+     */
+    private Long pictureId;
+
+    /**
+     * 空间ID（为空表示公共图库）
+     */
+    private Long spaceId;
+
+    /**
+     * 字段：name / introduction
+     */
+    private String field;
+
+    /**
+     * 词（单字或双字）
+     */
+    private String token;
+
+    /**
+     * 权重（出现次数 * 字段权重）
+     */
+    private Integer weight;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,39 @@
+package com.steve.cloudpicturebackend.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 图片标签关联（标签倒排索引的持久化数据）
+ * @TableName picture_tag_relation
+ */
+@TableName(value = "picture_tag_relation")
+@Data
+public class PictureTagRelation implements Serializable {
+    /**
+     * 主键
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 标签ID
+     */
+    private Long tagId;
+
+    /**
+     * 图片ID
+     */
+    private Long pictureId;
+
+    /**
+     * 空间ID（为空表示公共图库）
+     */
+    private Long spaceId;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -34,6 +34,11 @@ public class Space implements Serializable {
      */
     private Integer spaceType;
 
+    /**
+     * 空间状态：0-正常 1-删除中
+     */
+    private Integer status;
+
 
     /**
      * 空间图片的最大总大小
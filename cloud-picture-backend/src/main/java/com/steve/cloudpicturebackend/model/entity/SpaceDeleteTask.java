@@ -0,0 +1,72 @@
+package com.steve.cloudpicturebackend.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 空间级联删除任务
+ * @TableName space_delete_task
+ */
+@TableName(value = "space_delete_task")
+@Data
+public class SpaceDeleteTask implements Serializable {
+    /**
+     * id
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 空间 id
+     */
+    private Long spaceId;
+
+    /**
+     * 发起删除的用户 id
+     */
+    private Long userId;
+
+    /**
+     * 任务状态：0-进行中 1-已完成
+     */
+    private Integer status;
+
+    /**
+     * 待删除的图片总数（发起时统计）
+     */
+    private Long totalCount;
+
+    /**
+     * 已删除的图片数
+     */
+    private Long deletedCount;
+
+    /**
+     * 断点：已删除的最大图片 id
+     */
+    private Long lastPictureId;
+
+    /**
+     * 最近一次失败的原因
+     */
+    private String errorMessage;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+}
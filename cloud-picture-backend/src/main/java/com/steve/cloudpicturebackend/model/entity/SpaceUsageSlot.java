@@ -0,0 +1,36 @@
+package com.steve.cloudpicturebackend.model.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 空间额度分片计数（尚未合并回 space 表的用量增量）
+ * @TableName space_usage_slot
+ */
+@TableName(value = "space_usage_slot")
+@Data
+public class SpaceUsageSlot implements Serializable {
+    /**
+     * 空间ID
+     */
+    private Long spaceId;
+
+    /**
+     * 分片序号
+     */
+    private Integer slot;
+
+    /**
+     * 图片总大小增量
+     */
+    private Long totalSize;
+
+    /**
+     * 图片数量增量
+     */
+    private Long totalCount;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,40 @@
+package com.steve.cloudpicturebackend.model.enums;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+
+/**
+ * 图片计数器类型枚举（value 为 picture 表中对应的列名）
+ */
+@Getter
+public enum PictureCounterTypeEnum {
+
+    DOWNLOAD("下载次数", "downloadCount"),
+    SHARE("分享次数", "shareCount"),
+    LIKE("点赞数", "likeCount"),
+    VIEW("浏览次数", "viewCount");
+
+    private final String text;
+
+    private final String value;
+
+    PictureCounterTypeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     */
+    public static PictureCounterTypeEnum getEnumByValue(String value) {
+        if (StrUtil.isBlank(value)) {
+            return null;
+        }
+        for (PictureCounterTypeEnum pictureCounterTypeEnum : PictureCounterTypeEnum.values()) {
+            if (pictureCounterTypeEnum.value.equals(value)) {
+                return pictureCounterTypeEnum;
+            }
+        }
+        return null;
+    }
+}
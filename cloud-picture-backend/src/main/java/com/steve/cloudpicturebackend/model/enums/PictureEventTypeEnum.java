@@ -0,0 +1,44 @@
+package com.steve.cloudpicturebackend.model.enums;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+
+/**
+ * 图片领域事件类型枚举
+ */
+@Getter
+public enum PictureEventTypeEnum {
+
+    UPLOAD("上传", "upload"),
+    EDIT("编辑", "edit"),
+    REVIEW("审核", "review"),
+    DELETE("删除", "delete"),
+    LIKE("点赞", "like"),
+    DOWNLOAD("下载", "download"),
+    SHARE("分享", "share"),
+    VIEW("浏览", "view");
+
+    private final String text;
+
+    private final String value;
+
+    PictureEventTypeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     */
+    public static PictureEventTypeEnum getEnumByValue(String value) {
+        if (StrUtil.isBlank(value)) {
+            return null;
+        }
+        for (PictureEventTypeEnum pictureEventTypeEnum : PictureEventTypeEnum.values()) {
+            if (pictureEventTypeEnum.value.equals(value)) {
+                return pictureEventTypeEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,41 @@
+package com.steve.cloudpicturebackend.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+/**
+ * 图片处理引擎枚举（生成压缩图、缩略图并解析图片信息）
+ */
+@Getter
+public enum PictureProcessEngineEnum {
+
+    COS("对象存储数据万象", "cos"),
+    LOCAL("本地处理", "local");
+
+    private final String text;
+
+    private final String value;
+
+    PictureProcessEngineEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value 枚举值的 value
+     * @return 枚举值
+     */
+    public static PictureProcessEngineEnum getEnumByValue(String value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (PictureProcessEngineEnum anEnum : PictureProcessEngineEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,44 @@
+package com.steve.cloudpicturebackend.model.enums;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+
+/**
+ * 图片全文检索字段枚举
+ */
+@Getter
+public enum PictureSearchFieldEnum {
+
+    NAME("名称", "name", 2),
+    INTRODUCTION("简介", "introduction", 1);
+
+    private final String text;
+
+    private final String value;
+
+    /**
+     * 字段权重，用于相关度排序
+     */
+    private final int weight;
+
+    PictureSearchFieldEnum(String text, String value, int weight) {
+        this.text = text;
+        this.value = value;
+        this.weight = weight;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     */
+    public static PictureSearchFieldEnum getEnumByValue(String value) {
+        if (StrUtil.isBlank(value)) {
+            return null;
+        }
+        for (PictureSearchFieldEnum pictureSearchFieldEnum : PictureSearchFieldEnum.values()) {
+            if (pictureSearchFieldEnum.value.equals(value)) {
+                return pictureSearchFieldEnum;
+            }
+        }
+        return null;
+    }
+}
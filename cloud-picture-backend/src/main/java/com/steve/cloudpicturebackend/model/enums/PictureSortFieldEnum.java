@@ -0,0 +1,70 @@
+package com.steve.cloudpicturebackend.model.enums;
+
+import cn.hutool.core.util.StrUtil;
+import com.steve.cloudpicturebackend.model.entity.Picture;
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.function.Function;
+
+/**
+ * 图片可排序字段枚举（排序字段白名单）
+ * <p>
+ * 游标分页需要从最后一条记录中取出排序键，因此同时记录了字段类型和取值方法
+ */
+@Getter
+public enum PictureSortFieldEnum {
+
+    ID("id", Long.class, Picture::getId),
+    CREATE_TIME("createTime", Date.class, Picture::getCreateTime),
+    EDIT_TIME("editTime", Date.class, Picture::getEditTime),
+    UPDATE_TIME("updateTime", Date.class, Picture::getUpdateTime),
+    REVIEW_TIME("reviewTime", Date.class, Picture::getReviewTime),
+    NAME("name", String.class, Picture::getName),
+    CATEGORY("category", String.class, Picture::getCategory),
+    PIC_SIZE("picSize", Long.class, Picture::getPicSize),
+    PIC_WIDTH("picWidth", Integer.class, Picture::getPicWidth),
+    PIC_HEIGHT("picHeight", Integer.class, Picture::getPicHeight),
+    PIC_SCALE("picScale", Double.class, Picture::getPicScale),
+    PIC_FORMAT("picFormat", String.class, Picture::getPicFormat),
+    REVIEW_STATUS("reviewStatus", Integer.class, Picture::getReviewStatus),
+    SHARE_COUNT("shareCount", Integer.class, Picture::getShareCount),
+    DOWNLOAD_COUNT("downloadCount", Integer.class, Picture::getDownloadCount),
+    LIKE_COUNT("likeCount", Integer.class, Picture::getLikeCount);
+
+    /**
+     * 数据库列名（与请求中的 sortField 一致）
+     */
+    private final String value;
+
+    /**
+     * 字段类型，用于游标解码
+     */
+    private final Class<?> type;
+
+    /**
+     * 从图片对象中取出排序键
+     */
+    private final Function<Picture, Object> getter;
+
+    PictureSortFieldEnum(String value, Class<?> type, Function<Picture, Object> getter) {
+        this.value = value;
+        this.type = type;
+        this.getter = getter;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     */
+    public static PictureSortFieldEnum getEnumByValue(String value) {
+        if (StrUtil.isBlank(value)) {
+            return null;
+        }
+        for (PictureSortFieldEnum pictureSortFieldEnum : PictureSortFieldEnum.values()) {
+            if (pictureSortFieldEnum.value.equals(value)) {
+                return pictureSortFieldEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.steve.cloudpicturebackend.model.enums;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+
+/**
+ * 热门图片排行的行为枚举
+ */
+@Getter
+public enum PictureTrendingActionEnum {
+
+    VIEW("浏览", "view", 1),
+    DOWNLOAD("下载", "download", 2),
+    LIKE("点赞", "like", 3),
+    SHARE("分享", "share", 4);
+
+    private final String text;
+
+    private final String value;
+
+    /**
+     * 行为权重（一次行为对热度的贡献）
+     */
+    private final int weight;
+
+    PictureTrendingActionEnum(String text, String value, int weight) {
+        this.text = text;
+        this.value = value;
+        this.weight = weight;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     */
+    public static PictureTrendingActionEnum getEnumByValue(String value) {
+        if (StrUtil.isBlank(value)) {
+            return null;
+        }
+        for (PictureTrendingActionEnum pictureTrendingActionEnum : PictureTrendingActionEnum.values()) {
+            if (pictureTrendingActionEnum.value.equals(value)) {
+                return pictureTrendingActionEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,38 @@
+package com.steve.cloudpicturebackend.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+/**
+ * 空间级联删除任务状态枚举
+ */
+@Getter
+public enum SpaceDeleteTaskStatusEnum {
+
+    RUNNING("进行中", 0),
+    SUCCEED("已完成", 1);
+
+    private final String text;
+
+    private final int value;
+
+    SpaceDeleteTaskStatusEnum(String text, int value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     */
+    public static SpaceDeleteTaskStatusEnum getEnumByValue(Integer value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (SpaceDeleteTaskStatusEnum spaceDeleteTaskStatusEnum : SpaceDeleteTaskStatusEnum.values()) {
+            if (spaceDeleteTaskStatusEnum.value == value) {
+                return spaceDeleteTaskStatusEnum;
+            }
+        }
+        return null;
+    }
+}
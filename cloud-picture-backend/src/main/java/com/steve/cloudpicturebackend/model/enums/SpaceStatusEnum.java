@@ -0,0 +1,38 @@
+package com.steve.cloudpicturebackend.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+/**
+ * 空间状态枚举
+ */
+@Getter
+public enum SpaceStatusEnum {
+
+    NORMAL("正常", 0),
+    DELETING("删除中", 1);
+
+    private final String text;
+
+    private final int value;
+
+    SpaceStatusEnum(String text, int value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     */
+    public static SpaceStatusEnum getEnumByValue(Integer value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (SpaceStatusEnum spaceStatusEnum : SpaceStatusEnum.values()) {
+            if (spaceStatusEnum.value == value) {
+                return spaceStatusEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,41 @@
+package com.steve.cloudpicturebackend.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+/**
+ * 存储类型枚举
+ */
+@Getter
+public enum StorageTypeEnum {
+
+    COS("腾讯云对象存储", "cos"),
+    LOCAL("本地文件系统", "local");
+
+    private final String text;
+
+    private final String value;
+
+    StorageTypeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value 枚举值的 value
+     * @return 枚举值
+     */
+    public static StorageTypeEnum getEnumByValue(String value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (StorageTypeEnum anEnum : StorageTypeEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,128 @@
+package com.steve.cloudpicturebackend.model.vo;
+
+import com.steve.cloudpicturebackend.model.entity.Picture;
+import com.steve.cloudpicturebackend.utils.PictureTagsJsonUtils;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 图片卡片封装类（列表网格视图使用，只包含卡片需要渲染的字段）
+ */
+@Data
+public class PictureCardVO implements Serializable {
+
+    /**
+     * id
+     */
+    private Long id;
+
+    /**
+     * 缩略图 url（没有缩略图时为原图 url）
+     */
+    private String thumbnailUrl;
+
+    /**
+     * 图片名称
+     */
+    private String name;
+
+    /**
+     * 分类
+     */
+    private String category;
+
+    /**
+     * 标签
+     */
+    private List<String> tags;
+
+    /**
+     * 图片宽度
+     */
+    private Integer picWidth;
+
+    /**
+     * 图片高度
+     */
+    private Integer picHeight;
+
+    /**
+     * 图片比例
+     */
+    private Double picScale;
+
+    /**
+     * 图片主色调
+     */
+    private String picColor;
+
+    /**
+     * 空间 id
+     */
+    private Long spaceId;
+
+    /**
+     * 用户 id
+     */
+    private Long userId;
+
+    /**
+     * 用户昵称
+     */
+    private String userName;
+
+    /**
+     * 用户头像
+     */
+    private String userAvatar;
+
+    /**
+     * 分享次数
+     */
+    private Integer shareCount;
+
+    /**
+     * 下载次数
+     */
+    private Integer downloadCount;
+
+    /**
+     * 点赞数
+     */
+    private Integer likeCount;
+
+    /**
+     * 当前用户是否已点赞
+     */
+    private Boolean isLiked;
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 对象转封装类（逐字段赋值，不使用反射拷贝）
+     */
+    public static PictureCardVO objToVo(Picture picture) {
+        if (picture == null) {
+            return null;
+        }
+        PictureCardVO pictureCardVO = new PictureCardVO();
+        pictureCardVO.setId(picture.getId());
+        pictureCardVO.setThumbnailUrl(picture.getThumbnailUrl());
+        pictureCardVO.setName(picture.getName());
+        pictureCardVO.setCategory(picture.getCategory());
+        pictureCardVO.setTags(PictureTagsJsonUtils.parseTags(picture.getTags()));
+        pictureCardVO.setPicWidth(picture.getPicWidth());
+        pictureCardVO.setPicHeight(picture.getPicHeight());
+        pictureCardVO.setPicScale(picture.getPicScale());
+        pictureCardVO.setPicColor(picture.getPicColor());
+        pictureCardVO.setSpaceId(picture.getSpaceId());
+        pictureCardVO.setUserId(picture.getUserId());
+        pictureCardVO.setShareCount(picture.getShareCount());
+        pictureCardVO.setDownloadCount(picture.getDownloadCount());
+        pictureCardVO.setLikeCount(picture.getLikeCount());
+        // 用户信息和 isLiked 由业务层设置
+        return pictureCardVO;
+    }
+}
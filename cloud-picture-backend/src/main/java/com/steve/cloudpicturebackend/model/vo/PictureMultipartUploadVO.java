@@ -0,0 +1,41 @@
+package com.steve.cloudpicturebackend.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 分块上传会话（断线后根据已上传的分块继续上传）
+ */
+@Data
+public class PictureMultipartUploadVO implements Serializable {
+
+    /**
+     * 上传会话 id
+     */
+    private String uploadId;
+
+    /**
+     * 分块大小（最后一块可以更小）
+     */
+    private Long partSize;
+
+    /**
+     * 分块数量，分块编号为 1 ~ partCount
+     */
+    private Integer partCount;
+
+    /**
+     * 已上传的分块编号（升序）
+     */
+    private List<Integer> uploadedPartNumbers;
+
+    /**
+     * 会话过期时间
+     */
+    private Date expireTime;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -1,9 +1,8 @@
 package com.steve.cloudpicturebackend.model.vo;
 
-import cn.hutool.json.JSONUtil;
 import com.steve.cloudpicturebackend.model.entity.Picture;
+import com.steve.cloudpicturebackend.utils.PictureTagsJsonUtils;
 import lombok.Data;
-import org.springframework.beans.BeanUtils;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -129,6 +128,16 @@ public class PictureVO implements Serializable {
      */
     private Integer likeCount;
 
+    /**
+     * 浏览次数
+     */
+    private Integer viewCount;
+
+    /**
+     * 独立访客数（近似值）
+     */
+    private Long uniqueViewCount;
+
     /**
      * 当前用户是否已点赞
      */
@@ -138,31 +147,70 @@ public class PictureVO implements Serializable {
     private static final long serialVersionUID = 1L;
 
     /**
-     * 封装类转对象
+     * 封装类转对象（逐字段赋值，不使用反射拷贝）
      */
     public static Picture voToObj(PictureVO pictureVO) {
         if (pictureVO == null) {
             return null;
         }
         Picture picture = new Picture();
-        BeanUtils.copyProperties(pictureVO, picture);
+        picture.setId(pictureVO.getId());
+        picture.setUrl(pictureVO.getUrl());
+        picture.setThumbnailUrl(pictureVO.getThumbnailUrl());
+        picture.setName(pictureVO.getName());
+        picture.setIntroduction(pictureVO.getIntroduction());
+        picture.setCategory(pictureVO.getCategory());
+        picture.setPicSize(pictureVO.getPicSize());
+        picture.setPicWidth(pictureVO.getPicWidth());
+        picture.setPicHeight(pictureVO.getPicHeight());
+        picture.setPicScale(pictureVO.getPicScale());
+        picture.setPicFormat(pictureVO.getPicFormat());
+        picture.setPicColor(pictureVO.getPicColor());
+        picture.setUserId(pictureVO.getUserId());
+        picture.setSpaceId(pictureVO.getSpaceId());
+        picture.setCreateTime(pictureVO.getCreateTime());
+        picture.setEditTime(pictureVO.getEditTime());
+        picture.setUpdateTime(pictureVO.getUpdateTime());
+        picture.setShareCount(pictureVO.getShareCount());
+        picture.setDownloadCount(pictureVO.getDownloadCount());
+        picture.setLikeCount(pictureVO.getLikeCount());
+        picture.setViewCount(pictureVO.getViewCount());
         // 类型不同，需要转换
-        picture.setTags(JSONUtil.toJsonStr(pictureVO.getTags()));
+        picture.setTags(PictureTagsJsonUtils.toJson(pictureVO.getTags()));
         return picture;
     }
 
     /**
-     * 对象转封装类
+     * 对象转封装类（逐字段赋值，不使用反射拷贝）
      */
     public static PictureVO objToVo(Picture picture) {
         if (picture == null) {
             return null;
         }
         PictureVO pictureVO = new PictureVO();
-        BeanUtils.copyProperties(picture, pictureVO);
-        // 类型不同，需要转换
-        pictureVO.setTags(JSONUtil.toList(picture.getTags(), String.class));
+        pictureVO.setId(picture.getId());
+        pictureVO.setUrl(picture.getUrl());
+        pictureVO.setThumbnailUrl(picture.getThumbnailUrl());
+        pictureVO.setName(picture.getName());
+        pictureVO.setIntroduction(picture.getIntroduction());
+        pictureVO.setCategory(picture.getCategory());
+        pictureVO.setPicSize(picture.getPicSize());
+        pictureVO.setPicWidth(picture.getPicWidth());
+        pictureVO.setPicHeight(picture.getPicHeight());
+        pictureVO.setPicScale(picture.getPicScale());
+        pictureVO.setPicFormat(picture.getPicFormat());
+        pictureVO.setPicColor(picture.getPicColor());
+        pictureVO.setUserId(picture.getUserId());
+        pictureVO.setSpaceId(picture.getSpaceId());
+        pictureVO.setCreateTime(picture.getCreateTime());
+        pictureVO.setEditTime(picture.getEditTime());
+        pictureVO.setUpdateTime(picture.getUpdateTime());
+        pictureVO.setShareCount(picture.getShareCount());
+        pictureVO.setDownloadCount(picture.getDownloadCount());
         pictureVO.setLikeCount(picture.getLikeCount());
+        pictureVO.setViewCount(picture.getViewCount());
+        // 类型不同，需要转换
+        pictureVO.setTags(PictureTagsJsonUtils.parseTags(picture.getTags()));
         // isLiked 由业务层设置
         return pictureVO;
     }
@@ -2,7 +2,6 @@ package com.steve.cloudpicturebackend.model.vo;
 
 import com.steve.cloudpicturebackend.model.entity.SpaceUser;
 import lombok.Data;
-import org.springframework.beans.BeanUtils;
 
 import java.io.Serializable;
 import java.util.Date;
@@ -53,7 +52,7 @@ public class SpaceUserVO implements Serializable {
     private static final long serialVersionUID = 1L;
 
     /**
-     * 封装类转对象
+     * 封装类转对象（逐字段赋值，不使用反射拷贝）
      *
      * @param spaceUserVO
      * @return
@@ -63,12 +62,17 @@ public class SpaceUserVO implements Serializable {
             return null;
         }
         SpaceUser spaceUser = new SpaceUser();
-        BeanUtils.copyProperties(spaceUserVO, spaceUser);
+        spaceUser.setId(spaceUserVO.getId());
+        spaceUser.setSpaceId(spaceUserVO.getSpaceId());
+        spaceUser.setUserId(spaceUserVO.getUserId());
+        spaceUser.setSpaceRole(spaceUserVO.getSpaceRole());
+        spaceUser.setCreateTime(spaceUserVO.getCreateTime());
+        spaceUser.setUpdateTime(spaceUserVO.getUpdateTime());
         return spaceUser;
     }
 
     /**
-     * 对象转封装类
+     * 对象转封装类（逐字段赋值，不使用反射拷贝）
      *
      * @param spaceUser
      * @return
@@ -78,7 +82,12 @@ public class SpaceUserVO implements Serializable {
             return null;
         }
         SpaceUserVO spaceUserVO = new SpaceUserVO();
-        BeanUtils.copyProperties(spaceUser, spaceUserVO);
+        spaceUserVO.setId(spaceUser.getId());
+        spaceUserVO.setSpaceId(spaceUser.getSpaceId());
+        spaceUserVO.setUserId(spaceUser.getUserId());
+        spaceUserVO.setSpaceRole(spaceUser.getSpaceRole());
+        spaceUserVO.setCreateTime(spaceUser.getCreateTime());
+        spaceUserVO.setUpdateTime(spaceUser.getUpdateTime());
         return spaceUserVO;
     }
 }
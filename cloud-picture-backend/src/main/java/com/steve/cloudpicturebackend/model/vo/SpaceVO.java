@@ -2,7 +2,6 @@ package com.steve.cloudpicturebackend.model.vo;
 
 import com.steve.cloudpicturebackend.model.entity.Space;
 import lombok.Data;
-import org.springframework.beans.BeanUtils;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -34,6 +33,11 @@ public class SpaceVO implements Serializable {
      */
     private Integer spaceType;
 
+    /**
+     * 空间状态：0-正常 1-删除中
+     */
+    private Integer status;
+
 
     /**
      * 空间图片的最大总大小
@@ -89,7 +93,7 @@ public class SpaceVO implements Serializable {
     private static final long serialVersionUID = 1L;
 
     /**
-     * 封装类转对象
+     * 封装类转对象（逐字段赋值，不使用反射拷贝）
      *
      * @param spaceVO
      * @return
@@ -99,12 +103,24 @@ public class SpaceVO implements Serializable {
             return null;
         }
         Space space = new Space();
-        BeanUtils.copyProperties(spaceVO, space);
+        space.setId(spaceVO.getId());
+        space.setSpaceName(spaceVO.getSpaceName());
+        space.setSpaceLevel(spaceVO.getSpaceLevel());
+        space.setSpaceType(spaceVO.getSpaceType());
+        space.setStatus(spaceVO.getStatus());
+        space.setMaxSize(spaceVO.getMaxSize());
+        space.setMaxCount(spaceVO.getMaxCount());
+        space.setTotalSize(spaceVO.getTotalSize());
+        space.setTotalCount(spaceVO.getTotalCount());
+        space.setUserId(spaceVO.getUserId());
+        space.setCreateTime(spaceVO.getCreateTime());
+        space.setEditTime(spaceVO.getEditTime());
+        space.setUpdateTime(spaceVO.getUpdateTime());
         return space;
     }
 
     /**
-     * 对象转封装类
+     * 对象转封装类（逐字段赋值，不使用反射拷贝）
      *
      * @param space
      * @return
@@ -114,7 +130,19 @@ public class SpaceVO implements Serializable {
             return null;
         }
         SpaceVO spaceVO = new SpaceVO();
-        BeanUtils.copyProperties(space, spaceVO);
+        spaceVO.setId(space.getId());
+        spaceVO.setSpaceName(space.getSpaceName());
+        spaceVO.setSpaceLevel(space.getSpaceLevel());
+        spaceVO.setSpaceType(space.getSpaceType());
+        spaceVO.setStatus(space.getStatus());
+        spaceVO.setMaxSize(space.getMaxSize());
+        spaceVO.setMaxCount(space.getMaxCount());
+        spaceVO.setTotalSize(space.getTotalSize());
+        spaceVO.setTotalCount(space.getTotalCount());
+        spaceVO.setUserId(space.getUserId());
+        spaceVO.setCreateTime(space.getCreateTime());
+        spaceVO.setEditTime(space.getEditTime());
+        spaceVO.setUpdateTime(space.getUpdateTime());
         return spaceVO;
     }
 }
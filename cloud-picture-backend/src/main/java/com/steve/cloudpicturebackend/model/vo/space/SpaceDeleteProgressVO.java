@@ -0,0 +1,50 @@
+package com.steve.cloudpicturebackend.model.vo.space;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 空间删除进度
+ */
+@Data
+public class SpaceDeleteProgressVO implements Serializable {
+
+    /**
+     * 空间 id
+     */
+    private Long spaceId;
+
+    /**
+     * 任务状态：0-进行中 1-已完成
+     */
+    private Integer status;
+
+    /**
+     * 待删除的图片总数（发起时统计）
+     */
+    private Long totalCount;
+
+    /**
+     * 已删除的图片数
+     */
+    private Long deletedCount;
+
+    /**
+     * 最近一次失败的原因（会自动重试）
+     */
+    private String errorMessage;
+
+    /**
+     * 发起时间
+     */
+    private Date createTime;
+
+    /**
+     * 最近一次进展的时间
+     */
+    private Date updateTime;
+
+    private static final long serialVersionUID = 1L;
+}
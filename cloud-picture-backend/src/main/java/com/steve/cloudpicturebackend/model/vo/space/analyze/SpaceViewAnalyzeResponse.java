@@ -0,0 +1,28 @@
+package com.steve.cloudpicturebackend.model.vo.space.analyze;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 空间图片浏览分析响应
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SpaceViewAnalyzeResponse implements Serializable {
+
+    /**
+     * 总浏览次数
+     */
+    private Long totalViewCount;
+
+    /**
+     * 独立访客数（近似值，同一访客浏览多张图片只算一次）
+     */
+    private Long uniqueViewCount;
+
+    private static final long serialVersionUID = 1L;
+}
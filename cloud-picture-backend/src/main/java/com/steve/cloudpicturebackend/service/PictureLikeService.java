@@ -7,4 +7,4 @@ import com.steve.cloudpicturebackend.model.entity.PictureLike;
  * 针对表【picture_like】的数据库操作Service
  */
 public interface PictureLikeService extends IService<PictureLike> {
-} 
\ No newline at end of file
+}
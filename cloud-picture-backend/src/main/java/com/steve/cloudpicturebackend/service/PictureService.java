@@ -5,12 +5,17 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.steve.cloudpicturebackend.api.aliyunai.expand.model.CreateOutPaintingTaskResponse;
 import com.steve.cloudpicturebackend.api.aliyunai.txt2img.model.CreateTextToImageTaskResponse;
 import com.steve.cloudpicturebackend.api.aliyunai.txt2img.model.GetTextToImageTaskResponse;
+import com.steve.cloudpicturebackend.common.CursorPage;
 import com.steve.cloudpicturebackend.model.dto.picture.*;
 import com.steve.cloudpicturebackend.model.entity.Picture;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.steve.cloudpicturebackend.model.entity.User;
+import com.steve.cloudpicturebackend.model.vo.PictureCardVO;
+import com.steve.cloudpicturebackend.model.vo.PictureMultipartUploadVO;
 import com.steve.cloudpicturebackend.model.vo.PictureVO;
 
+import org.springframework.web.multipart.MultipartFile;
+
 import javax.servlet.http.HttpServletRequest;
 import java.util.List;
 
@@ -28,6 +33,61 @@ public interface PictureService extends IService<Picture> {
      */
     PictureVO uploadPicture(Object inputSource, PictureUploadRequest pictureUploadRequest, User loginUser);
 
+    /**
+     * 按内容哈希秒传图片：已存在相同内容的文件时直接复用，客户端无需再上传文件
+     *
+     * @param uploadByHashRequest 秒传请求
+     * @param loginUser           登录用户
+     * @return 上传后的图片，文件不存在时为 null（客户端应改为正常上传）
+     */
+    PictureVO uploadPictureByHash(PictureUploadByHashRequest uploadByHashRequest, User loginUser);
+
+    /**
+     * 初始化分块上传（大图），按声明的文件大小预占空间额度
+     *
+     * @param initRequest 初始化请求
+     * @param loginUser   登录用户
+     * @return 上传会话
+     */
+    PictureMultipartUploadVO initMultipartUpload(PictureMultipartUploadInitRequest initRequest, User loginUser);
+
+    /**
+     * 上传分块（可以并发上传，同一分块可以重传）
+     *
+     * @param uploadId      上传会话 id
+     * @param partNumber    分块编号（从 1 开始）
+     * @param multipartFile 分块数据
+     * @param loginUser     登录用户
+     * @return 上传会话
+     */
+    PictureMultipartUploadVO uploadMultipartPart(String uploadId, int partNumber, MultipartFile multipartFile, User loginUser);
+
+    /**
+     * 获取分块上传会话（断线后根据已上传的分块继续上传）
+     *
+     * @param uploadId  上传会话 id
+     * @param loginUser 登录用户
+     * @return 上传会话
+     */
+    PictureMultipartUploadVO getMultipartUpload(String uploadId, User loginUser);
+
+    /**
+     * 完成分块上传，合并分块并写库
+     *
+     * @param uploadId  上传会话 id
+     * @param loginUser 登录用户
+     * @return 图片
+     */
+    PictureVO completeMultipartUpload(String uploadId, User loginUser);
+
+    /**
+     * 取消分块上传，释放预占的空间额度
+     *
+     * @param uploadId  上传会话 id
+     * @param loginUser 登录用户
+     */
+    void abortMultipartUpload(String uploadId, User loginUser);
+
     /**
      * 上传头像
      */
@@ -41,6 +101,14 @@ public interface PictureService extends IService<Picture> {
      */
     PictureVO getPictureVO(Picture picture, HttpServletRequest request);
 
+    /**
+     * 记录一次图片浏览（浏览次数异步落库，独立访客数按登录用户或未登录设备指纹去重）
+     *
+     * @param picture 图片
+     * @param request 请求
+     */
+    void recordPictureView(Picture picture, HttpServletRequest request);
+
     /**
      * 获取图片包装类（分页）
      * @param picturePage 图片页
@@ -49,6 +117,73 @@ public interface PictureService extends IService<Picture> {
      */
     Page<PictureVO> getPictureVOPage(Page<Picture> picturePage, HttpServletRequest request);
 
+    /**
+     * 游标分页获取图片列表（不统计总数，深分页与首页开销一致）
+     *
+     * @param pictureQueryRequest 图片查询请求，cursor 为上一页返回的 nextCursor，首页不传
+     * @return
+     */
+    CursorPage<Picture> listPictureByCursor(PictureQueryRequest pictureQueryRequest);
+
+    /**
+     * 获取图片包装类（游标分页）
+     *
+     * @param picturePage 图片游标页
+     * @param request     请求
+     * @return
+     */
+    CursorPage<PictureVO> getPictureVOCursorPage(CursorPage<Picture> picturePage, HttpServletRequest request);
+
+    /**
+     * 分页获取公共图库的图片封装（多级缓存）
+     *
+     * @param pictureQueryRequest 图片查询请求（需已限定为公共图库、审核通过）
+     * @param request             请求
+     * @return
+     */
+    Page<PictureVO> listPictureVOByPageWithCache(PictureQueryRequest pictureQueryRequest, HttpServletRequest request);
+
+    /**
+     * 分页获取图片卡片封装（只查询卡片视图需要的字段，公共图库走多级缓存）
+     *
+     * @param pictureQueryRequest 图片查询请求
+     * @param request             请求
+     * @return
+     */
+    Page<PictureCardVO> listPictureCardVOByPage(PictureQueryRequest pictureQueryRequest, HttpServletRequest request);
+
+    /**
+     * 获取公共图库的热门图片（按时间衰减的热度排序）
+     *
+     * @param size    数量
+     * @param request 请求
+     * @return
+     */
+    List<PictureVO> listTrendingPictureVO(int size, HttpServletRequest request);
+
+    /**
+     * 按点赞时间倒序获取当前用户点赞过的公共图片（游标分页，已删除或不再公开的图片会被跳过）
+     *
+     * @param pictureQueryRequest 图片查询请求（只使用 pageSize 和 cursor）
+     * @param loginUser           登录用户
+     * @param request             请求
+     * @return
+     */
+    CursorPage<PictureVO> listLikedPictureVOByCursor(PictureQueryRequest pictureQueryRequest, User loginUser,
+                                                    HttpServletRequest request);
+
+    /**
+     * 公共图库的图片发生变更时，使图片列表缓存失效
+     *
+     * @param picture 发生变更的图片
+     */
+    void invalidatePictureFeedCache(Picture picture);
+
+    /**
+     * 使全部图片列表缓存失效（如重建首页索引后）
+     */
+    void invalidateAllPictureFeedCache();
+
     /**
      * 获取查询对象
      *
@@ -79,11 +214,22 @@ public interface PictureService extends IService<Picture> {
     Integer uploadPictureByBatch(PictureUploadByBatchRequest pictureUploadByBatchRequest, User loginUser);
 
     /**
-     * 删除图片文件
+     * 删除图片文件（释放引用后不再被引用时删除；在写库事务中调用时，事务提交后再删除）
      * @param oldPicture 旧图片
      */
     void clearPictureFile(Picture oldPicture);
 
+    /**
+     * 分批删除空间下的图片（删除记录、文件和索引，不更新空间额度），用于空间的级联删除
+     *
+     * @param spaceId       空间 id
+     * @param lastPictureId 断点：只删除 id 大于该值的图片
+     * @param batchSize     本批最多删除的数量
+     * @param userId        发起删除的用户 id
+     * @return 本批删除的图片 id（升序），为空表示已全部删除
+     */
+    List<Long> removeSpacePictureBatch(Long spaceId, long lastPictureId, int batchSize, Long userId);
+
     /**
      * 删除图片
      * @param pictureId 图片id
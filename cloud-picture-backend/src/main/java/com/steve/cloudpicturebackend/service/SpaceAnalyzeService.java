@@ -59,6 +59,14 @@ public interface SpaceAnalyzeService extends IService<Space> {
      */
     List<SpaceUserAnalyzeResponse> getSpaceUserAnalyze(SpaceUserAnalyzeRequest spaceUserAnalyzeRequest, User loginUser);
 
+    /**
+     * 获取空间图片浏览分析
+     *
+     * @param spaceViewAnalyzeRequest 请求参数
+     * @param loginUser               登录用户
+     */
+    SpaceViewAnalyzeResponse getSpaceViewAnalyze(SpaceViewAnalyzeRequest spaceViewAnalyzeRequest, User loginUser);
+
     /**
      * 获取空间使用排行分析
      * @param spaceRankAnalyzeRequest
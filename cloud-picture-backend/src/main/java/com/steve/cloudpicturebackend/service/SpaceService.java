@@ -8,6 +8,7 @@ import com.steve.cloudpicturebackend.model.entity.Space;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.steve.cloudpicturebackend.model.entity.User;
 import com.steve.cloudpicturebackend.model.vo.SpaceVO;
+import com.steve.cloudpicturebackend.model.vo.space.SpaceDeleteProgressVO;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.List;
@@ -86,4 +87,35 @@ public interface SpaceService extends IService<Space> {
      */
     List<SpaceVO> listSpaceVOByUserId(Long userId);
 
+    /**
+     * 清理空间实体缓存（通过 lambdaUpdate 等方式直接更新数据库后需要调用）
+     *
+     * @param spaceId 空间 id
+     */
+    void evictSpaceCache(Long spaceId);
+
+    /**
+     * 绕过实体缓存直接查库获取空间（用于空间状态、所有者等权限相关的校验）
+     *
+     * @param spaceId 空间 id
+     * @return 空间，不存在时返回 null
+     */
+    Space getByIdFromDb(Long spaceId);
+
+    /**
+     * 删除空间：标记为删除中后立即返回，空间下的图片、文件和成员在后台分批删除
+     *
+     * @param spaceId   空间 id
+     * @param loginUser 登录用户
+     */
+    void deleteSpace(long spaceId, User loginUser);
+
+    /**
+     * 获取空间的删除进度
+     *
+     * @param spaceId   空间 id
+     * @param loginUser 登录用户
+     * @return 删除进度
+     */
+    SpaceDeleteProgressVO getSpaceDeleteProgress(long spaceId, User loginUser);
 }
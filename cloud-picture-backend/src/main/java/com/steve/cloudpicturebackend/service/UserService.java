@@ -54,6 +54,14 @@ public interface UserService extends IService<User> {
      */
     User getLoginUser(HttpServletRequest request);
 
+    /**
+     * 获取当前登录用户（允许未登录，未登录时返回 null，不抛异常）
+     *
+     * @param request
+     * @return
+     */
+    User getLoginUserPermitNull(HttpServletRequest request);
+
     /**
      * 获得脱敏后的登陆用户信息
      *
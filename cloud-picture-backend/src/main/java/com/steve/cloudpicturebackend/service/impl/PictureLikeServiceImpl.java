@@ -11,4 +11,4 @@ import org.springframework.stereotype.Service;
  */
 @Service
 public class PictureLikeServiceImpl extends ServiceImpl<PictureLikeMapper, PictureLike> implements PictureLikeService {
-} 
\ No newline at end of file
+}
@@ -1,9 +1,16 @@
 package com.steve.cloudpicturebackend.service.impl;
 
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.codec.Base64;
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.convert.Convert;
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.lang.TypeReference;
 import cn.hutool.core.util.ObjUtil;
+import cn.hutool.core.util.ReUtil;
 import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.extra.servlet.ServletUtil;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
@@ -15,47 +22,83 @@ import com.steve.cloudpicturebackend.api.aliyunai.expand.model.CreateOutPainting
 import com.steve.cloudpicturebackend.api.aliyunai.txt2img.TxtToImgAliYunAiApi;
 import com.steve.cloudpicturebackend.api.aliyunai.txt2img.model.CreateTextToImageTaskRequest;
 import com.steve.cloudpicturebackend.api.aliyunai.txt2img.model.CreateTextToImageTaskResponse;
+import com.steve.cloudpicturebackend.common.CursorPage;
 import com.steve.cloudpicturebackend.exception.BusinessException;
 import com.steve.cloudpicturebackend.exception.ErrorCode;
 import com.steve.cloudpicturebackend.exception.ThrowUtils;
-import com.steve.cloudpicturebackend.manager.CosManager;
+import com.steve.cloudpicturebackend.manager.auth.SpaceUserAuthManager;
+import com.steve.cloudpicturebackend.manager.auth.model.SpaceUserPermissionConstant;
+import com.steve.cloudpicturebackend.manager.cache.EntityCacheManager;
+import com.steve.cloudpicturebackend.manager.cache.MultiLevelCacheManager;
+import com.steve.cloudpicturebackend.manager.counter.PictureCounterManager;
+import com.steve.cloudpicturebackend.manager.event.PictureEventPublisher;
+import com.steve.cloudpicturebackend.manager.feed.PublicPictureFeedManager;
+import com.steve.cloudpicturebackend.manager.like.PictureLikeManager;
+import com.steve.cloudpicturebackend.manager.loader.VoBatchLoader;
+import com.steve.cloudpicturebackend.manager.loader.VoBatchLoaderManager;
+import com.steve.cloudpicturebackend.manager.search.PictureSearchManager;
+import com.steve.cloudpicturebackend.manager.space.SpaceQuotaManager;
+import com.steve.cloudpicturebackend.manager.space.SpaceQuotaReservation;
+import com.steve.cloudpicturebackend.manager.space.SpaceUsageManager;
+import com.steve.cloudpicturebackend.manager.storage.StorageClient;
+import com.steve.cloudpicturebackend.manager.tag.PictureTagIndexManager;
+import com.steve.cloudpicturebackend.manager.trending.PictureTrendingManager;
+import com.steve.cloudpicturebackend.manager.view.PictureViewManager;
+import com.steve.cloudpicturebackend.manager.lock.DistributedLock;
+import com.steve.cloudpicturebackend.manager.lock.DistributedLockManager;
 import com.steve.cloudpicturebackend.manager.upload.FilePictureUpload;
+import com.steve.cloudpicturebackend.manager.upload.PictureFileManager;
+import com.steve.cloudpicturebackend.manager.upload.PictureMultipartUploadManager;
+import com.steve.cloudpicturebackend.manager.upload.PictureMultipartUploadSession;
 import com.steve.cloudpicturebackend.manager.upload.PictureUploadTemplate;
 import com.steve.cloudpicturebackend.manager.upload.UrlPictureUpload;
 import com.steve.cloudpicturebackend.mapper.PictureMapper;
 import com.steve.cloudpicturebackend.model.dto.file.UploadPictureResult;
 import com.steve.cloudpicturebackend.model.dto.picture.*;
 import com.steve.cloudpicturebackend.model.entity.Picture;
-import com.steve.cloudpicturebackend.model.entity.PictureLike;
+import com.steve.cloudpicturebackend.model.entity.PictureFile;
 import com.steve.cloudpicturebackend.model.entity.Space;
 import com.steve.cloudpicturebackend.model.entity.User;
+import com.steve.cloudpicturebackend.model.enums.PictureCounterTypeEnum;
+import com.steve.cloudpicturebackend.model.enums.PictureEventTypeEnum;
 import com.steve.cloudpicturebackend.model.enums.PictureReviewStatusEnum;
+import com.steve.cloudpicturebackend.model.enums.PictureSearchFieldEnum;
+import com.steve.cloudpicturebackend.model.enums.PictureSortFieldEnum;
+import com.steve.cloudpicturebackend.model.enums.SpaceStatusEnum;
+import com.steve.cloudpicturebackend.model.vo.PictureCardVO;
+import com.steve.cloudpicturebackend.model.vo.PictureMultipartUploadVO;
 import com.steve.cloudpicturebackend.model.vo.PictureVO;
-import com.steve.cloudpicturebackend.model.vo.UserVO;
 import com.steve.cloudpicturebackend.service.PictureService;
-import com.steve.cloudpicturebackend.service.PictureLikeService;
 import com.steve.cloudpicturebackend.service.SpaceService;
 import com.steve.cloudpicturebackend.service.UserService;
 import com.steve.cloudpicturebackend.utils.ColorSimilarUtils;
 import com.steve.cloudpicturebackend.utils.ColorTransformUtils;
+import com.steve.cloudpicturebackend.utils.PictureTagsJsonUtils;
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import java.awt.*;
 import java.io.IOException;
+import java.io.Serializable;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -78,7 +121,7 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
     private UrlPictureUpload urlPictureUpload;
 
     @Autowired
-    private CosManager cosManager;
+    private StorageClient storageClient;
 
     @Resource
     private SpaceService spaceService;
@@ -90,10 +133,199 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
     private ExpandAliYunAiApi expandAliYunAiApi;
 
     @Resource
-    private PictureLikeService pictureLikeService;
+    private ApplicationContext applicationContext;
 
     @Resource
-    private ApplicationContext applicationContext;
+    private MultiLevelCacheManager multiLevelCacheManager;
+
+    @Resource
+    private PublicPictureFeedManager publicPictureFeedManager;
+
+    @Resource
+    private EntityCacheManager entityCacheManager;
+
+    @Resource
+    private VoBatchLoaderManager voBatchLoaderManager;
+
+    @Resource
+    private PictureSearchManager pictureSearchManager;
+
+    @Resource
+    private PictureTagIndexManager pictureTagIndexManager;
+
+    @Resource
+    private PictureCounterManager pictureCounterManager;
+
+    @Resource
+    private PictureLikeManager pictureLikeManager;
+
+    @Resource
+    private PictureTrendingManager pictureTrendingManager;
+
+    @Resource
+    private PictureViewManager pictureViewManager;
+
+    @Resource
+    private PictureEventPublisher pictureEventPublisher;
+
+    @Resource
+    private SpaceUsageManager spaceUsageManager;
+
+    @Resource
+    private SpaceQuotaManager spaceQuotaManager;
+
+    @Resource
+    private PictureMultipartUploadManager pictureMultipartUploadManager;
+
+    @Resource
+    private DistributedLockManager distributedLockManager;
+
+    @Resource
+    private SpaceUserAuthManager spaceUserAuthManager;
+
+    @Resource
+    private PictureFileManager pictureFileManager;
+
+    /**
+     * 全文检索最多召回的图片数量，超过时改为在图片查询中对倒排索引做半连接
+     */
+    private static final int SEARCH_CANDIDATE_LIMIT = 1000;
+
+    /**
+     * 标签位图求交集后，结果不超过该数量时直接以 IN 条件查询，否则使用关系表半连接
+     */
+    private static final int TAG_BITMAP_IN_LIMIT = 10000;
+
+    /**
+     * “我的点赞”翻页时，因图片已删除或不再公开而被跳过的条目过多时，最多补查的轮数（每轮一次批量查询）
+     */
+    private static final int LIKED_PAGE_MAX_ROUNDS = 5;
+
+    /**
+     * 图片实体的缓存命名空间
+     */
+    private static final String PICTURE_ENTITY_CACHE_NAMESPACE = "picture";
+
+    /**
+     * 公共图库图片列表的缓存命名空间
+     */
+    private static final String PICTURE_FEED_CACHE_NAMESPACE = "picture_feed";
+
+    /**
+     * 卡片封装页在缓存条件中的标记（与完整封装页共用命名空间，需要区分 key）
+     */
+    private static final String PICTURE_CARD_CACHE_CONDITION = "cardView";
+
+    /**
+     * 首页物化索引可以处理的查询字段（分页、排序以及公共图库的固定条件）
+     */
+    private static final Set<String> PUBLIC_FEED_QUERY_FIELDS = new HashSet<>(Arrays.asList(
+            "current", "pageSize", "sortField", "sortOrder", "reviewStatus", "nullSpaceId"));
+
+    /**
+     * 卡片视图查询的字段（没有缩略图时用原图代替，避免额外查询 url 列）
+     */
+    private static final String[] PICTURE_CARD_COLUMNS = {"id", "COALESCE(thumbnailUrl, url) AS thumbnailUrl", "name",
+            "category", "tags", "picWidth", "picHeight", "picScale", "picColor", "spaceId", "userId",
+            "shareCount", "downloadCount", "likeCount"};
+
+    // region 实体缓存
+
+    /**
+     * 根据 id 获取图片（读穿透缓存）
+     */
+    @Override
+    public Picture getById(Serializable id) {
+        if (id == null) {
+            return null;
+        }
+        return entityCacheManager.get(PICTURE_ENTITY_CACHE_NAMESPACE, Convert.toLong(id), Picture.class,
+                pictureId -> super.getById(pictureId));
+    }
+
+    /**
+     * 绕过实体缓存直接查库获取图片（写操作前校验所有者、审核状态等关键字段时使用）
+     */
+    private Picture getPictureFromDb(Long pictureId) {
+        if (pictureId == null) {
+            return null;
+        }
+        return super.getById(pictureId);
+    }
+
+    @Override
+    public boolean updateById(Picture entity) {
+        boolean result = super.updateById(entity);
+        this.evictPictureCache(entity.getId());
+        this.indexPicture(entity, false);
+        return result;
+    }
+
+    @Override
+    public boolean saveOrUpdate(Picture entity) {
+        boolean isNew = entity.getId() == null;
+        boolean result = super.saveOrUpdate(entity);
+        this.evictPictureCache(entity.getId());
+        this.indexPicture(entity, isNew);
+        return result;
+    }
+
+    @Override
+    public boolean updateBatchById(Collection<Picture> entityList, int batchSize) {
+        boolean result = super.updateBatchById(entityList, batchSize);
+        entityList.forEach(picture -> {
+            this.evictPictureCache(picture.getId());
+            this.indexPicture(picture, false);
+        });
+        return result;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        this.evictPictureCache(Convert.toLong(id));
+        pictureSearchManager.removePicture(Convert.toLong(id));
+        pictureTagIndexManager.removePicture(Convert.toLong(id));
+        return result;
+    }
+
+    /**
+     * 清理图片实体缓存（通过 lambdaUpdate 等方式直接更新数据库时需要手动调用）
+     */
+    private void evictPictureCache(Long pictureId) {
+        entityCacheManager.evict(PICTURE_ENTITY_CACHE_NAMESPACE, pictureId);
+    }
+
+    /**
+     * 更新图片的全文检索索引和标签索引（只处理本次写入的字段）
+     *
+     * @param picture 写入的图片
+     * @param isNew   是否为新增
+     */
+    private void indexPicture(Picture picture, boolean isNew) {
+        boolean textChanged = picture.getName() != null || picture.getIntroduction() != null;
+        boolean tagsChanged = picture.getTags() != null;
+        if (!textChanged && !tagsChanged) {
+            return;
+        }
+        // 部分更新时实体中可能没有空间 id，需要查询完整的图片
+        Long spaceId = picture.getSpaceId();
+        if (spaceId == null && !isNew) {
+            Picture dbPicture = this.getById(picture.getId());
+            if (dbPicture == null) {
+                return;
+            }
+            spaceId = dbPicture.getSpaceId();
+        }
+        if (textChanged) {
+            pictureSearchManager.indexPicture(picture.getId(), spaceId, picture.getName(), picture.getIntroduction());
+        }
+        if (tagsChanged) {
+            pictureTagIndexManager.indexPicture(picture.getId(), spaceId, picture.getTags());
+        }
+    }
+
+    // endregion
 
     @Override
     public void validPicture(Picture picture) {
@@ -121,27 +353,20 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
 
         Long spaceId = pictureUploadRequest.getSpaceId();
         if (spaceId != null) {
-            Space space = spaceService.getById(spaceId);
+            Space space = spaceService.getByIdFromDb(spaceId);
             ThrowUtils.throwIf(space == null, ErrorCode.NOT_FOUND_ERROR, "空间不存在");
             // 改为使用统一的权限校验
 //            // 校验是否有空间的权限，仅空间管理员才能上传
 //            if (!loginUser.getId().equals(space.getUserId())) {
 //                throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "没有空间权限");
 //            }
-            // 校验额度
-            if (space.getTotalCount() >= space.getMaxCount()) {
-                throw new BusinessException(ErrorCode.OPERATION_ERROR, "空间条数不足");
-            }
-            if (space.getTotalSize() >= space.getMaxSize()) {
-                throw new BusinessException(ErrorCode.OPERATION_ERROR, "空间大小不足");
-            }
         }
         // 判断是新增还是删除
         Long pictureId = null;
         if (pictureUploadRequest != null) {
             pictureId = pictureUploadRequest.getId();
         }
-        Picture oldPicture = this.getById(pictureId);
+        Picture oldPicture = this.getPictureFromDb(pictureId);
         // 如果是更新，判断图片是否存在
         if (pictureId != null) {
             ThrowUtils.throwIf(oldPicture == null, ErrorCode.NOT_FOUND_ERROR, "图片不存在");
@@ -150,34 +375,327 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
 //                throw new BusinessException(ErrorCode.NO_AUTH_ERROR);
 //            }
             // 校验空间是否一致
-            // 没传 spaceId，则复用原有图片的 spaceId（这样也兼容了公共图库）
-            if (spaceId == null) {
-                if (oldPicture.getSpaceId() != null) {
-                    spaceId = oldPicture.getSpaceId();
-                }
+            spaceId = resolveUploadSpaceId(spaceId, oldPicture);
+        }
+        // 预占空间额度：上传前只知道大小上限，写库时按实际大小计入已用额度，替换已有图片不占用数量
+        SpaceQuotaReservation reservation = null;
+        if (spaceId != null) {
+            Space space = getUploadSpace(spaceId);
+            long reserveSize = estimateUploadSize(inputSource);
+            if (oldPicture != null && oldPicture.getPicSize() != null) {
+                reserveSize = Math.max(reserveSize - oldPicture.getPicSize(), 0);
+            }
+            reservation = spaceQuotaManager.reserve(space, reserveSize, oldPicture == null ? 1 : 0);
+        }
+        boolean success = false;
+        try {
+            PictureVO pictureVO = this.doUploadPicture(inputSource, pictureUploadRequest, loginUser, spaceId, pictureId, oldPicture);
+            success = true;
+            return pictureVO;
+        } finally {
+            // 写库成功（事务已提交）后提交预占，否则释放
+            if (success) {
+                spaceQuotaManager.commit(reservation);
             } else {
-                // 传了 spaceId，必须和原图片的空间 id 一致
-                if (ObjUtil.notEqual(spaceId, oldPicture.getSpaceId())) {
-                    throw new BusinessException(ErrorCode.PARAMS_ERROR, "空间 id 不一致");
+                spaceQuotaManager.release(reservation);
+            }
+        }
+    }
+
+    /**
+     * 按内容哈希秒传图片
+     * <p>
+     * 客户端先在本地计算文件的 SHA-256，命中索引时直接复用已有文件写库，不传输任何内容；
+     * 未命中时返回 null，客户端再走正常上传。
+     * 只凭哈希无法证明客户端持有文件，因此只复用目标空间中或公共图库中已过审的图片引用的文件，
+     * 其他文件按未命中处理，避免借此探测、获取其他空间的私有文件
+     */
+    @Override
+    public PictureVO uploadPictureByHash(PictureUploadByHashRequest uploadByHashRequest, User loginUser) {
+        ThrowUtils.throwIf(uploadByHashRequest == null, ErrorCode.PARAMS_ERROR);
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        String sha256 = StrUtil.trim(uploadByHashRequest.getSha256());
+        ThrowUtils.throwIf(!ReUtil.isMatch("[0-9a-fA-F]{64}", StrUtil.nullToEmpty(sha256)),
+                ErrorCode.PARAMS_ERROR, "文件哈希不合法");
+        sha256 = sha256.toLowerCase();
+        Long spaceId = uploadByHashRequest.getSpaceId();
+        Long pictureId = uploadByHashRequest.getId();
+        Picture oldPicture = null;
+        if (pictureId != null) {
+            oldPicture = this.getPictureFromDb(pictureId);
+            ThrowUtils.throwIf(oldPicture == null, ErrorCode.NOT_FOUND_ERROR, "图片不存在");
+            spaceId = resolveUploadSpaceId(spaceId, oldPicture);
+        }
+        PictureFile pictureFile = pictureFileManager.getByHash(sha256);
+        if (pictureFile == null || !isPictureFileReusable(pictureFile, spaceId)) {
+            return null;
+        }
+        // 文件大小已知，按实际大小预占空间额度
+        SpaceQuotaReservation reservation = null;
+        if (spaceId != null) {
+            Space space = getUploadSpace(spaceId);
+            long reserveSize = ObjUtil.defaultIfNull(pictureFile.getPicSize(), 0L);
+            if (oldPicture != null && oldPicture.getPicSize() != null) {
+                reserveSize = Math.max(reserveSize - oldPicture.getPicSize(), 0);
+            }
+            reservation = spaceQuotaManager.reserve(space, reserveSize, oldPicture == null ? 1 : 0);
+        }
+        UploadPictureResult uploadPictureResult = new UploadPictureResult();
+        uploadPictureResult.setUrl(pictureFile.getUrl());
+        uploadPictureResult.setThumbnailUrl(pictureFile.getThumbnailUrl());
+        uploadPictureResult.setPicName(sha256.substring(0, 16));
+        uploadPictureResult.setPicSize(pictureFile.getPicSize());
+        uploadPictureResult.setPicWidth(ObjUtil.defaultIfNull(pictureFile.getPicWidth(), 0));
+        uploadPictureResult.setPicHeight(ObjUtil.defaultIfNull(pictureFile.getPicHeight(), 0));
+        uploadPictureResult.setPicScale(pictureFile.getPicScale());
+        uploadPictureResult.setPicFormat(pictureFile.getPicFormat());
+        uploadPictureResult.setPicColor(pictureFile.getPicColor());
+        uploadPictureResult.setSha256(sha256);
+        uploadPictureResult.setInstant(true);
+        PictureUploadRequest pictureUploadRequest = new PictureUploadRequest();
+        pictureUploadRequest.setPicName(uploadByHashRequest.getPicName());
+        boolean success = false;
+        try {
+            PictureVO pictureVO = this.savePicture(uploadPictureResult, pictureUploadRequest, loginUser,
+                    spaceId, pictureId, oldPicture);
+            success = true;
+            return pictureVO;
+        } finally {
+            if (success) {
+                spaceQuotaManager.commit(reservation);
+            } else {
+                spaceQuotaManager.release(reservation);
+            }
+        }
+    }
+
+    /**
+     * 文件是否已被目标空间（或公共图库中已过审）的图片引用，调用方对这些图片本来就有访问权限
+     *
+     * @param pictureFile 文件
+     * @param spaceId     目标空间 id，为空表示公共图库
+     */
+    private boolean isPictureFileReusable(PictureFile pictureFile, Long spaceId) {
+        return this.lambdaQuery()
+                .eq(Picture::getUrl, pictureFile.getUrl())
+                .and(qw -> {
+                    if (spaceId != null) {
+                        qw.eq(Picture::getSpaceId, spaceId).or();
+                    }
+                    qw.isNull(Picture::getSpaceId)
+                            .eq(Picture::getReviewStatus, PictureReviewStatusEnum.PASS.getValue());
+                })
+                .exists();
+    }
+
+    @Override
+    public PictureMultipartUploadVO initMultipartUpload(PictureMultipartUploadInitRequest initRequest, User loginUser) {
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        ThrowUtils.throwIf(initRequest == null, ErrorCode.PARAMS_ERROR);
+        pictureMultipartUploadManager.validFile(initRequest.getFileName(), initRequest.getFileSize());
+        Long spaceId = initRequest.getSpaceId();
+        Long pictureId = initRequest.getId();
+        Picture oldPicture = null;
+        if (pictureId != null) {
+            oldPicture = this.getPictureFromDb(pictureId);
+            ThrowUtils.throwIf(oldPicture == null, ErrorCode.NOT_FOUND_ERROR, "图片不存在");
+            spaceId = resolveUploadSpaceId(spaceId, oldPicture);
+        }
+        // 按声明的文件大小预占空间额度，有效期覆盖整个上传会话
+        SpaceQuotaReservation reservation = null;
+        if (spaceId != null) {
+            Space space = getUploadSpace(spaceId);
+            long reserveSize = initRequest.getFileSize();
+            if (oldPicture != null && oldPicture.getPicSize() != null) {
+                reserveSize = Math.max(reserveSize - oldPicture.getPicSize(), 0);
+            }
+            reservation = spaceQuotaManager.reserve(space, reserveSize, oldPicture == null ? 1 : 0,
+                    pictureMultipartUploadManager.getSessionTimeoutMillis());
+        }
+        PictureMultipartUploadSession session = new PictureMultipartUploadSession();
+        session.setUserId(loginUser.getId());
+        session.setSpaceId(spaceId);
+        session.setPictureId(pictureId);
+        session.setPicName(initRequest.getPicName());
+        session.setFileName(initRequest.getFileName());
+        session.setFileSize(initRequest.getFileSize());
+        session.setReservation(reservation);
+        try {
+            session = pictureMultipartUploadManager.createSession(session, getUploadPathPrefix(spaceId, loginUser));
+        } catch (Exception e) {
+            spaceQuotaManager.release(reservation);
+            log.error("init picture multipart upload error", e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传初始化失败");
+        }
+        return getMultipartUploadVO(session);
+    }
+
+    @Override
+    public PictureMultipartUploadVO uploadMultipartPart(String uploadId, int partNumber, MultipartFile multipartFile,
+                                                        User loginUser) {
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        PictureMultipartUploadSession session = pictureMultipartUploadManager.getSession(uploadId, loginUser.getId());
+        checkMultipartUploadAuth(session, loginUser);
+        pictureMultipartUploadManager.uploadPart(session, partNumber, multipartFile);
+        return getMultipartUploadVO(session);
+    }
+
+    @Override
+    public PictureMultipartUploadVO getMultipartUpload(String uploadId, User loginUser) {
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        PictureMultipartUploadSession session = pictureMultipartUploadManager.getSession(uploadId, loginUser.getId());
+        checkMultipartUploadAuth(session, loginUser);
+        return getMultipartUploadVO(session);
+    }
+
+    @Override
+    public PictureVO completeMultipartUpload(String uploadId, User loginUser) {
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        // 同一会话只能完成一次
+        DistributedLock lock = distributedLockManager.tryLock("picture:multipart:" + uploadId, 0, TimeUnit.MILLISECONDS);
+        ThrowUtils.throwIf(lock == null, ErrorCode.OPERATION_ERROR, "正在完成上传，请勿重复提交");
+        try {
+            PictureMultipartUploadSession session = pictureMultipartUploadManager.getSession(uploadId, loginUser.getId());
+            // 会话有效期较长，写库前重新校验空间权限（期间可能被移出团队空间或空间正在删除）
+            checkMultipartUploadAuth(session, loginUser);
+            Picture oldPicture = null;
+            if (session.getPictureId() != null) {
+                oldPicture = this.getPictureFromDb(session.getPictureId());
+                ThrowUtils.throwIf(oldPicture == null, ErrorCode.NOT_FOUND_ERROR, "图片不存在");
+            }
+            // 合并分块失败时保留会话，客户端可以重试（图片本身不合法时会话已被取消、额度已释放）
+            UploadPictureResult uploadPictureResult = pictureMultipartUploadManager.complete(session);
+            PictureUploadRequest pictureUploadRequest = new PictureUploadRequest();
+            pictureUploadRequest.setId(session.getPictureId());
+            pictureUploadRequest.setSpaceId(session.getSpaceId());
+            pictureUploadRequest.setPicName(session.getPicName());
+            boolean success = false;
+            try {
+                PictureVO pictureVO = this.savePicture(uploadPictureResult, pictureUploadRequest, loginUser,
+                        session.getSpaceId(), session.getPictureId(), oldPicture);
+                success = true;
+                return pictureVO;
+            } finally {
+                // 分块已经合并，会话不能再使用
+                pictureMultipartUploadManager.removeSession(uploadId);
+                if (success) {
+                    spaceQuotaManager.commit(session.getReservation());
+                } else {
+                    spaceQuotaManager.release(session.getReservation());
                 }
             }
+        } finally {
+            lock.unlock();
         }
-        // 上传图片，得到图片信息
-        // 按照用户 id 划分目录 => 按照空间划分目录
-        String uploadPathPrefix;
+    }
+
+    @Override
+    public void abortMultipartUpload(String uploadId, User loginUser) {
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        PictureMultipartUploadSession session = pictureMultipartUploadManager.getSession(uploadId, loginUser.getId());
+        pictureMultipartUploadManager.abort(session);
+        spaceQuotaManager.release(session.getReservation());
+    }
+
+    /**
+     * 校验当前用户仍有会话所属空间的上传权限
+     * <p>
+     * 分块上传的后续请求只携带会话 id，无法通过注解按空间鉴权，在此按会话中的空间校验；
+     * 取消上传只校验会话归属，失去权限后仍可以取消并释放额度
+     */
+    private void checkMultipartUploadAuth(PictureMultipartUploadSession session, User loginUser) {
+        if (session.getSpaceId() == null) {
+            return;
+        }
+        Space space = getUploadSpace(session.getSpaceId());
+        List<String> permissionList = spaceUserAuthManager.getPermissionList(space, loginUser);
+        ThrowUtils.throwIf(!permissionList.contains(SpaceUserPermissionConstant.PICTURE_UPLOAD),
+                ErrorCode.NO_AUTH_ERROR, "没有空间权限");
+    }
+
+    /**
+     * 获取分块上传会话的封装（包含已上传的分块，用于断点续传）
+     */
+    private PictureMultipartUploadVO getMultipartUploadVO(PictureMultipartUploadSession session) {
+        PictureMultipartUploadVO pictureMultipartUploadVO = new PictureMultipartUploadVO();
+        pictureMultipartUploadVO.setUploadId(session.getUploadId());
+        pictureMultipartUploadVO.setPartSize(session.getPartSize());
+        pictureMultipartUploadVO.setPartCount(session.getPartCount());
+        pictureMultipartUploadVO.setUploadedPartNumbers(
+                pictureMultipartUploadManager.listUploadedPartNumbers(session.getUploadId()));
+        pictureMultipartUploadVO.setExpireTime(new Date(session.getExpireAt()));
+        return pictureMultipartUploadVO;
+    }
+
+    /**
+     * 替换已有图片时确定图片所在的空间：没传 spaceId 则复用原有图片的 spaceId（这样也兼容了公共图库），
+     * 传了则必须和原图片的空间 id 一致
+     */
+    private static Long resolveUploadSpaceId(Long spaceId, Picture oldPicture) {
+        if (spaceId == null) {
+            return oldPicture.getSpaceId();
+        }
+        if (ObjUtil.notEqual(spaceId, oldPicture.getSpaceId())) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "空间 id 不一致");
+        }
+        return spaceId;
+    }
+
+    /**
+     * 获取上传的目标空间（空间必须存在且不在删除中）
+     */
+    private Space getUploadSpace(Long spaceId) {
+        Space space = spaceService.getByIdFromDb(spaceId);
+        ThrowUtils.throwIf(space == null, ErrorCode.NOT_FOUND_ERROR, "空间不存在");
+        ThrowUtils.throwIf(ObjUtil.equal(space.getStatus(), SpaceStatusEnum.DELETING.getValue()),
+                ErrorCode.OPERATION_ERROR, "空间正在删除中");
+        return space;
+    }
+
+    /**
+     * 上传路径前缀：按照用户 id 划分目录 => 按照空间划分目录
+     */
+    private static String getUploadPathPrefix(Long spaceId, User loginUser) {
         if (spaceId == null) {
             // 公共图库
-            uploadPathPrefix = String.format("public/%s", loginUser.getId());
-        } else {
-            // 空间
-            uploadPathPrefix = String.format("space/%s", spaceId);
+            return String.format("public/%s", loginUser.getId());
         }
+        // 空间
+        return String.format("space/%s", spaceId);
+    }
+
+    /**
+     * 预估上传文件的大小上限，用于预占空间额度
+     */
+    private static long estimateUploadSize(Object inputSource) {
+        if (inputSource instanceof MultipartFile) {
+            return Math.min(((MultipartFile) inputSource).getSize(), PictureUploadTemplate.MAX_PICTURE_SIZE);
+        }
+        // URL 上传在下载前无法确定大小，按上限预占
+        return PictureUploadTemplate.MAX_PICTURE_SIZE;
+    }
+
+    /**
+     * 上传图片文件并写库（空间额度已预占）
+     */
+    private PictureVO doUploadPicture(Object inputSource, PictureUploadRequest pictureUploadRequest, User loginUser,
+                                      Long spaceId, Long pictureId, Picture oldPicture) {
+        // 上传图片，得到图片信息
+        String uploadPathPrefix = getUploadPathPrefix(spaceId, loginUser);
         // 根据 inputSource 的类型区分上传方式
         PictureUploadTemplate pictureUploadTemplate = filePictureUpload;
         if (inputSource instanceof String) {
             pictureUploadTemplate = urlPictureUpload;
         }
         UploadPictureResult uploadPictureResult = pictureUploadTemplate.uploadPicture(inputSource, uploadPathPrefix);
+        return this.savePicture(uploadPictureResult, pictureUploadRequest, loginUser, spaceId, pictureId, oldPicture);
+    }
+
+    /**
+     * 根据上传结果写库（新增或替换已有图片）并同步公共图库、发布事件
+     */
+    private PictureVO savePicture(UploadPictureResult uploadPictureResult, PictureUploadRequest pictureUploadRequest,
+                                  User loginUser, Long spaceId, Long pictureId, Picture oldPicture) {
         // 构造要入库的图片信息
         Picture picture = new Picture();
         picture.setSpaceId(spaceId); // 指定空间 id
@@ -210,167 +728,772 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         if (pictureId != null) {
             // 如果是更新
             transactionTemplate.execute(status -> {
+                // 登记文件引用，内容相同的文件已存在时改用已有文件
+                this.attachPictureFile(uploadPictureResult, picture);
                 // 插入数据
                 boolean result = this.saveOrUpdate(picture);
                 ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "图片上传失败，数据库操作失败");
                 if (finalSpaceId != null) {
-                    // 更新空间的使用额度
-                    boolean update = spaceService.lambdaUpdate()
-                            .eq(Space::getId, finalSpaceId)
-                            .setSql("totalSize = totalSize + " + picture.getPicSize() + "-" + oldPicture.getPicSize())
-                            .update();
-                    ThrowUtils.throwIf(!update, ErrorCode.OPERATION_ERROR, "额度更新失败");
+                    // 更新空间的使用额度（写入分片计数，避免并发上传争抢空间行锁）
+                    spaceUsageManager.addUsage(finalSpaceId,
+                            ObjUtil.defaultIfNull(picture.getPicSize(), 0L) - ObjUtil.defaultIfNull(oldPicture.getPicSize(), 0L), 0);
                 }
                 this.clearPictureFile(oldPicture);
                 return picture;
             });
+            publicPictureFeedManager.syncPicture(pictureId, finalSpaceId, picture.getReviewStatus(), oldPicture.getCreateTime());
+            this.invalidatePictureFeedCache(picture);
+            pictureEventPublisher.publish(PictureEventTypeEnum.EDIT, pictureId, finalSpaceId, picture.getReviewStatus(),
+                    loginUser.getId(), 1, null);
             return PictureVO.objToVo(picture);
         } else {
             // 如果是新增
             transactionTemplate.execute(status -> {
+                // 登记文件引用，内容相同的文件已存在时改用已有文件
+                this.attachPictureFile(uploadPictureResult, picture);
                 // 插入数据
                 boolean result = this.saveOrUpdate(picture);
                 ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "图片上传失败，数据库操作失败");
                 if (finalSpaceId != null) {
-                    // 更新空间的使用额度
-                    boolean update = spaceService.lambdaUpdate()
-                            .eq(Space::getId, finalSpaceId)
-                            .setSql("totalSize = totalSize + " + picture.getPicSize())
-                            .setSql("totalCount = totalCount + 1")
-                            .update();
-                    ThrowUtils.throwIf(!update, ErrorCode.OPERATION_ERROR, "额度更新失败");
+                    // 更新空间的使用额度（写入分片计数，避免并发上传争抢空间行锁）
+                    spaceUsageManager.addUsage(finalSpaceId, ObjUtil.defaultIfNull(picture.getPicSize(), 0L), 1);
                 }
                 return picture;
             });
+            publicPictureFeedManager.syncPicture(picture.getId(), finalSpaceId, picture.getReviewStatus(), picture.getCreateTime());
+            this.invalidatePictureFeedCache(picture);
+            pictureEventPublisher.publish(PictureEventTypeEnum.UPLOAD, picture.getId(), finalSpaceId, picture.getReviewStatus(),
+                    loginUser.getId(), 1, null);
             return PictureVO.objToVo(picture);
         }
     }
 
-    @Override
-    public PictureVO uploadAvatar(Object inputSource, PictureUploadRequest pictureUploadRequest, User loginUser) {
-        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
-        // 用于判断是新增还是更新图片
-        Long pictureId = null;
-        if (pictureUploadRequest != null) {
-            pictureId = pictureUploadRequest.getId();
+    /**
+     * 在内容哈希索引中登记图片引用的文件（需在写库事务中调用）
+     * <p>
+     * 秒传时为已有文件增加引用；正常上传时登记刚上传的文件，若相同内容的文件已存在，
+     * 图片改用已有文件，刚上传的文件在事务结束后删除。分块上传未能计算摘要时不登记
+     */
+    private void attachPictureFile(UploadPictureResult uploadPictureResult, Picture picture) {
+        if (StrUtil.isBlank(uploadPictureResult.getSha256())) {
+            return;
+        }
+        if (uploadPictureResult.isInstant()) {
+            PictureFile pictureFile = pictureFileManager.acquire(uploadPictureResult.getSha256());
+            ThrowUtils.throwIf(pictureFile == null, ErrorCode.NOT_FOUND_ERROR, "文件已被删除，请重新上传");
+            return;
+        }
+        PictureFile pictureFile = pictureFileManager.register(uploadPictureResult);
+        if (pictureFile == null || ObjUtil.equal(pictureFile.getUrl(), uploadPictureResult.getUrl())) {
+            return;
+        }
+        picture.setUrl(pictureFile.getUrl());
+        picture.setThumbnailUrl(pictureFile.getThumbnailUrl());
+        picture.setPicSize(pictureFile.getPicSize());
+        picture.setPicWidth(pictureFile.getPicWidth());
+        picture.setPicHeight(pictureFile.getPicHeight());
+        picture.setPicScale(pictureFile.getPicScale());
+        picture.setPicFormat(pictureFile.getPicFormat());
+        picture.setPicColor(ColorTransformUtils.expandHexColor(pictureFile.getPicColor()));
+        Picture uploadedPicture = new Picture();
+        uploadedPicture.setUrl(uploadPictureResult.getUrl());
+        uploadedPicture.setThumbnailUrl(uploadPictureResult.getThumbnailUrl());
+        List<String> keyList = getPictureFileKeys(uploadedPicture);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                storageClient.deleteObjects(keyList);
+            }
+        });
+    }
+
+    @Override
+    public PictureVO uploadAvatar(Object inputSource, PictureUploadRequest pictureUploadRequest, User loginUser) {
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
+        // 用于判断是新增还是更新图片
+        Long pictureId = null;
+        if (pictureUploadRequest != null) {
+            pictureId = pictureUploadRequest.getId();
+        }
+        Picture oldPicture = this.getPictureFromDb(pictureId);
+        // 如果是更新图片，需要校验图片是否存在
+        if (pictureId != null) {
+            boolean exists = this.lambdaQuery()
+                    .eq(Picture::getId, pictureId)
+                    .exists();
+            ThrowUtils.throwIf(!exists, ErrorCode.NOT_FOUND_ERROR, "图片不存在");
+        }
+        // 上传图片，得到信息
+        // 按照用户 id 划分目录
+        PictureUploadTemplate pictureUploadTemplate = filePictureUpload;
+        String uploadPathPrefix = String.format("avatar/%s", loginUser.getId());
+        UploadPictureResult uploadPictureResult = pictureUploadTemplate.uploadPicture(inputSource, uploadPathPrefix);
+        // 构造要入库的图片信息
+        Picture picture = new Picture();
+        picture.setUrl(uploadPictureResult.getUrl());
+        picture.setName(uploadPictureResult.getPicName());
+        picture.setPicSize(uploadPictureResult.getPicSize());
+        picture.setPicWidth(uploadPictureResult.getPicWidth());
+        picture.setPicHeight(uploadPictureResult.getPicHeight());
+        picture.setPicScale(uploadPictureResult.getPicScale());
+        picture.setPicFormat(uploadPictureResult.getPicFormat());
+        picture.setUserId(loginUser.getId());
+        picture.setThumbnailUrl(uploadPictureResult.getThumbnailUrl());
+        // 如果 pictureId 不为空，表示更新，否则是新增
+        if (pictureId != null) {
+            // 如果是更新，需要补充 id 和编辑时间
+            picture.setId(pictureId);
+            picture.setEditTime(new Date());
+            this.clearPictureFile(oldPicture);
+        }
+        boolean result = this.saveOrUpdate(picture);
+        // 从数据库中删除这个图片
+        if(result) {
+            this.removeById(picture.getId());
+        }
+        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "图片上传失败");
+        return PictureVO.objToVo(picture);
+    }
+
+
+    @Override
+    public PictureVO getPictureVO(Picture picture, HttpServletRequest request) {
+        // 对象转封装类
+        PictureVO pictureVO = PictureVO.objToVo(picture);
+        // 关联查询用户信息和点赞状态
+        this.fillPictureVOList(Collections.singletonList(pictureVO), request);
+        return pictureVO;
+    }
+
+    /**
+     * 记录图片浏览（登录用户按用户 id 去重，未登录用户按 IP + UA 指纹去重）
+     */
+    @Override
+    public void recordPictureView(Picture picture, HttpServletRequest request) {
+        if (picture == null) {
+            return;
+        }
+        // 登录用户按用户 id 去重，未登录用户按 IP 和 User-Agent 生成的指纹去重
+        User loginUser = userService.getLoginUserPermitNull(request);
+        String visitorKey = loginUser != null
+                ? "u:" + loginUser.getId()
+                : "a:" + DigestUtil.md5Hex(ServletUtil.getClientIP(request) + "|" + request.getHeader("User-Agent"));
+        pictureEventPublisher.publishView(picture, loginUser == null ? null : loginUser.getId(), visitorKey);
+    }
+
+    /**
+     * 分页获取图片封装
+     */
+    @Override
+    public Page<PictureVO> getPictureVOPage(Page<Picture> picturePage, HttpServletRequest request) {
+        List<Picture> pictureList = picturePage.getRecords();
+        Page<PictureVO> pictureVOPage = new Page<>(picturePage.getCurrent(), picturePage.getSize(), picturePage.getTotal());
+        if (CollUtil.isEmpty(pictureList)) {
+            return pictureVOPage;
+        }
+        pictureVOPage.setRecords(this.getPictureVOList(pictureList, request));
+        return pictureVOPage;
+    }
+
+    @Override
+    public Page<PictureVO> listPictureVOByPageWithCache(PictureQueryRequest pictureQueryRequest, HttpServletRequest request) {
+        ThrowUtils.throwIf(pictureQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        this.normalizePictureQueryRequest(pictureQueryRequest);
+        // 缓存中只保存与用户无关的数据，点赞状态在读取后单独填充
+        Map<String, Object> condition = BeanUtil.beanToMap(pictureQueryRequest, false, true);
+        Page<PictureVO> pictureVOPage = multiLevelCacheManager.get(PICTURE_FEED_CACHE_NAMESPACE, condition,
+                new TypeReference<Page<PictureVO>>() {
+                }, () -> this.getCacheablePictureVOPage(this.pagePublicPicture(pictureQueryRequest, false)));
+        this.fillPictureLikeStatus(pictureVOPage.getRecords(), request);
+        this.fillCachedPictureCounts(pictureVOPage.getRecords());
+        return pictureVOPage;
+    }
+
+    @Override
+    public Page<PictureCardVO> listPictureCardVOByPage(PictureQueryRequest pictureQueryRequest, HttpServletRequest request) {
+        ThrowUtils.throwIf(pictureQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        this.normalizePictureQueryRequest(pictureQueryRequest);
+        Page<PictureCardVO> pictureCardVOPage;
+        if (pictureQueryRequest.getSpaceId() == null) {
+            // 公共图库与完整封装类共用缓存命名空间，图片变更时一起失效
+            Map<String, Object> condition = BeanUtil.beanToMap(pictureQueryRequest, false, true);
+            condition.put(PICTURE_CARD_CACHE_CONDITION, true);
+            pictureCardVOPage = multiLevelCacheManager.get(PICTURE_FEED_CACHE_NAMESPACE, condition,
+                    new TypeReference<Page<PictureCardVO>>() {
+                    }, () -> {
+                        Page<PictureCardVO> cacheablePage = this.getPictureCardVOPage(this.pagePublicPicture(pictureQueryRequest, true));
+                        // 计数变化频繁，不放入缓存，读取缓存后从计数器中填充
+                        cacheablePage.getRecords().forEach(pictureCardVO -> {
+                            pictureCardVO.setDownloadCount(null);
+                            pictureCardVO.setShareCount(null);
+                            pictureCardVO.setLikeCount(null);
+                        });
+                        return cacheablePage;
+                    });
+            this.fillCachedPictureCardCounts(pictureCardVOPage.getRecords());
+        } else {
+            QueryWrapper<Picture> queryWrapper = this.getQueryWrapper(pictureQueryRequest).select(PICTURE_CARD_COLUMNS);
+            Page<Picture> picturePage = this.page(new Page<>(pictureQueryRequest.getCurrent(), pictureQueryRequest.getPageSize()),
+                    queryWrapper);
+            pictureCardVOPage = this.getPictureCardVOPage(picturePage);
+        }
+        // 点赞状态与用户有关，不放入缓存
+        List<PictureCardVO> pictureCardVOList = pictureCardVOPage.getRecords();
+        if (CollUtil.isNotEmpty(pictureCardVOList)) {
+            VoBatchLoader loader = voBatchLoaderManager.getLoader(request);
+            pictureCardVOList.forEach(pictureCardVO -> loader.enqueuePictureLike(pictureCardVO.getId()));
+            pictureCardVOList.forEach(pictureCardVO -> pictureCardVO.setIsLiked(loader.isPictureLiked(pictureCardVO.getId())));
+            if (pictureQueryRequest.getSpaceId() != null) {
+                this.mergePendingCardCounts(pictureCardVOList);
+            }
+        }
+        return pictureCardVOPage;
+    }
+
+    @Override
+    public List<PictureVO> listTrendingPictureVO(int size, HttpServletRequest request) {
+        List<Long> pictureIdList = pictureTrendingManager.listTopPictureIds(size);
+        if (pictureIdList.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // 一次批量查询，再按热度顺序排列；已经删除或不再公开的图片顺便从排行中移除
+        Map<Long, Picture> pictureMap = this.listByIds(pictureIdList).stream()
+                .collect(Collectors.toMap(Picture::getId, picture -> picture));
+        List<Picture> pictureList = new ArrayList<>();
+        List<Long> staleIdList = new ArrayList<>();
+        for (Long pictureId : pictureIdList) {
+            Picture picture = pictureMap.get(pictureId);
+            if (picture == null || picture.getSpaceId() != null
+                    || !ObjUtil.equals(picture.getReviewStatus(), PictureReviewStatusEnum.PASS.getValue())) {
+                staleIdList.add(pictureId);
+                continue;
+            }
+            pictureList.add(picture);
+        }
+        pictureTrendingManager.removePictures(staleIdList);
+        return this.getPictureVOList(pictureList, request);
+    }
+
+    @Override
+    public CursorPage<PictureVO> listLikedPictureVOByCursor(PictureQueryRequest pictureQueryRequest, User loginUser,
+                                                           HttpServletRequest request) {
+        int size = (int) pictureQueryRequest.getPageSize();
+        ThrowUtils.throwIf(size <= 0, ErrorCode.PARAMS_ERROR);
+        Long lastLikeTime = null;
+        Long lastPictureId = null;
+        String cursor = pictureQueryRequest.getCursor();
+        if (StrUtil.isNotBlank(cursor)) {
+            JSONObject jsonObject;
+            try {
+                jsonObject = JSONUtil.parseObj(Base64.decodeStr(cursor));
+            } catch (Exception e) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标不合法");
+            }
+            lastLikeTime = jsonObject.getLong("t");
+            lastPictureId = jsonObject.getLong("id");
+            ThrowUtils.throwIf(lastLikeTime == null || lastPictureId == null, ErrorCode.PARAMS_ERROR, "游标不合法");
+        }
+        List<Picture> pictureList = new ArrayList<>();
+        boolean hasMore = false;
+        // 按点赞时间倒序从索引中取 id，每轮一次批量查询；已删除或移入私有空间的图片直接跳过，游标仍然前进
+        for (int round = 0; round < LIKED_PAGE_MAX_ROUNDS && pictureList.size() < size; round++) {
+            int fetchCount = size - pictureList.size() + 1;
+            List<ZSetOperations.TypedTuple<String>> tupleList = pictureLikeManager.listLikedPictures(
+                    loginUser.getId(), lastLikeTime, lastPictureId, fetchCount);
+            if (tupleList.isEmpty()) {
+                hasMore = false;
+                break;
+            }
+            List<Long> pictureIdList = tupleList.stream()
+                    .map(tuple -> Long.valueOf(tuple.getValue()))
+                    .collect(Collectors.toList());
+            Map<Long, Picture> pictureMap = this.listByIds(pictureIdList).stream()
+                    .collect(Collectors.toMap(Picture::getId, picture -> picture));
+            hasMore = tupleList.size() == fetchCount;
+            for (ZSetOperations.TypedTuple<String> tuple : tupleList) {
+                if (pictureList.size() == size) {
+                    // 本页已满，剩余的条目留给下一页
+                    hasMore = true;
+                    break;
+                }
+                lastLikeTime = tuple.getScore() == null ? 0L : tuple.getScore().longValue();
+                lastPictureId = Long.valueOf(tuple.getValue());
+                Picture picture = pictureMap.get(lastPictureId);
+                if (picture == null || picture.getSpaceId() != null
+                        || !ObjUtil.equals(picture.getReviewStatus(), PictureReviewStatusEnum.PASS.getValue())) {
+                    continue;
+                }
+                pictureList.add(picture);
+            }
+            if (!hasMore) {
+                break;
+            }
+        }
+        CursorPage<PictureVO> pictureVOPage = new CursorPage<>(size);
+        pictureVOPage.setRecords(this.getPictureVOList(pictureList, request));
+        pictureVOPage.setHasMore(hasMore);
+        if (hasMore && lastPictureId != null) {
+            JSONObject jsonObject = new JSONObject();
+            jsonObject.set("t", lastLikeTime);
+            jsonObject.set("id", lastPictureId);
+            pictureVOPage.setNextCursor(Base64.encodeUrlSafe(jsonObject.toString()));
+        }
+        return pictureVOPage;
+    }
+
+    /**
+     * 规范化查询条件：字符串去除首尾空白（空白视为未填写），标签去除空白项并去重
+     * <p>
+     * 缓存 key 和实际查询都基于规范化后的条件，保证同一个缓存 key 对应同一条 SQL
+     */
+    private void normalizePictureQueryRequest(PictureQueryRequest pictureQueryRequest) {
+        pictureQueryRequest.setName(StrUtil.trimToNull(pictureQueryRequest.getName()));
+        pictureQueryRequest.setIntroduction(StrUtil.trimToNull(pictureQueryRequest.getIntroduction()));
+        pictureQueryRequest.setCategory(StrUtil.trimToNull(pictureQueryRequest.getCategory()));
+        pictureQueryRequest.setPicFormat(StrUtil.trimToNull(pictureQueryRequest.getPicFormat()));
+        pictureQueryRequest.setSearchText(StrUtil.trimToNull(pictureQueryRequest.getSearchText()));
+        pictureQueryRequest.setReviewMessage(StrUtil.trimToNull(pictureQueryRequest.getReviewMessage()));
+        pictureQueryRequest.setSortField(StrUtil.trimToNull(pictureQueryRequest.getSortField()));
+        pictureQueryRequest.setSortOrder(StrUtil.blankToDefault(StrUtil.trim(pictureQueryRequest.getSortOrder()), "descend"));
+        List<String> tags = pictureQueryRequest.getTags();
+        if (tags != null) {
+            pictureQueryRequest.setTags(tags.stream()
+                    .map(StrUtil::trimToNull)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * 图片页转封装页（只关联查询用户信息，不包含点赞状态，可以放入缓存；计数不放入缓存，读取缓存后从计数器中填充）
+     */
+    private Page<PictureVO> getCacheablePictureVOPage(Page<Picture> picturePage) {
+        Page<PictureVO> pictureVOPage = new Page<>(picturePage.getCurrent(), picturePage.getSize(), picturePage.getTotal());
+        List<PictureVO> pictureVOList = picturePage.getRecords().stream()
+                .map(PictureVO::objToVo)
+                .collect(Collectors.toList());
+        // 计数变化频繁，不放入缓存，读取缓存后从计数器中填充
+        pictureVOList.forEach(pictureVO -> {
+            pictureVO.setViewCount(null);
+            pictureVO.setDownloadCount(null);
+            pictureVO.setShareCount(null);
+            pictureVO.setLikeCount(null);
+        });
+        VoBatchLoader loader = voBatchLoaderManager.getLoader(null);
+        pictureVOList.forEach(pictureVO -> loader.enqueueUser(pictureVO.getUserId()));
+        pictureVOList.forEach(pictureVO -> pictureVO.setUser(userService.getUserVO(loader.getUser(pictureVO.getUserId()))));
+        pictureVOPage.setRecords(pictureVOList);
+        return pictureVOPage;
+    }
+
+    /**
+     * 图片页转卡片封装页（只关联查询用户昵称和头像，不包含点赞状态，可以放入缓存）
+     */
+    private Page<PictureCardVO> getPictureCardVOPage(Page<Picture> picturePage) {
+        Page<PictureCardVO> pictureCardVOPage = new Page<>(picturePage.getCurrent(), picturePage.getSize(), picturePage.getTotal());
+        List<PictureCardVO> pictureCardVOList = picturePage.getRecords().stream()
+                .map(PictureCardVO::objToVo)
+                .collect(Collectors.toList());
+        VoBatchLoader loader = voBatchLoaderManager.getLoader(null);
+        pictureCardVOList.forEach(pictureCardVO -> loader.enqueueUser(pictureCardVO.getUserId()));
+        pictureCardVOList.forEach(pictureCardVO -> {
+            User user = loader.getUser(pictureCardVO.getUserId());
+            if (user != null) {
+                pictureCardVO.setUserName(user.getUserName());
+                pictureCardVO.setUserAvatar(user.getUserAvatar());
+            }
+        });
+        pictureCardVOPage.setRecords(pictureCardVOList);
+        return pictureCardVOPage;
+    }
+
+    /**
+     * 分页查询公共图库的图片
+     * <p>
+     * 首页默认查询（按创建时间倒序、没有其他筛选条件）直接从物化索引中截取 id，再批量回表；
+     * 其他查询或索引不可用时走数据库
+     *
+     * @param cardView 是否只查询卡片视图需要的字段
+     */
+    private Page<Picture> pagePublicPicture(PictureQueryRequest pictureQueryRequest, boolean cardView) {
+        long current = pictureQueryRequest.getCurrent();
+        long size = pictureQueryRequest.getPageSize();
+        if (this.isDefaultPublicFeedQuery(pictureQueryRequest) && publicPictureFeedManager.isReady()) {
+            try {
+                Page<Picture> picturePage = new Page<>(current, size, publicPictureFeedManager.count());
+                List<Long> pictureIdList = publicPictureFeedManager.listPictureIds(current, size);
+                if (CollUtil.isNotEmpty(pictureIdList)) {
+                    // 一次批量查询，再按索引中的顺序排列
+                    List<Picture> pictureList = cardView
+                            ? this.list(new QueryWrapper<Picture>().select(PICTURE_CARD_COLUMNS).in("id", pictureIdList))
+                            : this.listByIds(pictureIdList);
+                    Map<Long, Picture> pictureMap = pictureList.stream()
+                            .collect(Collectors.toMap(Picture::getId, picture -> picture));
+                    picturePage.setRecords(pictureIdList.stream()
+                            .map(pictureMap::get)
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toList()));
+                }
+                return picturePage;
+            } catch (Exception e) {
+                log.error("read public picture feed error, fallback to database", e);
+            }
         }
-        Picture oldPicture = this.getById(pictureId);
-        // 如果是更新图片，需要校验图片是否存在
-        if (pictureId != null) {
-            boolean exists = this.lambdaQuery()
-                    .eq(Picture::getId, pictureId)
-                    .exists();
-            ThrowUtils.throwIf(!exists, ErrorCode.NOT_FOUND_ERROR, "图片不存在");
+        QueryWrapper<Picture> queryWrapper = this.getQueryWrapper(pictureQueryRequest);
+        if (cardView) {
+            queryWrapper.select(PICTURE_CARD_COLUMNS);
         }
-        // 上传图片，得到信息
-        // 按照用户 id 划分目录
-        PictureUploadTemplate pictureUploadTemplate = filePictureUpload;
-        String uploadPathPrefix = String.format("avatar/%s", loginUser.getId());
-        UploadPictureResult uploadPictureResult = pictureUploadTemplate.uploadPicture(inputSource, uploadPathPrefix);
-        // 构造要入库的图片信息
-        Picture picture = new Picture();
-        picture.setUrl(uploadPictureResult.getUrl());
-        picture.setName(uploadPictureResult.getPicName());
-        picture.setPicSize(uploadPictureResult.getPicSize());
-        picture.setPicWidth(uploadPictureResult.getPicWidth());
-        picture.setPicHeight(uploadPictureResult.getPicHeight());
-        picture.setPicScale(uploadPictureResult.getPicScale());
-        picture.setPicFormat(uploadPictureResult.getPicFormat());
-        picture.setUserId(loginUser.getId());
-        picture.setThumbnailUrl(uploadPictureResult.getThumbnailUrl());
-        // 如果 pictureId 不为空，表示更新，否则是新增
-        if (pictureId != null) {
-            // 如果是更新，需要补充 id 和编辑时间
-            picture.setId(pictureId);
-            picture.setEditTime(new Date());
-            this.clearPictureFile(oldPicture);
+        return this.page(new Page<>(current, size), queryWrapper);
+    }
+
+    /**
+     * 是否为首页默认查询：公共图库、审核通过、按创建时间倒序，且没有其他筛选条件
+     */
+    private boolean isDefaultPublicFeedQuery(PictureQueryRequest pictureQueryRequest) {
+        if (!pictureQueryRequest.isNullSpaceId()
+                || !ObjUtil.equals(PictureReviewStatusEnum.PASS.getValue(), pictureQueryRequest.getReviewStatus())
+                || !PictureSortFieldEnum.CREATE_TIME.getValue().equals(pictureQueryRequest.getSortField())
+                || !"descend".equals(pictureQueryRequest.getSortOrder())) {
+            return false;
         }
-        boolean result = this.saveOrUpdate(picture);
-        // 从数据库中删除这个图片
-        if(result) {
-            this.removeById(picture.getId());
+        return BeanUtil.beanToMap(pictureQueryRequest, false, true).entrySet().stream()
+                .allMatch(entry -> PUBLIC_FEED_QUERY_FIELDS.contains(entry.getKey()) || ObjUtil.isEmpty(entry.getValue()));
+    }
+
+    @Override
+    public void invalidatePictureFeedCache(Picture picture) {
+        // 只有公共图库的图片会出现在缓存的列表中
+        if (picture == null || picture.getSpaceId() != null) {
+            return;
         }
-        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "图片上传失败");
-        return PictureVO.objToVo(picture);
+        this.invalidateAllPictureFeedCache();
     }
 
+    @Override
+    public void invalidateAllPictureFeedCache() {
+        multiLevelCacheManager.bumpVersion(PICTURE_FEED_CACHE_NAMESPACE);
+    }
 
+    /**
+     * 游标分页获取图片列表
+     * <p>
+     * 以 (排序字段, id) 作为游标，用 WHERE 条件跳过已读数据，不使用 OFFSET，也不执行 COUNT
+     */
     @Override
-    public PictureVO getPictureVO(Picture picture, HttpServletRequest request) {
-        // 对象转封装类
-        PictureVO pictureVO = PictureVO.objToVo(picture);
-        // 关联查询用户信息
-        Long userId = picture.getUserId();
-        if (userId != null && userId > 0) {
-            User user = userService.getById(userId);
-            UserVO userVO = userService.getUserVO(user);
-            pictureVO.setUser(userVO);
-        }
-        // 设置 isLiked 字段
-        try {
-            User loginUser = userService.getLoginUser(request);
-            boolean liked = false;
-            if (loginUser != null) {
-                liked = pictureLikeService.lambdaQuery()
-                        .eq(com.steve.cloudpicturebackend.model.entity.PictureLike::getUserId, loginUser.getId())
-                        .eq(com.steve.cloudpicturebackend.model.entity.PictureLike::getPictureId, picture.getId())
-                        .exists();
-            }
-            pictureVO.setIsLiked(liked);
-        } catch (Exception ignored) {
-            pictureVO.setIsLiked(false);
+    public CursorPage<Picture> listPictureByCursor(PictureQueryRequest pictureQueryRequest) {
+        ThrowUtils.throwIf(pictureQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        int size = pictureQueryRequest.getPageSize();
+        ThrowUtils.throwIf(size <= 0, ErrorCode.PARAMS_ERROR);
+        // 构造查询条件（同时完成排序字段的白名单校验）
+        QueryWrapper<Picture> queryWrapper = this.buildQueryWrapper(pictureQueryRequest, false);
+        String sortField = pictureQueryRequest.getSortField();
+        String sortOrder = pictureQueryRequest.getSortOrder();
+        boolean isAsc = "ascend".equals(sortOrder);
+        // 未指定排序字段时按 id 排序
+        PictureSortFieldEnum sortFieldEnum = PictureSortFieldEnum.getEnumByValue(sortField);
+        if (sortFieldEnum == null) {
+            sortFieldEnum = PictureSortFieldEnum.ID;
+            queryWrapper.orderBy(true, isAsc, "id");
+        } else if (sortFieldEnum != PictureSortFieldEnum.ID) {
+            // 追加 id 作为第二排序键，保证排序结果唯一
+            queryWrapper.orderBy(true, isAsc, "id");
         }
-        return pictureVO;
+        // 拼接游标条件
+        String cursor = pictureQueryRequest.getCursor();
+        if (StrUtil.isNotBlank(cursor)) {
+            PictureCursor pictureCursor = decodeCursor(cursor, sortFieldEnum, isAsc);
+            fillCursorCondition(queryWrapper, sortFieldEnum, isAsc, pictureCursor);
+        }
+        // 多查一条，用于判断是否还有下一页
+        queryWrapper.last("LIMIT " + (size + 1));
+        List<Picture> pictureList = this.list(queryWrapper);
+        boolean hasMore = pictureList.size() > size;
+        if (hasMore) {
+            pictureList = new ArrayList<>(pictureList.subList(0, size));
+        }
+        CursorPage<Picture> picturePage = new CursorPage<>(size);
+        picturePage.setRecords(pictureList);
+        picturePage.setHasMore(hasMore);
+        if (hasMore) {
+            Picture lastPicture = pictureList.get(pictureList.size() - 1);
+            picturePage.setNextCursor(encodeCursor(sortFieldEnum, isAsc, lastPicture));
+        }
+        return picturePage;
     }
 
     /**
-     * 分页获取图片封装
+     * 游标分页获取图片封装
      */
     @Override
-    public Page<PictureVO> getPictureVOPage(Page<Picture> picturePage, HttpServletRequest request) {
+    public CursorPage<PictureVO> getPictureVOCursorPage(CursorPage<Picture> picturePage, HttpServletRequest request) {
+        CursorPage<PictureVO> pictureVOPage = new CursorPage<>(picturePage.getSize());
+        pictureVOPage.setHasMore(picturePage.isHasMore());
+        pictureVOPage.setNextCursor(picturePage.getNextCursor());
         List<Picture> pictureList = picturePage.getRecords();
-        Page<PictureVO> pictureVOPage = new Page<>(picturePage.getCurrent(), picturePage.getSize(), picturePage.getTotal());
         if (CollUtil.isEmpty(pictureList)) {
             return pictureVOPage;
         }
+        pictureVOPage.setRecords(this.getPictureVOList(pictureList, request));
+        return pictureVOPage;
+    }
+
+    /**
+     * 图片列表转封装类列表（关联查询用户信息和点赞状态）
+     *
+     * @param pictureList 图片列表
+     * @param request     请求
+     */
+    private List<PictureVO> getPictureVOList(List<Picture> pictureList, HttpServletRequest request) {
         // 对象列表 => 封装对象列表
         List<PictureVO> pictureVOList = pictureList.stream()
                 .map(PictureVO::objToVo)
                 .collect(Collectors.toList());
-        // 1. 关联查询用户信息
-        Set<Long> userIdSet = pictureList.stream().map(Picture::getUserId).collect(Collectors.toSet());
-        Map<Long, List<User>> userIdUserListMap = userService.listByIds(userIdSet).stream()
-                .collect(Collectors.groupingBy(User::getId));
-        // 2. 填充信息
+        this.fillPictureVOList(pictureVOList, request);
+        return pictureVOList;
+    }
+
+    /**
+     * 填充封装类的关联信息：所有用户和点赞状态先入队，再由批量加载器各用一次查询取回
+     *
+     * @param pictureVOList 图片封装类列表
+     * @param request       请求
+     */
+    private void fillPictureVOList(List<PictureVO> pictureVOList, HttpServletRequest request) {
+        VoBatchLoader loader = voBatchLoaderManager.getLoader(request);
+        pictureVOList.forEach(pictureVO -> {
+            loader.enqueueUser(pictureVO.getUserId());
+            loader.enqueuePictureLike(pictureVO.getId());
+        });
+        pictureVOList.forEach(pictureVO -> {
+            pictureVO.setUser(userService.getUserVO(loader.getUser(pictureVO.getUserId())));
+            pictureVO.setIsLiked(loader.isPictureLiked(pictureVO.getId()));
+        });
+        this.fillPictureCounts(pictureVOList);
+    }
+
+    /**
+     * 填充计数：加上尚未落库的增量（下载、分享、点赞、浏览先写入缓冲，异步落库），并查询独立访客数
+     *
+     * @param pictureVOList 图片封装类列表
+     */
+    private void fillPictureCounts(List<PictureVO> pictureVOList) {
+        if (CollUtil.isEmpty(pictureVOList)) {
+            return;
+        }
+        List<Long> pictureIdList = pictureVOList.stream().map(PictureVO::getId).collect(Collectors.toList());
+        Map<PictureCounterTypeEnum, Map<Long, Long>> pendingDeltaMap = pictureCounterManager.getPendingDeltas(pictureIdList);
+        Map<Long, Long> uniqueViewCountMap = pictureViewManager.countUniqueViews(pictureIdList);
+        pictureVOList.forEach(pictureVO -> {
+            Long pictureId = pictureVO.getId();
+            pictureVO.setViewCount(mergeCount(pictureVO.getViewCount(), pendingDeltaMap.get(PictureCounterTypeEnum.VIEW), pictureId));
+            pictureVO.setUniqueViewCount(uniqueViewCountMap.getOrDefault(pictureId, 0L));
+            pictureVO.setDownloadCount(mergeCount(pictureVO.getDownloadCount(), pendingDeltaMap.get(PictureCounterTypeEnum.DOWNLOAD), pictureId));
+            pictureVO.setShareCount(mergeCount(pictureVO.getShareCount(), pendingDeltaMap.get(PictureCounterTypeEnum.SHARE), pictureId));
+            pictureVO.setLikeCount(mergeCount(pictureVO.getLikeCount(), pendingDeltaMap.get(PictureCounterTypeEnum.LIKE), pictureId));
+        });
+    }
+
+    /**
+     * 填充缓存页面中图片的计数（缓存中不保存计数，从计数器中读取已落库的基数加上尚未落库的增量）
+     *
+     * @param pictureVOList 从缓存中读取的图片封装类列表
+     */
+    private void fillCachedPictureCounts(List<PictureVO> pictureVOList) {
+        if (CollUtil.isEmpty(pictureVOList)) {
+            return;
+        }
+        List<Long> pictureIdList = pictureVOList.stream().map(PictureVO::getId).collect(Collectors.toList());
+        Map<PictureCounterTypeEnum, Map<Long, Long>> countMap = pictureCounterManager.getCounts(pictureIdList);
+        Map<Long, Long> uniqueViewCountMap = pictureViewManager.countUniqueViews(pictureIdList);
         pictureVOList.forEach(pictureVO -> {
-            Long userId = pictureVO.getUserId();
-            User user = null;
-            if (userIdUserListMap.containsKey(userId)) {
-                user = userIdUserListMap.get(userId).get(0);
+            Long pictureId = pictureVO.getId();
+            pictureVO.setViewCount(getStoredCount(countMap.get(PictureCounterTypeEnum.VIEW), pictureId));
+            pictureVO.setUniqueViewCount(uniqueViewCountMap.getOrDefault(pictureId, 0L));
+            pictureVO.setDownloadCount(getStoredCount(countMap.get(PictureCounterTypeEnum.DOWNLOAD), pictureId));
+            pictureVO.setShareCount(getStoredCount(countMap.get(PictureCounterTypeEnum.SHARE), pictureId));
+            pictureVO.setLikeCount(getStoredCount(countMap.get(PictureCounterTypeEnum.LIKE), pictureId));
+        });
+    }
+
+    /**
+     * 填充缓存页面中图片卡片的计数（原因同 fillCachedPictureCounts）
+     *
+     * @param pictureCardVOList 从缓存中读取的图片卡片封装类列表
+     */
+    private void fillCachedPictureCardCounts(List<PictureCardVO> pictureCardVOList) {
+        if (CollUtil.isEmpty(pictureCardVOList)) {
+            return;
+        }
+        Map<PictureCounterTypeEnum, Map<Long, Long>> countMap = pictureCounterManager.getCounts(
+                pictureCardVOList.stream().map(PictureCardVO::getId).collect(Collectors.toList()));
+        pictureCardVOList.forEach(pictureCardVO -> {
+            Long pictureId = pictureCardVO.getId();
+            pictureCardVO.setDownloadCount(getStoredCount(countMap.get(PictureCounterTypeEnum.DOWNLOAD), pictureId));
+            pictureCardVO.setShareCount(getStoredCount(countMap.get(PictureCounterTypeEnum.SHARE), pictureId));
+            pictureCardVO.setLikeCount(getStoredCount(countMap.get(PictureCounterTypeEnum.LIKE), pictureId));
+        });
+    }
+
+    private static Integer getStoredCount(Map<Long, Long> countMap, Long pictureId) {
+        return countMap.getOrDefault(pictureId, 0L).intValue();
+    }
+
+    /**
+     * 卡片封装类的计数加上尚未落库的增量
+     *
+     * @param pictureCardVOList 图片卡片封装类列表
+     */
+    private void mergePendingCardCounts(List<PictureCardVO> pictureCardVOList) {
+        if (CollUtil.isEmpty(pictureCardVOList)) {
+            return;
+        }
+        Map<PictureCounterTypeEnum, Map<Long, Long>> pendingDeltaMap = pictureCounterManager.getPendingDeltas(
+                pictureCardVOList.stream().map(PictureCardVO::getId).collect(Collectors.toList()));
+        pictureCardVOList.forEach(pictureCardVO -> {
+            Long pictureId = pictureCardVO.getId();
+            pictureCardVO.setDownloadCount(mergeCount(pictureCardVO.getDownloadCount(), pendingDeltaMap.get(PictureCounterTypeEnum.DOWNLOAD), pictureId));
+            pictureCardVO.setShareCount(mergeCount(pictureCardVO.getShareCount(), pendingDeltaMap.get(PictureCounterTypeEnum.SHARE), pictureId));
+            pictureCardVO.setLikeCount(mergeCount(pictureCardVO.getLikeCount(), pendingDeltaMap.get(PictureCounterTypeEnum.LIKE), pictureId));
+        });
+    }
+
+    private static Integer mergeCount(Integer count, Map<Long, Long> deltaMap, Long pictureId) {
+        Long delta = deltaMap == null ? null : deltaMap.get(pictureId);
+        if (delta == null) {
+            return count;
+        }
+        return (int) Math.max(0, (count == null ? 0 : count) + delta);
+    }
+
+    /**
+     * 填充当前用户的点赞状态（用于从缓存中读取的、与用户无关的封装类）
+     *
+     * @param pictureVOList 图片封装类列表
+     * @param request       请求
+     */
+    private void fillPictureLikeStatus(List<PictureVO> pictureVOList, HttpServletRequest request) {
+        if (CollUtil.isEmpty(pictureVOList)) {
+            return;
+        }
+        VoBatchLoader loader = voBatchLoaderManager.getLoader(request);
+        pictureVOList.forEach(pictureVO -> loader.enqueuePictureLike(pictureVO.getId()));
+        pictureVOList.forEach(pictureVO -> pictureVO.setIsLiked(loader.isPictureLiked(pictureVO.getId())));
+    }
+
+    /**
+     * 拼接游标条件，MySQL 中 NULL 在升序时排最前、降序时排最后
+     *
+     * @param queryWrapper  查询条件
+     * @param sortFieldEnum 排序字段
+     * @param isAsc         是否升序
+     * @param pictureCursor 游标
+     */
+    private void fillCursorCondition(QueryWrapper<Picture> queryWrapper, PictureSortFieldEnum sortFieldEnum,
+                                     boolean isAsc, PictureCursor pictureCursor) {
+        Long lastId = pictureCursor.getId();
+        if (sortFieldEnum == PictureSortFieldEnum.ID) {
+            queryWrapper.gt(isAsc, "id", lastId);
+            queryWrapper.lt(!isAsc, "id", lastId);
+            return;
+        }
+        String column = sortFieldEnum.getValue();
+        Object lastValue = pictureCursor.getValue();
+        if (isAsc) {
+            if (lastValue == null) {
+                // (column IS NULL AND id > lastId) OR column IS NOT NULL
+                queryWrapper.and(qw -> qw.and(q -> q.isNull(column).gt("id", lastId))
+                        .or()
+                        .isNotNull(column));
+            } else {
+                // column > lastValue OR (column = lastValue AND id > lastId)
+                queryWrapper.and(qw -> qw.gt(column, lastValue)
+                        .or(q -> q.eq(column, lastValue).gt("id", lastId)));
             }
-            pictureVO.setUser(userService.getUserVO(user));
-            // 设置 isLiked 字段
-            try {
-                User loginUser = userService.getLoginUser(request);
-                boolean liked = false;
-                if (loginUser != null) {
-                    liked = pictureLikeService.lambdaQuery()
-                            .eq(com.steve.cloudpicturebackend.model.entity.PictureLike::getUserId, loginUser.getId())
-                            .eq(com.steve.cloudpicturebackend.model.entity.PictureLike::getPictureId, pictureVO.getId())
-                            .exists();
-                }
-                pictureVO.setIsLiked(liked);
-            } catch (Exception ignored) {
-                pictureVO.setIsLiked(false);
+        } else {
+            if (lastValue == null) {
+                // column IS NULL AND id < lastId
+                queryWrapper.isNull(column).lt("id", lastId);
+            } else {
+                // column < lastValue OR (column = lastValue AND id < lastId) OR column IS NULL
+                queryWrapper.and(qw -> qw.lt(column, lastValue)
+                        .or(q -> q.eq(column, lastValue).lt("id", lastId))
+                        .or()
+                        .isNull(column));
             }
-        });
-        pictureVOPage.setRecords(pictureVOList);
-        return pictureVOPage;
+        }
+    }
+
+    /**
+     * 将最后一条记录的排序键编码为游标
+     */
+    private String encodeCursor(PictureSortFieldEnum sortFieldEnum, boolean isAsc, Picture lastPicture) {
+        Object value = sortFieldEnum.getGetter().apply(lastPicture);
+        if (value instanceof Date) {
+            value = ((Date) value).getTime();
+        }
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.set("f", sortFieldEnum.getValue());
+        jsonObject.set("o", isAsc ? "ascend" : "descend");
+        jsonObject.set("v", value);
+        jsonObject.set("id", lastPicture.getId());
+        return Base64.encodeUrlSafe(jsonObject.toString());
+    }
+
+    /**
+     * 解析游标，并校验游标与当前排序条件是否一致
+     */
+    private PictureCursor decodeCursor(String cursor, PictureSortFieldEnum sortFieldEnum, boolean isAsc) {
+        JSONObject jsonObject;
+        try {
+            jsonObject = JSONUtil.parseObj(Base64.decodeStr(cursor));
+        } catch (Exception e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标不合法");
+        }
+        String sortField = jsonObject.getStr("f");
+        String sortOrder = jsonObject.getStr("o");
+        Long id = jsonObject.getLong("id");
+        ThrowUtils.throwIf(id == null, ErrorCode.PARAMS_ERROR, "游标不合法");
+        ThrowUtils.throwIf(!sortFieldEnum.getValue().equals(sortField) || !(isAsc ? "ascend" : "descend").equals(sortOrder),
+                ErrorCode.PARAMS_ERROR, "游标与排序条件不一致");
+        Object rawValue = jsonObject.get("v");
+        Object value = null;
+        if (rawValue != null) {
+            if (Date.class.equals(sortFieldEnum.getType())) {
+                value = new Date(Convert.toLong(rawValue));
+            } else {
+                value = Convert.convert(sortFieldEnum.getType(), rawValue);
+            }
+        }
+        PictureCursor pictureCursor = new PictureCursor();
+        pictureCursor.setValue(value);
+        pictureCursor.setId(id);
+        return pictureCursor;
     }
 
+    /**
+     * 游标：最后一条记录的排序键和 id
+     */
+    @Data
+    private static class PictureCursor {
+
+        private Object value;
+
+        private Long id;
+    }
 
     @Override
     public QueryWrapper<Picture> getQueryWrapper(PictureQueryRequest pictureQueryRequest) {
+        return this.buildQueryWrapper(pictureQueryRequest, true);
+    }
+
+    /**
+     * 构造查询条件
+     *
+     * @param pictureQueryRequest 图片查询请求
+     * @param rankBySearch        未指定排序字段时，是否按全文检索的相关度排序（游标分页需要稳定的排序键，不能使用）
+     */
+    private QueryWrapper<Picture> buildQueryWrapper(PictureQueryRequest pictureQueryRequest, boolean rankBySearch) {
         QueryWrapper<Picture> queryWrapper = new QueryWrapper<>();
         if (pictureQueryRequest == null) {
             return queryWrapper;
@@ -397,6 +1520,15 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         boolean nullSpaceId = pictureQueryRequest.isNullSpaceId();
         String sortField = pictureQueryRequest.getSortField();
         String sortOrder = pictureQueryRequest.getSortOrder();
+        // 全文检索：先通过倒排索引召回候选图片，下方的 LIKE 条件只在候选图片中做精确过滤
+        List<Long> searchPictureIdList = this.searchPictureIdList(pictureQueryRequest, queryWrapper);
+        if (searchPictureIdList != null) {
+            if (searchPictureIdList.isEmpty()) {
+                queryWrapper.apply("1 = 0");
+            } else {
+                queryWrapper.in("id", searchPictureIdList);
+            }
+        }
         // 从多字段中搜索
         if (StrUtil.isNotBlank(searchText)) {
             // 需要拼接查询条件
@@ -425,18 +1557,126 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         queryWrapper.ge(ObjUtil.isNotEmpty(startEditTime), "editTime", startEditTime);
         //< endEditTime
         queryWrapper.lt(ObjUtil.isNotEmpty(endEditTime), "editTime", endEditTime);
-        // JSON 数组查询
+        // 标签查询：通过标签索引求交集，替代对 JSON 列的 LIKE 扫描
         if (CollUtil.isNotEmpty(tags)) {
-            /* and (tag like "%\"Java\"%" or tag like "%\"Python\"%") */
-            for (String tag : tags) {
-                queryWrapper.like("tags", "\"" + tag + "\"");
-            }
+            this.applyTagCondition(queryWrapper, tags, spaceId, nullSpaceId);
+        }
+        // 排序（仅允许白名单中的字段）
+        if (StrUtil.isNotEmpty(sortField)) {
+            ThrowUtils.throwIf(PictureSortFieldEnum.getEnumByValue(sortField) == null, ErrorCode.PARAMS_ERROR, "排序字段不合法");
         }
-        // 排序
         queryWrapper.orderBy(StrUtil.isNotEmpty(sortField), sortOrder.equals("ascend"), sortField);
+        // 未指定排序字段时按相关度排序（id 均为数字，可以直接拼接）
+        if (rankBySearch && StrUtil.isEmpty(sortField) && CollUtil.isNotEmpty(searchPictureIdList)) {
+            queryWrapper.last("ORDER BY FIELD(id, " + StrUtil.join(",", searchPictureIdList) + ")");
+        }
         return queryWrapper;
     }
 
+    /**
+     * 拼接标签查询条件（需要同时带有全部标签）
+     * <p>
+     * 限定了空间或公共图库时直接对该范围的位图求交集；查询全部空间时使用关系表做半连接。
+     * 标签索引首次全量重建之前缺少存量图片，按 JSON 列 LIKE 查询
+     */
+    private void applyTagCondition(QueryWrapper<Picture> queryWrapper, List<String> tags, Long spaceId, boolean nullSpaceId) {
+        List<String> tagList = PictureTagIndexManager.distinctTags(tags);
+        if (tagList.isEmpty()) {
+            return;
+        }
+        if (!pictureTagIndexManager.isReady()) {
+            for (String tag : tagList) {
+                queryWrapper.like("tags", "\"" + tag + "\"");
+            }
+            return;
+        }
+        List<Long> tagIdList = pictureTagIndexManager.getTagIds(tagList);
+        // 有标签不存在，不可能命中任何图片
+        if (tagIdList == null) {
+            queryWrapper.apply("1 = 0");
+            return;
+        }
+        if (spaceId != null || nullSpaceId) {
+            Roaring64NavigableMap bitmap = pictureTagIndexManager.intersect(spaceId, tagIdList);
+            if (bitmap.isEmpty()) {
+                queryWrapper.apply("1 = 0");
+                return;
+            }
+            if (bitmap.getLongCardinality() <= TAG_BITMAP_IN_LIMIT) {
+                List<Long> pictureIdList = new ArrayList<>();
+                bitmap.forEach(pictureIdList::add);
+                queryWrapper.in("id", pictureIdList);
+                return;
+            }
+        }
+        // 标签 id 均为数字，可以直接拼接
+        queryWrapper.inSql("id", "SELECT pictureId FROM picture_tag_relation WHERE tagId IN ("
+                + StrUtil.join(",", tagIdList) + ") GROUP BY pictureId HAVING COUNT(DISTINCT tagId) = " + tagIdList.size());
+    }
+
+    /**
+     * 通过倒排索引检索 searchText、name、introduction，多个条件之间取交集，按相关度之和排序
+     * <p>
+     * 任一条件命中的图片超过召回上限时，截断后的候选集会漏掉真实结果，此时不再召回 id，
+     * 而是在 queryWrapper 上拼接倒排索引的半连接条件，由数据库完成分页和计数（不按相关度排序）
+     *
+     * @param queryWrapper 图片查询条件
+     * @return 命中的图片 id（按相关度倒序）；没有全文检索条件、索引尚未构建、查询词无法分词或已拼接半连接条件时返回 null
+     */
+    private List<Long> searchPictureIdList(PictureQueryRequest pictureQueryRequest, QueryWrapper<Picture> queryWrapper) {
+        // 检索文本 => 检索字段
+        List<String> textList = new ArrayList<>();
+        List<List<PictureSearchFieldEnum>> fieldListList = new ArrayList<>();
+        if (StrUtil.isNotBlank(pictureQueryRequest.getSearchText())) {
+            textList.add(pictureQueryRequest.getSearchText());
+            fieldListList.add(Arrays.asList(PictureSearchFieldEnum.NAME, PictureSearchFieldEnum.INTRODUCTION));
+        }
+        if (StrUtil.isNotBlank(pictureQueryRequest.getName())) {
+            textList.add(pictureQueryRequest.getName());
+            fieldListList.add(Collections.singletonList(PictureSearchFieldEnum.NAME));
+        }
+        if (StrUtil.isNotBlank(pictureQueryRequest.getIntroduction())) {
+            textList.add(pictureQueryRequest.getIntroduction());
+            fieldListList.add(Collections.singletonList(PictureSearchFieldEnum.INTRODUCTION));
+        }
+        // 索引首次全量重建之前缺少存量图片，只使用 LIKE 条件
+        if (textList.isEmpty() || !pictureSearchManager.isReady()) {
+            return null;
+        }
+        Map<Long, Integer> scoreMap = null;
+        for (int i = 0; i < textList.size(); i++) {
+            // 多取一条，用于判断候选集是否被截断
+            LinkedHashMap<Long, Integer> result = pictureSearchManager.search(textList.get(i), fieldListList.get(i),
+                    pictureQueryRequest.getSpaceId(), pictureQueryRequest.isNullSpaceId(), SEARCH_CANDIDATE_LIMIT + 1);
+            // 无法分词的条件交给 LIKE 处理
+            if (result == null) {
+                continue;
+            }
+            if (result.size() > SEARCH_CANDIDATE_LIMIT) {
+                for (int j = 0; j < textList.size(); j++) {
+                    pictureSearchManager.applySearchCondition(queryWrapper, textList.get(j), fieldListList.get(j),
+                            pictureQueryRequest.getSpaceId(), pictureQueryRequest.isNullSpaceId());
+                }
+                return null;
+            }
+            if (scoreMap == null) {
+                scoreMap = result;
+            } else {
+                Map<Long, Integer> finalScoreMap = scoreMap;
+                scoreMap = result.entrySet().stream()
+                        .filter(entry -> finalScoreMap.containsKey(entry.getKey()))
+                        .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue() + finalScoreMap.get(entry.getKey())));
+            }
+        }
+        if (scoreMap == null) {
+            return null;
+        }
+        return scoreMap.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public void doPictureReview(PictureReviewRequest pictureReviewRequest, User loginUser) {
         // 1. 校验参数
@@ -449,7 +1689,7 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
             throw new BusinessException(ErrorCode.PARAMS_ERROR);
         }
         // 2. 判断图片是否存在
-        Picture oldPicture = this.getById(id);
+        Picture oldPicture = this.getPictureFromDb(id);
         ThrowUtils.throwIf(oldPicture == null, ErrorCode.NOT_FOUND_ERROR);
         // 3. 校验审核状态是否重复
         if (oldPicture.getReviewStatus().equals(reviewStatus)) {
@@ -462,6 +1702,10 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         newPicture.setReviewTime(new Date());
         boolean result = this.updateById(newPicture);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        publicPictureFeedManager.syncPicture(id, oldPicture.getSpaceId(), reviewStatus, oldPicture.getCreateTime());
+        this.invalidatePictureFeedCache(oldPicture);
+        pictureEventPublisher.publish(PictureEventTypeEnum.REVIEW, id, oldPicture.getSpaceId(), reviewStatus,
+                loginUser.getId(), 1, null);
     }
 
     /**
@@ -571,43 +1815,138 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         return uploadCount;
     }
 
-    @Async
     @Override
     public void clearPictureFile(Picture oldPicture) {
-        // 判断该图片是否被多条记录引用
+        // 释放该图片对文件的引用，仍被其他图片引用时不能删除
         String pictureUrl = oldPicture.getUrl();
-        long count = this.lambdaQuery()
-                .eq(Picture::getUrl, pictureUrl)
-                .count();
-        // 不止一条记录引用，不能删除
-        if (count > 1) {
+        long remaining = pictureFileManager.release(pictureUrl);
+        if (remaining == PictureFileManager.NOT_INDEXED) {
+            // 不在索引中的旧文件：按 url 统计其他记录的引用（调用时当前记录已删除或已改用新文件）
+            remaining = this.lambdaQuery()
+                    .eq(Picture::getUrl, pictureUrl)
+                    .count();
+        }
+        if (remaining > 0) {
             return;
         }
-        // 从URL中提取key
-        String pictureKey = extractKeyFromUrl(pictureUrl);
-        // 删除原始图片
-        cosManager.deleteObject(pictureKey);
+        List<String> keyList = getPictureFileKeys(oldPicture);
+        // 在事务中调用时（替换图片），等事务提交后再删除文件
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    storageClient.deleteObjects(keyList);
+                    log.info("清理图片文件完成，keys: {}", keyList);
+                }
+            });
+            return;
+        }
+        storageClient.deleteObjects(keyList);
+        log.info("清理图片文件完成，keys: {}", keyList);
+    }
 
-        // 删除webp格式的图片
+    /**
+     * 获取图片在对象存储中的全部文件：原图、webp 压缩图、缩略图，以及可能存在的原图缩略图
+     *
+     * @param picture 图片
+     * @return 对象 key
+     */
+    private List<String> getPictureFileKeys(Picture picture) {
+        List<String> keyList = new ArrayList<>();
+        // 从URL中提取key
+        String pictureKey = extractKeyFromUrl(picture.getUrl());
+        if (StrUtil.isBlank(pictureKey)) {
+            return keyList;
+        }
+        keyList.add(pictureKey);
+        // webp格式的图片
         String mainName = FileUtil.mainName(pictureKey);
-        String webpKey = mainName + ".webp";
-        cosManager.deleteObject(webpKey);
-
-        // 删除缩略图
-        String thumbnailUrl = oldPicture.getThumbnailUrl();
+        keyList.add(mainName + ".webp");
+        // 缩略图
+        String thumbnailUrl = picture.getThumbnailUrl();
         if (StrUtil.isNotBlank(thumbnailUrl)) {
-            String thumbnailKey = extractKeyFromUrl(thumbnailUrl);
-            cosManager.deleteObject(thumbnailKey);
+            keyList.add(extractKeyFromUrl(thumbnailUrl));
         }
-
-        // 删除可能存在的原始图片的缩略图
+        // 可能存在的原始图片的缩略图
         String suffix = FileUtil.getSuffix(pictureKey);
         if (StrUtil.isNotBlank(suffix)) {
-            String thumbnailKey = mainName + "_thumbnail." + suffix;
-            cosManager.deleteObject(thumbnailKey);
+            keyList.add(mainName + "_thumbnail." + suffix);
         }
+        return keyList;
+    }
 
-        log.info("清理图片文件完成，原始key: {}, webp key: {}", pictureKey, webpKey);
+    /**
+     * 分批删除空间下的图片
+     * <p>
+     * 先批量删除对象存储中的文件，再在一个事务中删除记录和索引。中途失败时整批重试即可：删除文件是幂等的，
+     * 记录未删除时下次还会查到这一批。仍被本批之外的图片引用的文件跳过（最后一条引用被删除时再清理）。
+     * 在内容哈希索引中的文件与记录在同一事务中释放引用，引用数减到 0 的文件在事务提交后删除
+     */
+    @Override
+    public List<Long> removeSpacePictureBatch(Long spaceId, long lastPictureId, int batchSize, Long userId) {
+        ThrowUtils.throwIf(spaceId == null, ErrorCode.PARAMS_ERROR);
+        List<Picture> pictureList = this.lambdaQuery()
+                .eq(Picture::getSpaceId, spaceId)
+                .gt(Picture::getId, lastPictureId)
+                .orderByAsc(Picture::getId)
+                .last("LIMIT " + batchSize)
+                .list();
+        if (CollUtil.isEmpty(pictureList)) {
+            return new ArrayList<>();
+        }
+        List<Long> pictureIdList = pictureList.stream().map(Picture::getId).collect(Collectors.toList());
+        // 本批中每个文件被引用的次数，区分在索引中的文件和旧文件
+        Map<String, Long> urlCountMap = pictureList.stream()
+                .map(Picture::getUrl)
+                .filter(StrUtil::isNotBlank)
+                .collect(Collectors.groupingBy(url -> url, Collectors.counting()));
+        Set<String> indexedUrlSet = pictureFileManager.listIndexedUrls(urlCountMap.keySet());
+        // 旧文件：一次查询找出仍被其他图片引用的文件
+        Set<String> urlSet = new HashSet<>(urlCountMap.keySet());
+        urlSet.removeAll(indexedUrlSet);
+        Set<String> sharedUrlSet = new HashSet<>();
+        if (!urlSet.isEmpty()) {
+            sharedUrlSet = this.lambdaQuery()
+                    .select(Picture::getUrl)
+                    .in(Picture::getUrl, urlSet)
+                    .notIn(Picture::getId, pictureIdList)
+                    .list()
+                    .stream()
+                    .map(Picture::getUrl)
+                    .collect(Collectors.toSet());
+        }
+        List<String> keyList = new ArrayList<>();
+        for (Picture picture : pictureList) {
+            if (urlSet.contains(picture.getUrl()) && !sharedUrlSet.contains(picture.getUrl())) {
+                keyList.addAll(getPictureFileKeys(picture));
+            }
+        }
+        storageClient.deleteObjects(keyList);
+        List<String> releasedKeyList = transactionTemplate.execute(status -> {
+            super.removeByIds(pictureIdList);
+            pictureSearchManager.removePictures(pictureIdList);
+            pictureTagIndexManager.removePictures(pictureIdList);
+            List<String> releasedKeys = new ArrayList<>();
+            Set<String> releasedUrlSet = new HashSet<>();
+            for (Picture picture : pictureList) {
+                String url = picture.getUrl();
+                if (!indexedUrlSet.contains(url) || !releasedUrlSet.add(url)) {
+                    continue;
+                }
+                if (pictureFileManager.release(url, urlCountMap.get(url)) == 0) {
+                    releasedKeys.addAll(getPictureFileKeys(picture));
+                }
+            }
+            return releasedKeys;
+        });
+        if (CollUtil.isNotEmpty(releasedKeyList)) {
+            storageClient.deleteObjects(releasedKeyList);
+        }
+        for (Picture picture : pictureList) {
+            this.evictPictureCache(picture.getId());
+            pictureEventPublisher.publish(PictureEventTypeEnum.DELETE, picture, userId);
+        }
+        return pictureIdList;
     }
 
     /**
@@ -621,7 +1960,7 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         ThrowUtils.throwIf(pictureId <= 0, ErrorCode.PARAMS_ERROR);
         ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
         // 判断是否存在
-        Picture oldPicture = this.getById(pictureId);
+        Picture oldPicture = this.getPictureFromDb(pictureId);
         ThrowUtils.throwIf(oldPicture == null, ErrorCode.NOT_FOUND_ERROR);
         // 校验权限
         // 已改为使用注解鉴权
@@ -634,16 +1973,14 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
             // 释放额度
             Long spaceId = oldPicture.getSpaceId();
             if (spaceId != null) {
-                boolean update = spaceService.lambdaUpdate()
-                        .eq(Space::getId, spaceId)
-                        .setSql("totalSize = totalSize - " + oldPicture.getPicSize())
-                        .setSql("totalCount = totalCount - 1")
-                        .update();
-                ThrowUtils.throwIf(!update, ErrorCode.OPERATION_ERROR, "额度更新失败");
+                spaceUsageManager.addUsage(spaceId, -ObjUtil.defaultIfNull(oldPicture.getPicSize(), 0L), -1);
             }
             return true;
         });
-        // 异步清理文件
+        publicPictureFeedManager.removePicture(pictureId);
+        this.invalidatePictureFeedCache(oldPicture);
+        pictureEventPublisher.publish(PictureEventTypeEnum.DELETE, oldPicture, loginUser.getId());
+        // 清理文件（仍被其他图片引用时只释放引用）
         this.clearPictureFile(oldPicture);
     }
 
@@ -659,14 +1996,14 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         Picture picture = new Picture();
         BeanUtils.copyProperties(pictureEditRequest, picture);
         // 注意将 list 转为 string
-        picture.setTags(JSONUtil.toJsonStr(pictureEditRequest.getTags()));
+        picture.setTags(PictureTagsJsonUtils.toJson(pictureEditRequest.getTags()));
         // 设置编辑时间
         picture.setEditTime(new Date());
         // 数据校验
         this.validPicture(picture);
         // 判断是否存在
         long id = pictureEditRequest.getId();
-        Picture oldPicture = this.getById(id);
+        Picture oldPicture = this.getPictureFromDb(id);
         ThrowUtils.throwIf(oldPicture == null, ErrorCode.NOT_FOUND_ERROR);
         // 校验权限
         // 已改为使用注解鉴权
@@ -676,6 +2013,10 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         // 操作数据库
         boolean result = this.updateById(picture);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        publicPictureFeedManager.syncPicture(id, oldPicture.getSpaceId(), picture.getReviewStatus(), oldPicture.getCreateTime());
+        this.invalidatePictureFeedCache(oldPicture);
+        pictureEventPublisher.publish(PictureEventTypeEnum.EDIT, id, oldPicture.getSpaceId(), picture.getReviewStatus(),
+                loginUser.getId(), 1, null);
     }
 
 
@@ -708,7 +2049,7 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         ThrowUtils.throwIf(spaceId == null || StrUtil.isBlank(picColor), ErrorCode.PARAMS_ERROR);
         ThrowUtils.throwIf(loginUser == null, ErrorCode.NO_AUTH_ERROR);
         // 2. 校验空间权限
-        Space space = spaceService.getById(spaceId);
+        Space space = spaceService.getByIdFromDb(spaceId);
         ThrowUtils.throwIf(space == null, ErrorCode.NOT_FOUND_ERROR, "空间不存在");
         if (!space.getUserId().equals(loginUser.getId())) {
             throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "没有空间访问权限");
@@ -763,7 +2104,7 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         ThrowUtils.throwIf(spaceId == null, ErrorCode.PARAMS_ERROR);
         ThrowUtils.throwIf(loginUser == null, ErrorCode.PARAMS_ERROR);
         // 2. 校验空间权限
-        Space space = spaceService.getById(spaceId);
+        Space space = spaceService.getByIdFromDb(spaceId);
         ThrowUtils.throwIf(space == null, ErrorCode.NOT_FOUND_ERROR, "空间不存在");
         if (!space.getUserId().equals(loginUser.getId())) {
             throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "没有空间访问权限");
@@ -783,7 +2124,7 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
                 picture.setCategory(category);
             }
             if (CollUtil.isNotEmpty(tags)) {
-                picture.setTags(JSONUtil.toJsonStr(tags));
+                picture.setTags(PictureTagsJsonUtils.toJson(tags));
             }
         });
         // 批量重命名
@@ -792,6 +2133,7 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         // 5. 操作数据库
         boolean result = this.updateBatchById(pictureList);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "批量编辑失败");
+        pictureList.forEach(picture -> pictureEventPublisher.publish(PictureEventTypeEnum.EDIT, picture, loginUser.getId()));
 
     }
 
@@ -834,14 +2176,11 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         Picture picture = this.getById(pictureId);
         ThrowUtils.throwIf(picture == null, ErrorCode.NOT_FOUND_ERROR, "图片不存在");
 
-        // 更新点赞次数
-        boolean result = this.lambdaUpdate()
-                .eq(Picture::getId, pictureId)
-                .setSql("downloadCount = IFNULL(downloadCount, 0) + 1")
-                .update();
-        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "下载失败");
-        PictureVO pictureVO;
-        pictureVO = PictureVO.objToVo(picture);
+        // 更新下载次数（写入计数缓冲，异步批量落库）
+        pictureCounterManager.increment(pictureId, PictureCounterTypeEnum.DOWNLOAD, 1);
+        pictureEventPublisher.publish(PictureEventTypeEnum.DOWNLOAD, picture, loginUser.getId());
+        PictureVO pictureVO = PictureVO.objToVo(picture);
+        this.fillPictureCounts(Collections.singletonList(pictureVO));
         log.info("用户 {} 下载了图片 {}", loginUser.getId(), pictureId);
         return pictureVO;
     }
@@ -866,15 +2205,11 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         Picture picture = this.getById(pictureId);
         ThrowUtils.throwIf(picture == null, ErrorCode.NOT_FOUND_ERROR, "图片不存在");
 
-        // 更新分享次数
-        boolean result = this.lambdaUpdate()
-                .eq(Picture::getId, pictureId)
-                .setSql("shareCount = IFNULL(shareCount, 0) + 1")
-                .update();
-
-        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "分享失败");
-        PictureVO pictureVO;
-        pictureVO = PictureVO.objToVo(picture);
+        // 更新分享次数（写入计数缓冲，异步批量落库）
+        pictureCounterManager.increment(pictureId, PictureCounterTypeEnum.SHARE, 1);
+        pictureEventPublisher.publish(PictureEventTypeEnum.SHARE, picture, loginUser.getId());
+        PictureVO pictureVO = PictureVO.objToVo(picture);
+        this.fillPictureCounts(Collections.singletonList(pictureVO));
         log.info("用户 {} 分享了图片 {}", loginUser.getId(), pictureId);
         return pictureVO;
     }
@@ -886,24 +2221,12 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         // 检查图片是否存在
         Picture picture = this.getById(pictureId);
         ThrowUtils.throwIf(picture == null, ErrorCode.NOT_FOUND_ERROR, "图片不存在");
-        // 检查是否已点赞
-        boolean alreadyLiked = pictureLikeService.lambdaQuery()
-                .eq(PictureLike::getUserId, loginUser.getId())
-                .eq(PictureLike::getPictureId, pictureId)
-                .exists();
-        ThrowUtils.throwIf(alreadyLiked, ErrorCode.OPERATION_ERROR, "请勿重复点赞");
-        // 新增点赞记录
-        PictureLike like = new PictureLike();
-        like.setUserId(loginUser.getId());
-        like.setPictureId(pictureId);
-        like.setCreateTime(new java.util.Date());
-        boolean save = pictureLikeService.save(like);
-        ThrowUtils.throwIf(!save, ErrorCode.OPERATION_ERROR, "点赞失败");
-        // 更新图片点赞数
-        this.lambdaUpdate()
-                .eq(Picture::getId, pictureId)
-                .setSql("likeCount = IFNULL(likeCount, 0) + 1")
-                .update();
+        // 原子切换点赞状态（点赞记录异步写回数据库）
+        boolean liked = pictureLikeManager.like(loginUser.getId(), pictureId);
+        ThrowUtils.throwIf(!liked, ErrorCode.OPERATION_ERROR, "请勿重复点赞");
+        // 更新图片点赞数（写入计数缓冲，异步批量落库）
+        pictureCounterManager.increment(pictureId, PictureCounterTypeEnum.LIKE, 1);
+        pictureEventPublisher.publish(PictureEventTypeEnum.LIKE, picture, loginUser.getId());
     }
 
     @Override
@@ -913,20 +2236,12 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
         // 检查图片是否存在
         Picture picture = this.getById(pictureId);
         ThrowUtils.throwIf(picture == null, ErrorCode.NOT_FOUND_ERROR, "图片不存在");
-        // 检查是否已点赞
-        PictureLike like = pictureLikeService.lambdaQuery()
-                .eq(PictureLike::getUserId, loginUser.getId())
-                .eq(PictureLike::getPictureId, pictureId)
-                .one();
-        ThrowUtils.throwIf(like == null, ErrorCode.OPERATION_ERROR, "未点赞无法取消");
-        // 删除点赞记录
-        boolean remove = pictureLikeService.removeById(like.getId());
-        ThrowUtils.throwIf(!remove, ErrorCode.OPERATION_ERROR, "取消点赞失败");
-        // 更新图片点赞数
-        this.lambdaUpdate()
-                .eq(Picture::getId, pictureId)
-                .setSql("likeCount = IFNULL(likeCount, 1) - 1")
-                .update();
+        // 原子切换点赞状态（点赞记录异步写回数据库）
+        boolean unliked = pictureLikeManager.unlike(loginUser.getId(), pictureId);
+        ThrowUtils.throwIf(!unliked, ErrorCode.OPERATION_ERROR, "未点赞无法取消");
+        // 更新图片点赞数（写入计数缓冲，异步批量落库）
+        pictureCounterManager.increment(pictureId, PictureCounterTypeEnum.LIKE, -1);
+        pictureEventPublisher.publish(PictureEventTypeEnum.LIKE, picture, loginUser.getId(), -1);
     }
 
 
@@ -954,20 +2269,15 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture>
 
 
     /**
-     * 从完整的COS URL中提取对象key
-     * 例如：从 https://stevecp1-1364043722.cos.ap-beijing.myqcloud.com/public/1/test.jpg
+     * 从图片的访问地址中提取对象key
+     * 例如：从 https://bucket.cos.ap-beijing.myqcloud.com/public/1/test.jpg
      * 提取出 public/1/test.jpg
      *
-     * @param url 完整的COS URL
+     * @param url 图片的访问地址
      * @return 对象key
      */
     private String extractKeyFromUrl(String url) {
-        if (StrUtil.isBlank(url)) {
-            return "";
-        }
-        // 移除域名部分，获取key
-        String host = "https://stevecp1-1364043722.cos.ap-beijing.myqcloud.com/";
-        return url.replace(host, "");
+        return storageClient.getKeyFromUrl(url);
     }
 
     @Override
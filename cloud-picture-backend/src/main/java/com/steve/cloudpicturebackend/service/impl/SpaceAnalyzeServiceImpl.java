@@ -1,13 +1,17 @@
 package com.steve.cloudpicturebackend.service.impl;
 
+import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.NumberUtil;
 import cn.hutool.core.util.ObjUtil;
-import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.steve.cloudpicturebackend.exception.BusinessException;
 import com.steve.cloudpicturebackend.exception.ErrorCode;
 import com.steve.cloudpicturebackend.exception.ThrowUtils;
+import com.steve.cloudpicturebackend.manager.space.SpaceUsage;
+import com.steve.cloudpicturebackend.manager.space.SpaceUsageManager;
+import com.steve.cloudpicturebackend.manager.tag.PictureTagIndexManager;
+import com.steve.cloudpicturebackend.manager.view.PictureViewManager;
 import com.steve.cloudpicturebackend.mapper.SpaceMapper;
 import com.steve.cloudpicturebackend.model.dto.space.analyze.*;
 import com.steve.cloudpicturebackend.model.entity.Picture;
@@ -40,6 +44,15 @@ public class SpaceAnalyzeServiceImpl extends ServiceImpl<SpaceMapper, Space>
     @Resource
     PictureService pictureService;
 
+    @Resource
+    PictureTagIndexManager pictureTagIndexManager;
+
+    @Resource
+    PictureViewManager pictureViewManager;
+
+    @Resource
+    SpaceUsageManager spaceUsageManager;
+
     @Override
     public SpaceUsageAnalyzeResponse getSpaceUsageAnalyze(SpaceUsageAnalyzeRequest spaceUsageAnalyzeRequest, User loginUser) {
         // 校验参数
@@ -76,14 +89,16 @@ public class SpaceAnalyzeServiceImpl extends ServiceImpl<SpaceMapper, Space>
             // 权限校验，仅管理员可以访问
             checkSpaceAnalyzeAuth(spaceUsageAnalyzeRequest, loginUser);
             // 封装返回结果
+            SpaceUsage spaceUsage = spaceUsageManager.getUsage(space);
+            ThrowUtils.throwIf(spaceUsage == null, ErrorCode.NOT_FOUND_ERROR, "空间不存在");
             SpaceUsageAnalyzeResponse spaceUsageAnalyzeResponse = new SpaceUsageAnalyzeResponse();
-            spaceUsageAnalyzeResponse.setUsedSize(space.getTotalSize());
-            spaceUsageAnalyzeResponse.setUsedCount(space.getTotalCount());
+            spaceUsageAnalyzeResponse.setUsedSize(spaceUsage.getTotalSize());
+            spaceUsageAnalyzeResponse.setUsedCount(spaceUsage.getTotalCount());
             spaceUsageAnalyzeResponse.setMaxSize(space.getMaxSize());
             spaceUsageAnalyzeResponse.setMaxCount(space.getMaxCount());
             // 计算比例
-            double sizeUsageRatio = NumberUtil.round(space.getTotalSize() * 100.0/ space.getMaxSize(), 2).doubleValue();
-            double countUsageRatio = NumberUtil.round(space.getTotalCount() * 100.0/ space.getMaxCount(), 2).doubleValue();
+            double sizeUsageRatio = NumberUtil.round(spaceUsage.getTotalSize() * 100.0/ space.getMaxSize(), 2).doubleValue();
+            double countUsageRatio = NumberUtil.round(spaceUsage.getTotalCount() * 100.0/ space.getMaxCount(), 2).doubleValue();
             spaceUsageAnalyzeResponse.setSizeUsageRatio(sizeUsageRatio);
             spaceUsageAnalyzeResponse.setCountUsageRatio(countUsageRatio);
             return spaceUsageAnalyzeResponse;
@@ -117,19 +132,17 @@ public class SpaceAnalyzeServiceImpl extends ServiceImpl<SpaceMapper, Space>
         ThrowUtils.throwIf(spaceTagAnalyzeRequest == null, ErrorCode.PARAMS_ERROR);
         // 校验权限
         checkSpaceAnalyzeAuth(spaceTagAnalyzeRequest, loginUser);
-        // 构造查询条件
-        QueryWrapper<Picture> queryWrapper = new QueryWrapper<>();
-        fillAnalyzeQueryWrapper(spaceTagAnalyzeRequest, queryWrapper);
-        // 查询所有符合条件的标签
-        queryWrapper.select("tags");
-        List<String> tagsJsonList = pictureService.getBaseMapper().selectObjs(queryWrapper).stream()
-                .filter(ObjUtil::isNotNull)
-                .map(Object::toString)
-                .collect(Collectors.toList());
-        // 解析标签并统计
-        Map<String, Long> tagCountMap = tagsJsonList.stream()
-                .flatMap(tagsJson -> JSONUtil.toList(tagsJson, String.class).stream())
-                .collect(Collectors.groupingBy(tag -> tag, Collectors.counting()));
+        // 从标签索引中统计各标签的图片数量
+        Map<String, Long> tagCountMap;
+        if (spaceTagAnalyzeRequest.isQueryAll()) {
+            tagCountMap = pictureTagIndexManager.countTags(null, true);
+        } else if (spaceTagAnalyzeRequest.isQueryPublic()) {
+            tagCountMap = pictureTagIndexManager.countTags(null, false);
+        } else {
+            Long spaceId = spaceTagAnalyzeRequest.getSpaceId();
+            ThrowUtils.throwIf(spaceId == null, ErrorCode.PARAMS_ERROR, "未指定查询范围");
+            tagCountMap = pictureTagIndexManager.countTags(spaceId, false);
+        }
         // 转化为响应对象，按照使用次数进行排序
         return tagCountMap.entrySet().stream()
                 // 降序排序
@@ -209,6 +222,33 @@ public class SpaceAnalyzeServiceImpl extends ServiceImpl<SpaceMapper, Space>
                 }).collect(Collectors.toList());
     }
 
+    @Override
+    public SpaceViewAnalyzeResponse getSpaceViewAnalyze(SpaceViewAnalyzeRequest spaceViewAnalyzeRequest, User loginUser) {
+        ThrowUtils.throwIf(spaceViewAnalyzeRequest == null, ErrorCode.PARAMS_ERROR);
+        // 校验权限
+        checkSpaceAnalyzeAuth(spaceViewAnalyzeRequest, loginUser);
+        // 构造查询条件
+        QueryWrapper<Picture> queryWrapper = new QueryWrapper<>();
+        fillAnalyzeQueryWrapper(spaceViewAnalyzeRequest, queryWrapper);
+        // 浏览次数来自已落库的计数（计数缓冲每隔几秒落库一次），直接由数据库求和
+        queryWrapper.select("COALESCE(SUM(viewCount), 0) AS totalViewCount");
+        List<Object> sumList = pictureService.getBaseMapper().selectObjs(queryWrapper);
+        long totalViewCount = CollUtil.isEmpty(sumList) || sumList.get(0) == null ? 0 : ((Number) sumList.get(0)).longValue();
+        // 独立访客数合并各图片的 HyperLogLog，图片 id 按主键分批读取
+        long uniqueViewCount = pictureViewManager.countTotalUniqueViews(lastId -> {
+            QueryWrapper<Picture> idQueryWrapper = new QueryWrapper<>();
+            fillAnalyzeQueryWrapper(spaceViewAnalyzeRequest, idQueryWrapper);
+            idQueryWrapper.select("id")
+                    .gt("id", lastId)
+                    .orderByAsc("id")
+                    .last("LIMIT " + PictureViewManager.MERGE_BATCH_SIZE);
+            return pictureService.getBaseMapper().selectObjs(idQueryWrapper).stream()
+                    .map(obj -> ((Number) obj).longValue())
+                    .collect(Collectors.toList());
+        });
+        return new SpaceViewAnalyzeResponse(totalViewCount, uniqueViewCount);
+    }
+
     @Override
     public List<Space> getSpaceRankAnalyze(SpaceRankAnalyzeRequest spaceRankAnalyzeRequest, User loginUser) {
         ThrowUtils.throwIf(spaceRankAnalyzeRequest == null, ErrorCode.PARAMS_ERROR);
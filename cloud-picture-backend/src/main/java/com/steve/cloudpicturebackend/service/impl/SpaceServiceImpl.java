@@ -1,6 +1,7 @@
 package com.steve.cloudpicturebackend.service.impl;
 
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.convert.Convert;
 import cn.hutool.core.util.ObjUtil;
 import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
@@ -9,28 +10,40 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.steve.cloudpicturebackend.exception.BusinessException;
 import com.steve.cloudpicturebackend.exception.ErrorCode;
 import com.steve.cloudpicturebackend.exception.ThrowUtils;
+import com.steve.cloudpicturebackend.manager.cache.EntityCacheManager;
+import com.steve.cloudpicturebackend.manager.lock.DistributedLock;
+import com.steve.cloudpicturebackend.manager.lock.DistributedLockManager;
+import com.steve.cloudpicturebackend.manager.loader.VoBatchLoader;
+import com.steve.cloudpicturebackend.manager.loader.VoBatchLoaderManager;
+import com.steve.cloudpicturebackend.manager.space.SpaceDeleteManager;
+import com.steve.cloudpicturebackend.manager.space.SpaceUsage;
+import com.steve.cloudpicturebackend.manager.space.SpaceUsageManager;
 import com.steve.cloudpicturebackend.model.dto.space.SpaceAddRequest;
 import com.steve.cloudpicturebackend.model.dto.space.SpaceQueryRequest;
 import com.steve.cloudpicturebackend.model.entity.Space;
+import com.steve.cloudpicturebackend.model.entity.SpaceDeleteTask;
 import com.steve.cloudpicturebackend.model.entity.SpaceUser;
 import com.steve.cloudpicturebackend.model.entity.User;
 import com.steve.cloudpicturebackend.model.enums.SpaceLevelEnum;
 import com.steve.cloudpicturebackend.model.enums.SpaceRoleEnum;
+import com.steve.cloudpicturebackend.model.enums.SpaceStatusEnum;
 import com.steve.cloudpicturebackend.model.enums.SpaceTypeEnum;
 import com.steve.cloudpicturebackend.model.vo.SpaceVO;
-import com.steve.cloudpicturebackend.model.vo.UserVO;
+import com.steve.cloudpicturebackend.model.vo.space.SpaceDeleteProgressVO;
 import com.steve.cloudpicturebackend.service.SpaceService;
 import com.steve.cloudpicturebackend.mapper.SpaceMapper;
 import com.steve.cloudpicturebackend.service.SpaceUserService;
 import com.steve.cloudpicturebackend.service.UserService;
 import org.springframework.beans.BeanUtils;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import java.io.Serializable;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -42,8 +55,6 @@ import java.util.stream.Collectors;
 public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, Space>
         implements SpaceService {
 
-    Map<Long, Object> lockMap = new ConcurrentHashMap<>();
-
     @Resource
     private UserService userService;
 
@@ -53,10 +64,80 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, Space>
     @Resource
     private SpaceUserService spaceUserService;
 
+    @Resource
+    private EntityCacheManager entityCacheManager;
+
+    @Resource
+    private VoBatchLoaderManager voBatchLoaderManager;
+
+    @Resource
+    private SpaceUsageManager spaceUsageManager;
+
+    @Resource
+    private DistributedLockManager distributedLockManager;
+
+    @Resource
+    private SpaceDeleteManager spaceDeleteManager;
+
+    /**
+     * 空间实体的缓存命名空间
+     */
+    private static final String SPACE_ENTITY_CACHE_NAMESPACE = "space";
+
 //    @Resource
 //    @Lazy
 //    private DynamicShardingManager dynamicShardingManager;
 
+    // region 实体缓存
+
+    /**
+     * 根据 id 获取空间（读穿透缓存）
+     */
+    @Override
+    public Space getById(Serializable id) {
+        if (id == null) {
+            return null;
+        }
+        return entityCacheManager.get(SPACE_ENTITY_CACHE_NAMESPACE, Convert.toLong(id), Space.class,
+                spaceId -> super.getById(spaceId));
+    }
+
+    @Override
+    public boolean updateById(Space entity) {
+        boolean result = super.updateById(entity);
+        this.evictSpaceCache(entity.getId());
+        return result;
+    }
+
+    @Override
+    public boolean saveOrUpdate(Space entity) {
+        boolean result = super.saveOrUpdate(entity);
+        this.evictSpaceCache(entity.getId());
+        return result;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        this.evictSpaceCache(Convert.toLong(id));
+        return result;
+    }
+
+    @Override
+    public void evictSpaceCache(Long spaceId) {
+        entityCacheManager.evict(SPACE_ENTITY_CACHE_NAMESPACE, spaceId);
+    }
+
+    @Override
+    public Space getByIdFromDb(Long spaceId) {
+        if (spaceId == null) {
+            return null;
+        }
+        return super.getById(spaceId);
+    }
+
+    // endregion
+
     /**
      * 创建空间
      *
@@ -89,38 +170,41 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, Space>
             throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "非管理员只能创建普通级别的空间");
         }
         // 4. 控制同一用户只能创建一个私有空间，以及一个团队空间
-        Object lock = lockMap.computeIfAbsent(userId, key -> new Object());
-        synchronized (lock) {
-            try {
-                Long newSpaceId = transactionTemplate.execute(status -> {
-                    // 查询是否已经创建了空间
-                    boolean exists = this.lambdaQuery()
-                            .eq(Space::getUserId, userId)
-                            .eq(Space::getSpaceType, space.getSpaceType())
-                            .exists();
-                    // 如果有就不能再创建
-                    ThrowUtils.throwIf(exists, ErrorCode.OPERATION_ERROR, "该用户已经创建了该类型的空间");
-                    // 创建
-                    boolean result = this.save(space);
-                    ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "创建空间失败");
-                    // 创建成功后，如果是团队空间，关联新增团队成员记录
-                    if (SpaceTypeEnum.TEAM.getValue() == space.getSpaceType()) {
-                        SpaceUser spaceUser = new SpaceUser();
-                        spaceUser.setSpaceId(space.getId());
-                        spaceUser.setUserId(userId);
-                        spaceUser.setSpaceRole(SpaceRoleEnum.ADMIN.getValue());
-                        result = spaceUserService.save(spaceUser);
-                        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "创建团队成员记录失败");
-                    }
-//                    // 创建分表，仅对团队空间生效（暂时不使用）
-//                    dynamicShardingManager.createSpacePictureTable(space);
-                    // 返回空间ID
-                    return space.getId();
-                });
-                return Optional.ofNullable(newSpaceId).orElse(-1L);
-            } finally {
-                lockMap.remove(userId);
-            }
+        // 分布式锁只用于减少并发请求的冲突，由唯一索引 uk_userId_activeSpaceType 保证同一类型只有一个未删除的空间
+        DistributedLock lock = distributedLockManager.tryLock("space:add:" + userId, 5, TimeUnit.SECONDS);
+        ThrowUtils.throwIf(lock == null, ErrorCode.OPERATION_ERROR, "操作过于频繁，请稍后重试");
+        try {
+            Long newSpaceId = transactionTemplate.execute(status -> {
+                // 查询是否已经创建了空间
+                boolean exists = this.lambdaQuery()
+                        .eq(Space::getUserId, userId)
+                        .eq(Space::getSpaceType, space.getSpaceType())
+                        .exists();
+                // 如果有就不能再创建
+                ThrowUtils.throwIf(exists, ErrorCode.OPERATION_ERROR, "该用户已经创建了该类型的空间");
+                // 创建
+                boolean result = this.save(space);
+                ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "创建空间失败");
+                // 创建成功后，如果是团队空间，关联新增团队成员记录
+                if (SpaceTypeEnum.TEAM.getValue() == space.getSpaceType()) {
+                    SpaceUser spaceUser = new SpaceUser();
+                    spaceUser.setSpaceId(space.getId());
+                    spaceUser.setUserId(userId);
+                    spaceUser.setSpaceRole(SpaceRoleEnum.ADMIN.getValue());
+                    result = spaceUserService.save(spaceUser);
+                    ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "创建团队成员记录失败");
+                }
+//                // 创建分表，仅对团队空间生效（暂时不使用）
+//                dynamicShardingManager.createSpacePictureTable(space);
+                // 返回空间ID
+                return space.getId();
+            });
+            return Optional.ofNullable(newSpaceId).orElse(-1L);
+        } catch (DuplicateKeyException e) {
+            // 租约过期等情况下并发创建，由唯一索引拦截
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "该用户已经创建了该类型的空间");
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -158,12 +242,7 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, Space>
         // 对象转封装类
         SpaceVO spaceVO = SpaceVO.objToVo(space);
         // 关联查询用户信息
-        Long userId = space.getUserId();
-        if (userId != null && userId > 0) {
-            User user = userService.getById(userId);
-            UserVO userVO = userService.getUserVO(user);
-            spaceVO.setUser(userVO);
-        }
+        this.fillSpaceVOList(Collections.singletonList(spaceVO), voBatchLoaderManager.getLoader(request));
         return spaceVO;
     }
 
@@ -178,21 +257,32 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, Space>
         List<SpaceVO> spaceVOList = spaceList.stream()
                 .map(SpaceVO::objToVo)
                 .collect(Collectors.toList());
-        // 1. 关联查询用户信息
-        Set<Long> userIdSet = spaceList.stream().map(Space::getUserId).collect(Collectors.toSet());
-        Map<Long, List<User>> userIdUserListMap = userService.listByIds(userIdSet).stream()
-                .collect(Collectors.groupingBy(User::getId));
-        // 2. 填充信息
+        // 关联查询用户信息
+        this.fillSpaceVOList(spaceVOList, voBatchLoaderManager.getLoader(request));
+        spaceVOPage.setRecords(spaceVOList);
+        return spaceVOPage;
+    }
+
+    /**
+     * 填充空间封装类的创建人信息和当前用量（各批量加载，一次查询）
+     *
+     * @param spaceVOList 空间封装类列表
+     * @param loader      批量加载器
+     */
+    private void fillSpaceVOList(List<SpaceVO> spaceVOList, VoBatchLoader loader) {
+        spaceVOList.forEach(spaceVO -> loader.enqueueUser(spaceVO.getUserId()));
+        spaceVOList.forEach(spaceVO -> spaceVO.setUser(userService.getUserVO(loader.getUser(spaceVO.getUserId()))));
+        // space 表中的用量由定时任务合并，需要加上分片计数中尚未合并的增量
+        Map<Long, SpaceUsage> spaceUsageMap = spaceUsageManager.getUsageMap(spaceVOList.stream()
+                .map(SpaceVO::voToObj)
+                .collect(Collectors.toList()));
         spaceVOList.forEach(spaceVO -> {
-            Long userId = spaceVO.getUserId();
-            User user = null;
-            if (userIdUserListMap.containsKey(userId)) {
-                user = userIdUserListMap.get(userId).get(0);
+            SpaceUsage spaceUsage = spaceUsageMap.get(spaceVO.getId());
+            if (spaceUsage != null) {
+                spaceVO.setTotalSize(spaceUsage.getTotalSize());
+                spaceVO.setTotalCount(spaceUsage.getTotalCount());
             }
-            spaceVO.setUser(userService.getUserVO(user));
         });
-        spaceVOPage.setRecords(spaceVOList);
-        return spaceVOPage;
     }
 
     @Override
@@ -302,19 +392,58 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, Space>
         
         // 转换为VO对象
         List<SpaceVO> spaceVOList = allSpaces.stream()
-                .map(space -> {
-                    SpaceVO spaceVO = SpaceVO.objToVo(space);
-                    // 获取空间拥有者信息
-                    User owner = userService.getById(space.getUserId());
-                    if (owner != null) {
-                        spaceVO.setUser(userService.getUserVO(owner));
-                    }
-                    return spaceVO;
-                })
+                .map(SpaceVO::objToVo)
                 .collect(Collectors.toList());
+        // 获取空间拥有者信息
+        this.fillSpaceVOList(spaceVOList, voBatchLoaderManager.getLoader(null));
         
         return spaceVOList;
     }
+
+    /**
+     * 删除空间
+     *
+     * @param spaceId   空间 id
+     * @param loginUser 登录用户
+     */
+    @Override
+    public void deleteSpace(long spaceId, User loginUser) {
+        ThrowUtils.throwIf(spaceId <= 0, ErrorCode.PARAMS_ERROR);
+        // 判断是否存在
+        Space oldSpace = this.getByIdFromDb(spaceId);
+        ThrowUtils.throwIf(oldSpace == null, ErrorCode.NOT_FOUND_ERROR);
+        // 仅本人或管理员可删除
+        this.checkSpaceAuth(loginUser, oldSpace);
+        ThrowUtils.throwIf(ObjUtil.equal(oldSpace.getStatus(), SpaceStatusEnum.DELETING.getValue()),
+                ErrorCode.OPERATION_ERROR, "空间正在删除中");
+        spaceDeleteManager.submit(oldSpace, loginUser.getId());
+    }
+
+    /**
+     * 获取空间的删除进度（删除完成后空间已不存在，按任务的发起人鉴权）
+     *
+     * @param spaceId   空间 id
+     * @param loginUser 登录用户
+     * @return 删除进度
+     */
+    @Override
+    public SpaceDeleteProgressVO getSpaceDeleteProgress(long spaceId, User loginUser) {
+        ThrowUtils.throwIf(spaceId <= 0, ErrorCode.PARAMS_ERROR);
+        SpaceDeleteTask task = spaceDeleteManager.getTask(spaceId);
+        ThrowUtils.throwIf(task == null, ErrorCode.NOT_FOUND_ERROR, "空间未被删除");
+        if (!loginUser.getId().equals(task.getUserId()) && !userService.isAdmin(loginUser)) {
+            this.checkSpaceAuth(loginUser, this.getByIdFromDb(spaceId));
+        }
+        SpaceDeleteProgressVO progressVO = new SpaceDeleteProgressVO();
+        progressVO.setSpaceId(task.getSpaceId());
+        progressVO.setStatus(task.getStatus());
+        progressVO.setTotalCount(task.getTotalCount());
+        progressVO.setDeletedCount(task.getDeletedCount());
+        progressVO.setErrorMessage(task.getErrorMessage());
+        progressVO.setCreateTime(task.getCreateTime());
+        progressVO.setUpdateTime(task.getUpdateTime());
+        return progressVO;
+    }
 }
 
 
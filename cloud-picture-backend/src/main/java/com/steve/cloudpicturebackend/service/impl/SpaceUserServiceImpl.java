@@ -8,6 +8,8 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.steve.cloudpicturebackend.exception.BusinessException;
 import com.steve.cloudpicturebackend.exception.ErrorCode;
 import com.steve.cloudpicturebackend.exception.ThrowUtils;
+import com.steve.cloudpicturebackend.manager.loader.VoBatchLoader;
+import com.steve.cloudpicturebackend.manager.loader.VoBatchLoaderManager;
 import com.steve.cloudpicturebackend.model.dto.spaceuser.SpaceUserAddRequest;
 import com.steve.cloudpicturebackend.model.dto.spaceuser.SpaceUserQueryRequest;
 import com.steve.cloudpicturebackend.model.entity.Space;
@@ -16,7 +18,6 @@ import com.steve.cloudpicturebackend.model.entity.User;
 import com.steve.cloudpicturebackend.model.enums.SpaceRoleEnum;
 import com.steve.cloudpicturebackend.model.vo.SpaceUserVO;
 import com.steve.cloudpicturebackend.model.vo.SpaceVO;
-import com.steve.cloudpicturebackend.model.vo.UserVO;
 import com.steve.cloudpicturebackend.service.SpaceService;
 import com.steve.cloudpicturebackend.service.SpaceUserService;
 import com.steve.cloudpicturebackend.mapper.SpaceUserMapper;
@@ -29,8 +30,6 @@ import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -49,6 +48,9 @@ public class SpaceUserServiceImpl extends ServiceImpl<SpaceUserMapper, SpaceUser
     @Lazy
     private SpaceService spaceService;
 
+    @Resource
+    private VoBatchLoaderManager voBatchLoaderManager;
+
     @Override
     public long addSpaceUser(SpaceUserAddRequest spaceUserAddRequest) {
         // 参数校验
@@ -73,7 +75,7 @@ public class SpaceUserServiceImpl extends ServiceImpl<SpaceUserMapper, SpaceUser
             ThrowUtils.throwIf(ObjectUtil.hasEmpty(spaceId, userId), ErrorCode.PARAMS_ERROR);
             User user = userService.getById(userId);
             ThrowUtils.throwIf(user == null, ErrorCode.NOT_FOUND_ERROR, "用户不存在");
-            Space space = spaceService.getById(spaceId);
+            Space space = spaceService.getByIdFromDb(spaceId);
             ThrowUtils.throwIf(space == null, ErrorCode.NOT_FOUND_ERROR, "空间不存在");
         }
         // 校验空间角色
@@ -89,20 +91,18 @@ public class SpaceUserServiceImpl extends ServiceImpl<SpaceUserMapper, SpaceUser
     public SpaceUserVO getSpaceUserVO(SpaceUser spaceUser, HttpServletRequest request) {
         // 对象转封装类
         SpaceUserVO spaceUserVO = SpaceUserVO.objToVo(spaceUser);
-        // 关联查询用户信息
-        Long userId = spaceUser.getUserId();
-        if (userId != null && userId > 0) {
-            User user = userService.getById(userId);
-            UserVO userVO = userService.getUserVO(user);
-            spaceUserVO.setUser(userVO);
-        }
-        // 关联查询空间信息
-        Long spaceId = spaceUser.getSpaceId();
-        if (spaceId != null && spaceId > 0) {
-            Space space = spaceService.getById(spaceId);
-            SpaceVO spaceVO = spaceService.getSpaceVO(space, request);
+        VoBatchLoader loader = voBatchLoaderManager.getLoader(request);
+        // 关联查询空间信息，空间的创建人和成员用户一起查询
+        loader.enqueueUser(spaceUser.getUserId());
+        Space space = loader.getSpace(spaceUser.getSpaceId());
+        if (space != null) {
+            loader.enqueueUser(space.getUserId());
+            SpaceVO spaceVO = SpaceVO.objToVo(space);
+            spaceVO.setUser(userService.getUserVO(loader.getUser(space.getUserId())));
             spaceUserVO.setSpace(spaceVO);
         }
+        // 关联查询用户信息
+        spaceUserVO.setUser(userService.getUserVO(loader.getUser(spaceUser.getUserId())));
         return spaceUserVO;
     }
 
@@ -116,29 +116,15 @@ public class SpaceUserServiceImpl extends ServiceImpl<SpaceUserMapper, SpaceUser
         // 对象列表 => 封装对象列表
         List<SpaceUserVO> spaceUserVOList = spaceUserList.stream().map(SpaceUserVO::objToVo).collect(Collectors.toList());
         // 1. 收集需要关联查询的用户 ID 和空间 ID
-        Set<Long> userIdSet = spaceUserList.stream().map(SpaceUser::getUserId).collect(Collectors.toSet());
-        Set<Long> spaceIdSet = spaceUserList.stream().map(SpaceUser::getSpaceId).collect(Collectors.toSet());
-        // 2. 批量查询用户和空间
-        Map<Long, List<User>> userIdUserListMap = userService.listByIds(userIdSet).stream()
-                .collect(Collectors.groupingBy(User::getId));
-        Map<Long, List<Space>> spaceIdSpaceListMap = spaceService.listByIds(spaceIdSet).stream()
-                .collect(Collectors.groupingBy(Space::getId));
-        // 3. 填充 SpaceUserVO 的用户和空间信息
+        VoBatchLoader loader = voBatchLoaderManager.getLoader(null);
+        spaceUserList.forEach(spaceUser -> {
+            loader.enqueueUser(spaceUser.getUserId());
+            loader.enqueueSpace(spaceUser.getSpaceId());
+        });
+        // 2. 填充 SpaceUserVO 的用户和空间信息（每种类型各一次批量查询）
         spaceUserVOList.forEach(spaceUserVO -> {
-            Long userId = spaceUserVO.getUserId();
-            Long spaceId = spaceUserVO.getSpaceId();
-            // 填充用户信息
-            User user = null;
-            if (userIdUserListMap.containsKey(userId)) {
-                user = userIdUserListMap.get(userId).get(0);
-            }
-            spaceUserVO.setUser(userService.getUserVO(user));
-            // 填充空间信息
-            Space space = null;
-            if (spaceIdSpaceListMap.containsKey(spaceId)) {
-                space = spaceIdSpaceListMap.get(spaceId).get(0);
-            }
-            spaceUserVO.setSpace(SpaceVO.objToVo(space));
+            spaceUserVO.setUser(userService.getUserVO(loader.getUser(spaceUserVO.getUserId())));
+            spaceUserVO.setSpace(SpaceVO.objToVo(loader.getSpace(spaceUserVO.getSpaceId())));
         });
         return spaceUserVOList;
     }
@@ -0,0 +1,82 @@
+package com.steve.cloudpicturebackend.utils;
+
+import cn.hutool.core.util.StrUtil;
+
+import java.util.*;
+
+/**
+ * 工具类：N-Gram 分词（用于全文检索倒排索引）
+ * <p>
+ * 中文没有空格分隔，按词典分词依赖较重，这里按字切分：
+ * 先用非字母数字字符（空格、标点等）把文本切成片段，索引时每个片段输出单字和相邻双字，
+ * 查询时片段长度为 1 使用单字，否则使用双字。
+ * 任意长度不小于 2 的子串的所有双字都会出现在原文的索引中，因此不会漏召回，
+ * 多召回的结果由调用方再用 LIKE 精确过滤
+ */
+public class NGramTokenizeUtils {
+
+    private NGramTokenizeUtils() {
+        // 工具类不需要实例化
+    }
+
+    /**
+     * 索引分词
+     *
+     * @param text 文本
+     * @return 词 => 出现次数
+     */
+    public static Map<String, Integer> tokenizeForIndex(String text) {
+        Map<String, Integer> tokenCountMap = new HashMap<>();
+        for (int[] segment : splitSegments(text)) {
+            for (int i = 0; i < segment.length; i++) {
+                tokenCountMap.merge(new String(segment, i, 1), 1, Integer::sum);
+                if (i + 1 < segment.length) {
+                    tokenCountMap.merge(new String(segment, i, 2), 1, Integer::sum);
+                }
+            }
+        }
+        return tokenCountMap;
+    }
+
+    /**
+     * 查询分词
+     *
+     * @param text 查询文本
+     * @return 词集合，文本中没有可检索的字符时为空
+     */
+    public static Set<String> tokenizeForQuery(String text) {
+        Set<String> tokenSet = new LinkedHashSet<>();
+        for (int[] segment : splitSegments(text)) {
+            if (segment.length == 1) {
+                tokenSet.add(new String(segment, 0, 1));
+                continue;
+            }
+            for (int i = 0; i + 1 < segment.length; i++) {
+                tokenSet.add(new String(segment, i, 2));
+            }
+        }
+        return tokenSet;
+    }
+
+    /**
+     * 转小写后按非字母数字字符切分成片段（按码点处理，兼容扩展区汉字）
+     */
+    private static List<int[]> splitSegments(String text) {
+        List<int[]> segmentList = new ArrayList<>();
+        if (StrUtil.isBlank(text)) {
+            return segmentList;
+        }
+        int[] codePoints = text.toLowerCase(Locale.ROOT).codePoints().toArray();
+        int start = -1;
+        for (int i = 0; i <= codePoints.length; i++) {
+            boolean isWordChar = i < codePoints.length && Character.isLetterOrDigit(codePoints[i]);
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                segmentList.add(Arrays.copyOfRange(codePoints, start, i));
+                start = -1;
+            }
+        }
+        return segmentList;
+    }
+}
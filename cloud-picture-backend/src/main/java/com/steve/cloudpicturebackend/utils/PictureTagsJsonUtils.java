@@ -0,0 +1,70 @@
+package com.steve.cloudpicturebackend.utils;
+
+import cn.hutool.core.util.StrUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.steve.cloudpicturebackend.exception.BusinessException;
+import com.steve.cloudpicturebackend.exception.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 图片标签（JSON 数组）读写工具类
+ * <p>
+ * 使用共享的 Jackson 读写器，类型信息只解析一次，避免每条数据都构建一遍 JSON 对象树
+ */
+@Slf4j
+public class PictureTagsJsonUtils {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final ObjectReader TAGS_READER = OBJECT_MAPPER.readerFor(new TypeReference<List<String>>() {
+    });
+
+    private static final ObjectWriter TAGS_WRITER = OBJECT_MAPPER.writerFor(new TypeReference<List<String>>() {
+    });
+
+    private PictureTagsJsonUtils() {
+    }
+
+    /**
+     * 解析标签
+     *
+     * @param tagsJson 标签（JSON 数组）
+     * @return 标签列表，为空或格式错误时返回空列表
+     */
+    public static List<String> parseTags(String tagsJson) {
+        if (StrUtil.isBlank(tagsJson)) {
+            return new ArrayList<>();
+        }
+        try {
+            List<String> tagList = TAGS_READER.readValue(tagsJson);
+            return tagList == null ? new ArrayList<>() : tagList;
+        } catch (JsonProcessingException e) {
+            log.warn("parse picture tags error, tags = {}", tagsJson);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 标签转 JSON 数组
+     *
+     * @param tagList 标签列表
+     * @return JSON 数组，标签列表为 null 时返回 null
+     */
+    public static String toJson(List<String> tagList) {
+        if (tagList == null) {
+            return null;
+        }
+        try {
+            return TAGS_WRITER.writeValueAsString(tagList);
+        } catch (JsonProcessingException e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "标签格式错误");
+        }
+    }
+}
@@ -0,0 +1,2 @@
+-- 游标分页索引：公共图库按 spaceId、reviewStatus 过滤后，可直接沿 createTime、id 顺序扫描
+CREATE INDEX idx_spaceId_reviewStatus_createTime ON picture (spaceId, reviewStatus, createTime, id);
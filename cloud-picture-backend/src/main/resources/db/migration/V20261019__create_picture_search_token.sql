@@ -0,0 +1,11 @@
+-- 图片全文检索倒排索引（名称、简介按单字和双字切分）
+CREATE TABLE IF NOT EXISTS picture_search_token (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键',
+    pictureId BIGINT NOT NULL COMMENT '图片ID',
+    spaceId BIGINT NULL COMMENT '空间ID（为空表示公共图库）',
+    field VARCHAR(32) NOT NULL COMMENT '字段：name / introduction',
+    token VARCHAR(8) NOT NULL COMMENT '词（单字或双字）',
+    weight INT DEFAULT 1 NOT NULL COMMENT '权重（出现次数 * 字段权重）',
+    INDEX idx_token_spaceId (token, spaceId, field, pictureId),
+    INDEX idx_pictureId_field (pictureId, field)
+) COMMENT='图片全文检索倒排索引' COLLATE = utf8mb4_unicode_ci;
@@ -0,0 +1,18 @@
+-- 图片标签字典
+CREATE TABLE IF NOT EXISTS picture_tag (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键',
+    tagName VARCHAR(64) NOT NULL COMMENT '标签名称',
+    createTime DATETIME DEFAULT CURRENT_TIMESTAMP NOT NULL COMMENT '创建时间',
+    UNIQUE KEY uk_tagName (tagName)
+) COMMENT='图片标签字典' COLLATE = utf8mb4_unicode_ci;
+
+-- 图片标签关联（按空间和标签加载为图片 id 位图）
+CREATE TABLE IF NOT EXISTS picture_tag_relation (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键',
+    tagId BIGINT NOT NULL COMMENT '标签ID',
+    pictureId BIGINT NOT NULL COMMENT '图片ID',
+    spaceId BIGINT NULL COMMENT '空间ID（为空表示公共图库）',
+    INDEX idx_spaceId_tagId (spaceId, tagId, pictureId),
+    INDEX idx_tagId (tagId, pictureId),
+    INDEX idx_pictureId (pictureId)
+) COMMENT='图片标签关联' COLLATE = utf8mb4_unicode_ci;
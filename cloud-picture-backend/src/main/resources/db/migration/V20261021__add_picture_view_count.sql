@@ -0,0 +1,3 @@
+-- 图片浏览次数（由计数缓冲批量落库，独立访客数保存在 Redis HyperLogLog 中）
+ALTER TABLE picture
+    ADD COLUMN viewCount INT DEFAULT 0 NOT NULL COMMENT '浏览次数' AFTER likeCount;
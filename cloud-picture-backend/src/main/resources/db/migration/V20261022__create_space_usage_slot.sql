@@ -0,0 +1,9 @@
+-- 空间额度的分片计数行：上传、删除图片时随机累加到其中一行，避免并发写入都争抢 space 表中的同一行；
+-- 读取时与 space.totalSize / totalCount 相加，定时任务再把累计值合并回 space 表
+CREATE TABLE IF NOT EXISTS space_usage_slot (
+    spaceId BIGINT NOT NULL COMMENT '空间ID',
+    slot INT NOT NULL COMMENT '分片序号',
+    totalSize BIGINT DEFAULT 0 NOT NULL COMMENT '尚未合并的图片总大小增量',
+    totalCount BIGINT DEFAULT 0 NOT NULL COMMENT '尚未合并的图片数量增量',
+    PRIMARY KEY (spaceId, slot)
+) COMMENT='空间额度分片计数' COLLATE = utf8mb4_unicode_ci;
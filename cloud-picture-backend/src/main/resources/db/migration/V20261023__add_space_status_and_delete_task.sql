@@ -0,0 +1,19 @@
+-- 空间状态：删除空间改为后台分批级联删除，删除期间空间处于“删除中”状态
+ALTER TABLE space
+    ADD COLUMN status INT DEFAULT 0 NOT NULL COMMENT '空间状态：0-正常 1-删除中' AFTER spaceType;
+
+-- 空间级联删除任务（记录进度和断点，进程崩溃后从断点继续）
+CREATE TABLE IF NOT EXISTS space_delete_task (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键',
+    spaceId BIGINT NOT NULL COMMENT '空间ID',
+    userId BIGINT NOT NULL COMMENT '发起删除的用户ID',
+    status INT DEFAULT 0 NOT NULL COMMENT '任务状态：0-进行中 1-已完成',
+    totalCount BIGINT DEFAULT 0 NOT NULL COMMENT '待删除的图片总数（发起时统计）',
+    deletedCount BIGINT DEFAULT 0 NOT NULL COMMENT '已删除的图片数',
+    lastPictureId BIGINT DEFAULT 0 NOT NULL COMMENT '断点：已删除的最大图片ID',
+    errorMessage VARCHAR(512) NULL COMMENT '最近一次失败的原因',
+    createTime DATETIME DEFAULT CURRENT_TIMESTAMP NOT NULL COMMENT '创建时间',
+    updateTime DATETIME DEFAULT CURRENT_TIMESTAMP NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_spaceId (spaceId),
+    INDEX idx_status_updateTime (status, updateTime)
+) COMMENT='空间级联删除任务' COLLATE = utf8mb4_unicode_ci;
@@ -0,0 +1,19 @@
+-- 图片文件的内容哈希索引：相同内容的图片共用对象存储中的同一份文件（原图处理后的压缩图和缩略图），
+-- refCount 为引用该文件的图片记录数，减到 0 时才删除文件
+CREATE TABLE IF NOT EXISTS picture_file (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键',
+    sha256 CHAR(64) NOT NULL COMMENT '原始文件内容的 SHA-256',
+    url VARCHAR(512) NOT NULL COMMENT '图片 url',
+    thumbnailUrl VARCHAR(512) NULL COMMENT '缩略图 url',
+    picSize BIGINT NULL COMMENT '图片体积',
+    picWidth INT NULL COMMENT '图片宽度',
+    picHeight INT NULL COMMENT '图片高度',
+    picScale DOUBLE NULL COMMENT '图片宽高比例',
+    picFormat VARCHAR(32) NULL COMMENT '图片格式',
+    picColor VARCHAR(16) NULL COMMENT '图片主色调',
+    refCount BIGINT DEFAULT 1 NOT NULL COMMENT '引用该文件的图片数',
+    createTime DATETIME DEFAULT CURRENT_TIMESTAMP NOT NULL COMMENT '创建时间',
+    updateTime DATETIME DEFAULT CURRENT_TIMESTAMP NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_sha256 (sha256),
+    UNIQUE KEY uk_url (url)
+) COMMENT='图片文件内容哈希索引' COLLATE = utf8mb4_unicode_ci;
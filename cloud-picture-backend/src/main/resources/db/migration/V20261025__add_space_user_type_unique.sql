@@ -0,0 +1,14 @@
+-- 同一用户每种类型只能有一个未删除的空间：逻辑删除的行 activeSpaceType 为 NULL，不参与唯一约束，删除后可以重新创建
+-- 加唯一约束前先清理已存在的重复空间：每个用户每种类型保留最早创建（id 最小）的空间，其余逻辑删除（数据仍在表中，可以人工恢复或迁移）
+UPDATE space s
+    JOIN (SELECT userId, spaceType, MIN(id) AS keepId
+          FROM space
+          WHERE isDelete = 0
+          GROUP BY userId, spaceType
+          HAVING COUNT(*) > 1) d ON s.userId = d.userId AND s.spaceType = d.spaceType
+SET s.isDelete = 1
+WHERE s.isDelete = 0 AND s.id <> d.keepId;
+
+ALTER TABLE space
+    ADD COLUMN activeSpaceType INT AS (IF(isDelete = 0, spaceType, NULL)) VIRTUAL COMMENT '未删除空间的类型（用于唯一约束）',
+    ADD UNIQUE KEY uk_userId_activeSpaceType (userId, activeSpaceType);
@@ -0,0 +1,2 @@
+-- 批量删除空间图片时按 url 判断文件是否仍被其他图片引用（url IN (...) AND id NOT IN (...)），url 较长，使用前缀索引
+CREATE INDEX idx_url ON picture (url(191));
@@ -0,0 +1,7 @@
+-- 图片计数器已落库的批次：与计数更新在同一个事务中写入，落库后清理 Redis 快照失败时，
+-- 下次按批次号判断是否已经落库，避免同一批增量被重复累加
+CREATE TABLE IF NOT EXISTS picture_counter_flush (
+    batchId VARCHAR(64) NOT NULL PRIMARY KEY COMMENT '批次号',
+    createTime DATETIME DEFAULT CURRENT_TIMESTAMP NOT NULL COMMENT '创建时间',
+    INDEX idx_createTime (createTime)
+) COMMENT='图片计数器已落库批次' COLLATE = utf8mb4_unicode_ci;
@@ -0,0 +1,164 @@
+package com.steve.cloudpicturebackend.benchmark;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.json.JSONUtil;
+import com.steve.cloudpicturebackend.model.entity.Picture;
+import com.steve.cloudpicturebackend.model.entity.Space;
+import com.steve.cloudpicturebackend.model.entity.User;
+import com.steve.cloudpicturebackend.model.vo.PictureVO;
+import com.steve.cloudpicturebackend.model.vo.SpaceVO;
+import com.steve.cloudpicturebackend.model.vo.UserVO;
+import com.steve.cloudpicturebackend.service.impl.UserServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.BeanUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 封装类转换基准测试：对比反射拷贝（旧）与逐字段赋值（新）转换 10000 条数据的耗时
+ * <p>
+ * 运行方式：执行 main 方法，或 mvn test-compile 后通过 org.openjdk.jmh.Main 运行
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VoMappingBenchmark {
+
+    private static final int ENTITY_COUNT = 10000;
+
+    private List<Picture> pictureList;
+
+    private List<Space> spaceList;
+
+    private List<User> userList;
+
+    /**
+     * getUserVO 不依赖其他组件，直接创建实例即可
+     */
+    private final UserServiceImpl userService = new UserServiceImpl();
+
+    @Setup
+    public void setUp() {
+        pictureList = new ArrayList<>(ENTITY_COUNT);
+        spaceList = new ArrayList<>(ENTITY_COUNT);
+        userList = new ArrayList<>(ENTITY_COUNT);
+        Date now = new Date();
+        for (int i = 0; i < ENTITY_COUNT; i++) {
+            Picture picture = new Picture();
+            picture.setId((long) i);
+            picture.setUrl("https://example.com/public/" + i + ".webp");
+            picture.setThumbnailUrl("https://example.com/public/" + i + "_thumbnail.webp");
+            picture.setName("图片" + i);
+            picture.setIntroduction("简介" + i);
+            picture.setCategory("素材");
+            picture.setTags("[\"热门\",\"风景\",\"高清\"]");
+            picture.setPicSize(102400L);
+            picture.setPicWidth(1920);
+            picture.setPicHeight(1080);
+            picture.setPicScale(1.78);
+            picture.setPicFormat("webp");
+            picture.setPicColor("0x336699");
+            picture.setUserId((long) i % 100);
+            picture.setCreateTime(now);
+            picture.setEditTime(now);
+            picture.setUpdateTime(now);
+            picture.setShareCount(i % 10);
+            picture.setDownloadCount(i % 20);
+            picture.setLikeCount(i % 30);
+            pictureList.add(picture);
+
+            Space space = new Space();
+            space.setId((long) i);
+            space.setSpaceName("空间" + i);
+            space.setSpaceLevel(0);
+            space.setSpaceType(0);
+            space.setMaxSize(104857600L);
+            space.setMaxCount(100L);
+            space.setTotalSize(1024L);
+            space.setTotalCount(1L);
+            space.setUserId((long) i);
+            space.setCreateTime(now);
+            space.setEditTime(now);
+            space.setUpdateTime(now);
+            spaceList.add(space);
+
+            User user = new User();
+            user.setId((long) i);
+            user.setUserAccount("user" + i);
+            user.setUserPassword("password");
+            user.setUserName("用户" + i);
+            user.setUserAvatar("https://example.com/avatar/" + i + ".png");
+            user.setUserProfile("个人简介");
+            user.setUserRole("user");
+            user.setCreateTime(now);
+            userList.add(user);
+        }
+    }
+
+    @Benchmark
+    public void pictureReflection(Blackhole blackhole) {
+        for (Picture picture : pictureList) {
+            PictureVO pictureVO = new PictureVO();
+            BeanUtils.copyProperties(picture, pictureVO);
+            pictureVO.setTags(JSONUtil.toList(picture.getTags(), String.class));
+            blackhole.consume(pictureVO);
+        }
+    }
+
+    @Benchmark
+    public void pictureMapper(Blackhole blackhole) {
+        for (Picture picture : pictureList) {
+            blackhole.consume(PictureVO.objToVo(picture));
+        }
+    }
+
+    @Benchmark
+    public void spaceReflection(Blackhole blackhole) {
+        for (Space space : spaceList) {
+            SpaceVO spaceVO = new SpaceVO();
+            BeanUtils.copyProperties(space, spaceVO);
+            blackhole.consume(spaceVO);
+        }
+    }
+
+    @Benchmark
+    public void spaceMapper(Blackhole blackhole) {
+        for (Space space : spaceList) {
+            blackhole.consume(SpaceVO.objToVo(space));
+        }
+    }
+
+    @Benchmark
+    public void userReflection(Blackhole blackhole) {
+        for (User user : userList) {
+            UserVO userVO = new UserVO();
+            BeanUtil.copyProperties(user, userVO);
+            blackhole.consume(userVO);
+        }
+    }
+
+    @Benchmark
+    public void userMapper(Blackhole blackhole) {
+        for (User user : userList) {
+            blackhole.consume(userService.getUserVO(user));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(VoMappingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}